@@ -45,15 +45,19 @@ import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.SupportedProgram;
 import org.openlmis.referencedata.domain.SupportedProgramPrimaryKey;
+import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.testbuilder.ExtraDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicLevelDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -151,6 +155,84 @@ public class FacilityRepositoryIntegrationTest extends BaseCrudRepositoryIntegra
     repository.save(facility);
   }
 
+  @Test
+  public void shouldFindPageOfFacilitiesOrderedByName() {
+    facility.setName("Facility B");
+    facility1.setName("Facility A");
+    repository.save(facility);
+    repository.save(facility1);
+
+    Page<Facility> firstPage = repository
+        .search(null, "Facil", null, null, null, new PageRequest(0, 1));
+    Page<Facility> secondPage = repository
+        .search(null, "Facil", null, null, null, new PageRequest(1, 1));
+
+    assertEquals(2, firstPage.getTotalElements());
+    assertThat(firstPage.getContent(), hasSize(1));
+    assertEquals(facility1.getId(), firstPage.getContent().get(0).getId());
+
+    assertEquals(2, secondPage.getTotalElements());
+    assertThat(secondPage.getContent(), hasSize(1));
+    assertEquals(facility.getId(), secondPage.getContent().get(0).getId());
+  }
+
+  @Test
+  public void shouldFindPageOfFacilitiesOrderedByRequestedSort() {
+    facility.setCode("FAC-A");
+    facility.setName("Facility A");
+    facility1.setCode("FAC-B");
+    facility1.setName("Facility B");
+    repository.save(facility);
+    repository.save(facility1);
+
+    Page<Facility> page = repository.search(null, "Facil", null, null, null,
+        new PageRequest(0, 2, new Sort(Sort.Direction.DESC, "code")));
+
+    assertEquals(2, page.getTotalElements());
+    assertEquals(facility1.getId(), page.getContent().get(0).getId());
+    assertEquals(facility.getId(), page.getContent().get(1).getId());
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldNotFindPageOfFacilitiesSortedByUnsupportedProperty() {
+    repository.search(null, "Facil", null, null, null,
+        new PageRequest(0, 2, new Sort("extraData")));
+  }
+
+  @Test
+  public void shouldFindFacilitiesAfterCursorOrderedById() {
+    Facility first = facility.getId().toString().compareTo(facility1.getId().toString()) < 0
+        ? facility : facility1;
+    Facility second = first == facility ? facility1 : facility;
+
+    Page<Facility> firstPage = repository
+        .search(null, "Facil", null, null, null, new KeysetPageRequest(1, null));
+    Page<Facility> secondPage = repository
+        .search(null, "Facil", null, null, null, new KeysetPageRequest(1, first.getId()));
+    Page<Facility> lastPage = repository
+        .search(null, null, null, null, null, new KeysetPageRequest(1, second.getId()));
+
+    assertThat(firstPage.getContent(), hasSize(1));
+    assertTrue(firstPage.hasNext());
+    assertEquals(first.getId(), firstPage.getContent().get(0).getId());
+
+    assertThat(secondPage.getContent(), hasSize(1));
+    assertFalse(secondPage.hasNext());
+    assertEquals(second.getId(), secondPage.getContent().get(0).getId());
+
+    assertEquals(0, lastPage.getTotalElements());
+    assertThat(lastPage.getContent(), hasSize(0));
+  }
+
+  @Test
+  public void shouldReturnEmptyPageIfNoFacilitiesMatch() {
+    Page<Facility> page = repository
+        .search("Ogorek", "Pomidor", null, null, null, new PageRequest(0, 10));
+
+    assertEquals(0, page.getTotalElements());
+    assertThat(page.getContent(), hasSize(0));
+  }
+
   @Test
   public void shouldNotFindAnyFacilityForIncorrectCodeAndName() {
     List<Facility> foundFacilties = repository.search("Ogorek", "Pomidor", null, null, null);
@@ -421,6 +421,23 @@ public class FacilityTypeApprovedProductRepositoryIntegrationTest extends
     assertTrue(ftap.getOrderable().getProgramOrderable(program).isActive());
   }
 
+  @Test
+  public void shouldFindActiveProductsOfFacilityTypeInAllPrograms() {
+    ftapRepository.save(generateProduct(facilityType1, true));
+    ftapRepository.save(generateProduct(facilityType1, false));
+    ftapRepository.save(generateProduct(facilityType1, program2, orderable1));
+    ftapRepository.save(generateProduct(facilityType1, program, orderable2));
+    ftapRepository.save(generateProduct(facilityType2, true));
+
+    List<FacilityTypeApprovedProduct> products = ftapRepository
+        .findActiveByFacilityTypeId(facilityType1.getId());
+
+    assertThat(products, hasSize(3));
+    assertEquals(orderableNonFullSupply, products.get(0).getOrderable());
+    assertEquals(orderableFullSupply, products.get(1).getOrderable());
+    assertEquals(orderable1, products.get(2).getOrderable());
+  }
+
   private FacilityTypeApprovedProduct generateProduct(FacilityType facilityType,
                                                       boolean fullSupply) {
     return generateProduct(facilityType, fullSupply, program);
@@ -17,6 +17,7 @@ package org.openlmis.referencedata.repository;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
@@ -145,13 +146,18 @@ public class GeographicZoneRepositoryIntegrationTest
   }
 
   @Test
-  public void shouldFindIdByParent() {
+  public void shouldFindIdsInHierarchy() {
     // when
-    Set<UUID> zones = repository.findIdsByParent(countryZone.getId());
+    Set<UUID> zones = repository.findIdsInHierarchy(countryZone.getId());
 
     // then
-    assertEquals(1, zones.size());
-    assertEquals(regionZone.getId(), zones.iterator().next());
+    assertThat(zones, hasSize(2));
+    assertThat(zones, hasItems(regionZone.getId(), districtZone.getId()));
+  }
+
+  @Test
+  public void shouldNotFindIdsInHierarchyOfZoneWithoutChildren() {
+    assertThat(repository.findIdsInHierarchy(districtZone.getId()), hasSize(0));
   }
 
   @Test
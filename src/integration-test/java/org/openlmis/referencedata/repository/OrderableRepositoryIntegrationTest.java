@@ -36,11 +36,13 @@ import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.OrderableDisplayCategory;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.ProgramOrderable;
+import org.openlmis.referencedata.dto.MinimalOrderableDto;
 import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.CrudRepository;
 
 import java.util.HashMap;
@@ -115,6 +117,22 @@ public class OrderableRepositoryIntegrationTest
     assertEquals(2, found.getTotalElements());
   }
 
+  @Test
+  public void findAllMinimalShouldReturnRequestedPageOfMinimalOrderables() {
+    repository.save(generateInstance(Code.code("minimal-a")));
+    Orderable orderable = repository.save(generateInstance(Code.code("minimal-b")));
+
+    Page<MinimalOrderableDto> found = repository.findAllMinimal(
+        new PageRequest(1, 1, Sort.Direction.ASC, "productCode.code"));
+
+    assertEquals(2, found.getTotalElements());
+    assertThat(found.getContent(), hasSize(1));
+    MinimalOrderableDto minimal = found.getContent().get(0);
+    assertEquals(orderable.getId(), minimal.getId());
+    assertEquals(orderable.getProductCode().toString(), minimal.getProductCode());
+    assertEquals(orderable.getFullProductName(), minimal.getFullProductName());
+  }
+
   @Test
   public void shouldFindOrderablesWithSimilarCode() {
     Orderable orderable = generateInstance();
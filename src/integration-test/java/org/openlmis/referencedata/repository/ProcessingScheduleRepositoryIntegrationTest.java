@@ -19,6 +19,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -30,7 +31,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 
 import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 public class ProcessingScheduleRepositoryIntegrationTest
       extends BaseCrudRepositoryIntegrationTest<ProcessingSchedule> {
@@ -101,6 +105,21 @@ public class ProcessingScheduleRepositoryIntegrationTest
     assertEquals(code3, actual3.get().getCode().toString());
   }
 
+  @Test
+  public void shouldGetSchedulesByCodes() {
+    repository.save(new ProcessingScheduleDataBuilder().withCode("code1").buildWithoutId());
+    repository.save(new ProcessingScheduleDataBuilder().withCode("code2").buildWithoutId());
+    repository.save(new ProcessingScheduleDataBuilder().withCode("code3").buildWithoutId());
+
+    List<ProcessingSchedule> actual = repository.findByCodeIn(Arrays.asList("code1", "code3"));
+
+    assertEquals(2, actual.size());
+    assertEquals(Sets.newHashSet("code1", "code3"), actual
+        .stream()
+        .map(found -> found.getCode().toString())
+        .collect(Collectors.toSet()));
+  }
+
   @Test(expected = DataIntegrityViolationException.class)
   public void shouldThrowExceptionIfCodeIsDuplicatedCaseInsensitive() {
     ProcessingSchedule scheduleLowerCase = new ProcessingScheduleDataBuilder()
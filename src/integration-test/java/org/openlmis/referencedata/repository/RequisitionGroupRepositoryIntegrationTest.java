@@ -34,10 +34,13 @@ import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RequisitionGroup;
 import org.openlmis.referencedata.domain.RequisitionGroupProgramSchedule;
 import org.openlmis.referencedata.domain.SupervisoryNode;
+import org.openlmis.referencedata.dto.RequisitionGroupSummaryDto;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -299,6 +302,46 @@ public class RequisitionGroupRepositoryIntegrationTest
     assertEquals(10, result.getTotalElements());
   }
 
+  @Test
+  public void findAllSummariesShouldReturnRequestedPageWithMemberFacilityCounts() {
+    RequisitionGroup withMember = generateInstance("RG-A", "A group");
+    withMember.setMemberFacilities(Sets.asSet(facility));
+    withMember = repository.save(withMember);
+    RequisitionGroup withoutMembers = repository.save(generateInstance("RG-B", "B group"));
+
+    Page<RequisitionGroupSummaryDto> first = repository.findAllSummaries(
+        new PageRequest(0, 1, Sort.Direction.ASC, "name"));
+    Page<RequisitionGroupSummaryDto> second = repository.findAllSummaries(
+        new PageRequest(1, 1, Sort.Direction.ASC, "name"));
+
+    assertEquals(2, first.getTotalElements());
+    assertEquals(1, first.getContent().size());
+    RequisitionGroupSummaryDto summary = first.getContent().get(0);
+    assertEquals(withMember.getId(), summary.getId());
+    assertEquals(withMember.getCode(), summary.getCode());
+    assertEquals(supervisoryNode.getId(), summary.getSupervisoryNodeId());
+    assertEquals(1, summary.getMemberFacilityCount());
+
+    assertEquals(withoutMembers.getId(), second.getContent().get(0).getId());
+    assertEquals(0, second.getContent().get(0).getMemberFacilityCount());
+  }
+
+  @Test
+  public void shouldFindPageOfMemberFacilitiesOfRequisitionGroup() {
+    RequisitionGroup group = generateInstance();
+    group.setMemberFacilities(Sets.asSet(facility));
+    group = repository.save(group);
+    RequisitionGroup other = repository.save(generateInstance());
+
+    Page<Facility> members = facilityRepository.findByRequisitionGroupId(group.getId(),
+        new PageRequest(0, 10, Sort.Direction.ASC, "name"));
+
+    assertEquals(1, members.getTotalElements());
+    assertEquals(facility.getId(), members.getContent().get(0).getId());
+    assertEquals(0, facilityRepository.findByRequisitionGroupId(other.getId(),
+        new PageRequest(0, 10)).getTotalElements());
+  }
+
   @Test
   public void shouldReturnRequisitionGroupsWithWhenSearchingByProgramFullCount() {
     assertEquals(0, repository.count());
@@ -220,7 +220,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
   }
 
   @Test
-  public void testSearchUsersShouldReturnAllUsersListIfEmptyListIsPassed() {
+  public void testSearchUsersShouldReturnAllUsersIfExtraDataIsBlank() {
     Page<User> receivedUsers = repository.searchUsers(
         null,
         null,
@@ -230,7 +230,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
         null,
         null,
         null,
-        Collections.emptyList(),
+        "",
         pageable);
 
     assertEquals(TOTAL_USERS, receivedUsers.getContent().size());
@@ -288,7 +288,7 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
   }
 
   @Test
-  public void findByExtraDataShouldFindDataWhenParametersMatch() throws JsonProcessingException {
+  public void searchUsersShouldFindUsersWhenExtraDataMatches() throws JsonProcessingException {
     //given
     Map<String, String> extraData = Collections.singletonMap(EXTRA_DATA_KEY, EXTRA_DATA_VALUE);
     String extraDataJson = mapper.writeValueAsString(extraData);
@@ -297,7 +297,8 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
     repository.save(expectedUser);
 
     //when
-    List<User> extraDataUsers = repository.findByExtraData(extraDataJson);
+    List<User> extraDataUsers = repository.searchUsers(null, null, null, null, null, null, null,
+        null, extraDataJson, pageable).getContent();
 
     //then
     assertEquals(1, extraDataUsers.size());
@@ -316,12 +317,13 @@ public class UserRepositoryIntegrationTest extends BaseCrudRepositoryIntegration
   }
 
   @Test
-  public void findByExtraDataShouldNotFindDataWhenParametersDoNotMatch() {
+  public void searchUsersShouldNotFindUsersWhenExtraDataDoesNotMatch() {
     //given
     String otherExtraDataJson = "{\"" + EXTRA_DATA_KEY + "\":\"blue\"}";
 
     //when
-    List<User> extraDataUsers = repository.findByExtraData(otherExtraDataJson);
+    List<User> extraDataUsers = repository.searchUsers(null, null, null, null, null, null, null,
+        null, otherExtraDataJson, pageable).getContent();
 
     //then
     assertEquals(0, extraDataUsers.size());
@@ -26,7 +26,6 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -45,6 +44,7 @@ import com.jayway.restassured.specification.RequestSpecification;
 import guru.nidi.ramltester.RamlDefinition;
 import guru.nidi.ramltester.RamlLoaders;
 import guru.nidi.ramltester.restassured.RestAssuredClient;
+import java.util.Collections;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
 import org.hamcrest.Matchers;
@@ -88,11 +88,18 @@ import org.openlmis.referencedata.service.FacilityTypeService;
 import org.openlmis.referencedata.service.GeographicZoneService;
 import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.service.OrderableService;
+import org.openlmis.referencedata.service.PermissionStringCache;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.service.RequisitionGroupService;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
+import org.openlmis.referencedata.service.ProcessingPeriodIndex;
+import org.openlmis.referencedata.service.RecentChangesService;
+import org.openlmis.referencedata.service.SupervisionGraphService;
+import org.openlmis.referencedata.service.TypeAheadService;
 import org.openlmis.referencedata.service.SupervisoryNodeService;
 import org.openlmis.referencedata.service.SupplyLineService;
+import org.openlmis.referencedata.service.UserExistenceCache;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.testbuilder.UserDataBuilder;
 import org.openlmis.referencedata.util.Message;
@@ -183,6 +190,12 @@ public abstract class BaseWebIntegrationTest {
   @Autowired
   private ObjectMapper objectMapper;
 
+  @Autowired
+  private PermissionStringCache permissionStringCache;
+
+  @Autowired
+  private UserExistenceCache userExistenceCache;
+
   @MockBean
   protected CommodityTypeRepository commodityTypeRepository;
 
@@ -303,6 +316,21 @@ public abstract class BaseWebIntegrationTest {
   @MockBean
   protected FacilityTypeService facilityTypeService;
 
+  @MockBean
+  protected SupervisionGraphService supervisionGraphService;
+
+  @MockBean
+  protected TypeAheadService typeAheadService;
+
+  @MockBean
+  protected ApprovedProductCatalog approvedProductCatalog;
+
+  @MockBean
+  protected RecentChangesService recentChangesService;
+
+  @MockBean
+  protected ProcessingPeriodIndex processingPeriodIndex;
+
   /**
    * Constructor for test.
    */
@@ -353,8 +381,12 @@ public abstract class BaseWebIntegrationTest {
   public void setUp() {
     // by default user has no access to resources
     given(userRepository.exists(ADMIN_ID)).willReturn(true);
-    given(rightAssignmentRepository.existsByUserIdAndRightName(eq(ADMIN_ID), anyString()))
-        .willReturn(false);
+    given(rightAssignmentRepository.findByUser(ADMIN_ID)).willReturn(Collections.emptySet());
+
+    // permission strings and user existence are cached across tests, while the repository
+    // mocks are not
+    permissionStringCache.invalidate();
+    userExistenceCache.clear();
 
     mockUserAuthenticated();
   }
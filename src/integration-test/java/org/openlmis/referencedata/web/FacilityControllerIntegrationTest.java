@@ -18,6 +18,10 @@ package org.openlmis.referencedata.web;
 import static java.util.Arrays.asList;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertThat;
@@ -36,24 +40,36 @@ import com.vividsolutions.jts.geom.GeometryFactory;
 import com.vividsolutions.jts.geom.Polygon;
 import guru.nidi.ramltester.junit.RamlMatchers;
 import org.assertj.core.util.Lists;
+import org.joda.money.CurrencyUnit;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.referencedata.PageImplRepresentation;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.OrderedDisplayValue;
 import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.ProgramOrderable;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.SupplyLine;
 import org.openlmis.referencedata.domain.SupportedProgram;
 import org.openlmis.referencedata.dto.FacilityDto;
 import org.openlmis.referencedata.dto.MinimalFacilityDto;
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.ApprovedProductCatalog.Catalog;
+import org.openlmis.referencedata.service.AuditLogService;
+import org.openlmis.referencedata.service.TypeAheadService;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupplyLineDataBuilder;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.utils.AuditLogHelper;
 import org.springframework.data.domain.Page;
@@ -82,6 +98,7 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String SUPERVISORY_NODE_ID = "supervisoryNodeId";
   private static final String RESOURCE_URL = "/api/facilities";
   private static final String MINIMAL_URL = RESOURCE_URL + "/minimal";
+  private static final String TYPE_AHEAD_URL = RESOURCE_URL + "/typeAhead";
   private static final String ID_URL = RESOURCE_URL + "/{id}";
   private static final String SUPPLYING_URL = RESOURCE_URL + "/supplying";
   private static final String SEARCH_FACILITIES = RESOURCE_URL + "/search";
@@ -91,7 +108,6 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String APPROVED_PRODUCTS = "/approvedProducts";
 
   private UUID programId;
-  private UUID orderableId1;
   private UUID orderableId2;
   private UUID supervisoryNodeId;
   private Program program;
@@ -111,7 +127,6 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     super.setUp();
 
     programId = UUID.randomUUID();
-    orderableId1 = UUID.randomUUID();
     orderableId2 = UUID.randomUUID();
     program = new ProgramDataBuilder().withId(programId).build();
     facility = new FacilityDataBuilder()
@@ -224,10 +239,8 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     Map<String, Object> requestBody = new HashMap<>();
     requestBody.put("code", similarCode);
 
-    List<Facility> listToReturn = new ArrayList<>();
-    listToReturn.add(facility);
-    given(facilityService.searchFacilities(requestBody))
-        .willReturn(listToReturn);
+    given(facilityService.searchFacilities(eq(requestBody), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(facility)));
 
     PageImplRepresentation response = restAssured.given()
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
@@ -265,10 +278,8 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     Map<String, Object> requestBody = new HashMap<>();
     requestBody.put(NAME_KEY, similarName);
 
-    List<Facility> listToReturn = new ArrayList<>();
-    listToReturn.add(facility);
-    given(facilityService.searchFacilities(requestBody))
-        .willReturn(listToReturn);
+    given(facilityService.searchFacilities(eq(requestBody), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(facility)));
 
     PageImplRepresentation response = restAssured.given()
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
@@ -288,7 +299,7 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
   @Test
   public void shouldReturnBadRequestWhenSearchThrowsException() {
     // given
-    given(facilityService.searchFacilities(anyMap())).willThrow(
+    given(facilityService.searchFacilities(anyMap(), any(Pageable.class))).willThrow(
         new ValidationMessageException("somethingWrong"));
 
     // when
@@ -312,6 +323,9 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     requestBody.put("code", "IncorrectCode");
     requestBody.put(NAME_KEY, "NotSimilarName");
 
+    given(facilityService.searchFacilities(eq(requestBody), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.emptyList()));
+
     PageImplRepresentation response = restAssured.given()
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
         .body(requestBody)
@@ -330,10 +344,8 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
 
     Map<String, Object> requestBody = new HashMap<>();
 
-    List<Facility> listToReturn = new ArrayList<>();
-    listToReturn.add(facility);
-    given(facilityService.searchFacilities(requestBody))
-        .willReturn(listToReturn);
+    given(facilityService.searchFacilities(eq(requestBody), any(Pageable.class)))
+        .willReturn(new PageImpl<>(Collections.singletonList(facility), new PageRequest(0, 1), 3));
 
     PageImplRepresentation response = restAssured.given()
         .queryParam("page", 0)
@@ -348,30 +360,68 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
         .extract().as(PageImplRepresentation.class);
 
     assertEquals(1, response.getContent().size());
-    assertEquals(1, response.getTotalElements());
-    assertEquals(1, response.getTotalPages());
+    assertEquals(3, response.getTotalElements());
+    assertEquals(3, response.getTotalPages());
     assertEquals(1, response.getNumberOfElements());
     assertEquals(1, response.getSize());
     assertEquals(0, response.getNumber());
   }
 
+  @Test
+  public void shouldSearchFacilitiesWithKeysetPagination() {
+    Map<String, Object> requestBody = new HashMap<>();
+    Pageable keyset = new KeysetPageRequest(1, null);
+
+    given(facilityService.searchFacilities(requestBody, keyset))
+        .willReturn(new PageImpl<>(Collections.singletonList(facility), keyset, 3));
+
+    String cursor = restAssured.given()
+        .queryParam("size", 1)
+        .queryParam(KeysetPageRequest.AFTER_PARAM, "")
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .body(requestBody)
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .post(SEARCH_FACILITIES)
+        .then()
+        .statusCode(200)
+        .body("content", hasSize(1))
+        .body("totalElements", is(3))
+        .extract().header(KeysetPageRequest.NEXT_CURSOR_HEADER);
+
+    Pageable next = new KeysetPageRequest(1, facility.getId());
+    given(facilityService.searchFacilities(requestBody, next))
+        .willReturn(new PageImpl<>(Collections.emptyList(), next, 0));
+
+    restAssured.given()
+        .queryParam("size", 1)
+        .queryParam(KeysetPageRequest.AFTER_PARAM, cursor)
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .body(requestBody)
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .post(SEARCH_FACILITIES)
+        .then()
+        .statusCode(200)
+        .header(KeysetPageRequest.NEXT_CURSOR_HEADER, nullValue())
+        .body("content", hasSize(0));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldFindApprovedProductsForFacility() {
-    pageable = new PageRequest(0, Integer.MAX_VALUE);
-    when(facilityRepository.findOne(any(UUID.class))).thenReturn(facility);
-    when(facilityTypeApprovedProductRepository.searchProducts(any(UUID.class), any(UUID.class),
-        eq(false), eq(null), eq(pageable)))
-        .thenReturn(new PageImpl<>(Collections.singletonList(
-            new FacilityTypeApprovedProductsDataBuilder().build()), pageable, 1));
+    FacilityTypeApprovedProduct approvedProduct = mockApprovedProductCatalog();
 
     PageImplRepresentation productDtos = restAssured.given()
-        .queryParam(PROGRAM_ID, UUID.randomUUID())
+        .queryParam(PROGRAM_ID, approvedProduct.getProgram().getId())
         .queryParam(FULL_SUPPLY, false)
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
         .when()
         .get(RESOURCE_URL + "/" + UUID.randomUUID() + APPROVED_PRODUCTS)
         .then()
         .statusCode(200)
+        .header(HttpHeaders.ETAG, notNullValue())
         .extract().as(PageImplRepresentation.class);
 
     assertEquals(1, productDtos.getContent().size());
@@ -380,19 +430,12 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
 
   @Test
   public void shouldFindApprovedProductsForFacilityAndOrderableIds() {
-    pageable = new PageRequest(0, Integer.MAX_VALUE);
-    List<UUID> orderableIds = asList(orderableId1, orderableId2);
-
-    when(facilityRepository.findOne(any(UUID.class))).thenReturn(facility);
-    when(facilityTypeApprovedProductRepository.searchProducts(any(UUID.class), any(UUID.class),
-        eq(false), eq(orderableIds), eq(pageable)))
-        .thenReturn(new PageImpl<>(Collections.singletonList(
-            new FacilityTypeApprovedProductsDataBuilder().build()), pageable, 1));
+    FacilityTypeApprovedProduct approvedProduct = mockApprovedProductCatalog();
 
     PageImplRepresentation productDtos = restAssured.given()
-        .queryParam(PROGRAM_ID, UUID.randomUUID())
+        .queryParam(PROGRAM_ID, approvedProduct.getProgram().getId())
         .queryParam(FULL_SUPPLY, false)
-        .queryParam("orderableId", orderableId1)
+        .queryParam("orderableId", approvedProduct.getOrderable().getId())
         .queryParam("orderableId", orderableId2)
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
         .when()
@@ -405,6 +448,22 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldNotReturnApprovedProductsIfTheyDidNotChange() {
+    mockApprovedProductCatalog();
+    String etag = approvedProductCatalog.get(facility.getType().getId()).getEtag();
+
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "\"" + etag + "\"")
+        .when()
+        .get(RESOURCE_URL + "/" + UUID.randomUUID() + APPROVED_PRODUCTS)
+        .then()
+        .statusCode(304);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void getApprovedProductsShouldReturnUnauthorizedWithoutAuthorization() {
 
@@ -552,6 +611,30 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     verifyZeroInteractions(rightService);
   }
 
+  @Test
+  public void shouldReturnFacilitiesMatchingTypeAheadQuery() {
+    TypeAheadResultDto result = new TypeAheadResultDto(facility.getId(),
+        facility.getCode(), facility.getName());
+    given(typeAheadService.search(TypeAheadService.Target.FACILITIES, "fac", 5))
+        .willReturn(Collections.singletonList(result));
+
+    TypeAheadResultDto[] response = restAssured
+        .given()
+        .queryParam("query", "fac")
+        .queryParam("limit", 5)
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(TYPE_AHEAD_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(TypeAheadResultDto[].class);
+
+    assertEquals(1, response.length);
+    assertEquals(result, response[0]);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+    verifyZeroInteractions(rightService);
+  }
+
   @Test
   public void getShouldGetFacility() {
     given(facilityRepository.findOne(any(UUID.class))).willReturn(facility);
@@ -904,6 +987,45 @@ public class FacilityControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldExportAuditLogAsNdjson() {
+    given(facilityRepository.findOne(any(UUID.class))).willReturn(facility);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.ACCEPT, AuditLogService.NDJSON)
+        .pathParam("id", UUID.randomUUID())
+        .when()
+        .get(RESOURCE_URL + "/{id}/auditLog")
+        .then()
+        .statusCode(200)
+        .contentType(startsWith(AuditLogService.NDJSON));
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  private FacilityTypeApprovedProduct mockApprovedProductCatalog() {
+    Program approvedProgram = new ProgramDataBuilder().build();
+    Orderable orderable = new OrderableDataBuilder().build();
+    orderable.setProgramOrderables(Collections.singleton(ProgramOrderable.createNew(
+        approvedProgram, OrderableDisplayCategory.createNew(Code.code("C1"),
+            new OrderedDisplayValue("Category", 1)),
+        orderable, null, true, false, 0, null, CurrencyUnit.USD)));
+
+    FacilityTypeApprovedProduct approvedProduct = new FacilityTypeApprovedProductsDataBuilder()
+        .withOrderable(orderable)
+        .withProgram(approvedProgram)
+        .build();
+
+    when(facilityRepository.findOne(any(UUID.class))).thenReturn(facility);
+    when(approvedProductCatalog.get(facility.getType().getId())).thenReturn(
+        new Catalog(asList(approvedProduct, new FacilityTypeApprovedProductsDataBuilder().build()),
+            0, System.currentTimeMillis()));
+
+    return approvedProduct;
+  }
+
   private List<SupplyLine> generateSupplyLines(int searchedFacilitiesAmt,
                                                SupervisoryNode searchedSupervisoryNode) {
     List<SupplyLine> searchedSupplyLines = new ArrayList<>();
@@ -20,9 +20,14 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.openlmis.referencedata.web.BaseController.API_PATH;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 
 import com.jayway.restassured.response.ValidatableResponse;
 
@@ -37,11 +42,13 @@ import org.openlmis.referencedata.web.fhir.Identifier;
 import org.openlmis.referencedata.web.fhir.Status;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
 
+import java.time.ZonedDateTime;
 import java.util.UUID;
 
 public class LocationControllerIntegrationTest extends BaseWebIntegrationTest {
@@ -59,7 +66,7 @@ public class LocationControllerIntegrationTest extends BaseWebIntegrationTest {
     GeographicZone zone = new GeographicZoneDataBuilder()
         .withParent(new GeographicZoneDataBuilder().build())
         .build();
-    given(geographicZoneRepository.findAll(pageable))
+    given(geographicZoneRepository.findAll(any(Pageable.class)))
         .willReturn(new PageImpl<>(ImmutableList.of(zone)));
 
     ValidatableResponse response = getLocations();
@@ -73,7 +80,7 @@ public class LocationControllerIntegrationTest extends BaseWebIntegrationTest {
     Facility facility = new FacilityDataBuilder()
         .withSupportedProgram(new ProgramDataBuilder().withId(supportedProgramId).build())
         .buildActive();
-    given(facilityRepository.findAll(pageable))
+    given(facilityRepository.findAll(any(Pageable.class)))
         .willReturn(new PageImpl<>(ImmutableList.of(facility)));
 
     ValidatableResponse response = getLocations();
@@ -82,6 +89,79 @@ public class LocationControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnAtMostCountLocations() {
+    GeographicZone zone = new GeographicZoneDataBuilder().build();
+    given(geographicZoneRepository.findAll(any(Pageable.class)))
+        .willReturn(new PageImpl<>(ImmutableList.of(zone)));
+    given(facilityRepository.findAll(any(Pageable.class)))
+        .willReturn(new PageImpl<>(ImmutableList.of(new FacilityDataBuilder().buildActive())));
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("_count", 1)
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("", hasSize(1))
+        .body("[0].id", is(zone.getId().toString()));
+
+    verify(facilityRepository, never()).findAll(any(Pageable.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnOnlyLocationsChangedSinceGivenTime() {
+    Facility facility = new FacilityDataBuilder()
+        .withSupportedProgram(new ProgramDataBuilder().withId(supportedProgramId).build())
+        .buildActive();
+    given(recentChangesService.findChangedIds(eq(Facility.class), any(ZonedDateTime.class)))
+        .willReturn(ImmutableSet.of(facility.getId()));
+    given(facilityRepository.findAll(ImmutableList.of(facility.getId())))
+        .willReturn(ImmutableList.of(facility));
+
+    ValidatableResponse response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("_since", "2017-10-01T10:00:00Z")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("", hasSize(1));
+
+    assertLocation(response, facility);
+    verify(facilityRepository, never()).findAll(any(Pageable.class));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnRemovedLocationsChangedSinceGivenTimeAsInactive() {
+    UUID removedZoneId = UUID.randomUUID();
+    given(recentChangesService.findChangedIds(eq(GeographicZone.class), any(ZonedDateTime.class)))
+        .willReturn(ImmutableSet.of(removedZoneId));
+    given(geographicZoneRepository.findAll(ImmutableList.of(removedZoneId)))
+        .willReturn(ImmutableList.of());
+
+    ValidatableResponse response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .queryParam("_since", "2017-10-01T10:00:00Z")
+        .when()
+        .get(RESOURCE_URL)
+        .then()
+        .statusCode(200)
+        .body("", hasSize(1))
+        .body("[0].resourceType", is(LOCATION))
+        .body("[0].id", is(removedZoneId.toString()))
+        .body("[0].status", is(Status.INACTIVE.toString()));
+
+    checkPhysicalType(response, Coding.AREA);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   private ValidatableResponse getLocations() {
     return restAssured
         .given()
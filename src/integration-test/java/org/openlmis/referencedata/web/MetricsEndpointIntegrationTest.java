@@ -0,0 +1,63 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+public class MetricsEndpointIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String METRICS_URL = "/metrics";
+
+  @Test
+  public void shouldReturnMetricsForServiceToken() {
+    Map<?, ?> response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getClientTokenHeader())
+        .when()
+        .get(METRICS_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(Map.class);
+
+    assertTrue(response.containsKey("tokenCache.hits"));
+    assertTrue(response.containsKey("auditLogOutbox.pending"));
+  }
+
+  @Test
+  public void shouldRejectMetricsForUserToken() {
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(METRICS_URL)
+        .then()
+        .statusCode(403);
+  }
+
+  @Test
+  public void shouldRejectMetricsWithoutToken() {
+    restAssured
+        .given()
+        .when()
+        .get(METRICS_URL)
+        .then()
+        .statusCode(401);
+  }
+}
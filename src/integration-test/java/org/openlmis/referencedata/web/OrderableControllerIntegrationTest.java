@@ -37,6 +37,7 @@ import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.openlmis.referencedata.PageImplRepresentation;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.CommodityType;
@@ -45,6 +46,7 @@ import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.dto.DispensableDto;
+import org.openlmis.referencedata.dto.MinimalOrderableDto;
 import org.openlmis.referencedata.dto.OrderableDto;
 import org.openlmis.referencedata.dto.ProgramOrderableDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
@@ -53,6 +55,7 @@ import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.utils.AuditLogHelper;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 
@@ -76,6 +79,8 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
   private static final String CODE = "code";
   private static final String PROGRAM_CODE = "program";
   private static final String IDS = "ids";
+  private static final String PRODUCT_CODE = "productCode";
+  private static final String ID = "id";
 
   private OrderableDto orderableDto;
 
@@ -228,7 +233,8 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
         .map(Orderable::newInstance)
         .collect(Collectors.toList());
 
-    when(orderableRepository.findAll()).thenReturn(orderables);
+    when(orderableRepository.findAll(any(Pageable.class)))
+        .thenReturn(Pagination.getPage(orderables));
 
     PageImplRepresentation response = restAssured
         .given()
@@ -242,6 +248,38 @@ public class OrderableControllerIntegrationTest extends BaseWebIntegrationTest {
 
     checkIfEquals(response, items);
 
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(orderableRepository).findAll(pageable.capture());
+    assertEquals(new Sort(PRODUCT_CODE, ID), pageable.getValue().getSort());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldRetrieveMinimalOrderables() {
+    MinimalOrderableDto minimal = new MinimalOrderableDto(UUID.randomUUID(),
+        orderableDto.getProductCode(), orderableDto.getFullProductName());
+    when(orderableRepository.findAllMinimal(any(Pageable.class)))
+        .thenReturn(Pagination.getPage(Collections.singletonList(minimal)));
+
+    PageImplRepresentation response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL + "/minimal")
+        .then()
+        .statusCode(200)
+        .extract().as(PageImplRepresentation.class);
+
+    assertEquals(1, response.getContent().size());
+    Map<String, String> content = (LinkedHashMap) response.getContent().get(0);
+    assertEquals(minimal.getId().toString(), content.get(ID));
+    assertEquals(minimal.getProductCode(), content.get(PRODUCT_CODE));
+    assertEquals(minimal.getFullProductName(), content.get("fullProductName"));
+
+    ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+    verify(orderableRepository).findAllMinimal(pageable.capture());
+    assertEquals(new Sort(PRODUCT_CODE, ID), pageable.getValue().getSort());
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
@@ -29,6 +29,7 @@ import static org.openlmis.referencedata.domain.RightName.REQUISITION_GROUPS_MAN
 import guru.nidi.ramltester.junit.RamlMatchers;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -51,6 +52,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.dto.RequisitionGroupBaseDto;
 import org.openlmis.referencedata.dto.RequisitionGroupDto;
+import org.openlmis.referencedata.dto.RequisitionGroupSummaryDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
@@ -67,6 +69,7 @@ public class RequisitionGroupControllerIntegrationTest extends BaseWebIntegratio
   private static final String RESOURCE_URL = "/api/requisitionGroups";
   private static final String SEARCH_URL = RESOURCE_URL + "/search";
   private static final String ID_URL = RESOURCE_URL + "/{id}";
+  private static final String MEMBER_FACILITIES_URL = ID_URL + "/memberFacilities";
   private static final String DESCRIPTION = "OpenLMIS";
 
   private RequisitionGroup requisitionGroup;
@@ -253,6 +256,74 @@ public class RequisitionGroupControllerIntegrationTest extends BaseWebIntegratio
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldGetRequisitionGroupSummaries() {
+    RequisitionGroupSummaryDto summary = new RequisitionGroupSummaryDto(requisitionGroupId,
+        requisitionGroup.getCode(), requisitionGroup.getName(), DESCRIPTION,
+        supervisoryNode.getId(), 2L);
+    given(requisitionGroupRepository.findAllSummaries(any(Pageable.class)))
+        .willReturn(Pagination.getPage(Collections.singletonList(summary)));
+
+    PageImplRepresentation response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .when()
+        .get(RESOURCE_URL + "/summaries")
+        .then()
+        .statusCode(200)
+        .extract().as(PageImplRepresentation.class);
+
+    assertEquals(1, response.getContent().size());
+    Map<String, Object> content = (LinkedHashMap) response.getContent().get(0);
+    assertEquals(requisitionGroupId.toString(), content.get("id"));
+    assertEquals(requisitionGroup.getCode(), content.get("code"));
+    assertEquals(2, content.get("memberFacilityCount"));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldGetMemberFacilitiesOfRequisitionGroup() {
+    Facility member = supervisoryNode.getFacility();
+    member.setId(UUID.randomUUID());
+    given(requisitionGroupRepository.exists(requisitionGroupId)).willReturn(true);
+    given(facilityRepository.findByRequisitionGroupId(eq(requisitionGroupId),
+        any(Pageable.class))).willReturn(Pagination.getPage(Collections.singletonList(member)));
+
+    PageImplRepresentation response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisitionGroupId)
+        .when()
+        .get(MEMBER_FACILITIES_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(PageImplRepresentation.class);
+
+    assertEquals(1, response.getContent().size());
+    Map<String, Object> content = (LinkedHashMap) response.getContent().get(0);
+    assertEquals(member.getId().toString(), content.get("id"));
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void getMemberFacilitiesShouldReturnNotFoundForNonExistingRequisitionGroup() {
+    given(requisitionGroupRepository.exists(requisitionGroupId)).willReturn(false);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisitionGroupId)
+        .when()
+        .get(MEMBER_FACILITIES_URL)
+        .then()
+        .statusCode(404);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldGetRequisitionGroup() {
 
@@ -0,0 +1,78 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.web;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.BDDMockito.given;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.time.ZonedDateTime;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatusDto;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+
+public class RightAssignmentControllerIntegrationTest extends BaseWebIntegrationTest {
+
+  private static final String STATUS_URL = "/api/rightAssignments/regenerationStatus";
+
+  @MockBean
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  @Test
+  public void shouldReturnRegenerationStatus() {
+    mockUserHasRight(RightName.USER_ROLES_MANAGE_RIGHT);
+
+    ZonedDateTime now = ZonedDateTime.now();
+    given(rightAssignmentRegenerationScheduler.getStatus()).willReturn(
+        new RightAssignmentRegenerationStatusDto(true, false, 5, 3, false, null,
+            now.minusSeconds(1), now, 1000L, 2, true));
+
+    RightAssignmentRegenerationStatusDto response = restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(STATUS_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(RightAssignmentRegenerationStatusDto.class);
+
+    assertTrue(response.isPending());
+    assertEquals(5, response.getPendingUsers());
+    assertEquals(3, response.getPendingRequests());
+    assertEquals(Long.valueOf(1000L), response.getLastDurationMillis());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnForbiddenForRegenerationStatusIfUserHasNoRight() {
+    mockUserHasNoRight(RightName.USER_ROLES_MANAGE_RIGHT);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .get(STATUS_URL)
+        .then()
+        .statusCode(403);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+}
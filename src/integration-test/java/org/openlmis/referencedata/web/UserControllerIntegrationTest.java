@@ -30,6 +30,7 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anySetOf;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
@@ -77,6 +78,7 @@ import org.openlmis.referencedata.dto.ResultDto;
 import org.openlmis.referencedata.dto.UserDto;
 import org.openlmis.referencedata.exception.UnauthorizedException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.SupervisionGraph;
 import org.openlmis.referencedata.service.UserSearchParams;
 import org.openlmis.referencedata.testbuilder.FacilityDataBuilder;
 import org.openlmis.referencedata.testbuilder.GeographicZoneDataBuilder;
@@ -93,6 +95,7 @@ import org.springframework.http.MediaType;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -556,6 +559,58 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldNotGetUserHasRightAfterRoleIsRevoked() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+    given(facilityRepository.exists(homeFacilityId)).willReturn(true);
+
+    ResultDto<Boolean> response = new ResultDto<>();
+    response = getUserHasRight()
+        .then()
+        .statusCode(200)
+        .extract().as(response.getClass());
+    assertTrue(response.getResult());
+
+    putUser(null)
+        .then()
+        .statusCode(200);
+    given(rightAssignmentRepository.findByUser(userId)).willReturn(Collections.emptySet());
+
+    response = requestUserHasRight()
+        .then()
+        .statusCode(200)
+        .extract().as(response.getClass());
+
+    assertFalse(response.getResult());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotGetUserHasRightAfterUserIsDeleted() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+    given(facilityRepository.exists(homeFacilityId)).willReturn(true);
+
+    ResultDto<Boolean> response = new ResultDto<>();
+    response = getUserHasRight()
+        .then()
+        .statusCode(200)
+        .extract().as(response.getClass());
+    assertTrue(response.getResult());
+
+    deleteUser()
+        .then()
+        .statusCode(204);
+    given(rightAssignmentRepository.findByUser(userId)).willReturn(Collections.emptySet());
+
+    response = requestUserHasRight()
+        .then()
+        .statusCode(200)
+        .extract().as(response.getClass());
+
+    assertFalse(response.getResult());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldGetUserHasRightIfUserRequestsTheirOwnRecord() {
     mockUserHasNoRight(RightName.USERS_MANAGE_RIGHT, userId);
@@ -1142,6 +1197,32 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void getPermissionStringsShouldReturnNotModifiedIfEtagMatches() {
+    mockUserHasRight(RightName.USERS_MANAGE_RIGHT);
+
+    given(userRepository.exists(userId)).willReturn(true);
+    given(rightAssignmentRepository.findByUser(userId))
+        .willReturn(Sets.newHashSet(ADMIN_RIGHT_NAME));
+
+    String etag = getUsersPermissionStrings()
+        .then()
+        .statusCode(200)
+        .extract().header(HttpHeaders.ETAG);
+
+    restAssured
+        .given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, etag)
+        .pathParam("id", userId)
+        .when()
+        .get(PERMISSION_STRINGS_URL)
+        .then()
+        .statusCode(304);
+
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void getPermissionStringsShouldReturnForbiddenIfUserTokenAndUserRequestsDifferentRecord() {
     mockUserHasNoRight(RightName.USERS_MANAGE_RIGHT);
@@ -1321,9 +1402,13 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     given(rightRepository.findOne(supervisionRightId)).willReturn(supervisionRight);
     given(programRepository.exists(program1Id)).willReturn(true);
     given(programRepository.exists(program2Id)).willReturn(true);
-    given(rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityIdAndProgramId(
-        userId, supervisionRight.getName(), homeFacilityId, program1Id)).willReturn(true);
+    given(rightAssignmentRepository.findByUser(userId)).willReturn(Sets.newHashSet(
+        supervisionRight.getName() + "|" + homeFacilityId + "|" + program1Id));
+
+    return requestUserHasRight();
+  }
 
+  private Response requestUserHasRight() {
     return restAssured
         .given()
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
@@ -1365,6 +1450,15 @@ public class UserControllerIntegrationTest extends BaseWebIntegrationTest {
     given(rightRepository.findOne(supervisionRightId)).willReturn(supervisionRight);
     given(programRepository.findOne(program2Id)).willReturn(program2);
 
+    SupervisionGraph.Builder graph = SupervisionGraph.builder()
+        .addNode(supervisoryNode.getId(), null);
+    Set<Facility> memberFacilities = supervisoryNode.getRequisitionGroup().getMemberFacilities();
+    memberFacilities.forEach(facility ->
+        graph.addFacility(supervisoryNode.getId(), program2Id, facility.getId()));
+    given(supervisionGraphService.getGraph()).willReturn(graph.build(0));
+    given(facilityRepository.findAll(anySetOf(UUID.class)))
+        .willReturn(new ArrayList<>(memberFacilities));
+
     return restAssured
         .given()
         .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
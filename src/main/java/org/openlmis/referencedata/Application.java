@@ -32,6 +32,7 @@ import org.javers.spring.jpa.TransactionalJaversBuilder;
 import org.openlmis.referencedata.domain.BaseEntity;
 import org.openlmis.referencedata.i18n.ExposedMessageSourceImpl;
 import org.openlmis.referencedata.security.UserNameProvider;
+import org.openlmis.referencedata.service.AuditLogOutbox;
 import org.openlmis.referencedata.validate.ProcessingPeriodValidator;
 import org.openlmis.referencedata.web.csv.processor.FormatCommodityType;
 import org.openlmis.referencedata.web.csv.processor.FormatProcessingPeriod;
@@ -75,6 +76,9 @@ public class Application {
   @Autowired
   private JaversProperties javersProperties;
 
+  @Autowired
+  private AuditLogOutbox auditLogOutbox;
+
   @Value("${spring.jpa.properties.hibernate.default_schema}")
   private String preferredSchema;
 
@@ -111,6 +115,7 @@ public class Application {
    * Create and return an instance of JaVers precisely configured as necessary.
    * This is particularly helpful for getting JaVers to create and use tables
    * within a particular schema (specified via the withSchema method).
+   * In the asynchronous audit log mode, the instance is wrapped by {@link AuditLogOutbox}.
    *
    * @See <a href="https://github.com/javers/javers/blob/master/javers-spring-boot-starter-sql/src
    * /main/java/org/javers/spring/boot/sql/JaversSqlAutoConfiguration.java">
@@ -128,7 +133,7 @@ public class Application {
 
     JaVersDateProvider customDateProvider = new JaVersDateProvider();
 
-    return TransactionalJaversBuilder
+    Javers javers = TransactionalJaversBuilder
         .javers()
         .withTxManager(transactionManager)
         .registerJaversRepository(sqlRepository)
@@ -147,6 +152,8 @@ public class Application {
         .registerValueGsonTypeAdapter(float.class, TypeAdapters.FLOAT)
         .registerValueGsonTypeAdapter(Float.class, TypeAdapters.FLOAT)
         .build();
+
+    return auditLogOutbox.isEnabled() ? auditLogOutbox.decorate(javers) : javers;
   }
 
   /**
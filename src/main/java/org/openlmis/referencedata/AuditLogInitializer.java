@@ -26,9 +26,9 @@ import org.javers.core.metamodel.object.CdoSnapshot;
 import org.javers.repository.jql.QueryBuilder;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.Identifiable;
+import org.openlmis.referencedata.util.Profiler;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.ApplicationContext;
@@ -63,7 +63,6 @@ public class AuditLogInitializer implements CommandLineRunner {
   public void run(String... args) {
     LOGGER.entry();
     Profiler profiler = new Profiler("RUN_AUDIT_LOG_INIT");
-    profiler.setLogger(LOGGER);
 
     profiler.start("GET_AUDITABLE_REPOSITORIES");
     //Get all JaVers repositories.
@@ -78,7 +77,7 @@ public class AuditLogInitializer implements CommandLineRunner {
       createSnapshots(bean);
     }
 
-    profiler.stop().log();
+    profiler.stop();
     LOGGER.exit();
   }
 
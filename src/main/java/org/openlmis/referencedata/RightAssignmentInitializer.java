@@ -15,7 +15,6 @@
 
 package org.openlmis.referencedata;
 
-import java.util.concurrent.Future;
 import org.openlmis.referencedata.service.RightAssignmentService;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
@@ -45,18 +44,11 @@ public class RightAssignmentInitializer implements CommandLineRunner {
    * Re-generates right assignments.
    * @param args command line arguments
    */
-  public void run(String... args) throws InterruptedException {
+  public void run(String... args) {
     XLOGGER.entry();
     
-    Future<Void> result = rightAssignmentService.regenerateRightAssignments();
-
-    // Wait until it finishes
-    while (true) {
-      if (result.isDone()) {
-        break;
-      }
-      Thread.sleep(1000);
-    }
+    // Runs in the calling thread, so the application starts once it finishes
+    rightAssignmentService.regenerateRightAssignments();
 
     XLOGGER.debug("Finished regenerating right assignments");
     
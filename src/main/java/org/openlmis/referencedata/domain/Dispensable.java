@@ -16,6 +16,7 @@
 package org.openlmis.referencedata.domain;
 
 import lombok.Getter;
+import org.hibernate.annotations.BatchSize;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
 
@@ -46,6 +47,7 @@ import java.util.Map;
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.STRING)
 @DiscriminatorValue("abstract")
+@BatchSize(size = Orderable.FETCH_BATCH_SIZE)
 public abstract class Dispensable extends BaseEntity {
 
   public static final String KEY_DISPENSING_UNIT = "dispensingUnit";
@@ -53,6 +55,7 @@ public abstract class Dispensable extends BaseEntity {
   public static final String KEY_ROUTE_OF_ADMINISTRATION = "routeOfAdministration";
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @BatchSize(size = Orderable.FETCH_BATCH_SIZE)
   @MapKeyColumn(name = "key")
   @Column(name = "value")
   @CollectionTable(
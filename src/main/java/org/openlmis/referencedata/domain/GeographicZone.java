@@ -32,8 +32,6 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
-import javax.persistence.NamedQueries;
-import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 
 @Entity
@@ -41,10 +39,6 @@ import javax.persistence.Table;
 @NoArgsConstructor
 @AllArgsConstructor
 @TypeName("GeographicZone")
-@NamedQueries({
-    @NamedQuery(name = "GeographicZone.findIdsByParent",
-        query = "SELECT DISTINCT id FROM GeographicZone WHERE parent.id = :parentId")
-    })
 public class GeographicZone extends BaseEntity {
 
   @Column(nullable = false, unique = true, columnDefinition = "text")
@@ -15,6 +15,7 @@
 
 package org.openlmis.referencedata.domain;
 
+import org.hibernate.annotations.BatchSize;
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
 import org.openlmis.referencedata.dto.ProgramOrderableDto;
@@ -60,6 +61,9 @@ public class Orderable extends BaseEntity {
   public static final String TRADE_ITEM = "tradeItem";
   public static final String COMMODITY_TYPE = "commodityType";
 
+  // collections of a page of orderables are loaded in batches instead of one select per orderable
+  static final int FETCH_BATCH_SIZE = 100;
+
   @Embedded
   @Getter
   private Code productCode;
@@ -86,11 +90,13 @@ public class Orderable extends BaseEntity {
 
   @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true,
       fetch = FetchType.EAGER)
+  @BatchSize(size = FETCH_BATCH_SIZE)
   @DiffIgnore
   @Setter
   private Set<ProgramOrderable> programOrderables;
 
   @ElementCollection(fetch = FetchType.EAGER)
+  @BatchSize(size = FETCH_BATCH_SIZE)
   @MapKeyColumn(name = "key")
   @Column(name = "value")
   @CollectionTable(
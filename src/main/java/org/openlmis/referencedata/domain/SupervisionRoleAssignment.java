@@ -21,13 +21,10 @@ import static org.openlmis.referencedata.domain.RightType.SUPERVISION;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import org.javers.core.metamodel.annotation.TypeName;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
+import org.openlmis.referencedata.util.Profiler;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
-import java.util.stream.Collectors;
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
@@ -39,8 +36,6 @@ import javax.persistence.ManyToOne;
 @TypeName("SupervisionRoleAssignment")
 public class SupervisionRoleAssignment extends RoleAssignment {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(SupervisionRoleAssignment.class);
-
   @ManyToOne
   @JoinColumn(name = "programid")
   @Getter
@@ -102,7 +97,6 @@ public class SupervisionRoleAssignment extends RoleAssignment {
   @Override
   public boolean hasRight(RightQuery rightQuery) {
     Profiler profiler = new Profiler("HAS_RIGHT_FOR_RIGHT_QUERY");
-    profiler.setLogger(LOGGER);
 
     profiler.start("SUPERVISES");
     boolean facilityFound;
@@ -122,7 +116,7 @@ public class SupervisionRoleAssignment extends RoleAssignment {
     profiler.start("CONTAINS_PROGRAM_CHECK");
     boolean programMatches = program.equals(rightQuery.getProgram());
 
-    profiler.stop().log();
+    profiler.stop();
 
     return roleContainsRight && programMatches && facilityFound;
   }
@@ -151,23 +145,19 @@ public class SupervisionRoleAssignment extends RoleAssignment {
    */
   public Set<Facility> getSupervisedFacilities(Right right, Program program) {
     Profiler profiler = new Profiler("GET_SUPERVISED_FACILITIES_FOR_RIGHT_AND_PROGRAM");
-    profiler.setLogger(LOGGER);
 
-    Set<Facility> possibleFacilities = new HashSet<>();
-    
-    if (supervisoryNode == null) {
-      return possibleFacilities;
+    // every facility supervised by the node for the program is also supervised by this role
+    // assignment, as long as its role has the right and its program matches
+    profiler.start("CONTAINS_RIGHT_AND_PROGRAM_CHECK");
+    if (supervisoryNode == null || !role.contains(right) || !this.program.equals(program)) {
+      profiler.stop();
+      return new HashSet<>();
     }
 
     profiler.start("GET_ALL_SUPERVISED_FACILITIES_FROM_NODE");
-    possibleFacilities = supervisoryNode.getAllSupervisedFacilities(program);
-
-    profiler.start("HAS_RIGHT_CHECK");
-    Set<Facility> facilities = possibleFacilities.stream()
-        .filter(possibleFacility -> hasRight(new RightQuery(right, program, possibleFacility)))
-        .collect(Collectors.toSet());
+    Set<Facility> facilities = supervisoryNode.getAllSupervisedFacilities(program);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return facilities;
   }
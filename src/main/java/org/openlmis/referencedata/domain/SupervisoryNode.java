@@ -17,9 +17,7 @@ package org.openlmis.referencedata.domain;
 
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
+import org.openlmis.referencedata.util.Profiler;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -48,8 +46,6 @@ import javax.persistence.Table;
 @TypeName("SupervisoryNode")
 public class SupervisoryNode extends BaseEntity {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(SupervisoryNode.class);
-
   @Column(nullable = false, unique = true, columnDefinition = "text")
   @Getter
   @Setter
@@ -144,7 +140,6 @@ public class SupervisoryNode extends BaseEntity {
    */
   public Set<Facility> getAllSupervisedFacilities(Program program) {
     Profiler profiler = new Profiler("SUPERVISORY_NODE_GET_FACILITIES_FOR_PROGRAM");
-    profiler.setLogger(LOGGER);
 
     Set<Facility> supervisedFacilities = new HashSet<>();
 
@@ -167,7 +162,7 @@ public class SupervisoryNode extends BaseEntity {
       }
     }
 
-    profiler.stop().log();
+    profiler.stop();
 
     return supervisedFacilities;
   }
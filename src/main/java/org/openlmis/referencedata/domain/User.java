@@ -19,10 +19,8 @@ import com.fasterxml.jackson.annotation.JsonView;
 
 import org.javers.core.metamodel.annotation.DiffIgnore;
 import org.javers.core.metamodel.annotation.TypeName;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.util.View;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -51,8 +49,6 @@ import javax.persistence.Table;
 @AllArgsConstructor
 public class User extends BaseEntity {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(User.class);
-
   @JsonView(View.BasicInformation.class)
   @Column(nullable = false, unique = true, columnDefinition = "text")
   @Getter
@@ -192,7 +188,6 @@ public class User extends BaseEntity {
    */
   public Set<Facility> getSupervisedFacilities(Right right, Program program) {
     Profiler profiler = new Profiler("GET_SUPERVISED_FACILITIES_FOR_USER");
-    profiler.setLogger(LOGGER);
 
     Set<Facility> supervisedFacilities = new HashSet<>();
 
@@ -205,7 +200,7 @@ public class User extends BaseEntity {
       }
     }
 
-    profiler.stop().log();
+    profiler.stop();
 
     return supervisedFacilities;
   }
@@ -230,7 +225,6 @@ public class User extends BaseEntity {
    */
   public Set<Facility> getFulfillmentFacilities(Right right) {
     Profiler profiler = new Profiler("GET_USER_FULFILLMENT_FACILITIES_BY_RIGHT");
-    profiler.setLogger(LOGGER);
 
     Set<Facility> fulfillmentFacilities = new HashSet<>();
 
@@ -250,7 +244,7 @@ public class User extends BaseEntity {
       }
     }
 
-    profiler.stop().log();
+    profiler.stop();
 
     return fulfillmentFacilities;
   }
@@ -0,0 +1,50 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.dto;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class RequisitionGroupSummaryDto extends BaseDto {
+
+  private String code;
+  private String name;
+  private String description;
+  private UUID supervisoryNodeId;
+  private long memberFacilityCount;
+
+  /**
+   * Creates new requisition group summary with the given fields and number of member facilities.
+   */
+  public RequisitionGroupSummaryDto(UUID id, String code, String name, String description,
+                                    UUID supervisoryNodeId, Long memberFacilityCount) {
+    super(id);
+    this.code = code;
+    this.name = name;
+    this.description = description;
+    this.supervisoryNodeId = supervisoryNodeId;
+    this.memberFacilityCount = null == memberFacilityCount ? 0 : memberFacilityCount;
+  }
+}
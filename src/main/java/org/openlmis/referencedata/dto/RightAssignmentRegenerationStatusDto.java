@@ -0,0 +1,46 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Describes the state of right assignment regeneration: what is waiting to be regenerated, what
+ * is being regenerated right now and how the last regeneration went.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RightAssignmentRegenerationStatusDto {
+  private boolean pending;
+  private boolean fullRegenerationPending;
+  private int pendingUsers;
+  private int pendingRequests;
+  private boolean running;
+  private ZonedDateTime runningSince;
+  private ZonedDateTime lastStarted;
+  private ZonedDateTime lastCompleted;
+  private Long lastDurationMillis;
+  private Integer lastCoalescedRequests;
+  private Boolean lastSucceeded;
+}
@@ -26,7 +26,27 @@ public class UploadResultDto {
   @Setter
   private Integer amount;
 
+  @Getter
+  @Setter
+  private Long timeInMillis;
+
+  @Getter
+  @Setter
+  private Double recordsPerSecond;
+
   public UploadResultDto(int amount) {
     this.amount = amount;
   }
+
+  /**
+   * Creates the result of an upload that took the given time.
+   *
+   * @param amount       number of uploaded records
+   * @param timeInMillis how long the upload took, in milliseconds
+   */
+  public UploadResultDto(int amount, long timeInMillis) {
+    this.amount = amount;
+    this.timeInMillis = timeInMillis;
+    this.recordsPerSecond = amount * 1000.0 / Math.max(1, timeInMillis);
+  }
 }
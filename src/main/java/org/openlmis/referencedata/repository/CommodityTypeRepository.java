@@ -19,6 +19,8 @@ import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.CommodityType;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,4 +29,6 @@ public interface CommodityTypeRepository extends PagingAndSortingRepository<Comm
 
   Optional<CommodityType> findByClassificationIdAndClassificationSystem(
       String classificationId, String classificationSystem);
+
+  List<CommodityType> findByClassificationIdIn(Collection<String> classificationIds);
 }
@@ -27,6 +27,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -47,6 +48,8 @@ public interface FacilityRepository
 
   Optional<Facility> findByCode(String code);
 
+  List<Facility> findByCodeIn(Collection<String> codes);
+
   @Query(name = "Facility.findSupervisionFacilitiesByUser",
       nativeQuery = true)
   Set<NamedResource> findSupervisionFacilitiesByUser(@Param("userId") UUID userId);
@@ -55,4 +58,11 @@ public interface FacilityRepository
 
   Page<Facility> findByActive(Boolean active, Pageable pageable);
 
+  @Query(value = "SELECT f FROM Facility f WHERE f.id IN (SELECT m.id"
+      + " FROM RequisitionGroup rg JOIN rg.memberFacilities m WHERE rg.id = :requisitionGroupId)",
+      countQuery = "SELECT COUNT(m)"
+      + " FROM RequisitionGroup rg JOIN rg.memberFacilities m WHERE rg.id = :requisitionGroupId")
+  Page<Facility> findByRequisitionGroupId(@Param("requisitionGroupId") UUID requisitionGroupId,
+                                          Pageable pageable);
+
 }
@@ -26,7 +26,6 @@ import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
-import java.util.Set;
 import java.util.UUID;
 
 @JaversSpringDataAuditable
@@ -41,9 +40,6 @@ public interface GeographicZoneRepository extends PagingAndSortingRepository<Geo
 
   List<GeographicZone> findByParentAndLevel(GeographicZone parent, GeographicLevel level);
 
-  @Query(name = "GeographicZone.findIdsByParent")
-  Set<UUID> findIdsByParent(@Param("parentId") UUID parentId);
-
   List<GeographicZone> findByLevel(GeographicLevel level);
 
   <S extends GeographicZone> S findByCode(String code);
@@ -18,6 +18,7 @@ package org.openlmis.referencedata.repository;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.MinimalOrderableDto;
 import org.openlmis.referencedata.repository.custom.OrderableRepositoryCustom;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -48,6 +49,14 @@ public interface OrderableRepository extends
   @Query("SELECT o FROM Orderable o WHERE o.id in ?1")
   Page<Orderable> findAllByIds(Iterable<UUID> ids, Pageable pageable);
 
+  @Query("SELECT o FROM Orderable o WHERE o.id in ?1 AND o.id > ?2")
+  Page<Orderable> findAllByIdsAfter(Iterable<UUID> ids, UUID after, Pageable pageable);
+
   @Query("SELECT o FROM Orderable o WHERE o.identifiers[:key] = :value")
   List<Orderable> findAllByIdentifier(@Param("key") String key, @Param("value") String value);
+
+  @Query(value = "SELECT new org.openlmis.referencedata.dto.MinimalOrderableDto("
+      + "o.id, o.productCode.code, o.fullProductName) FROM Orderable o",
+      countQuery = "SELECT COUNT(o) FROM Orderable o")
+  Page<MinimalOrderableDto> findAllMinimal(Pageable pageable);
 }
@@ -22,6 +22,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -41,4 +42,7 @@ public interface ProcessingPeriodRepository extends
 
   Optional<ProcessingPeriod> findOneByNameAndProcessingSchedule(String name,
                                                                 ProcessingSchedule schedule);
+
+  List<ProcessingPeriod> findByProcessingScheduleInAndNameIn(
+      Collection<ProcessingSchedule> schedules, Collection<String> names);
 }
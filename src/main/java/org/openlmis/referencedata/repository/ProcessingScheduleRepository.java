@@ -19,7 +19,11 @@ import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.ProcessingSchedule;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -27,4 +31,7 @@ import java.util.UUID;
 public interface ProcessingScheduleRepository
       extends JpaRepository<ProcessingSchedule, UUID> {
   Optional<ProcessingSchedule> findOneByCode(Code code);
+
+  @Query("SELECT s FROM ProcessingSchedule s WHERE s.code.code IN :codes")
+  List<ProcessingSchedule> findByCodeIn(@Param("codes") Collection<String> codes);
 }
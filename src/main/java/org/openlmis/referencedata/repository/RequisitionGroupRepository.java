@@ -18,8 +18,12 @@ package org.openlmis.referencedata.repository;
 import java.util.UUID;
 import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.referencedata.domain.RequisitionGroup;
+import org.openlmis.referencedata.dto.RequisitionGroupSummaryDto;
 import org.openlmis.referencedata.repository.custom.RequisitionGroupRepositoryCustom;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 @JaversSpringDataAuditable
 public interface RequisitionGroupRepository
@@ -27,4 +31,11 @@ public interface RequisitionGroupRepository
 
   <S extends RequisitionGroup> S findByCode(String code);
 
+  @Query(value = "SELECT new org.openlmis.referencedata.dto.RequisitionGroupSummaryDto("
+      + "rg.id, rg.code, rg.name, rg.description, rg.supervisoryNode.id, COUNT(f))"
+      + " FROM RequisitionGroup rg LEFT JOIN rg.memberFacilities f"
+      + " GROUP BY rg.id, rg.code, rg.name, rg.description, rg.supervisoryNode.id",
+      countQuery = "SELECT COUNT(rg) FROM RequisitionGroup rg")
+  Page<RequisitionGroupSummaryDto> findAllSummaries(Pageable pageable);
+
 }
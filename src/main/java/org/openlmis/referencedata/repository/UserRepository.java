@@ -28,7 +28,6 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
-import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 
@@ -48,13 +47,6 @@ public interface UserRepository extends
 
   User findOneByEmail(@Param("email") String email);
 
-  @Query(value = "SELECT u.*"
-      + " FROM referencedata.users u"
-      + " WHERE u.extradata @> (:extraData)\\:\\:jsonb",
-      nativeQuery = true
-  )
-  List<User> findByExtraData(@Param("extraData") String extraData);
-
   @Query(value = "SELECT DISTINCT u.*"
       + " FROM referencedata.users u"
       + "   JOIN referencedata.role_assignments ra ON ra.userid = u.id" 
@@ -16,6 +16,8 @@
 package org.openlmis.referencedata.repository.custom;
 
 import org.openlmis.referencedata.domain.Facility;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 
 import java.util.List;
 import java.util.Set;
@@ -26,4 +28,7 @@ public interface FacilityRepositoryCustom {
   List<Facility> search(String code, String name, Set<UUID> geographicZoneIds,
                         String facilityTypeCode, String extraData);
 
+  Page<Facility> search(String code, String name, Set<UUID> geographicZoneIds,
+                        String facilityTypeCode, String extraData, Pageable pageable);
+
 }
@@ -30,4 +30,6 @@ public interface FacilityTypeApprovedProductRepositoryCustom {
   Page<FacilityTypeApprovedProduct> searchProducts(String facilityTypeCode,
                                                    String programCode,
                                                    Pageable pageable);
+
+  List<FacilityTypeApprovedProduct> findActiveByFacilityTypeId(UUID facilityTypeId);
 }
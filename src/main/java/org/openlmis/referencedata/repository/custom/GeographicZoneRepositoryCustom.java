@@ -20,7 +20,12 @@ import org.openlmis.referencedata.domain.GeographicZone;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Set;
+import java.util.UUID;
+
 public interface GeographicZoneRepositoryCustom {
   Page<GeographicZone> search(String name, String code, GeographicZone parent,
                               GeographicLevel geographicLevel, Pageable pageable);
+
+  Set<UUID> findIdsInHierarchy(UUID rootId);
 }
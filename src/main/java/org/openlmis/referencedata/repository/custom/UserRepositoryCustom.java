@@ -15,7 +15,6 @@
 
 package org.openlmis.referencedata.repository.custom;
 
-import java.util.List;
 import java.util.UUID;
 import org.openlmis.referencedata.domain.User;
 import org.springframework.data.domain.Page;
@@ -25,5 +24,5 @@ public interface UserRepositoryCustom {
 
   Page<User> searchUsers(String username, String firstName, String lastName, String email,
       UUID homeFacilityId, Boolean active, Boolean verified,
-      Boolean loginRestricted, List<User> foundUsers, Pageable pageable);
+      Boolean loginRestricted, String extraData, Pageable pageable);
 }
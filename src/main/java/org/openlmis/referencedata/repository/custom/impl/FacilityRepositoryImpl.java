@@ -20,15 +20,27 @@ import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.hibernate.SQLQuery;
+import org.hibernate.type.LongType;
 import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.custom.FacilityRepositoryCustom;
+import org.openlmis.referencedata.util.KeysetPageRequest;
+import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -40,11 +52,33 @@ import javax.persistence.Query;
 
 public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
 
-  private static final String NATIVE_SELECT_BY_PARAMS = "SELECT DISTINCT f.id AS ID"
-      + " FROM referencedata.facilities AS f"
+  private static final String FROM_FACILITIES = " FROM referencedata.facilities AS f"
       + " INNER JOIN referencedata.geographic_zones AS g ON f.geographiczoneid = g.id"
       + " INNER JOIN referencedata.facility_types AS t ON f.typeid = t.id";
 
+  private static final String NATIVE_SELECT_BY_PARAMS = "SELECT f.id AS ID" + FROM_FACILITIES;
+
+  private static final String NATIVE_COUNT_BY_PARAMS = "SELECT COUNT(*) AS COUNT"
+      + FROM_FACILITIES;
+
+  // facility names are not unique, so the id makes the order (and pages) stable
+  private static final String ORDER_BY = "ORDER BY f.name, f.id";
+  private static final String ORDER_BY_ID = "ORDER BY f.id";
+  private static final String ID_COLUMN = "f.id";
+
+  // only these properties can be used to sort a page of facilities, each by its own column
+  private static final Map<String, String> SORT_COLUMNS = ImmutableMap.<String, String>builder()
+      .put("id", ID_COLUMN)
+      .put("code", "f.code")
+      .put("name", "f.name")
+      .put("description", "f.description")
+      .put("active", "f.active")
+      .put("enabled", "f.enabled")
+      .put("goLiveDate", "f.golivedate")
+      .put("goDownDate", "f.godowndate")
+      .put("openLmisAccessible", "f.openlmisaccessible")
+      .build();
+
   private static final String HQL_SELECT_BY_IDS = "SELECT DISTINCT f"
       + " FROM Facility AS f"
       + " INNER JOIN FETCH f.geographicZone AS g"
@@ -54,13 +88,16 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
       + " WHERE f.id in (:ids)";
 
   private static final String WHERE = "WHERE";
+  private static final String AND = "AND";
   private static final String OR = " OR ";
 
   private static final String WITH_CODE = "UPPER(f.code) LIKE :code";
   private static final String WITH_NAME = "UPPER(f.name) LIKE :name";
-  private static final String WITH_ZONE = "g.id IN (:zones)";
+  // zones are bound as a single array, since a recursive search can match thousands of them
+  private static final String WITH_ZONE = "g.id = ANY((:zones)\\:\\:uuid[])";
   private static final String WITH_TYPE = "t.code = :typeCode";
   private static final String WITH_EXTRA_DATA = "f.extradata @> (:extraData)\\:\\:jsonb";
+  private static final String WITH_ID_AFTER = "f.id > :after";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -78,11 +115,100 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
    */
   public List<Facility> search(String code, String name, Set<UUID> geographicZoneIds,
                                String facilityTypeCode, String extraData) {
-    List<String> sql = Lists.newArrayList(NATIVE_SELECT_BY_PARAMS);
+    Query query = createQuery(NATIVE_SELECT_BY_PARAMS, code, name, geographicZoneIds,
+        facilityTypeCode, extraData, null, ORDER_BY);
+
+    return findByIds(getIds(query));
+  }
+
+  /**
+   * This method is supposed to retrieve a single page of facilities with matched parameters.
+   * Method is ignoring case for facility code and name. Both the page and the total number of
+   * matching facilities are determined by the database. Facilities are ordered by the sort of
+   * the given page, or by name if it has none, with id as the final tiebreaker. For a
+   * {@link KeysetPageRequest} facilities are ordered by id instead, only the ones after the
+   * cursor are taken into account and they are not counted.
+   *
+   * @param code              Part of wanted code.
+   * @param name              Part of wanted name.
+   * @param geographicZoneIds Geographic zone IDs.
+   * @param facilityTypeCode  Wanted facility type.
+   * @param extraData         extra data
+   * @param pageable          Wanted page.
+   * @return Page of Facilities matching the parameters.
+   * @throws ValidationMessageException if the page is sorted by an unsupported property.
+   */
+  public Page<Facility> search(String code, String name, Set<UUID> geographicZoneIds,
+                               String facilityTypeCode, String extraData, Pageable pageable) {
+    if (KeysetPageRequest.isKeyset(pageable)) {
+      Query query = createQuery(NATIVE_SELECT_BY_PARAMS, code, name, geographicZoneIds,
+          facilityTypeCode, extraData, KeysetPageRequest.getAfter(pageable), ORDER_BY_ID);
+      query.setMaxResults(KeysetPageRequest.getFetchSize(pageable));
+
+      return KeysetPageRequest.getPage(findByIds(getIds(query)), pageable);
+    }
+
+    String orderBy = getOrderBy(pageable);
+
+    Query countQuery = createQuery(NATIVE_COUNT_BY_PARAMS, code, name, geographicZoneIds,
+        facilityTypeCode, extraData, null, null);
+    countQuery.unwrap(SQLQuery.class).addScalar("COUNT", LongType.INSTANCE);
+
+    Long count = (Long) countQuery.getSingleResult();
+
+    if (count == 0) {
+      return Pagination.getPage(Collections.emptyList(), pageable, 0);
+    }
+
+    Query query = createQuery(NATIVE_SELECT_BY_PARAMS, code, name, geographicZoneIds,
+        facilityTypeCode, extraData, null, orderBy);
+
+    if (null != pageable) {
+      Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
+      query
+          .setMaxResults(maxAndFirst.getLeft())
+          .setFirstResult(maxAndFirst.getRight());
+    }
+
+    return Pagination.getPage(findByIds(getIds(query)), pageable, count);
+  }
+
+  private String getOrderBy(Pageable pageable) {
+    Sort sort = null == pageable ? null : pageable.getSort();
+
+    if (null == sort || !sort.iterator().hasNext()) {
+      return ORDER_BY;
+    }
+
+    List<String> columns = Lists.newArrayList();
+    boolean byId = false;
+
+    for (Sort.Order order : sort) {
+      String column = SORT_COLUMNS.get(order.getProperty());
+
+      if (null == column) {
+        throw new ValidationMessageException(new Message(
+            FacilityMessageKeys.ERROR_SEARCH_SORT_INVALID, order.getProperty()));
+      }
+
+      byId |= ID_COLUMN.equals(column);
+      columns.add(column + ' ' + order.getDirection().name());
+    }
+
+    if (!byId) {
+      columns.add(ID_COLUMN);
+    }
+
+    return "ORDER BY " + Joiner.on(", ").join(columns);
+  }
+
+  private Query createQuery(String select, String code, String name, Set<UUID> geographicZoneIds,
+                            String facilityTypeCode, String extraData, UUID after,
+                            String orderBy) {
+    List<String> sql = Lists.newArrayList(select);
     List<String> where = Lists.newArrayList();
     Map<String, Object> params = Maps.newHashMap();
 
-
     if (isNotBlank(code)) {
       where.add(WITH_CODE);
       params.put("code", "%" + code.toUpperCase() + "%");
@@ -100,7 +226,7 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
 
     if (isNotEmpty(geographicZoneIds)) {
       where.add(WITH_ZONE);
-      params.put("zones", geographicZoneIds);
+      params.put("zones", "{" + Joiner.on(',').join(geographicZoneIds) + "}");
     }
 
     if (isNotBlank(extraData)) {
@@ -110,28 +236,54 @@ public class FacilityRepositoryImpl implements FacilityRepositoryCustom {
 
     if (!where.isEmpty()) {
       sql.add(WHERE);
-      sql.add(Joiner.on(OR).join(where));
+      sql.add("(" + Joiner.on(OR).join(where) + ")");
+    }
+
+    if (null != after) {
+      sql.add(where.isEmpty() ? WHERE : AND);
+      sql.add(WITH_ID_AFTER);
+      params.put("after", after);
+    }
+
+    if (null != orderBy) {
+      sql.add(orderBy);
     }
 
     String query = Joiner.on(' ').join(sql);
 
-    Query nativeQuary = entityManager.createNativeQuery(query);
-    params.forEach(nativeQuary::setParameter);
+    Query nativeQuery = entityManager.createNativeQuery(query);
+    params.forEach(nativeQuery::setParameter);
 
-    SQLQuery sqlQuery = nativeQuary.unwrap(SQLQuery.class);
+    return nativeQuery;
+  }
+
+  private List<UUID> getIds(Query query) {
+    SQLQuery sqlQuery = query.unwrap(SQLQuery.class);
     sqlQuery.addScalar("ID", PostgresUUIDType.INSTANCE);
 
     // appropriate scalar is added to native query
     @SuppressWarnings("unchecked")
-    List<UUID> ids = nativeQuary.getResultList();
+    List<UUID> ids = query.getResultList();
+    return ids;
+  }
 
+  private List<Facility> findByIds(List<UUID> ids) {
     if (isEmpty(ids)) {
       return Collections.emptyList();
     }
 
-    return entityManager
+    List<Facility> facilities = entityManager
         .createQuery(HQL_SELECT_BY_IDS, Facility.class)
         .setParameter("ids", ids)
         .getResultList();
+
+    // the fetch query does not keep the order in which the ids were found
+    Map<UUID, Integer> positions = Maps.newHashMapWithExpectedSize(ids.size());
+    for (int i = 0; i < ids.size(); ++i) {
+      positions.put(ids.get(i), i);
+    }
+
+    facilities.sort(Comparator.comparing(facility -> positions.get(facility.getId())));
+    return facilities;
   }
 }
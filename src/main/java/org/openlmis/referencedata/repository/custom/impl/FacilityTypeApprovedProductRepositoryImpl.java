@@ -28,6 +28,7 @@ import org.openlmis.referencedata.domain.OrderableDisplayCategory;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.ProgramOrderable;
 import org.openlmis.referencedata.repository.custom.FacilityTypeApprovedProductRepositoryCustom;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -61,6 +62,21 @@ public class FacilityTypeApprovedProductRepositoryImpl
       + " AND po.active = TRUE"
       + " AND pop.id = p.id";
 
+  private static final String ACTIVE_BY_FACILITY_TYPE_SQL = "SELECT ftap"
+      + " FROM FacilityTypeApprovedProduct ftap"
+      + " INNER JOIN FETCH ftap.orderable o"
+      + " INNER JOIN FETCH ftap.program p"
+      + " INNER JOIN FETCH ftap.facilityType ft"
+      + " INNER JOIN o.programOrderables po"
+      + " INNER JOIN po.orderableDisplayCategory c"
+      + " WHERE ft.id = :facilityTypeId"
+      + " AND po.active = TRUE"
+      + " AND po.program.id = p.id"
+      + " ORDER BY c.orderedDisplayValue.displayOrder"
+      + ", c.orderedDisplayValue.displayName"
+      + ", o.productCode.code"
+      + ", p.code.code";
+
   private static final String WITH_PROGRAM = " AND p.id = :programId";
   private static final String WITH_FULL_SUPPLY = " AND po.fullSupply = :fullSupply";
   private static final String WITH_ORDERABLE_IDS = " AND o.id in :orderableIds";
@@ -69,6 +85,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
   private static final String FACILITY_TYPE = "facilityType";
   private static final String ORDERED_DISPLAY_VALUE = "orderedDisplayValue";
   private static final String CODE = "code";
+  private static final String ID = "id";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -97,10 +114,17 @@ public class FacilityTypeApprovedProductRepositoryImpl
 
     CriteriaQuery<FacilityTypeApprovedProduct> ftapQuery =
         builder.createQuery(FacilityTypeApprovedProduct.class);
-    ftapQuery = prepareQuery(facilityTypeCode, programCode, ftapQuery, false);
+    ftapQuery = prepareQuery(facilityTypeCode, programCode, pageable, ftapQuery, false);
+
+    if (KeysetPageRequest.isKeyset(pageable)) {
+      List<FacilityTypeApprovedProduct> resultList = entityManager.createQuery(ftapQuery)
+          .setMaxResults(KeysetPageRequest.getFetchSize(pageable))
+          .getResultList();
+      return KeysetPageRequest.getPage(resultList, pageable);
+    }
 
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareQuery(facilityTypeCode, programCode, countQuery, true);
+    countQuery = prepareQuery(facilityTypeCode, programCode, pageable, countQuery, true);
 
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
@@ -114,6 +138,22 @@ public class FacilityTypeApprovedProductRepositoryImpl
 
   }
 
+  /**
+   * Finds all approved products of the given facility type, in all programs, for which the
+   * orderable is active in the program. Products are ordered the way they are displayed: by
+   * display category, then product code.
+   *
+   * @param facilityTypeId ID of the facility type
+   * @return approved products with their orderable, program and facility type fetched
+   */
+  @Override
+  public List<FacilityTypeApprovedProduct> findActiveByFacilityTypeId(UUID facilityTypeId) {
+    return entityManager
+        .createQuery(ACTIVE_BY_FACILITY_TYPE_SQL, FacilityTypeApprovedProduct.class)
+        .setParameter("facilityTypeId", facilityTypeId)
+        .getResultList();
+  }
+
   private TypedQuery createQuery(boolean count, UUID facilityTypeId, UUID programId,
                                  List<UUID> orderableIds, Boolean fullSupply, Pageable pageable) {
     TypedQuery query;
@@ -156,6 +196,7 @@ public class FacilityTypeApprovedProductRepositoryImpl
 
   private <T> CriteriaQuery<T> prepareQuery(String facilityTypeCode,
                                             String programCode,
+                                            Pageable pageable,
                                             CriteriaQuery<T> query,
                                             boolean count) {
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -181,6 +222,12 @@ public class FacilityTypeApprovedProductRepositoryImpl
     conjunctionPredicate = builder.and(conjunctionPredicate,
         builder.equal(programOrderables.get(PROGRAM), program));
 
+    UUID after = KeysetPageRequest.getAfter(pageable);
+    if (null != after) {
+      conjunctionPredicate = builder.and(conjunctionPredicate,
+          builder.greaterThan(ftap.<UUID>get(ID), after));
+    }
+
     if (count) {
       CriteriaQuery<Long> countQuery = (CriteriaQuery<Long>) query;
       query = (CriteriaQuery<T>) countQuery.select(builder.count(ftap));
@@ -191,7 +238,9 @@ public class FacilityTypeApprovedProductRepositoryImpl
     }
     query.where(conjunctionPredicate);
 
-    if (!count) {
+    if (!count && KeysetPageRequest.isKeyset(pageable)) {
+      query.orderBy(builder.asc(ftap.get(ID)));
+    } else if (!count) {
       Join<ProgramOrderable, OrderableDisplayCategory> category =
           programOrderables.join("orderableDisplayCategory");
 
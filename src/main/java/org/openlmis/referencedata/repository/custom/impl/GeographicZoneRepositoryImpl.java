@@ -16,6 +16,8 @@
 package org.openlmis.referencedata.repository.custom.impl;
 
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.SQLQuery;
+import org.hibernate.type.PostgresUUIDType;
 import org.openlmis.referencedata.domain.GeographicLevel;
 import org.openlmis.referencedata.domain.GeographicZone;
 import org.openlmis.referencedata.repository.custom.GeographicZoneRepositoryCustom;
@@ -26,6 +28,7 @@ import org.springframework.data.domain.Sort;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
@@ -33,8 +36,11 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 public class GeographicZoneRepositoryImpl implements GeographicZoneRepositoryCustom {
 
@@ -43,9 +49,41 @@ public class GeographicZoneRepositoryImpl implements GeographicZoneRepositoryCus
   private static final String PARENT = "parent";
   private static final String LEVEL = "level";
 
+  // UNION (rather than UNION ALL) drops zones that were already visited, so the recursion ends
+  // even if the hierarchy contains a cycle
+  private static final String NATIVE_SELECT_IDS_IN_HIERARCHY = "WITH RECURSIVE descendants AS ("
+      + " SELECT z.id FROM referencedata.geographic_zones AS z WHERE z.parentid = :rootId"
+      + " UNION"
+      + " SELECT z.id FROM referencedata.geographic_zones AS z"
+      + " INNER JOIN descendants AS d ON z.parentid = d.id"
+      + ") SELECT d.id AS ID FROM descendants AS d";
+
   @PersistenceContext
   private EntityManager entityManager;
 
+  /**
+   * Retrieves IDs of all descendants of the given geographic zone, no matter how deep in the
+   * hierarchy they are. The whole hierarchy is walked by the database in a single query.
+   *
+   * @param rootId ID of the root of the hierarchy, which itself is not included.
+   * @return IDs of all descendant zones.
+   */
+  public Set<UUID> findIdsInHierarchy(UUID rootId) {
+    if (null == rootId) {
+      return new HashSet<>();
+    }
+
+    Query query = entityManager
+        .createNativeQuery(NATIVE_SELECT_IDS_IN_HIERARCHY)
+        .setParameter("rootId", rootId);
+    query.unwrap(SQLQuery.class).addScalar("ID", PostgresUUIDType.INSTANCE);
+
+    // appropriate scalar is added to native query
+    @SuppressWarnings("unchecked")
+    List<UUID> ids = query.getResultList();
+    return new HashSet<>(ids);
+  }
+
   /**
    * This method is supposed to retrieve page of geographic zones with matched parameters.
    * Method is ignoring case for geographic code and name.
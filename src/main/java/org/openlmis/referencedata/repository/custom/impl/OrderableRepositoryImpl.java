@@ -20,11 +20,13 @@ import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.ProgramOrderable;
 import org.openlmis.referencedata.repository.custom.OrderableRepositoryCustom;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.UUID;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -41,6 +43,7 @@ public class OrderableRepositoryImpl implements OrderableRepositoryCustom {
   private static final String PROGRAMS = "programOrderables";
   private static final String PROGRAM = "program";
   private static final String CODE = "code";
+  private static final String ID = "id";
 
   @PersistenceContext
   private EntityManager entityManager;
@@ -49,6 +52,8 @@ public class OrderableRepositoryImpl implements OrderableRepositoryCustom {
    * This method is supposed to retrieve all orderables with matched parameters.
    * Method is ignoring case for orderable code and name.
    * To find all wanted orderables by code and name we use criteria query and like operator.
+   * For a {@link KeysetPageRequest} only orderables after its cursor are returned, sorted by id,
+   * and they are not counted.
    *
    * @param code Part of wanted code.
    * @param name Part of wanted name.
@@ -58,11 +63,21 @@ public class OrderableRepositoryImpl implements OrderableRepositoryCustom {
   public Page<Orderable> search(String code, String name, Code programCode, Pageable pageable) {
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
 
+    UUID after = KeysetPageRequest.getAfter(pageable);
+    boolean keyset = KeysetPageRequest.isKeyset(pageable);
+
     CriteriaQuery<Orderable> orderableQuery = builder.createQuery(Orderable.class);
-    orderableQuery = prepareQuery(orderableQuery, code, name, programCode, false);
+    orderableQuery = prepareQuery(orderableQuery, code, name, programCode, after, keyset, false);
+
+    if (keyset) {
+      List<Orderable> orderableList = entityManager.createQuery(orderableQuery)
+          .setMaxResults(KeysetPageRequest.getFetchSize(pageable))
+          .getResultList();
+      return KeysetPageRequest.getPage(orderableList, pageable);
+    }
 
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareQuery(countQuery, code, name, programCode, true);
+    countQuery = prepareQuery(countQuery, code, name, programCode, after, keyset, true);
 
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
@@ -78,6 +93,8 @@ public class OrderableRepositoryImpl implements OrderableRepositoryCustom {
                                             String code,
                                             String name,
                                             Code programCode,
+                                            UUID after,
+                                            boolean keyset,
                                             boolean count) {
 
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -110,7 +127,16 @@ public class OrderableRepositoryImpl implements OrderableRepositoryCustom {
               programCode.toString().toUpperCase()));
     }
 
+    if (null != after) {
+      predicate = builder.and(predicate, builder.greaterThan(root.<UUID>get(ID), after));
+    }
+
     query.where(predicate);
+
+    if (keyset && !count) {
+      query.orderBy(builder.asc(root.get(ID)));
+    }
+
     return query;
   }
 }
@@ -15,11 +15,12 @@
 
 package org.openlmis.referencedata.repository.custom.impl;
 
+import static org.apache.commons.lang3.StringUtils.isNotBlank;
+
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -27,9 +28,10 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Order;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
-import org.apache.commons.collections4.CollectionUtils;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.repository.custom.UserRepositoryCustom;
+import org.openlmis.referencedata.util.CustomPostgisDialect;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -46,16 +48,19 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
   protected static final String VERIFIED = "verified";
   protected static final String LOGIN_RESTRICTED = "loginRestricted";
   protected static final String ID = "id";
+  protected static final String EXTRA_DATA = "extraData";
 
   @PersistenceContext
   private EntityManager entityManager;
 
   /**
    * Method returns all matching users sorted by username in alphabetically descending order.
-   * If all parameters are null, returns all users.
+   * If all parameters are null, returns all users. For a {@link KeysetPageRequest} only users
+   * after its cursor are returned, sorted by id, and they are not counted.
    * For firstName, lastName, email: matches values that equal or contain
    * the searched value. Case insensitive.
    * Other fields: entered string value must equal to searched value.
+   * For extraData: matches users whose extra data contains the given JSON document.
    *
    * @param username        username of user.
    * @param firstName       firstName of user.
@@ -65,22 +70,30 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
    * @param active          is the account activated.
    * @param verified        is the account verified.
    * @param loginRestricted is the account login restricted.
-   * @param foundUsers      list of already found users
+   * @param extraData       JSON document the extra data of user must contain.
    * @param pageable        pagination parameters
    * @return Page of users
    */
   public Page<User> searchUsers(String username, String firstName, String lastName,
                                 String email, UUID homeFacilityId, Boolean active,
                                 Boolean verified, Boolean loginRestricted,
-                                List<User> foundUsers, Pageable pageable) {
+                                String extraData, Pageable pageable) {
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
     CriteriaQuery<User> query = builder.createQuery(User.class);
     CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
 
     query = prepareQuery(username, firstName, lastName, email, homeFacilityId, active, verified,
-        loginRestricted, foundUsers, query, false, pageable);
+        loginRestricted, extraData, query, false, pageable);
+
+    if (KeysetPageRequest.isKeyset(pageable)) {
+      List<User> result = entityManager.createQuery(query)
+          .setMaxResults(KeysetPageRequest.getFetchSize(pageable))
+          .getResultList();
+      return KeysetPageRequest.getPage(result, pageable);
+    }
+
     countQuery = prepareQuery(username, firstName, lastName, email, homeFacilityId, active, 
-        verified, loginRestricted, foundUsers, countQuery, true, pageable);
+        verified, loginRestricted, extraData, countQuery, true, pageable);
 
     Long count = entityManager.createQuery(countQuery).getSingleResult();
 
@@ -95,7 +108,7 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
   private <T> CriteriaQuery<T> prepareQuery(String username, String firstName, String lastName,
                                             String email, UUID homeFacilityId, Boolean active,
                                             Boolean verified, Boolean loginRestricted,
-                                            List<User> foundUsers, CriteriaQuery<T> query,
+                                            String extraData, CriteriaQuery<T> query,
                                             boolean count, Pageable pageable) {
 
     CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -116,15 +129,15 @@ public class UserRepositoryImpl implements UserRepositoryCustom {
     predicate = addEqualsFilter(predicate, builder, root, VERIFIED, verified);
     predicate = addEqualsFilter(predicate, builder, root, LOGIN_RESTRICTED, loginRestricted);
 
-    if (!CollectionUtils.isEmpty(foundUsers)) {
-      List<UUID> ids = foundUsers.stream().map(User::getId).collect(Collectors.toList());
+    if (isNotBlank(extraData)) {
+      predicate = builder.and(predicate, builder.isTrue(builder.function(
+          CustomPostgisDialect.JSONB_CONTAINS, Boolean.class,
+          root.get(EXTRA_DATA), builder.literal(extraData))));
+    }
 
-      Predicate extraDatePredicate = builder.disjunction();
-      for (UUID id : ids) {
-        extraDatePredicate = builder.or(extraDatePredicate,
-            builder.equal(root.get(ID), id));
-      }
-      predicate = builder.and(predicate, extraDatePredicate);
+    UUID after = KeysetPageRequest.getAfter(pageable);
+    if (null != after) {
+      predicate = builder.and(predicate, builder.greaterThan(root.<UUID>get(ID), after));
     }
 
     query.where(predicate);
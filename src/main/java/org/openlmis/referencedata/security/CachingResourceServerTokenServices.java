@@ -0,0 +1,255 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.security;
+
+import org.apache.commons.lang3.Validate;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.security.oauth2.common.OAuth2AccessToken;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.ResourceServerTokenServices;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decorator of {@link ResourceServerTokenServices} that caches loaded authentications, so that
+ * not every request has to check its token with the auth service.
+ *
+ * <p>Authentications are kept for at most the configured time to live, and never past the
+ * expiration of their token (if {@link ExpiringAccessTokenConverter} made it known). The cache
+ * holds a bounded number of entries, evicting the least recently used ones, and is keyed by a
+ * hash of the token rather than the token itself. Concurrent requests with the same uncached
+ * token share a single check. Failed checks are not cached.
+ */
+public class CachingResourceServerTokenServices
+    implements ResourceServerTokenServices, PublicMetrics {
+  private static final XLogger XLOGGER =
+      XLoggerFactory.getXLogger(CachingResourceServerTokenServices.class);
+
+  static final String METRIC_PREFIX = "tokenCache.";
+
+  private final ResourceServerTokenServices delegate;
+  private final long timeToLive;
+  private final Clock clock;
+  private final Map<String, CachedAuthentication> cache;
+  private final ConcurrentMap<String, CompletableFuture<OAuth2Authentication>> loading =
+      new ConcurrentHashMap<>();
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Creates a caching decorator of the given token services.
+   *
+   * @param delegate    token services to load authentications from
+   * @param timeToLive  how long an authentication is cached, in milliseconds
+   * @param maxSize     maximum number of cached authentications
+   */
+  public CachingResourceServerTokenServices(ResourceServerTokenServices delegate,
+                                            long timeToLive, int maxSize) {
+    this(delegate, timeToLive, maxSize, Clock.systemUTC());
+  }
+
+  CachingResourceServerTokenServices(ResourceServerTokenServices delegate, long timeToLive,
+                                     int maxSize, Clock clock) {
+    Validate.notNull(delegate);
+    Validate.isTrue(maxSize > 0, "Max size must be positive");
+    this.delegate = delegate;
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+    this.cache = new LeastRecentlyUsedMap<>(maxSize);
+  }
+
+  @Override
+  public OAuth2Authentication loadAuthentication(String accessToken) {
+    if (timeToLive <= 0) {
+      return delegate.loadAuthentication(accessToken);
+    }
+
+    String key = hash(accessToken);
+    OAuth2Authentication cached = getCached(key);
+    if (null != cached) {
+      hits.incrementAndGet();
+      return copy(cached);
+    }
+
+    CompletableFuture<OAuth2Authentication> ownLoad = new CompletableFuture<>();
+    CompletableFuture<OAuth2Authentication> load = loading.putIfAbsent(key, ownLoad);
+    if (null != load) {
+      coalesced.incrementAndGet();
+      return copy(await(load));
+    }
+
+    misses.incrementAndGet();
+    try {
+      OAuth2Authentication authentication = delegate.loadAuthentication(accessToken);
+      put(key, authentication);
+      ownLoad.complete(authentication);
+      return copy(authentication);
+    } catch (RuntimeException ex) {
+      ownLoad.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      if (!ownLoad.isDone()) {
+        ownLoad.completeExceptionally(new IllegalStateException("Token check failed"));
+      }
+      loading.remove(key, ownLoad);
+    }
+  }
+
+  @Override
+  public OAuth2AccessToken readAccessToken(String accessToken) {
+    return delegate.readAccessToken(accessToken);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    return Arrays.asList(
+        new Metric<>(METRIC_PREFIX + "hits", hits.get()),
+        new Metric<>(METRIC_PREFIX + "misses", misses.get()),
+        new Metric<>(METRIC_PREFIX + "coalesced", coalesced.get()),
+        new Metric<>(METRIC_PREFIX + "size", size()));
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  long getCoalesced() {
+    return coalesced.get();
+  }
+
+  int size() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  private OAuth2Authentication getCached(String key) {
+    synchronized (cache) {
+      CachedAuthentication cached = cache.get(key);
+      if (null == cached) {
+        return null;
+      }
+      if (cached.expiresAt <= clock.millis()) {
+        cache.remove(key);
+        return null;
+      }
+      return cached.authentication;
+    }
+  }
+
+  private void put(String key, OAuth2Authentication authentication) {
+    long now = clock.millis();
+    long expiresAt = now + timeToLive;
+
+    Long tokenExpiration = ExpiringAccessTokenConverter.getExpiration(authentication);
+    if (null != tokenExpiration) {
+      expiresAt = Math.min(expiresAt, tokenExpiration * 1000);
+    }
+
+    if (expiresAt <= now) {
+      XLOGGER.debug("Not caching authentication of an expired token");
+      return;
+    }
+
+    synchronized (cache) {
+      cache.put(key, new CachedAuthentication(authentication, expiresAt));
+    }
+  }
+
+  private OAuth2Authentication await(CompletableFuture<OAuth2Authentication> load) {
+    try {
+      return load.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for token check", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException("Token check failed", ex);
+    }
+  }
+
+  /*
+   the authentication manager sets request specific details on the returned authentication, so
+   every caller gets its own copy of the cached one
+   */
+  private OAuth2Authentication copy(OAuth2Authentication authentication) {
+    return new OAuth2Authentication(authentication.getOAuth2Request(),
+        authentication.getUserAuthentication());
+  }
+
+  private static String hash(String accessToken) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(accessToken.getBytes(StandardCharsets.UTF_8));
+
+      StringBuilder builder = new StringBuilder(digest.length * 2);
+      for (byte part : digest) {
+        builder.append(String.format("%02x", part));
+      }
+      return builder.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static final class LeastRecentlyUsedMap<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = -2178465318520447623L;
+
+    private final int maxSize;
+
+    LeastRecentlyUsedMap(int maxSize) {
+      super(16, 0.75f, true);
+      this.maxSize = maxSize;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+      return size() > maxSize;
+    }
+  }
+
+  private static final class CachedAuthentication {
+    private final OAuth2Authentication authentication;
+    private final long expiresAt;
+
+    CachedAuthentication(OAuth2Authentication authentication, long expiresAt) {
+      this.authentication = authentication;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
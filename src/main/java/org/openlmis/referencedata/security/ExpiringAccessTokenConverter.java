@@ -0,0 +1,67 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.security;
+
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.OAuth2Request;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Extension of {@link DefaultAccessTokenConverter}. Keeps the expiration time of the token (which
+ * the default converter drops) in the extensions of the OAuth2 request, so that the
+ * authentication can be cached for no longer than the token is valid.
+ */
+public class ExpiringAccessTokenConverter extends DefaultAccessTokenConverter {
+
+  /**
+   * {@inheritDoc}.
+   */
+  @Override
+  public OAuth2Authentication extractAuthentication(Map<String, ?> map) {
+    OAuth2Authentication authentication = super.extractAuthentication(map);
+    Object expiration = map.get(EXP);
+
+    if (!(expiration instanceof Number)) {
+      return authentication;
+    }
+
+    OAuth2Request request = authentication.getOAuth2Request();
+    Map<String, Serializable> extensions = new HashMap<>(request.getExtensions());
+    extensions.put(EXP, ((Number) expiration).longValue());
+
+    OAuth2Request requestWithExpiration = new OAuth2Request(request.getRequestParameters(),
+        request.getClientId(), request.getAuthorities(), request.isApproved(),
+        request.getScope(), request.getResourceIds(), request.getRedirectUri(),
+        request.getResponseTypes(), extensions);
+
+    return new OAuth2Authentication(requestWithExpiration,
+        authentication.getUserAuthentication());
+  }
+
+  /**
+   * Gets the expiration time of the token the authentication was created from.
+   *
+   * @param authentication authentication extracted by this converter
+   * @return the expiration time, in seconds since epoch, or null if it is not known
+   */
+  public static Long getExpiration(OAuth2Authentication authentication) {
+    Serializable expiration = authentication.getOAuth2Request().getExtensions().get(EXP);
+    return expiration instanceof Long ? (Long) expiration : null;
+  }
+}
@@ -20,6 +20,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -103,7 +104,7 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
    */
   @Bean
   public AccessTokenConverter accessTokenConverter() {
-    DefaultAccessTokenConverter defaultAccessTokenConverter = new DefaultAccessTokenConverter();
+    DefaultAccessTokenConverter defaultAccessTokenConverter = new ExpiringAccessTokenConverter();
     defaultAccessTokenConverter.setUserTokenConverter(new CustomUserAuthenticationConverter());
     return defaultAccessTokenConverter;
   }
@@ -130,6 +131,24 @@ public class ResourceServerSecurityConfiguration implements ResourceServerConfig
     return remoteTokenServices;
   }
 
+  /**
+   * Token services bean initializer. Caches the authentications loaded by the remote token
+   * services, so that not every request has to check its token with the auth service.
+   *
+   * @param remoteTokenServices token services checking tokens with the auth service
+   * @param timeToLive          how long an authentication is cached, in milliseconds
+   * @param maxSize             maximum number of cached authentications
+   * @return token services
+   */
+  @Bean
+  @Primary
+  public CachingResourceServerTokenServices cachingTokenServices(
+      RemoteTokenServices remoteTokenServices,
+      @Value("${auth.server.tokenCache.timeToLive}") long timeToLive,
+      @Value("${auth.server.tokenCache.maxSize}") int maxSize) {
+    return new CachingResourceServerTokenServices(remoteTokenServices, timeToLive, maxSize);
+  }
+
   /**
    * CorsConfigurationSource bean initializer.
    * @return cors configuration
@@ -0,0 +1,218 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.apache.commons.collections.CollectionUtils.isEmpty;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.ProgramOrderable;
+import org.openlmis.referencedata.dto.ApprovedProductDto;
+import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the approved products of facility types, so that the approved products of a facility
+ * don't have to be searched for with a multi-table join on every request. Each facility type has
+ * a catalog of its approved products in all programs, ordered by display category and product
+ * code, which requests filter by program, full supply and orderables.
+ *
+ * <p>Cached catalogs are reloaded when they are needed after approved products, orderables,
+ * programs, display categories or facility types changed, or after they got older than the
+ * configured max age.
+ */
+@Service
+public class ApprovedProductCatalog {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(ApprovedProductCatalog.class);
+
+  // only used to compute entity tags, map entries are sorted so that equal catalogs get equal tags
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+  @Autowired
+  private FacilityTypeApprovedProductRepository facilityTypeApprovedProductRepository;
+
+  @Value("${approvedProductCatalog.maxAge}")
+  private long maxAge;
+
+  private final GenerationCache generations =
+      new GenerationCache("Approved product catalogs", () -> maxAge);
+  private final ConcurrentMap<UUID, Catalog> cache = new ConcurrentHashMap<>();
+
+  /**
+   * Gets the catalog of approved products of the given facility type, loading it if it is not
+   * cached yet or the cached one is out of date.
+   */
+  public Catalog get(UUID facilityTypeId) {
+    Catalog cached = cache.get(facilityTypeId);
+    if (null != cached && isValid(cached)) {
+      return cached;
+    }
+
+    long currentGeneration = generations.getGeneration();
+    List<FacilityTypeApprovedProduct> products = facilityTypeApprovedProductRepository
+        .findActiveByFacilityTypeId(facilityTypeId);
+
+    Catalog loaded = new Catalog(products, currentGeneration, System.currentTimeMillis());
+
+    cache.put(facilityTypeId, loaded);
+    XLOGGER.debug("Loaded {} approved products of facility type {}", loaded.size(),
+        facilityTypeId);
+    return loaded;
+  }
+
+  /**
+   * Invalidates all cached catalogs.
+   */
+  public void invalidate() {
+    generations.invalidate();
+    cache.clear();
+  }
+
+  /**
+   * Invalidates all cached catalogs once the current transaction commits.
+   */
+  public void invalidateAfterCommit() {
+    GenerationCache.afterCommit(this::invalidate);
+  }
+
+  long getGeneration() {
+    return generations.getGeneration();
+  }
+
+  private boolean isValid(Catalog catalog) {
+    return generations.isValid(catalog.generation, catalog.loadedAt);
+  }
+
+  /**
+   * Immutable catalog of approved products of a single facility type.
+   */
+  public static final class Catalog {
+    private final List<Entry> entries;
+    private final String etag;
+    private final long generation;
+    private final long loadedAt;
+
+    /**
+     * Creates a catalog of approved products of a facility type.
+     *
+     * @param approvedProducts the approved products, in catalog order
+     * @param generation the cache generation the approved products were loaded in
+     * @param loadedAt when the approved products were loaded, in milliseconds
+     */
+    public Catalog(List<FacilityTypeApprovedProduct> approvedProducts, long generation,
+                   long loadedAt) {
+      List<Entry> loaded = new ArrayList<>(approvedProducts.size());
+      List<ApprovedProductDto> products = new ArrayList<>(approvedProducts.size());
+      for (FacilityTypeApprovedProduct approvedProduct : approvedProducts) {
+        Entry entry = new Entry(approvedProduct);
+        loaded.add(entry);
+        products.add(entry.product);
+      }
+
+      this.entries = Collections.unmodifiableList(loaded);
+      this.etag = etag(products);
+      this.generation = generation;
+      this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Gets approved products of the catalog, in catalog order.
+     *
+     * @param programId    ID of the program, or null for all programs
+     * @param fullSupply   true for full supply products only, false for non-full supply ones,
+     *                     null for both
+     * @param orderableIds IDs of orderables to return, or empty for all orderables
+     * @return the matching approved products
+     */
+    public List<ApprovedProductDto> getProducts(UUID programId, Boolean fullSupply,
+                                                Collection<UUID> orderableIds) {
+      Set<UUID> orderables = isEmpty(orderableIds)
+          ? Collections.emptySet()
+          : new HashSet<>(orderableIds);
+
+      List<ApprovedProductDto> products = new ArrayList<>();
+      for (Entry entry : entries) {
+        if (entry.matches(programId, fullSupply, orderables)) {
+          products.add(entry.product);
+        }
+      }
+
+      return products;
+    }
+
+    /**
+     * Gets the entity tag of the catalog. It only changes when the approved products themselves
+     * change.
+     */
+    public String getEtag() {
+      return etag;
+    }
+
+    public int size() {
+      return entries.size();
+    }
+
+    private static String etag(List<ApprovedProductDto> products) {
+      try {
+        return DigestUtils.md5DigestAsHex(MAPPER.writeValueAsBytes(products));
+      } catch (JsonProcessingException ex) {
+        throw new IllegalStateException("Cannot serialize approved products", ex);
+      }
+    }
+  }
+
+  private static final class Entry {
+    private final UUID programId;
+    private final UUID orderableId;
+    private final boolean fullSupply;
+    private final ApprovedProductDto product;
+
+    Entry(FacilityTypeApprovedProduct approvedProduct) {
+      ProgramOrderable programOrderable = approvedProduct.getOrderable()
+          .getProgramOrderable(approvedProduct.getProgram());
+
+      this.programId = approvedProduct.getProgram().getId();
+      this.orderableId = approvedProduct.getOrderable().getId();
+      this.fullSupply = null != programOrderable && programOrderable.isFullSupply();
+      this.product = new ApprovedProductDto();
+      approvedProduct.export(product);
+    }
+
+    boolean matches(UUID programId, Boolean fullSupply, Set<UUID> orderableIds) {
+      return (null == programId || programId.equals(this.programId))
+          && (null == fullSupply || fullSupply == this.fullSupply)
+          && (orderableIds.isEmpty() || orderableIds.contains(orderableId));
+    }
+  }
+}
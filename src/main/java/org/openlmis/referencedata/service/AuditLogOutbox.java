@@ -0,0 +1,359 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.hibernate.Hibernate;
+import org.javers.core.Javers;
+import org.javers.repository.jql.InstanceIdDTO;
+import org.javers.repository.jql.QueryBuilder;
+import org.openlmis.referencedata.domain.Identifiable;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+/**
+ * Optional asynchronous mode of the audit log. When enabled, JaVers commits of entities are not
+ * done in the business transaction. Instead, the type and id of the saved or deleted entity are
+ * recorded in the audit_log_outbox table, as part of that transaction. A pool of background
+ * workers then takes batches of recorded entities, commits their current state to JaVers and
+ * removes them from the outbox, all in one transaction. Entries of a rolled back business
+ * transaction never reach the outbox, and an entry is only removed together with the JaVers
+ * commit made for it, so nothing is lost or committed twice when the service restarts.
+ *
+ * <p>Only one worker, of any instance of the service, commits a given entity at a time. A worker
+ * that finds the entity taken by another one leaves its entries in the outbox for a later run.
+ *
+ * <p>Workers commit the state an entity has when its entry is processed, so several saves of the
+ * same entity that are waiting in the outbox end up as a single snapshot. The snapshot is dated
+ * when it is committed, not when the entity was saved.
+ */
+@Component
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class AuditLogOutbox implements PublicMetrics {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(AuditLogOutbox.class);
+
+  static final String METRIC_PREFIX = "auditLogOutbox.";
+
+  private static final String COMMIT = "commit";
+  private static final String COMMIT_SHALLOW_DELETE = "commitShallowDelete";
+
+  private static final String INSERT = "INSERT INTO referencedata.audit_log_outbox"
+      + " (entitytype, entityid, author, deleted) VALUES (?, ?, ?, ?)";
+
+  // SKIP LOCKED lets workers of all instances take separate batches at the same time
+  private static final String SELECT_BATCH = "SELECT id, entitytype, entityid, author, deleted"
+      + " FROM referencedata.audit_log_outbox"
+      + " ORDER BY id"
+      + " LIMIT ?"
+      + " FOR UPDATE SKIP LOCKED";
+
+  private static final String DELETE = "DELETE FROM referencedata.audit_log_outbox WHERE id = ?";
+
+  // SKIP LOCKED only locks rows, so entries of one entity can still be in batches of several
+  // workers; concurrent JaVers commits of an entity would give their snapshots the same version
+  private static final String LOCK_ENTITY = "SELECT pg_try_advisory_xact_lock(?)";
+
+  private static final String SELECT_BACKLOG = "SELECT COUNT(*) AS pending,"
+      + " MIN(createddate) AS oldest"
+      + " FROM referencedata.audit_log_outbox";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${auditLog.async.enabled}")
+  private boolean enabled;
+
+  @Value("${auditLog.async.workers}")
+  private int workers;
+
+  @Value("${auditLog.async.batchSize}")
+  private int batchSize;
+
+  @Value("${auditLog.async.pollInterval}")
+  private long pollInterval;
+
+  private Javers javers;
+  private ScheduledExecutorService executor;
+
+  private final AtomicLong captured = new AtomicLong();
+  private final AtomicLong committed = new AtomicLong();
+  private final AtomicLong failedBatches = new AtomicLong();
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Wraps the given JaVers instance, so that commits and shallow deletes of entities are recorded
+   * in the outbox instead of being done right away. Everything else, including queries, is passed
+   * on to the given instance, which the workers also use to commit the recorded entities.
+   *
+   * @param delegate JaVers instance that does the actual work
+   * @return JaVers instance to be used by the rest of the service
+   */
+  public Javers decorate(Javers delegate) {
+    this.javers = delegate;
+    return (Javers) Proxy.newProxyInstance(Javers.class.getClassLoader(),
+        new Class<?>[] {Javers.class}, (proxy, method, args) -> {
+          if (isCapturable(method, args)) {
+            capture((String) args[0], (Identifiable) args[1],
+                COMMIT_SHALLOW_DELETE.equals(method.getName()));
+            return null;
+          }
+
+          if (Javers.class != method.getDeclaringClass()) {
+            return method.invoke(delegate, args);
+          }
+          return invokeInTransaction(delegate, method, args);
+        });
+  }
+
+  /**
+   * Starts the workers, once the service is ready, if the asynchronous mode is enabled.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled || null == javers) {
+      return;
+    }
+
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor = Executors.newScheduledThreadPool(Math.max(1, workers), runnable -> {
+      Thread thread = new Thread(runnable, "audit-log-outbox-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    for (int i = 0; i < Math.max(1, workers); ++i) {
+      executor.scheduleWithFixedDelay(this::drain, pollInterval, pollInterval,
+          TimeUnit.MILLISECONDS);
+    }
+    XLOGGER.info("Started {} audit log outbox workers", Math.max(1, workers));
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (null != executor) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    if (!enabled) {
+      return Collections.emptyList();
+    }
+
+    Map<String, Object> backlog = jdbcTemplate.queryForMap(SELECT_BACKLOG);
+    Timestamp oldest = (Timestamp) backlog.get("oldest");
+    long lag = null == oldest ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTime());
+
+    return Arrays.asList(
+        new Metric<>(METRIC_PREFIX + "pending", ((Number) backlog.get("pending")).longValue()),
+        new Metric<>(METRIC_PREFIX + "lag", lag),
+        new Metric<>(METRIC_PREFIX + "captured", captured.get()),
+        new Metric<>(METRIC_PREFIX + "committed", committed.get()),
+        new Metric<>(METRIC_PREFIX + "failedBatches", failedBatches.get()));
+  }
+
+  /**
+   * Processes a single batch of outbox entries in one transaction.
+   *
+   * @return number of processed entries
+   */
+  int processBatch() {
+    Integer processed = new TransactionTemplate(transactionManager).execute(status -> {
+      List<Entry> entries = jdbcTemplate.query(SELECT_BATCH,
+          (rs, rowNum) -> new Entry(rs.getLong("id"), rs.getString("entitytype"),
+              (UUID) rs.getObject("entityid"), rs.getString("author"),
+              rs.getBoolean("deleted")),
+          batchSize);
+
+      // only the latest entry of an entity matters, since its current state is committed
+      Map<String, Entry> latest = new LinkedHashMap<>();
+      for (Entry entry : entries) {
+        latest.remove(entry.getKey());
+        latest.put(entry.getKey(), entry);
+      }
+
+      Set<String> taken = new HashSet<>();
+      for (Entry entry : latest.values()) {
+        if (lock(entry)) {
+          commit(entry);
+        } else {
+          taken.add(entry.getKey());
+        }
+      }
+
+      List<Object[]> done = entries.stream()
+          .filter(entry -> !taken.contains(entry.getKey()))
+          .map(entry -> new Object[] {entry.id})
+          .collect(Collectors.toList());
+      jdbcTemplate.batchUpdate(DELETE, done);
+      return done.size();
+    });
+
+    committed.addAndGet(processed);
+    return processed;
+  }
+
+  private void drain() {
+    try {
+      while (processBatch() >= batchSize) {
+        XLOGGER.debug("Audit log outbox is behind, processing another batch");
+      }
+    } catch (RuntimeException ex) {
+      // the batch is rolled back and retried on the next run
+      failedBatches.incrementAndGet();
+      XLOGGER.error("Could not process a batch of the audit log outbox", ex);
+    }
+  }
+
+  /*
+   Spring only applies the transactional annotations of the JaVers instance to the bean itself,
+   which is the wrapper in this mode, so the wrapper opens (or joins) the transaction instead
+   */
+  private Object invokeInTransaction(Javers delegate, Method method, Object[] args) {
+    return new TransactionTemplate(transactionManager).execute(status -> {
+      try {
+        return method.invoke(delegate, args);
+      } catch (InvocationTargetException ex) {
+        if (ex.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) ex.getCause();
+        }
+        if (ex.getCause() instanceof Error) {
+          throw (Error) ex.getCause();
+        }
+        throw new IllegalStateException(ex);
+      } catch (IllegalAccessException ex) {
+        throw new IllegalStateException(ex);
+      }
+    });
+  }
+
+  private boolean isCapturable(Method method, Object[] args) {
+    return (COMMIT.equals(method.getName()) || COMMIT_SHALLOW_DELETE.equals(method.getName()))
+        && null != args
+        && (args.length == 2 || args.length == 3 && args[2] instanceof Map)
+        && args[1] instanceof Identifiable
+        && null != ((Identifiable) args[1]).getId();
+  }
+
+  private void capture(String author, Identifiable entity, boolean deleted) {
+    jdbcTemplate.update(INSERT, Hibernate.getClass(entity).getName(), entity.getId(), author,
+        deleted);
+    captured.incrementAndGet();
+  }
+
+  /*
+   Locks the entity until the end of the transaction, unless another worker holds it. The lock
+   key is folded from the id, and two entities sharing a key only means one of them waits for a
+   later run.
+   */
+  private boolean lock(Entry entry) {
+    long key = entry.entityId.getMostSignificantBits() ^ entry.entityId.getLeastSignificantBits();
+    if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_ENTITY, Boolean.class, key))) {
+      return true;
+    }
+
+    XLOGGER.debug("Audited entity {} is taken by another worker, leaving its entries for later",
+        entry.entityId);
+    return false;
+  }
+
+  private void commit(Entry entry) {
+    Class<?> type;
+    try {
+      type = Class.forName(entry.entityType);
+    } catch (ClassNotFoundException ex) {
+      throw new IllegalStateException("Unknown audited type " + entry.entityType, ex);
+    }
+
+    if (entry.deleted) {
+      // JaVers refuses to delete what it has never seen, which would fail the batch forever
+      if (!javers.findSnapshots(QueryBuilder.byInstanceId(entry.entityId, type).limit(1).build())
+          .isEmpty()) {
+        javers.commitShallowDeleteById(entry.author,
+            InstanceIdDTO.instanceId(entry.entityId, type));
+      }
+      return;
+    }
+
+    Object entity = entityManager.find(type, entry.entityId);
+    if (null != entity) {
+      javers.commit(entry.author, entity);
+    }
+  }
+
+  private static final class Entry {
+    private final long id;
+    private final String entityType;
+    private final UUID entityId;
+    private final String author;
+    private final boolean deleted;
+
+    Entry(long id, String entityType, UUID entityId, String author, boolean deleted) {
+      this.id = id;
+      this.entityType = entityType;
+      this.entityId = entityId;
+      this.author = author;
+      this.deleted = deleted;
+    }
+
+    String getKey() {
+      return entityType + '/' + entityId;
+    }
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import org.apache.commons.lang3.StringUtils;
+import org.javers.core.Javers;
+import org.javers.core.changelog.SimpleTextChangeLog;
+import org.javers.core.commit.CommitId;
+import org.javers.core.diff.Change;
+import org.javers.core.json.JsonConverter;
+import org.javers.core.metamodel.object.CdoSnapshot;
+import org.javers.repository.jql.QueryBuilder;
+import org.openlmis.referencedata.util.Pagination;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
+
+/**
+ * Reads audit logs from JaVers. Paging is done by the JaVers repository, which also returns the
+ * changes newest first, so no page is ever sorted or cut out in memory.
+ *
+ * <p>The history of an entity only grows, so read audit logs are cached. Every cached audit log
+ * remembers the head commit it was read at, and is only served while that commit is still the
+ * head. The cache holds a bounded number of audit logs, evicting the least recently used ones.
+ */
+@Service
+public class AuditLogService {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(AuditLogService.class);
+
+  public static final String NDJSON = "application/x-ndjson";
+
+  static final int EXPORT_PAGE_SIZE = 500;
+
+  @Resource(name = "javersProvider")
+  private Javers javers;
+
+  @Value("${auditLog.cache.maxSize}")
+  private int maxSize;
+
+  private Map<AuditLogKey, CachedAuditLog> cache;
+
+  /**
+   * Creates the cache, once its max size is known.
+   */
+  @PostConstruct
+  public void init() {
+    cache = new LinkedHashMap<AuditLogKey, CachedAuditLog>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<AuditLogKey, CachedAuditLog> eldest) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Gets a page of the audit log of the given type, either as JSON or as raw text.
+   *
+   * @param type The type of class for which we wish to retrieve historical changes.
+   * @param id The ID of class for which we wish to retrieve historical changes.
+   *           If null, entries are returned regardless of their ID.
+   * @param author The author of the changes which should be returned.
+   *               If null or empty, changes are returned regardless of author.
+   * @param changedPropertyName The name of the property about which changes should be returned.
+   *               If null or empty, changes associated with any and all properties are returned.
+   * @param page A Pageable object with PageNumber and PageSize values used for pagination.
+   * @param returnJson true for JSON, false for a human-readable log.
+   */
+  public String getAuditLog(Class type, UUID id, String author, String changedPropertyName,
+                            Pageable page, boolean returnJson) {
+    int limit = Pagination.getPageSize(page);
+    int skip = (int) Math.min((long) Pagination.getPageNumber(page) * limit, Integer.MAX_VALUE);
+    AuditLogKey key = new AuditLogKey(type, id, StringUtils.trimToNull(author),
+        StringUtils.trimToNull(changedPropertyName), skip, limit, returnJson);
+
+    CommitId head = getHeadId();
+    synchronized (cache) {
+      CachedAuditLog cached = cache.get(key);
+      if (null != cached && Objects.equals(head, cached.head)) {
+        return cached.auditLog;
+      }
+    }
+
+    List<Change> changes = findChanges(key, skip, limit);
+    String auditLog = returnJson
+        ? javers.getJsonConverter().toJson(changes)
+        : javers.processChangeList(changes, new SimpleTextChangeLog());
+
+    synchronized (cache) {
+      cache.put(key, new CachedAuditLog(head, auditLog));
+    }
+    return auditLog;
+  }
+
+  /**
+   * Writes the whole audit log of the given type as newline delimited JSON, one change per line,
+   * newest first. Changes are read and written page by page, so the audit log is never held in
+   * memory as a whole. The parameters have the same meaning as for
+   * {@link #getAuditLog(Class, UUID, String, String, Pageable, boolean)}.
+   */
+  public void exportAuditLog(Class type, UUID id, String author, String changedPropertyName,
+                             Writer writer) throws IOException {
+    AuditLogKey key = new AuditLogKey(type, id, StringUtils.trimToNull(author),
+        StringUtils.trimToNull(changedPropertyName), 0, EXPORT_PAGE_SIZE, true);
+    JsonConverter jsonConverter = javers.getJsonConverter();
+
+    // pages are counted in snapshots, and every snapshot in the log yields at least one change
+    for (int skip = 0; ; skip += EXPORT_PAGE_SIZE) {
+      List<Change> changes = findChanges(key, skip, EXPORT_PAGE_SIZE);
+      if (null == changes || changes.isEmpty()) {
+        break;
+      }
+
+      for (Change change : changes) {
+        writer.write(jsonConverter.toJsonElement(change).toString());
+        writer.write('\n');
+      }
+      writer.flush();
+    }
+  }
+
+  int getCacheSize() {
+    synchronized (cache) {
+      return cache.size();
+    }
+  }
+
+  /*
+   the newest snapshot of any domain object belongs to the head commit; reading it is much
+   cheaper than reading (and diffing) the changes
+   */
+  CommitId getHeadId() {
+    List<CdoSnapshot> newest = javers.findSnapshots(QueryBuilder.anyDomainObject()
+        .limit(1)
+        .build());
+    return newest.isEmpty() ? null : newest.get(0).getCommitId();
+  }
+
+  private List<Change> findChanges(AuditLogKey key, int skip, int limit) {
+    QueryBuilder queryBuilder = null == key.id
+        ? QueryBuilder.byClass(key.type)
+        : QueryBuilder.byInstanceId(key.id, key.type);
+
+    queryBuilder = queryBuilder.withNewObjectChanges(true).skip(skip).limit(limit);
+
+    if (null != key.author) {
+      queryBuilder = queryBuilder.byAuthor(key.author);
+    }
+    if (null != key.changedPropertyName) {
+      queryBuilder = queryBuilder.andProperty(key.changedPropertyName);
+    }
+
+    XLOGGER.debug("Reading audit log of {} {}, skip {}, limit {}", key.type.getSimpleName(),
+        key.id, skip, limit);
+    return javers.findChanges(queryBuilder.build());
+  }
+
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  private static final class AuditLogKey {
+    private final Class type;
+    private final UUID id;
+    private final String author;
+    private final String changedPropertyName;
+    private final int skip;
+    private final int limit;
+    private final boolean json;
+  }
+
+  @AllArgsConstructor
+  private static final class CachedAuditLog {
+    private final CommitId head;
+    private final String auditLog;
+  }
+}
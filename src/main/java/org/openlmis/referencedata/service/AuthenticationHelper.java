@@ -22,29 +22,73 @@ import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import java.util.UUID;
 
 @Component
 public class AuthenticationHelper {
 
+  static final String CURRENT_USER_ATTRIBUTE = AuthenticationHelper.class.getName()
+      + ".CURRENT_USER";
+
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private UserExistenceCache userExistenceCache;
+
   /**
-   * Method returns current user based on Spring context.
+   * Method returns current user based on Spring context. The user is loaded once per request.
    *
    * @return User entity of current user.
    * @throws NotFoundException if user cannot be found.
    */
   public User getCurrentUser() {
-    UUID userId = (UUID) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    UUID userId = getPrincipalId();
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+
+    if (null != requestAttributes) {
+      Object currentUser = requestAttributes
+          .getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+
+      if (currentUser instanceof User && userId.equals(((User) currentUser).getId())) {
+        return (User) currentUser;
+      }
+    }
+
     User user = userRepository.findOne(userId);
 
     if (user == null) {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     }
 
+    if (null != requestAttributes) {
+      requestAttributes
+          .setAttribute(CURRENT_USER_ATTRIBUTE, user, RequestAttributes.SCOPE_REQUEST);
+    }
+
     return user;
   }
 
+  /**
+   * Method returns ID of current user based on Spring context, without loading the user.
+   *
+   * @return ID of current user.
+   * @throws NotFoundException if user cannot be found.
+   */
+  public UUID getCurrentUserId() {
+    UUID userId = getPrincipalId();
+
+    if (!userExistenceCache.exists(userId)) {
+      throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    return userId;
+  }
+
+  private UUID getPrincipalId() {
+    return (UUID) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+  }
+
 }
@@ -30,12 +30,15 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.FacilityTypeRepository;
 import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.UuidUtil;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.GeographicZoneMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
 
@@ -104,7 +107,48 @@ public class FacilityService {
    * @return List of facilities. All facilities will be returned when map is null or empty
    */
   public List<Facility> searchFacilities(Map<String, Object> queryMap) {
+    SearchParams params = getSearchParams(queryMap);
 
+    if (null == params) {
+      return facilityRepository.findAll();
+    }
+
+    List<Facility> facilities = facilityRepository.search(params.code, params.name,
+        params.zones, params.facilityTypeCode, params.extraData);
+
+    return Optional.ofNullable(facilities).orElse(Collections.emptyList());
+  }
+
+  /**
+   * Method returns a single page of facilities with matched parameters. When no valid params are
+   * given, returns a page of all facilities. Only the requested page is retrieved from the
+   * database. A {@link KeysetPageRequest} pages facilities by id.
+   *
+   * @param queryMap request parameters (code, name, zone, type, recurse) and JSON extraData.
+   *                 May be null or empty
+   * @param pageable wanted page
+   * @return Page of facilities.
+   */
+  public Page<Facility> searchFacilities(Map<String, Object> queryMap, Pageable pageable) {
+    SearchParams params = getSearchParams(queryMap);
+
+    if (null == params && KeysetPageRequest.isKeyset(pageable)) {
+      return facilityRepository.search(null, null, null, null, null, pageable);
+    }
+
+    if (null == params) {
+      return facilityRepository.findAll(pageable);
+    }
+
+    return facilityRepository.search(params.code, params.name, params.zones,
+        params.facilityTypeCode, params.extraData, pageable);
+  }
+
+  /*
+   Validates the query parameters and prepares them for the repository. Returns null if there are
+   no parameters to search by.
+   */
+  private SearchParams getSearchParams(Map<String, Object> queryMap) {
     String code = MapUtils.getString(queryMap, CODE, null);
     String name = MapUtils.getString(queryMap, NAME, null);
     String facilityTypeCode = MapUtils.getString(queryMap, FACILITY_TYPE_CODE, null);
@@ -115,7 +159,7 @@ public class FacilityService {
 
     // validate query parameters
     if (isEmpty(queryMap) || (isAllEmpty(code, name, facilityTypeCode) && null == zoneId)) {
-      return facilityRepository.findAll();
+      return null;
     }
 
     // find zone if given
@@ -130,16 +174,11 @@ public class FacilityService {
 
     Map extraData = (Map) queryMap.get(EXTRA_DATA);
 
-    List<Facility> facilities = findFacilities(
-        zoneId, code, name, facilityTypeCode, extraData, recurse
-    );
-
-    return Optional.ofNullable(facilities).orElse(Collections.emptyList());
+    return new SearchParams(code, name, facilityTypeCode, getZones(zoneId, recurse),
+        toJson(extraData));
   }
 
-  private List<Facility> findFacilities(UUID zone, String code, String name,
-                                        String facilityTypeCode, Map extraData,
-                                        boolean recurse) {
+  private Set<UUID> getZones(UUID zone, boolean recurse) {
     Set<UUID> zones = Sets.newHashSet();
 
     if (null != zone) {
@@ -150,6 +189,10 @@ public class FacilityService {
       zones.addAll(geographicZoneService.getAllZonesInHierarchy(zone));
     }
 
+    return zones;
+  }
+
+  private String toJson(Map extraData) {
     String extraDataString = null;
 
     if (isNotEmpty(extraData)) {
@@ -161,7 +204,24 @@ public class FacilityService {
       }
     }
 
-    return facilityRepository.search(code, name, zones, facilityTypeCode, extraDataString);
+    return extraDataString;
+  }
+
+  private static final class SearchParams {
+    private final String code;
+    private final String name;
+    private final String facilityTypeCode;
+    private final Set<UUID> zones;
+    private final String extraData;
+
+    SearchParams(String code, String name, String facilityTypeCode, Set<UUID> zones,
+                 String extraData) {
+      this.code = code;
+      this.name = name;
+      this.facilityTypeCode = facilityTypeCode;
+      this.zones = zones;
+      this.extraData = extraData;
+    }
   }
 
 }
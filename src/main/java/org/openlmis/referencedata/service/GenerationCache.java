@@ -0,0 +1,166 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.LongSupplier;
+
+/**
+ * Generation counter of an in-memory cache of reference data. Everything the cache loads is
+ * tied to the generation current when loading started, and the generation is bumped every time
+ * the cached data changes. Loaded data stays valid until the generation is bumped or it gets
+ * older than the configured max age, which bounds how stale it can get when the change happened
+ * on another instance of the service.
+ */
+public final class GenerationCache {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(GenerationCache.class);
+
+  private final String name;
+  private final LongSupplier maxAge;
+  private final AtomicLong generation = new AtomicLong();
+
+  /**
+   * Creates a generation counter.
+   *
+   * @param name    name of the cached data, used in log messages
+   * @param maxAge  supplies the max age of loaded data, in milliseconds
+   */
+  public GenerationCache(String name, LongSupplier maxAge) {
+    this.name = name;
+    this.maxAge = maxAge;
+  }
+
+  /**
+   * Gets the current generation. It should be read before loading, so that a change that happens
+   * while loading makes the loaded data invalid straight away.
+   */
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Checks if data loaded in the given generation at the given time is still valid.
+   */
+  public boolean isValid(long loadedGeneration, long loadedAt) {
+    return loadedGeneration == generation.get()
+        && System.currentTimeMillis() - loadedAt < maxAge.getAsLong();
+  }
+
+  /**
+   * Invalidates all data loaded so far.
+   */
+  public void invalidate() {
+    long newGeneration = generation.incrementAndGet();
+    XLOGGER.debug("{} invalidated, generation {}", name, newGeneration);
+  }
+
+  /**
+   * Invalidates all data loaded so far once the current transaction commits.
+   *
+   * @see #afterCommit(Runnable)
+   */
+  public void invalidateAfterCommit() {
+    afterCommit(this::invalidate);
+  }
+
+  /**
+   * Creates a single value of this cache, built by the given function.
+   *
+   * @param builder builds the value for the given generation
+   */
+  public <T> Value<T> newValue(LongFunction<T> builder) {
+    return new Value<>(builder);
+  }
+
+  /**
+   * Runs the given invalidation once the current transaction commits, or right away if there is
+   * no transaction. Invalidating any earlier would let other requests load data that is about to
+   * change.
+   */
+  public static void afterCommit(Runnable invalidation) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      invalidation.run();
+      return;
+    }
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronizationAdapter() {
+          @Override
+          public void afterCommit() {
+            invalidation.run();
+          }
+        });
+  }
+
+  /**
+   * Single value of the cache, which is rebuilt the first time it is needed after it got out of
+   * date. Concurrent callers wait for a single build.
+   */
+  public final class Value<T> {
+    private final LongFunction<T> builder;
+    private volatile Built<T> built;
+
+    private Value(LongFunction<T> builder) {
+      this.builder = builder;
+    }
+
+    /**
+     * Gets the value, building it if there is none yet or it is out of date.
+     */
+    public T get() {
+      Built<T> current = built;
+      if (null != current && isValid(current.generation, current.builtAt)) {
+        return current.value;
+      }
+
+      synchronized (this) {
+        current = built;
+        if (null != current && isValid(current.generation, current.builtAt)) {
+          return current.value;
+        }
+
+        long currentGeneration = getGeneration();
+        long start = System.currentTimeMillis();
+        current = new Built<>(builder.apply(currentGeneration), currentGeneration,
+            System.currentTimeMillis());
+
+        built = current;
+        XLOGGER.debug("Built {} of generation {} in {} ms", name, currentGeneration,
+            current.builtAt - start);
+        return current.value;
+      }
+    }
+  }
+
+  private static final class Built<T> {
+    private final T value;
+    private final long generation;
+    private final long builtAt;
+
+    Built(T value, long generation, long builtAt) {
+      this.value = value;
+      this.generation = generation;
+      this.builtAt = builtAt;
+    }
+  }
+}
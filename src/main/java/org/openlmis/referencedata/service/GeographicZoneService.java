@@ -15,8 +15,6 @@
 
 package org.openlmis.referencedata.service;
 
-import com.google.common.collect.Sets;
-
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.openlmis.referencedata.domain.GeographicLevel;
@@ -87,21 +85,14 @@ public class GeographicZoneService {
   }
 
   /**
-   * Retrieves recursively all geographic zone IDs that are descendants of the given one.
+   * Retrieves all geographic zone IDs that are descendants of the given one, with a single
+   * query no matter how deep the hierarchy is.
    *
    * @param root root of zone hierarchy
    * @return collection with all descendant zone IDs.
    */
   public Set<UUID> getAllZonesInHierarchy(UUID root) {
-    Set<UUID> children = geographicZoneRepository.findIdsByParent(root);
-    Set<UUID> result = Sets.newHashSet(children);
-
-    for (UUID zone : children) {
-      Set<UUID> descendants = getAllZonesInHierarchy(zone);
-      result.addAll(descendants);
-    }
-
-    return result;
+    return geographicZoneRepository.findIdsInHierarchy(root);
   }
 
   private GeographicZone findGeographicZone(Optional<UUID> parentId) {
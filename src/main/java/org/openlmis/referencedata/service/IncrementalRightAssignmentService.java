@@ -0,0 +1,211 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.openlmis.referencedata.util.Resource2Db;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the right assignments table up to date after a change of a single entity (role,
+ * facility, supervisory node or requisition group). Instead of dropping and re-generating the
+ * whole table, it finds users affected by the change, computes their right assignments and
+ * applies only the difference as targeted deletes and inserts.
+ */
+@Service
+public class IncrementalRightAssignmentService {
+
+  private static final XLogger XLOGGER =
+      XLoggerFactory.getXLogger(IncrementalRightAssignmentService.class);
+
+  private static final String RIGHT_ASSIGNMENTS_PATH = "classpath:db/right-assignments/";
+
+  static final String USERS_BY_ROLE_SQL = "SELECT DISTINCT ra.userid"
+      + " FROM referencedata.role_assignments ra"
+      + " WHERE ra.roleid = ?;";
+
+  static final String SELECT_BY_USERS_SQL = "SELECT ra.id, ra.userid, ra.rightname,"
+      + " ra.facilityid, ra.programid"
+      + " FROM referencedata.right_assignments ra"
+      + " WHERE ra.userid = ANY(?);";
+
+  static final String DELETE_BY_IDS_SQL = "DELETE FROM referencedata.right_assignments"
+      + " WHERE id = ANY(?);";
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_users_affected_by_facility.sql")
+  private Resource usersByFacilityResource;
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_users_affected_by_supervisory_node.sql")
+  private Resource usersBySupervisoryNodeResource;
+
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_users_affected_by_requisition_group.sql")
+  private Resource usersByRequisitionGroupResource;
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Autowired
+  private RightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private PermissionStringCache permissionStringCache;
+
+  /**
+   * Finds users with a role assignment of the given role.
+   */
+  public Set<UUID> getUsersAffectedByRole(UUID roleId) {
+    return new HashSet<>(template.queryForList(USERS_BY_ROLE_SQL, UUID.class, roleId));
+  }
+
+  /**
+   * Finds users whose right assignments depend on the given facility (supervision through a
+   * requisition group, fulfillment or home facility supervision).
+   */
+  public Set<UUID> getUsersAffectedByFacility(UUID facilityId) {
+    return queryForUserIds(usersByFacilityResource, facilityId, facilityId, facilityId);
+  }
+
+  /**
+   * Finds users with a supervision role assignment at the given supervisory node or any of its
+   * ancestors. When a node is moved in the hierarchy, this should be called both before and after
+   * the change, so users of the old ancestors are included as well.
+   */
+  public Set<UUID> getUsersAffectedBySupervisoryNode(UUID supervisoryNodeId) {
+    return queryForUserIds(usersBySupervisoryNodeResource, supervisoryNodeId);
+  }
+
+  /**
+   * Finds users with a supervision role assignment at the supervisory node of the given
+   * requisition group or any of its ancestors. Like for supervisory nodes, this should be called
+   * both before and after the change.
+   */
+  public Set<UUID> getUsersAffectedByRequisitionGroup(UUID requisitionGroupId) {
+    return queryForUserIds(usersByRequisitionGroupResource, requisitionGroupId);
+  }
+
+  /**
+   * Re-generates right assignments of the given users only. Current right assignments of those
+   * users are compared with the expected ones and only rows that differ are deleted or inserted.
+   *
+   * @param userIds IDs of users affected by a change
+   */
+  @Transactional(isolation = Isolation.READ_COMMITTED)
+  public void regenerateRightAssignments(Collection<UUID> userIds) {
+    XLOGGER.entry(userIds.size());
+
+    if (userIds.isEmpty()) {
+      XLOGGER.exit("No affected users");
+      return;
+    }
+
+    XLOGGER.debug("Get expected right assignments of affected users");
+    Set<RightAssignmentDto> expected;
+    try {
+      expected = rightAssignmentService.convertForInsert(rightAssignmentService
+          .getRightAssignmentsForUsers(userIds));
+    } catch (IOException ioe) {
+      XLOGGER.warn("Error when getting right assignments: " + ioe.getMessage());
+      XLOGGER.exit();
+      return;
+    }
+
+    XLOGGER.debug("Get current right assignments of affected users");
+    List<RightAssignmentDto> current = getCurrentRightAssignments(userIds);
+
+    Set<RightAssignmentDto> kept = new HashSet<>();
+    List<UUID> idsToDelete = new ArrayList<>();
+    for (RightAssignmentDto rightAssignment : current) {
+      // duplicates of a kept row are removed as well
+      if (!expected.contains(rightAssignment) || !kept.add(rightAssignment)) {
+        idsToDelete.add(rightAssignment.getId());
+      }
+    }
+
+    List<RightAssignmentDto> toInsert = new ArrayList<>(expected);
+    toInsert.removeAll(kept);
+
+    XLOGGER.debug("Delete {} and insert {} right assignments", idsToDelete.size(),
+        toInsert.size());
+    if (!idsToDelete.isEmpty() || !toInsert.isEmpty()) {
+      applyChanges(idsToDelete, toInsert);
+    }
+
+    XLOGGER.exit();
+  }
+
+  private void applyChanges(List<UUID> idsToDelete, List<RightAssignmentDto> toInsert) {
+    if (!idsToDelete.isEmpty()) {
+      template.update(connection -> {
+        PreparedStatement statement = connection.prepareStatement(DELETE_BY_IDS_SQL);
+        statement.setArray(1, connection.createArrayOf("uuid", idsToDelete.toArray()));
+        return statement;
+      });
+    }
+    if (!toInsert.isEmpty()) {
+      rightAssignmentService.insertRightAssignments(new Resource2Db(template), toInsert);
+    }
+
+    permissionStringCache.invalidateAfterCommit();
+  }
+
+  private List<RightAssignmentDto> getCurrentRightAssignments(Collection<UUID> userIds) {
+    return template.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(SELECT_BY_USERS_SQL);
+          statement.setArray(1, connection.createArrayOf("uuid", userIds.toArray()));
+          return statement;
+        },
+        (rs, rowNum) -> {
+          RightAssignmentDto rightAssignment = new RightAssignmentDto(
+              UUID.fromString(rs.getString("userid")),
+              rs.getString("rightname"),
+              toUuid(rs.getString("facilityid")),
+              toUuid(rs.getString("programid")));
+          rightAssignment.setId(UUID.fromString(rs.getString("id")));
+          return rightAssignment;
+        });
+  }
+
+  private Set<UUID> queryForUserIds(Resource resource, Object... args) {
+    try {
+      return new HashSet<>(template.queryForList(rightAssignmentService.getSql(resource),
+          UUID.class, args));
+    } catch (IOException ioe) {
+      XLOGGER.warn("Error when getting affected users: " + ioe.getMessage());
+      return new HashSet<>();
+    }
+  }
+
+  private UUID toUuid(String value) {
+    return null == value ? null : UUID.fromString(value);
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
+import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
+
+import org.openlmis.referencedata.domain.Dispensable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps an in-memory index of which orderables can fulfill for which, so that the fulfillment
+ * of an orderable doesn't have to be found by testing its trade item or commodity type against
+ * every commodity type or trade item. The index maps classifications (classification system and
+ * id) to the commodity types and trade items having them, and trade item and commodity type IDs
+ * to the orderables identified by them.
+ *
+ * <p>The index is built with three queries, and rebuilt when it is needed after trade items,
+ * commodity types or orderables changed, or after it got older than the configured max age.
+ */
+@Service
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class OrderableFulfillIndex {
+
+  static final String COMMODITY_TYPES_SQL = "SELECT ct.id"
+      + "  , ct.classificationsystem"
+      + "  , ct.classificationid"
+      + " FROM referencedata.commodity_types ct";
+
+  static final String TRADE_ITEMS_SQL = "SELECT tic.tradeitemid AS id"
+      + "  , tic.classificationsystem"
+      + "  , tic.classificationid"
+      + " FROM referencedata.trade_item_classifications tic";
+
+  static final String ORDERABLES_SQL = "SELECT oi.key"
+      + "  , oi.value"
+      + "  , oi.orderableid"
+      + "  , da.key AS attributekey"
+      + "  , da.value AS attributevalue"
+      + " FROM referencedata.orderable_identifiers oi"
+      + "  JOIN referencedata.orderables o ON o.id = oi.orderableid"
+      + "  JOIN referencedata.dispensable_attributes da ON da.dispensableid = o.dispensableid"
+      + " WHERE oi.key IN ('" + TRADE_ITEM + "', '" + COMMODITY_TYPE + "')";
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Value("${orderableFulfillIndex.maxAge}")
+  private long maxAge;
+
+  private final GenerationCache generations =
+      new GenerationCache("Orderable fulfill index", () -> maxAge);
+  private final GenerationCache.Value<Index> index = generations.newValue(this::build);
+
+  /**
+   * Gets the current index, building it if there is none yet or it is out of date.
+   */
+  public Index getIndex() {
+    return index.get();
+  }
+
+  /**
+   * Gets IDs of orderables identified by commodity types the given trade item can fulfill for,
+   * that have the given dispensable.
+   */
+  public List<UUID> findCommodityTypeOrderables(UUID tradeItemId, Dispensable dispensable) {
+    return getIndex().findCommodityTypeOrderables(tradeItemId, dispensable);
+  }
+
+  /**
+   * Gets IDs of orderables identified by trade items that can fulfill for the given commodity
+   * type, that have the given dispensable.
+   */
+  public List<UUID> findTradeItemOrderables(UUID commodityTypeId, Dispensable dispensable) {
+    return getIndex().findTradeItemOrderables(commodityTypeId, dispensable);
+  }
+
+  /**
+   * Invalidates the current index.
+   */
+  public void invalidate() {
+    generations.invalidate();
+  }
+
+  /**
+   * Invalidates the current index once the current transaction commits.
+   */
+  public void invalidateAfterCommit() {
+    generations.invalidateAfterCommit();
+  }
+
+  private Index build(long version) {
+    Map<UUID, Classification> commodityTypes = new HashMap<>();
+    template.query(COMMODITY_TYPES_SQL, rs -> {
+      commodityTypes.put(UUID.fromString(rs.getString("id")), new Classification(
+          rs.getString("classificationsystem"), rs.getString("classificationid")));
+    });
+
+    Map<UUID, List<Classification>> tradeItems = new HashMap<>();
+    template.query(TRADE_ITEMS_SQL, rs -> {
+      tradeItems
+          .computeIfAbsent(UUID.fromString(rs.getString("id")), id -> new ArrayList<>())
+          .add(new Classification(rs.getString("classificationsystem"),
+              rs.getString("classificationid")));
+    });
+
+    // identifier key, then identifier value, then orderable ID to its dispensable attributes
+    Map<String, Map<String, Map<UUID, Map<String, String>>>> orderables = new HashMap<>();
+    template.query(ORDERABLES_SQL, rs -> {
+      orderables
+          .computeIfAbsent(rs.getString("key"), key -> new HashMap<>())
+          .computeIfAbsent(rs.getString("value"), value -> new HashMap<>())
+          .computeIfAbsent(UUID.fromString(rs.getString("orderableid")), id -> new HashMap<>())
+          .put(rs.getString("attributekey"), rs.getString("attributevalue"));
+    });
+
+    return new Index(commodityTypes, tradeItems,
+        toCandidates(orderables.get(COMMODITY_TYPE)), toCandidates(orderables.get(TRADE_ITEM)),
+        version);
+  }
+
+  private Map<String, List<Candidate>> toCandidates(
+      Map<String, Map<UUID, Map<String, String>>> orderables) {
+    Map<String, List<Candidate>> candidates = new HashMap<>();
+    if (null == orderables) {
+      return candidates;
+    }
+
+    orderables.forEach((value, dispensables) -> {
+      List<Candidate> list = new ArrayList<>(dispensables.size());
+      dispensables.forEach((orderableId, attributes) ->
+          list.add(new Candidate(orderableId, Dispensable.createNew(() -> attributes))));
+      candidates.put(value, list);
+    });
+    return candidates;
+  }
+
+  /**
+   * Immutable index of orderable fulfillment.
+   */
+  public static final class Index {
+    private final Map<UUID, Classification> commodityTypeClassifications;
+    private final Map<UUID, List<Classification>> tradeItemClassifications;
+    private final Map<Classification, List<UUID>> commodityTypesByClassification;
+    private final Map<Classification, List<UUID>> tradeItemsByClassification;
+    private final Map<String, List<Candidate>> commodityTypeOrderables;
+    private final Map<String, List<Candidate>> tradeItemOrderables;
+    private final long version;
+
+    Index(Map<UUID, Classification> commodityTypeClassifications,
+          Map<UUID, List<Classification>> tradeItemClassifications,
+          Map<String, List<Candidate>> commodityTypeOrderables,
+          Map<String, List<Candidate>> tradeItemOrderables, long version) {
+      this.commodityTypeClassifications = commodityTypeClassifications;
+      this.tradeItemClassifications = tradeItemClassifications;
+      this.commodityTypeOrderables = commodityTypeOrderables;
+      this.tradeItemOrderables = tradeItemOrderables;
+      this.version = version;
+
+      this.commodityTypesByClassification = new HashMap<>();
+      commodityTypeClassifications.forEach((id, classification) ->
+          commodityTypesByClassification
+              .computeIfAbsent(classification, key -> new ArrayList<>())
+              .add(id));
+
+      this.tradeItemsByClassification = new HashMap<>();
+      tradeItemClassifications.forEach((id, classifications) ->
+          classifications.forEach(classification ->
+              tradeItemsByClassification
+                  .computeIfAbsent(classification, key -> new ArrayList<>())
+                  .add(id)));
+    }
+
+    List<UUID> findCommodityTypeOrderables(UUID tradeItemId, Dispensable dispensable) {
+      Set<UUID> commodityTypes = new LinkedHashSet<>();
+      for (Classification classification : tradeItemClassifications
+          .getOrDefault(tradeItemId, Collections.emptyList())) {
+        commodityTypes.addAll(commodityTypesByClassification
+            .getOrDefault(classification, Collections.emptyList()));
+      }
+
+      return findOrderables(commodityTypeOrderables, commodityTypes, dispensable);
+    }
+
+    List<UUID> findTradeItemOrderables(UUID commodityTypeId, Dispensable dispensable) {
+      Classification classification = commodityTypeClassifications.get(commodityTypeId);
+      List<UUID> tradeItems = null == classification
+          ? Collections.emptyList()
+          : tradeItemsByClassification.getOrDefault(classification, Collections.emptyList());
+
+      return findOrderables(tradeItemOrderables, tradeItems, dispensable);
+    }
+
+    public long getVersion() {
+      return version;
+    }
+
+    private List<UUID> findOrderables(Map<String, List<Candidate>> orderables,
+                                      Collection<UUID> identifiers, Dispensable dispensable) {
+      List<UUID> found = new ArrayList<>();
+      for (UUID identifier : identifiers) {
+        for (Candidate candidate : orderables
+            .getOrDefault(identifier.toString(), Collections.emptyList())) {
+          if (candidate.dispensable.equals(dispensable)) {
+            found.add(candidate.orderableId);
+          }
+        }
+      }
+      return found;
+    }
+  }
+
+  private static final class Classification {
+    private final String system;
+    private final String id;
+
+    Classification(String system, String id) {
+      this.system = system;
+      this.id = id;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Classification)) {
+        return false;
+      }
+      Classification that = (Classification) obj;
+      return Objects.equals(system, that.system) && Objects.equals(id, that.id);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(system, id);
+    }
+  }
+
+  private static final class Candidate {
+    private final UUID orderableId;
+    private final Dispensable dispensable;
+
+    Candidate(UUID orderableId, Dispensable dispensable) {
+      this.orderableId = orderableId;
+      this.dispensable = dispensable;
+    }
+  }
+}
@@ -22,6 +22,7 @@ import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -62,18 +63,25 @@ public class OrderableService {
    * Method returns all orderables with matched parameters.
    *
    * @param queryMap request parameters (code, name, description, program).
-   * @param pageable the page to get, or one page with all if null.
+   * @param pageable the page to get, or one page with all if null. A {@link KeysetPageRequest}
+   *                 gets the orderables after its cursor, sorted by id.
    * @return the Page of orderables found, or an empty page.
    */
   public Page<Orderable> searchOrderables(Map<String, Object> queryMap, Pageable pageable) {
 
+    UUID after = KeysetPageRequest.getAfter(pageable);
+
     if (MapUtils.isEmpty(queryMap)) {
-      return orderableRepository.findAll(pageable);
+      return null == after
+          ? orderableRepository.findAll(pageable)
+          : orderableRepository.search(null, null, null, pageable);
     }
 
     Set<UUID> ids = getIds(queryMap);
     if (!ids.isEmpty()) {
-      return orderableRepository.findAllByIds(ids, pageable);
+      return null == after
+          ? orderableRepository.findAllByIds(ids, pageable)
+          : orderableRepository.findAllByIdsAfter(ids, after, pageable);
     }
 
     String code = MapUtils.getString(queryMap, CODE, null);
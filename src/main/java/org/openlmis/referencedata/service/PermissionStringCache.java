@@ -0,0 +1,220 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.openlmis.referencedata.repository.RightAssignmentRepository;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the permission strings of users, so that right checks don't have to query the right
+ * assignments table on every request. Permission strings have the format
+ * RightName|FacilityUUID|ProgramUUID, RightName|FacilityUUID or RightName.
+ *
+ * <p>Cached entries are reloaded when they are needed after right assignments were regenerated,
+ * or after they got older than the configured max age.
+ */
+@Service
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class PermissionStringCache {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(PermissionStringCache.class);
+
+  static final char SEPARATOR = '|';
+
+  @Autowired
+  private RightAssignmentRepository rightAssignmentRepository;
+
+  @Value("${permissionStrings.cache.maxAge}")
+  private long maxAge;
+
+  private final GenerationCache generations =
+      new GenerationCache("Permission strings", () -> maxAge);
+  private final ConcurrentMap<UUID, PermissionStrings> cache = new ConcurrentHashMap<>();
+  private final AtomicLong evictions = new AtomicLong();
+
+  /**
+   * Gets the permission strings of the given user, loading them if they are not cached yet or
+   * the cached ones are out of date.
+   */
+  public PermissionStrings get(UUID userId) {
+    PermissionStrings cached = cache.get(userId);
+    if (null != cached && isValid(cached)) {
+      return cached;
+    }
+
+    long currentGeneration = generations.getGeneration();
+    long currentEvictions = evictions.get();
+    Set<String> permissionStrings = rightAssignmentRepository.findByUser(userId);
+    PermissionStrings loaded = new PermissionStrings(permissionStrings, currentGeneration,
+        System.currentTimeMillis());
+
+    // a user evicted while loading may have been loaded from before the change, so it is not
+    // cached then
+    if (currentEvictions == evictions.get()) {
+      cache.put(userId, loaded);
+    }
+    XLOGGER.debug("Loaded {} permission strings of user {}", loaded.size(), userId);
+    return loaded;
+  }
+
+  /**
+   * Checks if the user has the given right, no matter for which facility and program.
+   */
+  public boolean hasRight(UUID userId, String rightName) {
+    return get(userId).hasRight(rightName);
+  }
+
+  /**
+   * Checks if the user has the given right for the given facility, no matter for which program.
+   */
+  public boolean hasRight(UUID userId, String rightName, UUID facilityId) {
+    return get(userId).hasRight(rightName, facilityId);
+  }
+
+  /**
+   * Checks if the user has the given right for the given facility and program.
+   */
+  public boolean hasRight(UUID userId, String rightName, UUID facilityId, UUID programId) {
+    return get(userId).hasRight(rightName, facilityId, programId);
+  }
+
+  /**
+   * Invalidates all cached permission strings.
+   */
+  public void invalidate() {
+    generations.invalidate();
+    cache.clear();
+  }
+
+  /**
+   * Invalidates cached permission strings of the given user.
+   */
+  public void invalidate(UUID userId) {
+    evictions.incrementAndGet();
+    cache.remove(userId);
+    XLOGGER.debug("Permission strings of user {} invalidated", userId);
+  }
+
+  /**
+   * Invalidates all cached permission strings once the current transaction commits.
+   */
+  public void invalidateAfterCommit() {
+    GenerationCache.afterCommit(this::invalidate);
+  }
+
+  /**
+   * Invalidates cached permission strings of the given user once the current transaction
+   * commits.
+   */
+  public void invalidateAfterCommit(UUID userId) {
+    GenerationCache.afterCommit(() -> invalidate(userId));
+  }
+
+  long getGeneration() {
+    return generations.getGeneration();
+  }
+
+  private boolean isValid(PermissionStrings permissionStrings) {
+    return generations.isValid(permissionStrings.generation, permissionStrings.loadedAt);
+  }
+
+  /**
+   * Immutable permission strings of a single user. They are kept in a sorted array, so right
+   * checks are binary searches and the strings don't take more space than needed.
+   */
+  public static final class PermissionStrings {
+    private final String[] sorted;
+    private final String etag;
+    private final long generation;
+    private final long loadedAt;
+
+    /**
+     * Creates permission strings of a user.
+     *
+     * @param permissionStrings the permission strings
+     * @param generation the cache generation the permission strings were loaded in
+     * @param loadedAt when the permission strings were loaded, in milliseconds
+     */
+    public PermissionStrings(Collection<String> permissionStrings, long generation,
+                             long loadedAt) {
+      this.sorted = permissionStrings.toArray(new String[permissionStrings.size()]);
+      Arrays.sort(sorted);
+      this.etag = DigestUtils.md5DigestAsHex(String.join("\n", sorted)
+          .getBytes(StandardCharsets.UTF_8));
+      this.generation = generation;
+      this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Gets the permission strings as an unmodifiable, sorted set.
+     */
+    public Set<String> asSet() {
+      return Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(sorted)));
+    }
+
+    /**
+     * Gets the entity tag of the permission strings. It only changes when the permission strings
+     * themselves change.
+     */
+    public String getEtag() {
+      return etag;
+    }
+
+    public int size() {
+      return sorted.length;
+    }
+
+    boolean hasRight(String rightName) {
+      return contains(rightName) || containsPrefix(rightName + SEPARATOR);
+    }
+
+    boolean hasRight(String rightName, UUID facilityId) {
+      String permissionString = rightName + SEPARATOR + facilityId;
+      return contains(permissionString) || containsPrefix(permissionString + SEPARATOR);
+    }
+
+    boolean hasRight(String rightName, UUID facilityId, UUID programId) {
+      return contains(rightName + SEPARATOR + facilityId + SEPARATOR + programId);
+    }
+
+    private boolean contains(String permissionString) {
+      return Arrays.binarySearch(sorted, permissionString) >= 0;
+    }
+
+    // strings sharing a prefix are next to each other in a sorted array, and the first of them is
+    // where the prefix itself would be inserted
+    private boolean containsPrefix(String prefix) {
+      int index = Arrays.binarySearch(sorted, prefix);
+      int insertionPoint = index >= 0 ? index : -index - 1;
+      return insertionPoint < sorted.length && sorted[insertionPoint].startsWith(prefix);
+    }
+  }
+}
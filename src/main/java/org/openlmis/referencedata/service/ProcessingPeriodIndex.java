@@ -0,0 +1,221 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import org.openlmis.referencedata.domain.Code;
+import org.openlmis.referencedata.domain.ProcessingPeriod;
+import org.openlmis.referencedata.domain.ProcessingSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps an in-memory index of processing periods, so that the periods of a program and facility
+ * don't have to be searched for with a requisition group join and a period query on every
+ * request. The index maps each program and facility to its processing schedule, and keeps the
+ * periods of each schedule in arrays sorted by start date, which are binary searched.
+ *
+ * <p>The index is built with two queries, and rebuilt when it is needed after processing periods,
+ * processing schedules or requisition groups changed, or after it got older than the configured
+ * max age.
+ *
+ * <p>Periods returned by the index are shared between requests and must not be modified.
+ */
+@Service
+public class ProcessingPeriodIndex {
+
+  static final String SCHEDULES_SQL = "SELECT DISTINCT rgps.programid"
+      + "  , rgm.facilityid"
+      + "  , rgps.processingscheduleid"
+      + " FROM referencedata.requisition_group_program_schedules rgps"
+      + "  JOIN referencedata.requisition_group_members rgm"
+      + "    ON rgm.requisitiongroupid = rgps.requisitiongroupid";
+
+  static final String PERIODS_SQL = "SELECT pp.id"
+      + "  , pp.name"
+      + "  , pp.description"
+      + "  , pp.startdate"
+      + "  , pp.enddate"
+      + "  , ps.id AS scheduleid"
+      + "  , ps.code AS schedulecode"
+      + "  , ps.name AS schedulename"
+      + "  , ps.description AS scheduledescription"
+      + " FROM referencedata.processing_periods pp"
+      + "  JOIN referencedata.processing_schedules ps ON ps.id = pp.processingscheduleid"
+      + " ORDER BY pp.startdate, pp.id";
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Value("${processingPeriodIndex.maxAge}")
+  private long maxAge;
+
+  private final GenerationCache generations =
+      new GenerationCache("Processing period index", () -> maxAge);
+  private final GenerationCache.Value<Index> index = generations.newValue(this::build);
+
+  /**
+   * Gets the current index, building it if there is none yet or it is out of date.
+   */
+  public Index getIndex() {
+    return index.get();
+  }
+
+  /**
+   * Gets ID of the processing schedule of the given program and facility.
+   *
+   * @return the schedule ID, or null if the facility has no schedule for the program
+   */
+  public UUID findScheduleId(UUID programId, UUID facilityId) {
+    return getIndex().getScheduleId(programId, facilityId);
+  }
+
+  /**
+   * Gets periods of the given schedule, ordered by start date.
+   *
+   * @param scheduleId ID of the processing schedule
+   * @param startDate  latest start date of returned periods, or null for all periods
+   * @return the matching periods, empty if the schedule has no periods
+   */
+  public List<ProcessingPeriod> findPeriods(UUID scheduleId, LocalDate startDate) {
+    return getIndex().getPeriods(scheduleId, startDate);
+  }
+
+  /**
+   * Invalidates the current index.
+   */
+  public void invalidate() {
+    generations.invalidate();
+  }
+
+  /**
+   * Invalidates the current index once the current transaction commits.
+   */
+  public void invalidateAfterCommit() {
+    generations.invalidateAfterCommit();
+  }
+
+  private Index build(long version) {
+    Map<UUID, Map<UUID, UUID>> schedules = new HashMap<>();
+    template.query(SCHEDULES_SQL, rs -> {
+      // like the search this replaces, any schedule will do if there are several of them
+      schedules
+          .computeIfAbsent(UUID.fromString(rs.getString("programid")), id -> new HashMap<>())
+          .putIfAbsent(UUID.fromString(rs.getString("facilityid")),
+              UUID.fromString(rs.getString("processingscheduleid")));
+    });
+
+    Map<UUID, ProcessingSchedule> processingSchedules = new HashMap<>();
+    Map<UUID, List<ProcessingPeriod>> periods = new HashMap<>();
+    template.query(PERIODS_SQL, rs -> {
+      UUID scheduleId = UUID.fromString(rs.getString("scheduleid"));
+      ProcessingSchedule schedule = processingSchedules.get(scheduleId);
+      if (null == schedule) {
+        schedule = new ProcessingSchedule(Code.code(rs.getString("schedulecode")),
+            rs.getString("schedulename"));
+        schedule.setId(scheduleId);
+        schedule.setDescription(rs.getString("scheduledescription"));
+        processingSchedules.put(scheduleId, schedule);
+      }
+
+      ProcessingPeriod period = ProcessingPeriod.newPeriod(rs.getString("name"), schedule,
+          rs.getDate("startdate").toLocalDate(), rs.getDate("enddate").toLocalDate());
+      period.setId(UUID.fromString(rs.getString("id")));
+      period.setDescription(rs.getString("description"));
+
+      periods.computeIfAbsent(scheduleId, id -> new ArrayList<>()).add(period);
+    });
+
+    Map<UUID, SchedulePeriods> schedulePeriods = new HashMap<>();
+    periods.forEach((scheduleId, list) -> schedulePeriods.put(scheduleId,
+        new SchedulePeriods(list)));
+
+    return new Index(schedules, schedulePeriods, version);
+  }
+
+  /**
+   * Immutable index of processing periods.
+   */
+  public static final class Index {
+    private final Map<UUID, Map<UUID, UUID>> schedules;
+    private final Map<UUID, SchedulePeriods> periods;
+    private final long version;
+
+    Index(Map<UUID, Map<UUID, UUID>> schedules, Map<UUID, SchedulePeriods> periods,
+          long version) {
+      this.schedules = schedules;
+      this.periods = periods;
+      this.version = version;
+    }
+
+    UUID getScheduleId(UUID programId, UUID facilityId) {
+      Map<UUID, UUID> facilities = schedules.get(programId);
+      return null == facilities ? null : facilities.get(facilityId);
+    }
+
+    List<ProcessingPeriod> getPeriods(UUID scheduleId, LocalDate startDate) {
+      SchedulePeriods schedulePeriods = periods.get(scheduleId);
+      return null == schedulePeriods
+          ? Collections.emptyList()
+          : schedulePeriods.startingUpTo(startDate);
+    }
+
+    public long getVersion() {
+      return version;
+    }
+  }
+
+  private static final class SchedulePeriods {
+    private final List<ProcessingPeriod> periods;
+    private final long[] startDays;
+
+    // periods are expected in start date order
+    SchedulePeriods(List<ProcessingPeriod> periods) {
+      this.periods = Collections.unmodifiableList(new ArrayList<>(periods));
+      this.startDays = new long[periods.size()];
+      for (int i = 0; i < startDays.length; ++i) {
+        startDays[i] = periods.get(i).getStartDate().toEpochDay();
+      }
+    }
+
+    List<ProcessingPeriod> startingUpTo(LocalDate startDate) {
+      if (null == startDate) {
+        return periods;
+      }
+
+      // the number of periods starting on or before the date is where the next day would go
+      int index = Arrays.binarySearch(startDays, startDate.toEpochDay() + 1);
+      int count = index >= 0 ? index : -index - 1;
+
+      // several periods may start on the next day, and the search can land on any of them
+      while (count > 0 && startDays[count - 1] > startDate.toEpochDay()) {
+        --count;
+      }
+      return periods.subList(0, count);
+    }
+  }
+}
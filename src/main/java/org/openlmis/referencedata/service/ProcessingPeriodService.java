@@ -36,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
@@ -47,6 +48,8 @@ import java.util.UUID;
 public class ProcessingPeriodService {
   private static final Logger LOGGER = LoggerFactory.getLogger(ProcessingPeriodService.class);
 
+  private static final Sort BY_START_DATE = new Sort("startDate");
+
   @Autowired
   private ProcessingPeriodRepository periodRepository;
 
@@ -62,6 +65,9 @@ public class ProcessingPeriodService {
   @Autowired
   private RequisitionGroupProgramScheduleRepository requisitionGroupProgramScheduleRepository;
 
+  @Autowired
+  private ProcessingPeriodIndex periodIndex;
+
   /**
    * Finds all ProcessingPeriods matching all of provided parameters.
    */
@@ -69,6 +75,11 @@ public class ProcessingPeriodService {
                                               Pageable pageable) {
     params.validate();
 
+    Page<ProcessingPeriod> indexed = searchIndex(params, pageable);
+    if (null != indexed) {
+      return indexed;
+    }
+
     Program program = getById(programRepository, params.getProgramId(),
         ProgramMessageKeys.ERROR_NOT_FOUND_WITH_ID);
     Facility facility = getById(facilityRepository, params.getFacilityId(),
@@ -100,6 +111,37 @@ public class ProcessingPeriodService {
                         schedule, startDate, pageable);
   }
 
+  /*
+   the index keeps periods in start date order, so it answers searches for a known schedule that
+   don't ask for any other order; null means the search has to go to the database
+   */
+  private Page<ProcessingPeriod> searchIndex(ProcessingPeriodSearchParams params,
+                                             Pageable pageable) {
+    if (null != pageable && null != pageable.getSort()
+        && !BY_START_DATE.equals(pageable.getSort())) {
+      return null;
+    }
+
+    if (null != params.getProgramId()) {
+      // a schedule is only found if both the program and the facility exist
+      UUID scheduleId = periodIndex.findScheduleId(params.getProgramId(),
+          params.getFacilityId());
+      return null == scheduleId
+          ? null
+          : Pagination.getPage(periodIndex.findPeriods(scheduleId, params.getStartDate()),
+              pageable);
+    }
+
+    if (null != params.getProcessingScheduleId()) {
+      // the index only knows schedules with periods, the others have to be checked for existence
+      List<ProcessingPeriod> periods = periodIndex.findPeriods(params.getProcessingScheduleId(),
+          params.getStartDate());
+      return periods.isEmpty() ? null : Pagination.getPage(periods, pageable);
+    }
+
+    return null;
+  }
+
   private <T> T getById(CrudRepository<T, UUID> repository, UUID id, String errorKey) {
     T object = null == id ? null : repository.findOne(id);
     if (null != id && null == object) {
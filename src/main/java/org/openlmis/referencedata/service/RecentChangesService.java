@@ -0,0 +1,79 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.javers.core.Javers;
+import org.javers.core.metamodel.object.CdoSnapshot;
+import org.javers.core.metamodel.object.GlobalId;
+import org.javers.core.metamodel.object.InstanceId;
+import org.javers.repository.jql.QueryBuilder;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import javax.annotation.Resource;
+
+/**
+ * Finds which instances of an audited type changed recently, based on the snapshots JaVers
+ * commits whenever they are saved.
+ */
+@Service
+public class RecentChangesService {
+
+  static final int SNAPSHOT_PAGE_SIZE = 1000;
+
+  @Resource(name = "javersProvider")
+  private Javers javers;
+
+  /**
+   * Finds ids of instances of the given type that were created or changed at or after the given
+   * time. Snapshots are read in pages, so that only their ids are kept in memory.
+   *
+   * @param type  audited type of the instances
+   * @param since the earliest change to take into account
+   * @return ids of the changed instances, in no particular order
+   */
+  public Set<UUID> findChangedIds(Class<?> type, ZonedDateTime since) {
+    // JaVers keeps commit dates in the local time of the service
+    LocalDateTime from = since.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    Set<UUID> ids = new LinkedHashSet<>();
+
+    for (int skip = 0; ; skip += SNAPSHOT_PAGE_SIZE) {
+      List<CdoSnapshot> snapshots = javers.findSnapshots(QueryBuilder.byClass(type)
+          .from(from)
+          .skip(skip)
+          .limit(SNAPSHOT_PAGE_SIZE)
+          .build());
+
+      for (CdoSnapshot snapshot : snapshots) {
+        GlobalId globalId = snapshot.getGlobalId();
+        if (globalId instanceof InstanceId) {
+          ids.add(UUID.fromString(((InstanceId) globalId).getCdoId().toString()));
+        }
+      }
+
+      if (snapshots.size() < SNAPSHOT_PAGE_SIZE) {
+        return ids;
+      }
+    }
+  }
+}
@@ -15,7 +15,6 @@
 
 package org.openlmis.referencedata.service;
 
-import com.google.common.collect.Lists;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.openlmis.referencedata.domain.Code;
@@ -34,10 +33,11 @@ import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RequisitionGroupMessageKeys;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
@@ -62,7 +62,8 @@ public class RequisitionGroupService {
   private ProgramRepository programRepository;
 
   /**
-   * Method returns all requisition groups with matched parameters.
+   * Method returns all requisition groups with matched parameters. Without parameters, the
+   * requested page of all requisition groups, sorted by name, is read from the database.
    *
    * @param queryMap request parameters (code, name, zone, program).
    * @return Page of requisition groups.
@@ -70,10 +71,8 @@ public class RequisitionGroupService {
   public Page<RequisitionGroup> searchRequisitionGroups(Map<String, Object> queryMap,
                                                         Pageable pageable) {
     if ( MapUtils.isEmpty(queryMap) ) {
-      List<RequisitionGroup> requisitionGroups =
-          Lists.newArrayList(requisitionGroupRepository.findAll());
-      requisitionGroups.sort(Comparator.comparing(RequisitionGroup::getName));
-      return Pagination.getPage(requisitionGroups, pageable);
+      return requisitionGroupRepository.findAll(new PageRequest(
+          Pagination.getPageNumber(pageable), Pagination.getPageSize(pageable), new Sort(NAME)));
     }
 
     String name = MapUtils.getString(queryMap, NAME, null);
@@ -0,0 +1,203 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatusDto;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects right assignment regeneration requests and runs them in the background. All requests
+ * received within the configured delay are coalesced into a single regeneration: affected users
+ * are merged into one incremental regeneration, and a full regeneration request replaces any
+ * pending incremental one. Callers never block and regenerations never run concurrently.
+ *
+ * <p>If incremental regeneration is disabled, every request becomes a full regeneration. If a
+ * regeneration fails, its requests are merged back into the pending ones and retried after
+ * a delay that doubles with every consecutive failure, up to the configured maximum.
+ */
+@Service
+public class RightAssignmentRegenerationScheduler {
+
+  private static final XLogger XLOGGER =
+      XLoggerFactory.getXLogger(RightAssignmentRegenerationScheduler.class);
+
+  @Value("${rightAssignments.regeneration.delay}")
+  private long delay;
+
+  @Value("${rightAssignments.regeneration.maxRetryDelay}")
+  private long maxRetryDelay;
+
+  @Value("${rightAssignments.incremental.enabled}")
+  private boolean incrementalEnabled;
+
+  @Autowired
+  @Qualifier("rightAssignmentTaskScheduler")
+  private TaskScheduler taskScheduler;
+
+  @Autowired
+  private RightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private IncrementalRightAssignmentService incrementalRightAssignmentService;
+
+  private Set<UUID> pendingUsers = new HashSet<>();
+  private boolean fullRegenerationPending;
+  private int pendingRequests;
+  private boolean scheduled;
+  private int consecutiveFailures;
+
+  private ZonedDateTime runningSince;
+  private ZonedDateTime lastStarted;
+  private ZonedDateTime lastCompleted;
+  private Long lastDurationMillis;
+  private Integer lastCoalescedRequests;
+  private Boolean lastSucceeded;
+
+  /**
+   * Requests regeneration of right assignments of the given users. If incremental regeneration
+   * is disabled, all right assignments are regenerated instead.
+   *
+   * @param userIds IDs of users affected by a change
+   */
+  public synchronized void scheduleRegeneration(Collection<UUID> userIds) {
+    XLOGGER.entry(userIds.size());
+    if (!incrementalEnabled) {
+      fullRegenerationPending = true;
+      pendingUsers.clear();
+    } else if (!fullRegenerationPending) {
+      pendingUsers.addAll(userIds);
+    }
+    onRequest();
+    XLOGGER.exit();
+  }
+
+  /**
+   * Requests regeneration of all right assignments.
+   */
+  public synchronized void scheduleFullRegeneration() {
+    XLOGGER.entry();
+    fullRegenerationPending = true;
+    pendingUsers.clear();
+    onRequest();
+    XLOGGER.exit();
+  }
+
+  /**
+   * Returns the current state of right assignment regeneration.
+   */
+  public synchronized RightAssignmentRegenerationStatusDto getStatus() {
+    return new RightAssignmentRegenerationStatusDto(scheduled, fullRegenerationPending,
+        pendingUsers.size(), pendingRequests, null != runningSince, runningSince, lastStarted,
+        lastCompleted, lastDurationMillis, lastCoalescedRequests, lastSucceeded);
+  }
+
+  private void onRequest() {
+    pendingRequests++;
+    scheduleIfNeeded();
+  }
+
+  private void scheduleIfNeeded() {
+    if (!scheduled) {
+      scheduled = true;
+      taskScheduler.schedule(this::regenerate,
+          new Date(System.currentTimeMillis() + getNextDelay()));
+    }
+  }
+
+  long getNextDelay() {
+    long nextDelay = delay;
+    for (int i = 0; i < consecutiveFailures && nextDelay < maxRetryDelay; i++) {
+      nextDelay *= 2;
+    }
+    return Math.min(nextDelay, Math.max(delay, maxRetryDelay));
+  }
+
+  private void requeue(Collection<UUID> users, boolean full, int requests) {
+    if (full) {
+      fullRegenerationPending = true;
+      pendingUsers.clear();
+    } else if (!fullRegenerationPending) {
+      pendingUsers.addAll(users);
+    }
+    pendingRequests += requests;
+    scheduleIfNeeded();
+  }
+
+  /**
+   * Runs all pending requests as a single regeneration. Requests received while it runs are
+   * scheduled for the next regeneration, and so are the requests of a failed regeneration.
+   */
+  void regenerate() {
+    Set<UUID> users;
+    boolean full;
+    int coalescedRequests;
+    synchronized (this) {
+      users = pendingUsers;
+      full = fullRegenerationPending;
+      coalescedRequests = pendingRequests;
+      pendingUsers = new HashSet<>();
+      fullRegenerationPending = false;
+      pendingRequests = 0;
+      scheduled = false;
+      runningSince = ZonedDateTime.now();
+    }
+
+    XLOGGER.info("Regenerating right assignments ({} coalesced requests, full: {}, users: {})",
+        coalescedRequests, full, users.size());
+    long start = System.nanoTime();
+    boolean succeeded = false;
+    try {
+      if (full) {
+        rightAssignmentService.regenerateRightAssignments();
+      } else {
+        incrementalRightAssignmentService.regenerateRightAssignments(users);
+      }
+      succeeded = true;
+    } catch (RuntimeException ex) {
+      XLOGGER.error("Error when regenerating right assignments", ex);
+    } finally {
+      long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      synchronized (this) {
+        lastStarted = runningSince;
+        lastCompleted = ZonedDateTime.now();
+        lastDurationMillis = duration;
+        lastCoalescedRequests = coalescedRequests;
+        lastSucceeded = succeeded;
+        runningSince = null;
+        if (succeeded) {
+          consecutiveFailures = 0;
+        } else {
+          consecutiveFailures++;
+          requeue(users, full, coalescedRequests);
+        }
+      }
+      XLOGGER.info("Finished regenerating right assignments in {} ms", duration);
+    }
+  }
+}
@@ -16,7 +16,7 @@
 package org.openlmis.referencedata.service;
 
 import org.apache.commons.collections4.ListUtils;
-import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
 import org.openlmis.referencedata.util.Resource2Db;
 import org.slf4j.ext.XLogger;
@@ -25,23 +25,30 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -58,15 +65,29 @@ public class RightAssignmentService {
 
   static final String DELETE_SQL = "DELETE FROM referencedata.right_assignments;";
 
+  static final String USER_FILTER_SQL = " right_assignments WHERE right_assignments.userid"
+      + " = ANY(?);";
+
+  private static final String FACILITY_ID = "facilityid";
+  private static final String PROGRAM_ID = "programid";
+  private static final String RIGHT_ASSIGNMENTS_TABLE = "referencedata.right_assignments";
+  private static final List<String> RIGHT_ASSIGNMENTS_COLUMNS = Collections.unmodifiableList(
+      Arrays.asList("id", "userid", "rightname", FACILITY_ID, PROGRAM_ID));
+
   @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_right_assignments.sql")
   private Resource rightAssignmentsResource;
 
-  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_all_supervised_facilities_from_node.sql")
+  @Value(value = RIGHT_ASSIGNMENTS_PATH + "get_all_supervised_facilities_from_nodes.sql")
   private Resource supervisedFacilitiesResource;
 
   @Autowired
   JdbcTemplate template;
 
+  @Autowired
+  private PermissionStringCache permissionStringCache;
+
+  private final Map<Resource, String> sqlCache = new ConcurrentHashMap<>();
+
   /**
    * Re-generates right assignments. This operation needs to be transactional so that dropping 
    * and re-generating is one transaction. The isolation level is specified to READ_COMMITTED, 
@@ -74,10 +95,12 @@ public class RightAssignmentService {
    * do not have to wait for this re-generation to finish, but can use the "old" right 
    * assignments. This is acceptable since the right assignments table is not expected to change 
    * very often, and the re-generation could take several seconds to finish.
+   *
+   * <p>This method runs in the calling thread. Controllers should not call it directly, but
+   * request a regeneration through {@link RightAssignmentRegenerationScheduler}.
    */
-  @Async("rightAssignmentTaskExecutor")
   @Transactional(isolation = Isolation.READ_COMMITTED)
-  public Future<Void> regenerateRightAssignments() {
+  public void regenerateRightAssignments() {
     XLOGGER.entry();
 
     // Drop existing rows; we are regenerating from scratch
@@ -95,72 +118,90 @@ public class RightAssignmentService {
 
     Resource2Db r2db = new Resource2Db(template);
     try {
-      for ( List partialRightAssignments : ListUtils.partition(dbRightAssignments, 100) ) {
-        insertFromDbRightAssignmentList(r2db, partialRightAssignments);
-      }
+      // Expand all supervisory nodes at once, instead of once per role assignment
+      XLOGGER.debug("Get supervised facilities of all supervisory nodes");
+      Map<Pair<UUID, UUID>, List<UUID>> supervisedFacilities =
+          getSupervisedFacilityIds(dbRightAssignments);
+
+      // Convert the matrix in partitions, streaming all of them into a single COPY
+      XLOGGER.debug("Convert intermediate right assignments and copy them into the table");
+      Iterator<Object[]> rows = ListUtils.partition(dbRightAssignments, 100)
+          .stream()
+          .flatMap(partial -> convertForInsert(partial, supervisedFacilities).stream())
+          .<Object[]>map(RightAssignmentDto::toColumnArray)
+          .iterator();
+      r2db.copyToDb(RIGHT_ASSIGNMENTS_TABLE, RIGHT_ASSIGNMENTS_COLUMNS, rows);
     } catch (IOException ioe) {
       XLOGGER.warn("Error when getting inserting right assignments: " + ioe.getMessage());
     }
 
+    permissionStringCache.invalidateAfterCommit();
     XLOGGER.exit();
-    return new AsyncResult<>(null);
   }
 
-  private void insertFromDbRightAssignmentList(Resource2Db resource2Db,
-      List<RightAssignmentDto> rightAssignmentDtos)
-      throws IOException {
-
-    // Convert matrix to a set of right assignments to insert
-    XLOGGER.debug("Convert intermediate right assignments to right assignments for insert");
-    Set<RightAssignmentDto> rightAssignmentsToInsert = convertForInsert(rightAssignmentDtos,
-        supervisedFacilitiesResource);
-
-    // Convert set of right assignments to insert to a set of SQL inserts
-    XLOGGER.debug("Convert right assignments to SQL inserts");
-    MutablePair dataWithHeader = new MutablePair<List<String>, List<Object[]>>();
-    dataWithHeader.setRight( rightAssignmentsToInsert.stream()
-        .map(rad -> rad.toColumnArray())
-        .collect(Collectors.toList()) );
-
-    // set column headers
-    dataWithHeader.setLeft(Arrays.asList("id",
-        "userid",
-        "rightname",
-        "facilityid",
-        "programid"));
-
-    // insert into right_assignments
-    XLOGGER.debug("Perform SQL inserts");
-    resource2Db.insertToDbFromBatchedPair("referencedata.right_assignments", dataWithHeader);
+  /**
+   * Inserts given right assignments into the right assignments table. Each right assignment
+   * gets a new, randomly generated ID.
+   */
+  void insertRightAssignments(Resource2Db resource2Db,
+      Collection<RightAssignmentDto> rightAssignmentsToInsert) {
+    XLOGGER.debug("Copy right assignments into the table");
+    resource2Db.copyToDb(RIGHT_ASSIGNMENTS_TABLE, RIGHT_ASSIGNMENTS_COLUMNS,
+        rightAssignmentsToInsert.stream()
+            .<Object[]>map(RightAssignmentDto::toColumnArray)
+            .iterator());
   }
 
   List<RightAssignmentDto> getRightAssignmentsFromDbResource(Resource resource)
       throws IOException {
+    return template.query(getSql(resource), this::mapRightAssignment);
+  }
+
+  /**
+   * Gets intermediate right assignments of the given users only. They come from the same query
+   * as all right assignments, limited to the given users.
+   */
+  List<RightAssignmentDto> getRightAssignmentsForUsers(Collection<UUID> userIds)
+      throws IOException {
+    String sql = limitToUsers(getSql(rightAssignmentsResource));
     return template.query(
-        resourceToString(resource),
-        (ResultSet rs, int rowNum) -> {
-
-          RightAssignmentDto rightAssignmentMap = new RightAssignmentDto();
-          rightAssignmentMap.setUserId(UUID.fromString(rs.getString("userid")));
-          rightAssignmentMap.setRightName(rs.getString("rightname"));
-          if (null != rs.getString("facilityid")) {
-            rightAssignmentMap.setFacilityId(UUID.fromString(rs.getString("facilityid")));
-          }
-          if (null != rs.getString("programid")) {
-            rightAssignmentMap.setProgramId(UUID.fromString(rs.getString("programid")));
-          }
-          if (null != rs.getString("supervisorynodeid")) {
-            rightAssignmentMap.setSupervisoryNodeId(
-                UUID.fromString(rs.getString("supervisorynodeid")));
-          }
-          return rightAssignmentMap;
-        }
-    );
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(sql);
+          statement.setArray(1, connection.createArrayOf("uuid", userIds.toArray()));
+          return statement;
+        },
+        this::mapRightAssignment);
   }
 
-  Set<RightAssignmentDto> convertForInsert(List<RightAssignmentDto> rightAssignments,
-      Resource supervisedFacilitiesResource)
+  private RightAssignmentDto mapRightAssignment(ResultSet rs, int rowNum) throws SQLException {
+    RightAssignmentDto rightAssignmentMap = new RightAssignmentDto();
+    rightAssignmentMap.setUserId(UUID.fromString(rs.getString("userid")));
+    rightAssignmentMap.setRightName(rs.getString("rightname"));
+    if (null != rs.getString(FACILITY_ID)) {
+      rightAssignmentMap.setFacilityId(UUID.fromString(rs.getString(FACILITY_ID)));
+    }
+    if (null != rs.getString(PROGRAM_ID)) {
+      rightAssignmentMap.setProgramId(UUID.fromString(rs.getString(PROGRAM_ID)));
+    }
+    if (null != rs.getString("supervisorynodeid")) {
+      rightAssignmentMap.setSupervisoryNodeId(
+          UUID.fromString(rs.getString("supervisorynodeid")));
+    }
+    return rightAssignmentMap;
+  }
+
+  Set<RightAssignmentDto> convertForInsert(List<RightAssignmentDto> rightAssignments)
       throws IOException {
+    return convertForInsert(rightAssignments, getSupervisedFacilityIds(rightAssignments));
+  }
+
+  /**
+   * Converts intermediate right assignments to right assignments for insert. Right assignments
+   * with a supervisory node are expanded using the given supervised facilities, which are
+   * grouped by supervisory node ID (left) and program ID (right).
+   */
+  Set<RightAssignmentDto> convertForInsert(List<RightAssignmentDto> rightAssignments,
+      Map<Pair<UUID, UUID>, List<UUID>> supervisedFacilities) {
     Set<RightAssignmentDto> rightAssignmentsToInsert = new HashSet<>();
     for (RightAssignmentDto rightAssignment : rightAssignments) {
 
@@ -170,9 +211,9 @@ public class RightAssignmentService {
         // turn it into a list of all facility IDs being supervised by this node.
 
         // Get all supervised facilities. Add each facility to the set.
-        List<UUID> facilityIds = getSupervisedFacilityIds(supervisedFacilitiesResource,
-            rightAssignment.getSupervisoryNodeId(),
-            rightAssignment.getProgramId());
+        List<UUID> facilityIds = supervisedFacilities.getOrDefault(
+            Pair.of(rightAssignment.getSupervisoryNodeId(), rightAssignment.getProgramId()),
+            Collections.emptyList());
 
         for (UUID facilityId : facilityIds) {
 
@@ -197,15 +238,60 @@ public class RightAssignmentService {
     return rightAssignmentsToInsert;
   }
 
-  private List<UUID> getSupervisedFacilityIds(Resource supervisedFacilitiesResource,
-      UUID supervisoryNodeId, UUID programId)
-      throws IOException {
+  /**
+   * Gets all supervised facilities, direct and indirect, of supervisory nodes of the given right
+   * assignments in a single query. Facility IDs are grouped by supervisory node ID (left) and
+   * program ID (right).
+   */
+  Map<Pair<UUID, UUID>, List<UUID>> getSupervisedFacilityIds(
+      List<RightAssignmentDto> rightAssignments) throws IOException {
+    Set<UUID> supervisoryNodeIds = rightAssignments.stream()
+        .map(RightAssignmentDto::getSupervisoryNodeId)
+        .filter(Objects::nonNull)
+        .collect(Collectors.toSet());
+
+    Map<Pair<UUID, UUID>, List<UUID>> supervisedFacilities = new HashMap<>();
+    if (supervisoryNodeIds.isEmpty()) {
+      return supervisedFacilities;
+    }
+
+    String sql = getSql(supervisedFacilitiesResource);
+    template.query(
+        connection -> {
+          PreparedStatement statement = connection.prepareStatement(sql);
+          statement.setArray(1, connection.createArrayOf("uuid", supervisoryNodeIds.toArray()));
+          return statement;
+        },
+        (ResultSet rs) -> {
+          supervisedFacilities
+              .computeIfAbsent(Pair.of(UUID.fromString(rs.getString("supervisorynodeid")),
+                  UUID.fromString(rs.getString(PROGRAM_ID))), key -> new ArrayList<>())
+              .add(UUID.fromString(rs.getString(FACILITY_ID)));
+        });
+
+    return supervisedFacilities;
+  }
+
+  /**
+   * Wraps the given query, so that it only returns rows of users given as its only parameter, an
+   * array of user IDs.
+   */
+  static String limitToUsers(String sql) {
+    return "SELECT * FROM (\n"
+        + StringUtils.trimTrailingWhitespace(StringUtils.trimTrailingCharacter(sql.trim(), ';'))
+        + "\n)" + USER_FILTER_SQL;
+  }
 
-    return template.queryForList(
-        resourceToString(supervisedFacilitiesResource),
-        UUID.class,
-        supervisoryNodeId,
-        programId);
+  /**
+   * Gets the SQL of the given resource. It is only read once, and then cached.
+   */
+  String getSql(Resource resource) throws IOException {
+    String sql = sqlCache.get(resource);
+    if (null == sql) {
+      sql = resourceToString(resource);
+      sqlCache.put(resource, sql);
+    }
+    return sql;
   }
 
   private String resourceToString(final Resource resource) throws IOException {
@@ -19,8 +19,6 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.startsWith;
 
 import org.openlmis.referencedata.exception.UnauthorizedException;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
-import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.SystemMessageKeys;
 import org.slf4j.ext.XLogger;
@@ -42,10 +40,10 @@ public class RightService {
       SystemMessageKeys.ERROR_UNAUTHORIZED_GENERIC;
 
   @Autowired
-  private UserRepository userRepository;
+  private UserExistenceCache userExistenceCache;
 
   @Autowired
-  private RightAssignmentRepository rightAssignmentRepository;
+  private PermissionStringCache permissionStringCache;
 
   @Autowired
   private AuthenticationHelper authenticationHelper;
@@ -132,16 +130,16 @@ public class RightService {
       return false;
     }
 
-    UUID userId = authenticationHelper.getCurrentUser().getId();
+    UUID userId = authenticationHelper.getCurrentUserId();
 
     if (null != expectedUserId
         && userId.equals(expectedUserId)
-        && userRepository.exists(userId)) {
+        && userExistenceCache.exists(userId)) {
       XLOGGER.exit("user id allowed to bypass right check");
       return true;
     }
 
-    if (rightAssignmentRepository.existsByUserIdAndRightName(userId, rightName)) {
+    if (permissionStringCache.hasRight(userId, rightName)) {
       XLOGGER.exit("User has right");
       return true;
     }
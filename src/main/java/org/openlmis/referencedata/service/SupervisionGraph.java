@@ -0,0 +1,169 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable snapshot of the supervision hierarchy. For every supervisory node and program it
+ * holds the set of facilities supervised by the node, directly through its requisition group or
+ * indirectly through its child nodes, as a bit set over the indexes of all supervised facilities.
+ * Only member facilities actively supporting the program of the requisition group count as
+ * supervised, just like in {@link org.openlmis.referencedata.domain.SupervisoryNode}.
+ */
+public final class SupervisionGraph {
+  private final long version;
+  private final UUID[] facilityIds;
+  private final Map<UUID, Integer> facilityIndexes;
+  private final Map<UUID, Map<UUID, BitSet>> supervisedFacilities;
+
+  private SupervisionGraph(long version, List<UUID> facilityIds,
+                           Map<UUID, Integer> facilityIndexes,
+                           Map<UUID, Map<UUID, BitSet>> supervisedFacilities) {
+    this.version = version;
+    this.facilityIds = facilityIds.toArray(new UUID[facilityIds.size()]);
+    this.facilityIndexes = facilityIndexes;
+    this.supervisedFacilities = supervisedFacilities;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Gets IDs of all facilities supervised by the given node for the given program.
+   */
+  public Set<UUID> getSupervisedFacilityIds(UUID supervisoryNodeId, UUID programId) {
+    BitSet facilities = getSupervisedFacilities(supervisoryNodeId, programId);
+    Set<UUID> ids = new LinkedHashSet<>(facilities.cardinality() * 2);
+    for (int index = facilities.nextSetBit(0); index >= 0;
+        index = facilities.nextSetBit(index + 1)) {
+      ids.add(facilityIds[index]);
+    }
+    return ids;
+  }
+
+  /**
+   * Checks if the given node supervises the given facility for the given program.
+   */
+  public boolean supervises(UUID supervisoryNodeId, UUID facilityId, UUID programId) {
+    Integer index = facilityIndexes.get(facilityId);
+    return null != index && getSupervisedFacilities(supervisoryNodeId, programId).get(index);
+  }
+
+  private BitSet getSupervisedFacilities(UUID supervisoryNodeId, UUID programId) {
+    BitSet facilities = supervisedFacilities
+        .getOrDefault(supervisoryNodeId, Collections.emptyMap())
+        .get(programId);
+    return null == facilities ? new BitSet() : facilities;
+  }
+
+  /**
+   * Collects nodes and their directly supervised facilities, and builds the graph out of them.
+   */
+  public static final class Builder {
+    private final List<UUID> facilityIds = new ArrayList<>();
+    private final Map<UUID, Integer> facilityIndexes = new HashMap<>();
+    private final Map<UUID, List<UUID>> childNodes = new HashMap<>();
+    private final Map<UUID, Map<UUID, BitSet>> directFacilities = new HashMap<>();
+
+    private Builder() {
+    }
+
+    /**
+     * Adds a supervisory node.
+     *
+     * @param supervisoryNodeId ID of the node
+     * @param parentNodeId      ID of its parent node, or null if it is a top level node
+     */
+    public Builder addNode(UUID supervisoryNodeId, UUID parentNodeId) {
+      childNodes.computeIfAbsent(supervisoryNodeId, id -> new ArrayList<>());
+      if (null != parentNodeId) {
+        childNodes.computeIfAbsent(parentNodeId, id -> new ArrayList<>()).add(supervisoryNodeId);
+      }
+      return this;
+    }
+
+    /**
+     * Adds a facility the node supervises directly, through its requisition group.
+     */
+    public Builder addFacility(UUID supervisoryNodeId, UUID programId, UUID facilityId) {
+      int index = facilityIndexes.computeIfAbsent(facilityId, id -> {
+        facilityIds.add(id);
+        return facilityIds.size() - 1;
+      });
+      directFacilities
+          .computeIfAbsent(supervisoryNodeId, id -> new HashMap<>())
+          .computeIfAbsent(programId, id -> new BitSet())
+          .set(index);
+      return this;
+    }
+
+    /**
+     * Builds the graph, expanding facilities of every node by the facilities of its descendants.
+     *
+     * @param version version of the graph
+     */
+    public SupervisionGraph build(long version) {
+      Map<UUID, Map<UUID, BitSet>> supervisedFacilities = new HashMap<>();
+      for (UUID nodeId : childNodes.keySet()) {
+        expand(nodeId, supervisedFacilities, new HashSet<>());
+      }
+      return new SupervisionGraph(version, new ArrayList<>(facilityIds),
+          new HashMap<>(facilityIndexes), supervisedFacilities);
+    }
+
+    // the visited set guards against cycles, which the hierarchy should never have
+    private Map<UUID, BitSet> expand(UUID nodeId, Map<UUID, Map<UUID, BitSet>> expanded,
+                                     Set<UUID> visited) {
+      Map<UUID, BitSet> facilities = expanded.get(nodeId);
+      if (null != facilities) {
+        return facilities;
+      }
+      if (!visited.add(nodeId)) {
+        return Collections.emptyMap();
+      }
+
+      facilities = new HashMap<>();
+      for (Map.Entry<UUID, BitSet> entry : directFacilities
+          .getOrDefault(nodeId, Collections.emptyMap()).entrySet()) {
+        facilities.put(entry.getKey(), (BitSet) entry.getValue().clone());
+      }
+
+      for (UUID childId : childNodes.getOrDefault(nodeId, Collections.emptyList())) {
+        for (Map.Entry<UUID, BitSet> entry : expand(childId, expanded, visited).entrySet()) {
+          facilities.computeIfAbsent(entry.getKey(), id -> new BitSet()).or(entry.getValue());
+        }
+      }
+
+      expanded.put(nodeId, facilities);
+      return facilities;
+    }
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the current {@link SupervisionGraph}, so that supervised facilities don't have to be
+ * found by walking supervisory nodes and requisition groups entity by entity.
+ *
+ * <p>The graph is built with two queries, and rebuilt when it is needed after supervisory nodes,
+ * requisition groups or facilities changed, or after it got older than the configured max age.
+ */
+@Service
+public class SupervisionGraphService {
+
+  static final String NODES_SQL = "SELECT sn.id, sn.parentid"
+      + " FROM referencedata.supervisory_nodes sn";
+
+  static final String FACILITIES_SQL = "SELECT DISTINCT rg.supervisorynodeid"
+      + "  , rgps.programid"
+      + "  , rgm.facilityid"
+      + " FROM referencedata.requisition_groups rg"
+      + "  JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id"
+      + "  JOIN referencedata.requisition_group_program_schedules rgps"
+      + "    ON rgps.requisitiongroupid = rg.id"
+      + "  JOIN referencedata.supported_programs sp ON sp.facilityid = rgm.facilityid"
+      + "    AND sp.programid = rgps.programid"
+      + "    AND sp.active = TRUE";
+
+  @Autowired
+  private JdbcTemplate template;
+
+  @Value("${supervisionGraph.maxAge}")
+  private long maxAge;
+
+  private final GenerationCache generations =
+      new GenerationCache("Supervision graph", () -> maxAge);
+  private final GenerationCache.Value<SupervisionGraph> graph = generations.newValue(this::build);
+
+  /**
+   * Gets the current supervision graph, building it if there is none yet or it is out of date.
+   */
+  public SupervisionGraph getGraph() {
+    return graph.get();
+  }
+
+  /**
+   * Gets IDs of all facilities supervised by the given node for the given program.
+   */
+  public Set<UUID> getSupervisedFacilityIds(UUID supervisoryNodeId, UUID programId) {
+    return getGraph().getSupervisedFacilityIds(supervisoryNodeId, programId);
+  }
+
+  /**
+   * Checks if the given node supervises the given facility for the given program.
+   */
+  public boolean supervises(UUID supervisoryNodeId, UUID facilityId, UUID programId) {
+    return getGraph().supervises(supervisoryNodeId, facilityId, programId);
+  }
+
+  /**
+   * Invalidates the current supervision graph.
+   */
+  public void invalidate() {
+    generations.invalidate();
+  }
+
+  /**
+   * Invalidates the current supervision graph once the current transaction commits.
+   */
+  public void invalidateAfterCommit() {
+    generations.invalidateAfterCommit();
+  }
+
+  private SupervisionGraph build(long version) {
+    SupervisionGraph.Builder builder = SupervisionGraph.builder();
+
+    template.query(NODES_SQL, rs -> {
+      String parentId = rs.getString("parentid");
+      builder.addNode(UUID.fromString(rs.getString("id")),
+          null == parentId ? null : UUID.fromString(parentId));
+    });
+    template.query(FACILITIES_SQL, rs -> {
+      builder.addFacility(UUID.fromString(rs.getString("supervisorynodeid")),
+          UUID.fromString(rs.getString("programid")),
+          UUID.fromString(rs.getString("facilityid")));
+    });
+
+    return builder.build(version);
+  }
+}
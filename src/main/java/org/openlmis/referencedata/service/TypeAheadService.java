@@ -0,0 +1,132 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
+import org.slf4j.ext.XLogger;
+import org.slf4j.ext.XLoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Finds resources whose code or name contains a search term, for type-ahead fields of the UI.
+ * Only ids, codes and names are selected, so no entity has to be loaded.
+ *
+ * <p>Both columns are matched with {@code UPPER(column) LIKE '%TERM%'}, which is backed by
+ * trigram indexes on the same expressions. Results are ranked by how well they match: an exact
+ * code first, then codes and names starting with the term, then any other match, shorter names
+ * before longer ones.
+ */
+@Service
+public class TypeAheadService {
+  private static final XLogger XLOGGER = XLoggerFactory.getXLogger(TypeAheadService.class);
+
+  private static final String CODE = "code";
+  private static final String NAME = "name";
+
+  static final int DEFAULT_LIMIT = 10;
+  static final int MAX_LIMIT = 50;
+
+  static final String SEARCH_SQL = "SELECT id, code, name"
+      + " FROM ("
+      + "  SELECT t.id, t.%2$s AS code, t.%3$s AS name"
+      + "  FROM referencedata.%1$s t"
+      + "  WHERE UPPER(t.%2$s) LIKE ? OR UPPER(t.%3$s) LIKE ?"
+      + " ) AS matches"
+      + " ORDER BY CASE"
+      + "    WHEN UPPER(code) = ? THEN 0"
+      + "    WHEN UPPER(code) LIKE ? THEN 1"
+      + "    WHEN UPPER(name) LIKE ? THEN 2"
+      + "    ELSE 3"
+      + "  END"
+      + "  , LENGTH(name)"
+      + "  , name"
+      + "  , id"
+      + " LIMIT ?";
+
+  /**
+   * Resources that can be searched for.
+   */
+  public enum Target {
+    FACILITIES("facilities", CODE, NAME),
+    ORDERABLES("orderables", CODE, "fullproductname"),
+    SUPERVISORY_NODES("supervisory_nodes", CODE, NAME);
+
+    private final String sql;
+
+    Target(String table, String codeColumn, String nameColumn) {
+      this.sql = String.format(SEARCH_SQL, table, codeColumn, nameColumn);
+    }
+
+    String getSql() {
+      return sql;
+    }
+  }
+
+  @Autowired
+  private JdbcTemplate template;
+
+  /**
+   * Finds resources of the given type whose code or name contains the given term, ignoring case.
+   *
+   * @param target type of resources to search for
+   * @param term   part of the code or name, blank terms match nothing
+   * @param limit  maximum number of results, defaults to {@value #DEFAULT_LIMIT} and can't be
+   *               greater than {@value #MAX_LIMIT}
+   * @return the best matching resources, best first
+   */
+  public List<TypeAheadResultDto> search(Target target, String term, Integer limit) {
+    if (isBlank(term)) {
+      return Collections.emptyList();
+    }
+
+    String upperTerm = term.trim().toUpperCase();
+    String escaped = escape(upperTerm);
+    String contains = "%" + escaped + "%";
+    String startsWith = escaped + "%";
+
+    List<TypeAheadResultDto> results = template.query(target.getSql(),
+        (rs, rowNum) -> new TypeAheadResultDto(UUID.fromString(rs.getString("id")),
+            rs.getString(CODE), rs.getString(NAME)),
+        contains, contains, upperTerm, startsWith, startsWith, getLimit(limit));
+
+    XLOGGER.debug("Found {} {} matching '{}'", results.size(), target, upperTerm);
+    return results;
+  }
+
+  private int getLimit(Integer limit) {
+    if (null == limit || limit < 1) {
+      return DEFAULT_LIMIT;
+    }
+
+    return Math.min(limit, MAX_LIMIT);
+  }
+
+  // wildcards typed by the user should be matched literally
+  private static String escape(String term) {
+    return term
+        .replace("\\", "\\\\")
+        .replace("%", "\\%")
+        .replace("_", "\\_");
+  }
+}
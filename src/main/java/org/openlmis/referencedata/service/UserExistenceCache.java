@@ -0,0 +1,93 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import org.openlmis.referencedata.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Short-lived cache of user existence, so that permission checks don't have to query the users
+ * table on every request. Only existing users are cached, so a newly created user is seen right
+ * away, while a deleted one may be seen as existing for up to the configured time to live on
+ * other instances of the service.
+ */
+@Service
+public class UserExistenceCache {
+
+  static final int MAX_SIZE = 10000;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Value("${users.existenceCache.timeToLive}")
+  private long timeToLive;
+
+  private final ConcurrentMap<UUID, Long> existingUsers = new ConcurrentHashMap<>();
+
+  /**
+   * Checks if the user with the given ID exists.
+   */
+  public boolean exists(UUID userId) {
+    long now = System.currentTimeMillis();
+    Long expiresAt = existingUsers.get(userId);
+    if (null != expiresAt && expiresAt > now) {
+      return true;
+    }
+
+    boolean exists = userRepository.exists(userId);
+    if (exists && timeToLive > 0) {
+      if (existingUsers.size() >= MAX_SIZE) {
+        prune(now);
+      }
+      existingUsers.put(userId, now + timeToLive);
+    } else {
+      existingUsers.remove(userId);
+    }
+
+    return exists;
+  }
+
+  /**
+   * Removes the user from the cache, once the current transaction commits (or right away if
+   * there is no transaction). Should be called when a user is deleted.
+   */
+  public void evict(UUID userId) {
+    existingUsers.remove(userId);
+    // a concurrent request could have cached the user again before the deletion is committed
+    GenerationCache.afterCommit(() -> existingUsers.remove(userId));
+  }
+
+  /**
+   * Removes all users from the cache.
+   */
+  public void clear() {
+    existingUsers.clear();
+  }
+
+  private void prune(long now) {
+    existingUsers.values().removeIf(expiresAt -> expiresAt <= now);
+
+    if (existingUsers.size() >= MAX_SIZE) {
+      existingUsers.clear();
+    }
+  }
+}
@@ -30,7 +30,7 @@ import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.util.Message;
-import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
@@ -38,12 +38,10 @@ import org.openlmis.referencedata.util.messagekeys.SupervisoryNodeMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.UserMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -113,21 +111,14 @@ public class UserService {
   public Page<User> searchUsers(UserSearchParams searchParams, Pageable pageable) {
 
     Profiler profiler = new Profiler("SERVICE_USER_SEARCH");
-    profiler.setLogger(LOGGER);
 
     profiler.start("GET_EXTRA_DATA_FROM_PARAMS");
     Map<String, String> extraData = searchParams.extraData;
 
-    profiler.start("SEARCHING_BY_EXTRA_DATA");
-    List<User> foundUsers = null;
+    String extraDataString = null;
     if (extraData != null && !extraData.isEmpty()) {
       try {
-        profiler.start("SEARCHING_BY_EXTRA_DATA_IN_REPOSITORY");
-        String extraDataString = mapper.writeValueAsString(extraData);
-        foundUsers = userRepository.findByExtraData(extraDataString);
-        if (foundUsers.isEmpty()) {
-          return Pagination.getPage(foundUsers, pageable, 0);
-        }
+        extraDataString = mapper.writeValueAsString(extraData);
       } catch (JsonProcessingException jpe) {
         LOGGER.error("Cannot serialize extra data query request body into JSON", jpe);
       }
@@ -143,10 +134,10 @@ public class UserService {
         searchParams.active,
         searchParams.verified,
         searchParams.loginRestricted,
-        foundUsers,
+        extraDataString,
         pageable);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return result;
   }
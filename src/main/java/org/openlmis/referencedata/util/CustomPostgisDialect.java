@@ -0,0 +1,43 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.util;
+
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.spatial.dialect.postgis.PostgisDialect;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Extension of {@link PostgisDialect} with functions that JPQL and criteria queries have no
+ * syntax for.
+ *
+ * <p>{@value #JSONB_CONTAINS}(column, json) checks if the jsonb column contains the given JSON
+ * document, using the {@code @>} operator, so that it can make use of GIN indexes.
+ */
+public class CustomPostgisDialect extends PostgisDialect {
+
+  public static final String JSONB_CONTAINS = "jsonb_contains";
+
+  private static final long serialVersionUID = 5329582340493164152L;
+
+  /**
+   * Creates the dialect and registers the additional functions.
+   */
+  public CustomPostgisDialect() {
+    super();
+    registerFunction(JSONB_CONTAINS, new SQLFunctionTemplate(StandardBasicTypes.BOOLEAN,
+        "(?1 @> CAST(?2 AS jsonb))"));
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.util;
+
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.referencedata.domain.Identifiable;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.util.messagekeys.SystemMessageKeys;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Page request of the keyset (cursor) pagination mode. Instead of skipping a number of elements,
+ * it asks for the elements whose id comes after the id of the last element of the previous page,
+ * so getting a page costs the same no matter how deep it is.
+ *
+ * <p>Pages are always ordered by id. The cursor of the next page is an opaque token sent back in
+ * the {@link #NEXT_CURSOR_HEADER} header, which clients pass in the {@link #AFTER_PARAM} request
+ * parameter. An empty cursor asks for the first page. The page number is always 0. Elements are
+ * not counted, so the total number of elements of a keyset page is not meaningful: it only tells
+ * whether there is a next page.
+ */
+public final class KeysetPageRequest extends PageRequest {
+  private static final long serialVersionUID = 3466071564838573216L;
+
+  public static final String AFTER_PARAM = "after";
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+  public static final String ID = "id";
+
+  private final UUID after;
+
+  /**
+   * Creates a page request for the given number of elements after the given id.
+   *
+   * @param size  the size of the page
+   * @param after the id after which the page starts, or null for the first page
+   */
+  public KeysetPageRequest(int size, UUID after) {
+    super(Pagination.DEFAULT_PAGE_NUMBER, size, new Sort(Sort.Direction.ASC, ID));
+    this.after = after;
+  }
+
+  /**
+   * Turns the given page request into a keyset one if a cursor is given.
+   *
+   * @param pageable the page request of the client
+   * @param cursor   the cursor of the client, null if the client does not use keyset pagination
+   * @return the keyset page request, or the given one if there is no cursor
+   */
+  public static Pageable of(Pageable pageable, String cursor) {
+    if (null == cursor) {
+      return pageable;
+    }
+
+    UUID after = StringUtils.isBlank(cursor) ? null : decode(cursor);
+    return new KeysetPageRequest(Pagination.getPageSize(pageable), after);
+  }
+
+  /**
+   * Checks if the given page request is a keyset one.
+   */
+  public static boolean isKeyset(Pageable pageable) {
+    return pageable instanceof KeysetPageRequest;
+  }
+
+  /**
+   * Gets the id after which the page starts, null if it is the first page or the given page
+   * request is not a keyset one.
+   */
+  public static UUID getAfter(Pageable pageable) {
+    return isKeyset(pageable) ? ((KeysetPageRequest) pageable).after : null;
+  }
+
+  /**
+   * Gets the number of elements to fetch for the given keyset page request. It is one more than
+   * the size of the page, so that the extra element tells if there is a next page without
+   * counting all the remaining ones.
+   */
+  public static int getFetchSize(Pageable pageable) {
+    int size = pageable.getPageSize();
+    return size == Integer.MAX_VALUE ? size : size + 1;
+  }
+
+  /**
+   * Creates a keyset page out of the elements fetched for the given page request, up to
+   * {@link #getFetchSize(Pageable)} of them. The extra element is left out of the page, and only
+   * makes the page have a next one.
+   *
+   * @param fetched  the fetched elements
+   * @param pageable the keyset page request the elements were fetched for
+   * @return the page, whose total number of elements only tells if there is a next page
+   */
+  public static <T> Page<T> getPage(List<T> fetched, Pageable pageable) {
+    int size = pageable.getPageSize();
+    if (fetched.size() <= size) {
+      return Pagination.getPage(fetched, pageable, fetched.size());
+    }
+
+    return Pagination.getPage(fetched.subList(0, size), pageable, size + 1L);
+  }
+
+  /**
+   * Gets the cursor of the page after the given one.
+   *
+   * @param pageable the page request the page was found with
+   * @param page     the found page
+   * @return the cursor, or null if the page is not a keyset one or there are no more pages
+   */
+  public static String getNextCursor(Pageable pageable, Page<? extends Identifiable> page) {
+    if (!isKeyset(pageable) || !page.hasNext()) {
+      return null;
+    }
+
+    List<? extends Identifiable> content = page.getContent();
+    return content.isEmpty() ? null : encode(content.get(content.size() - 1).getId());
+  }
+
+  static String encode(UUID id) {
+    ByteBuffer buffer = ByteBuffer.allocate(16);
+    buffer.putLong(id.getMostSignificantBits());
+    buffer.putLong(id.getLeastSignificantBits());
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  static UUID decode(String cursor) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(cursor);
+    } catch (IllegalArgumentException ex) {
+      throw new ValidationMessageException(ex,
+          new Message(SystemMessageKeys.ERROR_PAGE_CURSOR_INVALID, cursor));
+    }
+
+    if (bytes.length != 16) {
+      throw new ValidationMessageException(
+          new Message(SystemMessageKeys.ERROR_PAGE_CURSOR_INVALID, cursor));
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    return new UUID(buffer.getLong(), buffer.getLong());
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return super.equals(obj) && obj instanceof KeysetPageRequest
+        && Objects.equals(after, ((KeysetPageRequest) obj).after);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * super.hashCode() + (null == after ? 0 : after.hashCode());
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.util;
+
+/**
+ * Measures how long the stages of an operation take. It has the same {@code start} and
+ * {@code stop} methods as the slf4j profiler it replaces, but instead of building and logging a
+ * timing tree on every call, it adds the stage durations to timers kept by
+ * {@link ProfilerRegistry}.
+ *
+ * <p>Only a sample of the operations is measured. A profiler of an operation that is not sampled
+ * (or created while profiling is disabled) does nothing at all.
+ */
+public final class Profiler {
+  static final String TOTAL = "TOTAL";
+
+  private final ProfilerRegistry.Timers timers;
+  private final long startedAt;
+
+  private ProfilerRegistry.Timer stage;
+  private long stageStartedAt;
+  private boolean stopped;
+
+  /**
+   * Creates a profiler of the operation with the given name, and starts measuring it if it is
+   * sampled.
+   */
+  public Profiler(String name) {
+    this.timers = ProfilerRegistry.isSampled() ? ProfilerRegistry.register(name) : null;
+    this.startedAt = null == timers ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Stops the current stage, if there is one, and starts a new stage with the given name.
+   */
+  public void start(String name) {
+    if (null == timers || stopped) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    stopStage(now);
+    stage = timers.register(name);
+    stageStartedAt = now;
+  }
+
+  /**
+   * Stops the current stage and the whole operation. Calling it again does nothing.
+   */
+  public void stop() {
+    if (null == timers || stopped) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    stopStage(now);
+    timers.register(TOTAL).record(now - startedAt);
+    stopped = true;
+  }
+
+  boolean isSampled() {
+    return null != timers;
+  }
+
+  private void stopStage(long now) {
+    if (null != stage) {
+      stage.record(now - stageStartedAt);
+      stage = null;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.util;
+
+import org.openlmis.referencedata.util.ProfilerRegistry.Timer;
+import org.openlmis.referencedata.util.ProfilerRegistry.Timers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Configures {@link ProfilerRegistry} and exposes its timers through the actuator, as
+ * {@code profiler.<operation>.<stage>.<statistic>} metrics.
+ */
+@Component
+public class ProfilerMetrics implements PublicMetrics {
+  static final String METRIC_PREFIX = "profiler.";
+
+  @Value("${profiler.enabled}")
+  private boolean enabled;
+
+  @Value("${profiler.sampleRate}")
+  private int sampleRate;
+
+  @PostConstruct
+  public void configure() {
+    ProfilerRegistry.configure(enabled, sampleRate);
+  }
+
+  @Override
+  public Collection<Metric<?>> metrics() {
+    List<Metric<?>> metrics = new ArrayList<>();
+
+    for (Map.Entry<String, Timers> operation : ProfilerRegistry.getTimers().entrySet()) {
+      for (Map.Entry<String, Timer> stage : operation.getValue().getStages().entrySet()) {
+        String prefix = METRIC_PREFIX + operation.getKey() + '.' + stage.getKey() + '.';
+        Timer timer = stage.getValue();
+
+        metrics.add(new Metric<>(prefix + "count", timer.getCount()));
+        metrics.add(new Metric<>(prefix + "totalMillis", timer.getTotalMillis()));
+        metrics.add(new Metric<>(prefix + "maxMillis", timer.getMaxMillis()));
+        metrics.add(new Metric<>(prefix + "p50Millis", timer.getPercentileMillis(0.5)));
+        metrics.add(new Metric<>(prefix + "p95Millis", timer.getPercentileMillis(0.95)));
+        metrics.add(new Metric<>(prefix + "p99Millis", timer.getPercentileMillis(0.99)));
+      }
+    }
+
+    return metrics;
+  }
+}
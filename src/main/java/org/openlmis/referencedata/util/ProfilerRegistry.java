@@ -0,0 +1,174 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the timers {@link Profiler}s record into, one per stage of every profiled operation. The
+ * timers are registered the first time a stage is measured and reused afterwards, so measuring a
+ * stage only adds to a few counters. They are static because profiled domain objects are not
+ * Spring beans; {@link ProfilerMetrics} configures them and exposes them through the actuator.
+ */
+public final class ProfilerRegistry {
+  private static final ConcurrentMap<String, Timers> TIMERS = new ConcurrentHashMap<>();
+
+  private static volatile boolean enabled = true;
+  private static volatile int sampleRate = 1;
+
+  private ProfilerRegistry() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Configures profiling.
+   *
+   * @param enabled     whether operations are profiled at all
+   * @param sampleRate  profile one in how many operations, on average
+   */
+  public static void configure(boolean enabled, int sampleRate) {
+    ProfilerRegistry.enabled = enabled;
+    ProfilerRegistry.sampleRate = Math.max(1, sampleRate);
+  }
+
+  /**
+   * Gets the timers of all profiled operations, keyed by operation name.
+   */
+  public static Map<String, Timers> getTimers() {
+    return Collections.unmodifiableMap(new TreeMap<>(TIMERS));
+  }
+
+  /**
+   * Removes all timers.
+   */
+  public static void reset() {
+    TIMERS.clear();
+  }
+
+  static boolean isSampled() {
+    if (!enabled) {
+      return false;
+    }
+
+    int rate = sampleRate;
+    return rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0;
+  }
+
+  static Timers register(String name) {
+    Timers timers = TIMERS.get(name);
+    return null != timers ? timers : TIMERS.computeIfAbsent(name, key -> new Timers());
+  }
+
+  /**
+   * Timers of the stages of a single profiled operation, keyed by stage name. The time of the
+   * whole operation is kept under {@code TOTAL}.
+   */
+  public static final class Timers {
+    private final ConcurrentMap<String, Timer> stages = new ConcurrentHashMap<>();
+
+    public Map<String, Timer> getStages() {
+      return Collections.unmodifiableMap(new TreeMap<>(stages));
+    }
+
+    Timer register(String name) {
+      Timer timer = stages.get(name);
+      return null != timer ? timer : stages.computeIfAbsent(name, key -> new Timer());
+    }
+  }
+
+  /**
+   * Count, total and maximum of the measured durations, with a histogram of them in buckets of
+   * powers of two microseconds. Recording a duration never blocks.
+   */
+  public static final class Timer {
+    private static final int BUCKETS = 32;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAdder[] histogram = new LongAdder[BUCKETS];
+
+    Timer() {
+      for (int i = 0; i < BUCKETS; ++i) {
+        histogram[i] = new LongAdder();
+      }
+    }
+
+    public long getCount() {
+      return count.sum();
+    }
+
+    public double getTotalMillis() {
+      return toMillis(total.sum());
+    }
+
+    public double getMaxMillis() {
+      return toMillis(max.get());
+    }
+
+    /**
+     * Estimates the given percentile of the measured durations. The estimate is the upper bound
+     * of the histogram bucket the percentile falls into, so it is at most twice the real value.
+     *
+     * @param percentile percentile between 0 and 1
+     * @return the estimate in milliseconds, or 0 if nothing was measured
+     */
+    public double getPercentileMillis(double percentile) {
+      long[] counts = new long[BUCKETS];
+      long all = 0;
+      for (int i = 0; i < BUCKETS; ++i) {
+        counts[i] = histogram[i].sum();
+        all += counts[i];
+      }
+
+      long rank = (long) Math.ceil(percentile * all);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; ++i) {
+        seen += counts[i];
+        if (seen > 0 && seen >= rank) {
+          return (1L << i) / 1000.0;
+        }
+      }
+      return 0;
+    }
+
+    void record(long nanos) {
+      count.increment();
+      total.add(nanos);
+      max.accumulate(nanos);
+      histogram[bucket(nanos)].increment();
+    }
+
+    // bucket i holds durations shorter than 2^i microseconds, the last one everything longer
+    private static int bucket(long nanos) {
+      long micros = nanos / 1000;
+      int bucket = 64 - Long.numberOfLeadingZeros(micros);
+      return Math.min(bucket, BUCKETS - 1);
+    }
+
+    private static double toMillis(long nanos) {
+      return nanos / 1_000_000.0;
+    }
+  }
+}
@@ -20,8 +20,12 @@ import static java.util.stream.Collectors.joining;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -33,9 +37,12 @@ import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.MutablePair;
 import org.apache.commons.lang3.tuple.Pair;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
@@ -43,10 +50,20 @@ import org.springframework.jdbc.core.JdbcTemplate;
  * {@link JdbcTemplate}, an instance of this class is able to run SQL inserts/updates against the
  * attached datasource. It knows what SQL to run, or what data to load, based on Spring
  * {@link Resource}'s passed in.
+ *
+ * <p>Bulk loads use PostgreSQL's COPY protocol when the underlying connection supports it, and
+ * fall back to batched inserts otherwise.
  */
+@SuppressWarnings({"PMD.TooManyMethods"})
 public class Resource2Db {
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(Resource2Db.class);
 
+  // number of characters buffered before they are sent to the database during COPY
+  private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+  // number of rows per batch when COPY is not available
+  private static final int INSERT_BATCH_SIZE = 1000;
+
   private final JdbcTemplate template;
 
   /**
@@ -74,7 +91,8 @@ public class Resource2Db {
   }
 
   /**
-   * Insert into the database (a table) from a Resource with CSV data.
+   * Insert into the database (a table) from a Resource with CSV data. The data is loaded with
+   * COPY when possible.
    * @param tableName the name of the table (incl schema) to load the data into.
    * @param resource the Resource as a CSV, with a header, that has the data to load.
    * @throws IOException if the Resource can't be used.
@@ -85,7 +103,7 @@ public class Resource2Db {
     XLOGGER.entry(tableName, resource);
     Validate.notBlank(tableName);
     Validate.notNull(resource);
-    insertToDbFromBatchedPair(tableName, resourceCsvToBatchedPair(resource));
+    copyToDbFromBatchedPair(tableName, resourceCsvToBatchedPair(resource));
     XLOGGER.exit();
   }
 
@@ -180,9 +198,126 @@ public class Resource2Db {
     XLOGGER.info("Insert SQL: " + insertSql);
 
     List<Object[]> data = dataWithHeader.getRight();
-    data.forEach(e -> XLOGGER.info(tableName + ": " + Arrays.toString(e)));
+    if (XLOGGER.isTraceEnabled()) {
+      data.forEach(e -> XLOGGER.trace(tableName + ": " + Arrays.toString(e)));
+    }
     int[] updateCount = template.batchUpdate(insertSql, data);
 
     XLOGGER.exit("Total " + tableName + " inserts: " + Arrays.stream(updateCount).sum());
   }
+
+  /**
+   * Copies data into a single table. Works like {@link #insertToDbFromBatchedPair(String, Pair)},
+   * but streams the rows with COPY instead of running an insert per row.
+   * @param tableName the name of the table (including schema) to copy into.
+   * @param dataWithHeader a pair where pair.left is an ordered list of column names and pair.right
+   *                       is an array of rows to copy, where each row is similarly ordered as
+   *                       the columns in pair.left.
+   * @return the number of rows copied.
+   */
+  public long copyToDbFromBatchedPair(String tableName,
+                                      Pair<List<String>, List<Object[]>> dataWithHeader) {
+    return copyToDb(tableName, dataWithHeader.getLeft(), dataWithHeader.getRight().iterator());
+  }
+
+  /**
+   * Copies rows into a single table. Rows are consumed from the iterator as they are sent, so
+   * they don't all have to be held in memory at once. The copy runs on the connection bound to
+   * the current transaction, if any. If the connection is not a PostgreSQL one, the rows are
+   * inserted in batches instead.
+   * @param tableName the name of the table (including schema) to copy into.
+   * @param columns an ordered list of column names.
+   * @param rows the rows to copy, each ordered as the columns.
+   * @return the number of rows copied.
+   * @throws NullPointerException if any of the arguments are null.
+   * @throws IllegalArgumentException if the tableName is blank or there are no columns.
+   */
+  public long copyToDb(String tableName, List<String> columns, Iterator<Object[]> rows) {
+    XLOGGER.entry(tableName);
+    Validate.notBlank(tableName);
+    Validate.notEmpty(columns);
+    Validate.notNull(rows);
+
+    Long copied = template.execute((ConnectionCallback<Long>) connection ->
+        isCopySupported(connection)
+            ? copyRows(connection, tableName, columns, rows)
+            : insertRows(tableName, columns, rows));
+
+    XLOGGER.exit("Total " + tableName + " rows copied: " + copied);
+    return null == copied ? 0 : copied;
+  }
+
+  private boolean isCopySupported(Connection connection) throws SQLException {
+    return connection.isWrapperFor(PGConnection.class);
+  }
+
+  private long copyRows(Connection connection, String tableName, List<String> columns,
+                        Iterator<Object[]> rows) throws SQLException {
+    String copySql = String.format("COPY %s (%s) FROM STDIN WITH (FORMAT csv)",
+        tableName,
+        columns.stream().collect(joining(",")));
+    XLOGGER.info("Copy SQL: " + copySql);
+
+    CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql);
+    try {
+      StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+      while (rows.hasNext()) {
+        Object[] row = rows.next();
+        if (XLOGGER.isTraceEnabled()) {
+          XLOGGER.trace(tableName + ": " + Arrays.toString(row));
+        }
+
+        appendCsvRow(buffer, row);
+        if (buffer.length() >= COPY_BUFFER_SIZE) {
+          writeToCopy(copyIn, buffer);
+        }
+      }
+      writeToCopy(copyIn, buffer);
+      return copyIn.endCopy();
+    } finally {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    }
+  }
+
+  private long insertRows(String tableName, List<String> columns, Iterator<Object[]> rows) {
+    XLOGGER.info("COPY not supported by the connection, using batched inserts");
+    long inserted = 0;
+    List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+    while (rows.hasNext()) {
+      batch.add(rows.next());
+      if (batch.size() == INSERT_BATCH_SIZE || !rows.hasNext()) {
+        insertToDbFromBatchedPair(tableName, new MutablePair<>(columns, batch));
+        inserted += batch.size();
+        batch = new ArrayList<>(INSERT_BATCH_SIZE);
+      }
+    }
+    return inserted;
+  }
+
+  private void writeToCopy(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+    byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    copyIn.writeToCopy(bytes, 0, bytes.length);
+    buffer.setLength(0);
+  }
+
+  /*
+   appends a row in the CSV format understood by COPY - nulls are left unquoted (so COPY reads
+   them as NULL), everything else is quoted, so that empty strings stay empty strings
+   */
+  private void appendCsvRow(StringBuilder buffer, Object[] row) {
+    for (int i = 0; i < row.length; ++i) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+
+      if (null != row[i]) {
+        buffer.append('"')
+            .append(String.valueOf(row[i]).replace("\"", "\"\""))
+            .append('"');
+      }
+    }
+    buffer.append('\n');
+  }
 }
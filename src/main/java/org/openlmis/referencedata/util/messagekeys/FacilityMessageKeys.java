@@ -27,6 +27,8 @@ public abstract class FacilityMessageKeys extends MessageKeys {
   public static final String ERROR_NOT_FOUND_WITH_ID = join(ERROR_NOT_FOUND, WITH, ID);
   public static final String ERROR_SEARCH_LACKS_PARAMS =
       join(ERROR, SEARCH, LACKS_PARAMETERS);
+  public static final String ERROR_SEARCH_SORT_INVALID =
+      join(ERROR, SEARCH, "sort", INVALID);
   public static final String ERROR_MUST_BE_WAREHOUSE =
       join(ERROR, TYPE, MUST_BE_WAREHOUSE);
 }
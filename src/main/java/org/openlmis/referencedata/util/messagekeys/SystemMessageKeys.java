@@ -18,4 +18,6 @@ package org.openlmis.referencedata.util.messagekeys;
 public abstract class SystemMessageKeys extends MessageKeys {
   public static final String ERROR_UNAUTHORIZED = join(SERVICE_ERROR, UNAUTHORIZED);
   public static final String ERROR_UNAUTHORIZED_GENERIC = join(ERROR_UNAUTHORIZED, GENERIC);
+  public static final String ERROR_PAGE_CURSOR_INVALID = join(SERVICE_ERROR, "pageCursor",
+      INVALID);
 }
@@ -19,17 +19,14 @@ import static org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys.E
 import static org.openlmis.referencedata.util.messagekeys.CsvUploadMessageKeys.ERROR_INCORRECT_FILE_FORMAT;
 import static org.openlmis.referencedata.web.BaseController.API_PATH;
 
-import org.apache.commons.lang3.StringUtils;
-import org.javers.core.Javers;
-import org.javers.core.changelog.SimpleTextChangeLog;
-import org.javers.core.diff.Change;
-import org.javers.core.json.JsonConverter;
-import org.javers.repository.jql.QueryBuilder;
+import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.service.AuditLogService;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
-import org.slf4j.profiler.Profiler;
+import org.openlmis.referencedata.util.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -39,12 +36,17 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
-import javax.annotation.Resource;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 @RequestMapping(API_PATH)
 public abstract class BaseController {
@@ -54,8 +56,8 @@ public abstract class BaseController {
   @Autowired
   RightService rightService;
 
-  @Resource(name = "javersProvider")
-  private Javers javers;
+  @Autowired
+  private AuditLogService auditLogService;
 
   protected void checkAdminRight(String rightName, Profiler profiler) {
     checkAdminRight(rightName, true, profiler);
@@ -77,9 +79,36 @@ public abstract class BaseController {
     return Pagination.getPage(originalList, pageable, totalElements);
   }
 
+  /**
+   * Sets the cursor of the next page in the response, if the page was found with a keyset page
+   * request and is not the last one.
+   */
+  protected void addNextCursor(HttpServletResponse response, Pageable pageable,
+                               Page<? extends Identifiable> page) {
+    String cursor = KeysetPageRequest.getNextCursor(pageable, page);
+
+    if (null != cursor) {
+      response.setHeader(KeysetPageRequest.NEXT_CURSOR_HEADER, cursor);
+    }
+  }
+
+  /**
+   * Gets a page of the audit log as a response. If the request accepts newline delimited JSON
+   * (application/x-ndjson), the whole audit log is streamed to the response instead, and null is
+   * returned.
+   */
   protected ResponseEntity<String> getAuditLogResponse(Class type, UUID id, String author,
                                                        String changedPropertyName,
                                                        Pageable page, boolean returnJson) {
+    ServletRequestAttributes attributes =
+        (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+
+    if (acceptsNdjson(attributes.getRequest())) {
+      exportAuditLog(type, id, author, changedPropertyName, attributes.getResponse());
+      // the audit log has already been written to the response
+      return null;
+    }
+
     String auditLogs = getAuditLog(type, id, author, changedPropertyName, page, returnJson);
 
     MediaType contentType = returnJson ? MediaType.APPLICATION_JSON : MediaType.TEXT_PLAIN;
@@ -102,11 +131,8 @@ public abstract class BaseController {
    */
   protected String getAuditLog(Class type, UUID id, String author, String changedPropertyName,
                                Pageable page, boolean returnJson) {
-    if (returnJson) {
-      return getAuditLogJson(type, id, author, changedPropertyName, page);
-    } else {
-      return getAuditLogText(type, id, author, changedPropertyName, page);
-    }
+    return auditLogService.getAuditLog(type, id, author, changedPropertyName, page,
+        returnJson);
   }
 
   /**
@@ -135,9 +161,7 @@ public abstract class BaseController {
    */
   protected String getAuditLogJson(Class type, UUID id, String author,
                                      String changedPropertyName, Pageable page) {
-    List<Change> changes = getChangesByType(type, id, author, changedPropertyName, page);
-    JsonConverter jsonConverter = javers.getJsonConverter();
-    return jsonConverter.toJson(changes);
+    return getAuditLog(type, id, author, changedPropertyName, page, true);
   }
 
 
@@ -165,8 +189,7 @@ public abstract class BaseController {
    */
   protected String getAuditLogText(Class type, UUID id, String author,
                                    String changedPropertyName, Pageable page) {
-    List<Change> changes = getChangesByType(type, id, author, changedPropertyName, page);
-    return javers.processChangeList(changes, new SimpleTextChangeLog());
+    return getAuditLog(type, id, author, changedPropertyName, page, false);
   }
 
   void validateCsvFile(MultipartFile csvFile) {
@@ -184,39 +207,26 @@ public abstract class BaseController {
     }
   }
 
+  private boolean acceptsNdjson(HttpServletRequest request) {
+    String accept = request.getHeader(HttpHeaders.ACCEPT);
+    return null != accept && accept.contains(AuditLogService.NDJSON);
+  }
+
   /*
-    Return JaVers changes for the specified type, optionally filtered by id, author, and property.
+    Streams the whole audit log, ignoring paging, so that history can be exported without
+    building it as one string.
   */
-  private List<Change> getChangesByType(Class type, UUID id, String author,
-                                        String changedPropertyName, Pageable page) {
-    QueryBuilder queryBuilder;
-
-    if (id != null) {
-      queryBuilder = QueryBuilder.byInstanceId(id, type);
-    } else {
-      queryBuilder = QueryBuilder.byClass(type);
+  private void exportAuditLog(Class type, UUID id, String author, String changedPropertyName,
+                              HttpServletResponse response) {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(AuditLogService.NDJSON);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+    try {
+      auditLogService.exportAuditLog(type, id, author, changedPropertyName,
+          response.getWriter());
+    } catch (IOException ex) {
+      throw new IllegalStateException("Could not write the audit log", ex);
     }
-
-    int skip = Pagination.getPageNumber(page);
-    int limit = Pagination.getPageSize(page);
-
-    queryBuilder = queryBuilder.withNewObjectChanges(true).skip(skip).limit(limit);
-
-    if ( StringUtils.isNotBlank(author) ) {
-      queryBuilder = queryBuilder.byAuthor(author);
-    }
-    if ( StringUtils.isNotBlank(changedPropertyName) ) {
-      queryBuilder = queryBuilder.andProperty(changedPropertyName);
-    }
-
-    /* Depending on the business' preference, we can either use findSnapshots() or findChanges().
-       Whereas the former returns the entire state of the object as it was at each commit, the later
-       returns only the property and values which changed. */
-    //List<Change> changes = javers.findSnapshots(queryBuilder.build());
-    List<Change> changes = javers.findChanges(queryBuilder.build());
-
-    changes.sort((o1, o2) -> -1 * o1.getCommitMetadata().get().getCommitDate()
-                                  .compareTo(o2.getCommitMetadata().get().getCommitDate()));
-    return changes;
   }
 }
@@ -24,6 +24,7 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.CommodityTypeRepository;
 import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.OrderableFulfillIndex;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.CommodityTypeMessageKeys;
@@ -63,6 +64,9 @@ public class CommodityTypeController extends BaseController {
   @Autowired
   private CommodityTypeValidator validator;
 
+  @Autowired
+  private OrderableFulfillIndex orderableFulfillIndex;
+
   /**
    * Add or update a commodity type
    *
@@ -97,7 +101,10 @@ public class CommodityTypeController extends BaseController {
       commodityType.assignParent(parent);
     }
 
-    return CommodityTypeDto.newInstance(repository.save(commodityType));
+    CommodityType saved = repository.save(commodityType);
+    orderableFulfillIndex.invalidateAfterCommit();
+
+    return CommodityTypeDto.newInstance(saved);
   }
 
   /**
@@ -141,6 +148,7 @@ public class CommodityTypeController extends BaseController {
 
     // update the trade items with new classifications
     tradeItemRepository.save(tradeItems);
+    orderableFulfillIndex.invalidateAfterCommit();
   }
 
   /**
@@ -18,7 +18,6 @@ package org.openlmis.referencedata.web;
 import com.vividsolutions.jts.geom.Polygon;
 import org.openlmis.referencedata.domain.Code;
 import org.openlmis.referencedata.domain.Facility;
-import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
 import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.SupportedProgram;
@@ -28,23 +27,30 @@ import org.openlmis.referencedata.dto.BasicFacilityDto;
 import org.openlmis.referencedata.dto.FacilityDto;
 import org.openlmis.referencedata.dto.MinimalFacilityDto;
 import org.openlmis.referencedata.dto.SupportedProgramDto;
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
-import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.SupplyLineRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
+import org.openlmis.referencedata.service.ApprovedProductCatalog.Catalog;
 import org.openlmis.referencedata.service.FacilityService;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.IncrementalRightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.openlmis.referencedata.service.SupervisionGraphService;
+import org.openlmis.referencedata.service.TypeAheadService;
+import org.openlmis.referencedata.service.TypeAheadService.Target;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.SupervisoryNodeMessageKeys;
 import org.openlmis.referencedata.validate.FacilityValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -63,12 +69,15 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 @Controller
 @Transactional
 @SuppressWarnings({"PMD.TooManyMethods"})
@@ -81,9 +90,6 @@ public class FacilityController extends BaseController {
   @Autowired
   private FacilityRepository facilityRepository;
 
-  @Autowired
-  private FacilityTypeApprovedProductRepository facilityTypeApprovedProductRepository;
-
   @Autowired
   private ProgramRepository programRepository;
 
@@ -96,11 +102,23 @@ public class FacilityController extends BaseController {
   @Autowired
   private FacilityService facilityService;
 
+  @Autowired
+  private TypeAheadService typeAheadService;
+
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
   @Autowired
   private FacilityValidator facilityValidator;
 
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private IncrementalRightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  @Autowired
+  private SupervisionGraphService supervisionGraphService;
 
   /**
    * Allows creating new facilities. If the id is specified, it will be ignored.
@@ -114,7 +132,6 @@ public class FacilityController extends BaseController {
   public FacilityDto createFacility(@RequestBody FacilityDto facilityDto,
                                     BindingResult bindingResult) {
     Profiler profiler = new Profiler("CREATE_FACILITY");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
 
@@ -136,7 +153,7 @@ public class FacilityController extends BaseController {
 
     FacilityDto dto = toDto(newFacility, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -155,7 +172,6 @@ public class FacilityController extends BaseController {
       @RequestParam(required = false) Boolean active,
       Pageable pageable) {
     Profiler profiler = new Profiler("GET_MINIMAL_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     Page<Facility> facilities;
 
@@ -169,10 +185,32 @@ public class FacilityController extends BaseController {
 
     Page<MinimalFacilityDto> minimalFacilities = toMinimalDto(facilities, profiler, pageable);
 
-    profiler.stop().log();
+    profiler.stop();
     return minimalFacilities;
   }
 
+  /**
+   * Finds facilities whose code or name contains the given term, for type-ahead fields.
+   *
+   * @param query Part of the code or name of wanted facilities.
+   * @param limit Maximum number of returned facilities.
+   * @return Best matching facilities with id, code and name.
+   */
+  @RequestMapping(value = RESOURCE_PATH + "/typeAhead", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<TypeAheadResultDto> typeAheadFacilities(
+      @RequestParam String query,
+      @RequestParam(required = false) Integer limit) {
+    Profiler profiler = new Profiler("TYPE_AHEAD_FACILITIES");
+
+    profiler.start("SEARCH");
+    List<TypeAheadResultDto> results = typeAheadService.search(Target.FACILITIES, query, limit);
+
+    profiler.stop();
+    return results;
+  }
+
 
   /**
    * Get the audit information related to facilities.
@@ -196,7 +234,6 @@ public class FacilityController extends BaseController {
                         boolean returnJson,
           Pageable page) {
     Profiler profiler = new Profiler("GET_AUDIT_LOG");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
 
@@ -208,7 +245,7 @@ public class FacilityController extends BaseController {
         Facility.class, id, author, changedPropertyName, page, returnJson
     );
 
-    profiler.stop().log();
+    profiler.stop();
     return response;
   }
 
@@ -229,7 +266,6 @@ public class FacilityController extends BaseController {
       BindingResult bindingResult) {
 
     Profiler profiler = new Profiler("UPDATE_FACILITY");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
 
@@ -248,12 +284,14 @@ public class FacilityController extends BaseController {
     facilityToSave = facilityRepository.saveAndFlush(facilityToSave);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentRegenerationScheduler.scheduleRegeneration(
+        rightAssignmentService.getUsersAffectedByFacility(facilityToSave.getId()));
+    supervisionGraphService.invalidateAfterCommit();
 
     LOGGER.info("Saved facility with id: {}", facilityToSave.getId());
     FacilityDto dto = toDto(facilityToSave, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -268,12 +306,11 @@ public class FacilityController extends BaseController {
   @ResponseBody
   public FacilityDto getFacility(@PathVariable("id") UUID facilityId) {
     Profiler profiler = new Profiler("GET_FACILITY");
-    profiler.setLogger(LOGGER);
 
     Facility facility = findFacility(facilityId, profiler);
     FacilityDto dto = toDto(facility, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -284,37 +321,46 @@ public class FacilityController extends BaseController {
    * @param programId  ID of the program
    * @param fullSupply true to retrieve full-supply products, false to retrieve non-full supply
    *                   products
-   * @return collection of approved products
+   * @return collection of approved products, or nothing if they did not change since the ETag
+   *         the client already has
    */
   @RequestMapping(value = RESOURCE_PATH + "/{id}/approvedProducts")
-  @ResponseStatus(HttpStatus.OK)
-  @ResponseBody
-  public Page<ApprovedProductDto> getApprovedProducts(
+  public ResponseEntity<Page<ApprovedProductDto>> getApprovedProducts(
       @PathVariable("id") UUID facilityId,
       @RequestParam(required = false, value = "programId") UUID programId,
       @RequestParam(required = false, value = "fullSupply") Boolean fullSupply,
       @RequestParam(required = false, value = "orderableId") List<UUID> orderablesId,
-      @PageableDefault(size = Integer.MAX_VALUE) Pageable pageable) {
+      @PageableDefault(size = Integer.MAX_VALUE) Pageable pageable,
+      WebRequest request) {
 
     Profiler profiler = new Profiler("GET_FACILITY_APPROVED_PRODUCTS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("FIND_FACILITY");
     Facility facility = facilityRepository.findOne(facilityId);
 
     if (facility == null) {
-      profiler.stop().log();
+      profiler.stop();
       throw new ValidationMessageException(FacilityMessageKeys.ERROR_NOT_FOUND);
     }
 
-    profiler.start("FIND_APPROVED_PRODUCTS");
-    Page<FacilityTypeApprovedProduct> products = facilityTypeApprovedProductRepository
-        .searchProducts(facility.getType().getId(), programId, fullSupply, orderablesId, pageable);
+    profiler.start("GET_APPROVED_PRODUCT_CATALOG");
+    Catalog catalog = approvedProductCatalog.get(facility.getType().getId());
 
-    Page<ApprovedProductDto> list = toDto(products, pageable, profiler);
+    if (request.checkNotModified(catalog.getEtag())) {
+      profiler.stop();
+      return null;
+    }
+
+    profiler.start("FILTER_APPROVED_PRODUCTS");
+    List<ApprovedProductDto> products = catalog.getProducts(programId, fullSupply, orderablesId);
 
-    profiler.stop().log();
-    return list;
+    Page<ApprovedProductDto> page = toPage(products, pageable, profiler);
+
+    profiler.stop();
+    return ResponseEntity
+        .ok()
+        .eTag(catalog.getEtag())
+        .body(page);
   }
 
   /**
@@ -330,7 +376,6 @@ public class FacilityController extends BaseController {
   public Page<FacilityDto> findFacilitiesByBoundary(@RequestBody Polygon boundary, 
       Pageable pageable) {
     Profiler profiler = new Profiler("GET_FACILITIES_BY_BOUNDARY");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
 
@@ -340,7 +385,7 @@ public class FacilityController extends BaseController {
     List<FacilityDto> facilityDtos = toDto(foundFacilities, profiler);
     Page<FacilityDto> page = toPage(facilityDtos, pageable, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return page;
   }
 
@@ -353,7 +398,6 @@ public class FacilityController extends BaseController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteFacility(@PathVariable("id") UUID facilityId) {
     Profiler profiler = new Profiler("DELETE_FACILITY");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(RightName.FACILITIES_MANAGE_RIGHT, profiler);
 
@@ -361,6 +405,7 @@ public class FacilityController extends BaseController {
 
     profiler.start("DELETE_FACILITY");
     facilityRepository.delete(facility);
+    supervisionGraphService.invalidateAfterCommit();
   }
 
   /**
@@ -377,18 +422,17 @@ public class FacilityController extends BaseController {
       @RequestParam(value = "programId") UUID programId,
       @RequestParam(value = "supervisoryNodeId") UUID supervisoryNodeId) {
     Profiler profiler = new Profiler("GET_SUPPLYING_DEPOTS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("EXISTS_PROGRAM");
     if (!programRepository.exists(programId)) {
-      profiler.stop().log();
+      profiler.stop();
       throw new ValidationMessageException(
           new Message(ProgramMessageKeys.ERROR_NOT_FOUND_WITH_ID, programId));
     }
 
     profiler.start("EXISTS_SUPERVISORY_NODE");
     if (!supervisoryNodeRepository.exists(supervisoryNodeId)) {
-      profiler.stop().log();
+      profiler.stop();
       throw new ValidationMessageException(
           new Message(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND_WITH_ID, supervisoryNodeId));
     }
@@ -399,7 +443,7 @@ public class FacilityController extends BaseController {
 
     List<FacilityDto> dto = toDto(facilities, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -416,14 +460,13 @@ public class FacilityController extends BaseController {
   public List<FacilityDto> getFacilities(
       @RequestParam MultiValueMap<String, Object> requestParams) {
     Profiler profiler = new Profiler("GET_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("FIND_FACILITIES");
     List<Facility> facilities = facilityService.getFacilities(requestParams);
 
     List<FacilityDto> dto = toDto(facilities, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -432,24 +475,32 @@ public class FacilityController extends BaseController {
    * name parameter.
    *
    * @param queryParams request parameters (code, name, zone, recurse) and JSON extraData.
-   * @param pageable object used to encapsulate the pagination related values: page and size.
+   * @param pageable object used to encapsulate the pagination related values: page, size and
+   *                 sort. Facilities are sorted by name and id unless sorted otherwise.
+   * @param after cursor of the page to get, which switches to keyset pagination. Pages are
+   *              sorted by id, and the cursor of the next one is sent back in the X-Next-Cursor
+   *              header. An empty cursor gets the first page.
    * @return List of wanted Facilities matching query parameters.
    */
   @RequestMapping(value = RESOURCE_PATH + "/search", method = RequestMethod.POST)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<BasicFacilityDto> searchFacilities(@RequestBody Map<String, Object> queryParams,
-                                                 Pageable pageable) {
+      Pageable pageable,
+      @RequestParam(value = KeysetPageRequest.AFTER_PARAM, required = false) String after,
+      HttpServletResponse response) {
     Profiler profiler = new Profiler("SEARCH_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("SERVICE_SEARCH");
-    List<Facility> foundFacilities = facilityService.searchFacilities(queryParams);
+    Pageable wantedPage = KeysetPageRequest.of(pageable, after);
+    Page<Facility> foundFacilities = facilityService.searchFacilities(queryParams, wantedPage);
+    addNextCursor(response, wantedPage, foundFacilities);
 
-    List<BasicFacilityDto> facilityDtos = toBasicDto(foundFacilities, profiler);
-    Page<BasicFacilityDto> page = toPage(facilityDtos, pageable, profiler);
+    List<BasicFacilityDto> facilityDtos = toBasicDto(foundFacilities.getContent(), profiler);
+    Page<BasicFacilityDto> page = toPage(facilityDtos, wantedPage,
+        foundFacilities.getTotalElements(), profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return page;
   }
 
@@ -458,7 +509,7 @@ public class FacilityController extends BaseController {
     Facility facility = facilityRepository.findOne(id);
 
     if (facility == null) {
-      profiler.stop().log();
+      profiler.stop();
       throw new NotFoundException(FacilityMessageKeys.ERROR_NOT_FOUND);
     }
 
@@ -478,24 +529,6 @@ public class FacilityController extends BaseController {
         .collect(Collectors.toList());
   }
 
-  private Page<ApprovedProductDto> toDto(Page<FacilityTypeApprovedProduct> products,
-                                         Pageable pageable, Profiler profiler) {
-    profiler.start("EXPORT_PRODUCTS_TO_DTO");
-
-    List<ApprovedProductDto> productDtos = products.getContent()
-        .stream()
-        .map(this::toDto)
-        .collect(Collectors.toList());
-
-    return toPage(productDtos, pageable, products.getTotalElements(), profiler);
-  }
-
-  private ApprovedProductDto toDto(FacilityTypeApprovedProduct product) {
-    ApprovedProductDto productDto = new ApprovedProductDto();
-    product.export(productDto);
-    return productDto;
-  }
-
   private Page<MinimalFacilityDto> toMinimalDto(Page<Facility> facilities, Profiler profiler,
                                                 Pageable pageable) {
     profiler.start("EXPORT_FACILITIES_TO_MINIMAL_DTO");
@@ -505,7 +538,7 @@ public class FacilityController extends BaseController {
         .map(MinimalFacilityDto::newInstance)
         .collect(Collectors.toList());
 
-    return toPage(minimalFacilityDtos, pageable, profiler);
+    return toPage(minimalFacilityDtos, pageable, facilities.getTotalElements(), profiler);
   }
 
   private List<BasicFacilityDto> toBasicDto(List<Facility> facilities, Profiler profiler) {
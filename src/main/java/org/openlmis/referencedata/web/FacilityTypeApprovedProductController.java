@@ -23,7 +23,9 @@ import org.openlmis.referencedata.dto.ApprovedProductDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
 import org.openlmis.referencedata.service.FacilityTypeApprovedProductService;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.OrderableBuilder;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeApprovedProductMessageKeys;
@@ -51,6 +53,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
 
+import javax.servlet.http.HttpServletResponse;
+
 @Controller
 @Transactional
 public class FacilityTypeApprovedProductController extends BaseController {
@@ -67,6 +71,9 @@ public class FacilityTypeApprovedProductController extends BaseController {
   @Autowired
   private OrderableBuilder orderableBuilder;
 
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
   /**
    * Allows creating new facilityTypeApprovedProduct.
    *
@@ -92,6 +99,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
     // Ignore provided id
     facilityTypeApprovedProduct.setId(null);
     FacilityTypeApprovedProduct save = repository.save(facilityTypeApprovedProduct);
+    approvedProductCatalog.invalidateAfterCommit();
     return toDto(save);
   }
 
@@ -121,6 +129,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
     facilityTypeApprovedProduct.setOrderable(orderable);
 
     FacilityTypeApprovedProduct save = repository.save(facilityTypeApprovedProduct);
+    approvedProductCatalog.invalidateAfterCommit();
     return toDto(save);
   }
 
@@ -151,16 +160,23 @@ public class FacilityTypeApprovedProductController extends BaseController {
    * @param queryParams a map containing search parameters. Supported keys are:
    *                    * facilityType [required]
    *                    * program
+   *                    * after - cursor of the page to get, which switches to keyset pagination.
+   *                      Pages are sorted by id, and the cursor of the next one is sent back in
+   *                      the X-Next-Cursor header. An empty cursor gets the first page.
    * @return a list of approved products matching the criteria
    */
   @RequestMapping(value = "/facilityTypeApprovedProducts", method = RequestMethod.GET)
   @ResponseBody
   public Page<ApprovedProductDto> searchFacilityTypeApprovedProducts(
-        @RequestParam Map<String, String> queryParams, Pageable pageable) {
+        @RequestParam Map<String, String> queryParams, Pageable pageable,
+        HttpServletResponse response) {
 
+    Pageable page = KeysetPageRequest.of(pageable,
+        queryParams.get(KeysetPageRequest.AFTER_PARAM));
     Page<FacilityTypeApprovedProduct> ftaps =
-        approvedProductService.search(queryParams, pageable);
-    return Pagination.getPage(toDto(ftaps.getContent()), pageable, ftaps.getTotalElements());
+        approvedProductService.search(queryParams, page);
+    addNextCursor(response, page, ftaps);
+    return Pagination.getPage(toDto(ftaps.getContent()), page, ftaps.getTotalElements());
   }
 
   /**
@@ -180,6 +196,7 @@ public class FacilityTypeApprovedProductController extends BaseController {
       throw new NotFoundException(FacilityTypeApprovedProductMessageKeys.ERROR_NOT_FOUND);
     } else {
       repository.delete(facilityTypeApprovedProduct);
+      approvedProductCatalog.invalidateAfterCommit();
     }
   }
 
@@ -22,6 +22,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.exception.IntegrityViolationException;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.FacilityTypeRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
 import org.openlmis.referencedata.service.FacilityTypeService;
 import org.openlmis.referencedata.util.messagekeys.FacilityTypeMessageKeys;
 import org.slf4j.Logger;
@@ -61,6 +62,9 @@ public class FacilityTypeController extends BaseController {
   @Autowired
   private FacilityTypeService facilityTypeService;
 
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
   /**
    * Allows creating new facilityType. If the id is specified, it will be ignored.
    *
@@ -117,6 +121,7 @@ public class FacilityTypeController extends BaseController {
 
       facilityTypeToUpdate.updateFrom(facilityType);
       facilityTypeRepository.save(facilityTypeToUpdate);
+      approvedProductCatalog.invalidateAfterCommit();
 
       LOGGER.debug("Updating facility type with id: %s", facilityTypeToUpdate.getId());
       return facilityTypeToUpdate;
@@ -159,6 +164,7 @@ public class FacilityTypeController extends BaseController {
     } else {
       try {
         facilityTypeRepository.delete(facilityType);
+        approvedProductCatalog.invalidateAfterCommit();
       } catch (DataIntegrityViolationException ex) {
         throw new IntegrityViolationException(FacilityTypeMessageKeys.ERROR_DELETING_WITH_ID, ex);
       }
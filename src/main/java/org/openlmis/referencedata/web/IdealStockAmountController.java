@@ -30,6 +30,7 @@ import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.util.IdealStockAmountDtoBuilder;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.MessageKeys;
 import org.openlmis.referencedata.validate.CsvHeaderValidator;
 import org.openlmis.referencedata.web.csv.format.CsvFormatter;
@@ -37,9 +38,6 @@ import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.parser.CsvParser;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountProcessor;
 import org.openlmis.referencedata.web.csv.recordhandler.IdealStockAmountWriter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -64,8 +62,6 @@ import javax.servlet.http.HttpServletResponse;
 @Transactional
 public class IdealStockAmountController extends BaseController {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(IdealStockAmountController.class);
-
   public static final String RESOURCE_PATH = "/idealStockAmounts";
   private static final String DISPOSITION_BASE = "attachment; filename=";
   private static final String FORMAT = "format";
@@ -110,7 +106,6 @@ public class IdealStockAmountController extends BaseController {
   public Page<IdealStockAmountDto> getIsas(IdealStockAmountSearchParams requestParams,
                                            Pageable pageable) {
     Profiler profiler = new Profiler("GET_ISAS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("SEARCH_ISAS");
     Page<IdealStockAmount> search = service.search(requestParams, pageable);
@@ -118,7 +113,7 @@ public class IdealStockAmountController extends BaseController {
     profiler.start("EXPORT_TO_DTOS");
     List<IdealStockAmountDto> userDtos = toDto(search.getContent());
 
-    profiler.stop().log();
+    profiler.stop();
     return Pagination.getPage(userDtos, pageable, search.getTotalElements());
   }
 
@@ -132,7 +127,6 @@ public class IdealStockAmountController extends BaseController {
                        HttpServletResponse response) throws IOException {
 
     Profiler profiler = new Profiler("DOWNLOAD_IDEAL_STOCK_AMOUNTS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_FORMAT");
     if (!CSV.equals(format)) {
@@ -158,7 +152,7 @@ public class IdealStockAmountController extends BaseController {
     } catch (IOException ex) {
       throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
     } finally {
-      profiler.stop().log();
+      profiler.stop();
     }
   }
 
@@ -174,7 +168,6 @@ public class IdealStockAmountController extends BaseController {
   public UploadResultDto upload(@RequestParam(FORMAT) String format,
                                 @RequestPart("file") MultipartFile file) {
     Profiler profiler = new Profiler("UPLOAD_IDEAL_STOCK_AMOUNTS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.SYSTEM_IDEAL_STOCK_AMOUNTS_MANAGE);
@@ -190,15 +183,17 @@ public class IdealStockAmountController extends BaseController {
 
     profiler.start("PARSE_FILE");
     try {
+      long start = System.currentTimeMillis();
       int result = csvParser.parse(file.getInputStream(), modelClass, csvHeaderValidator,
-          idealStockAmountProcessor, idealStockAmountWriter);
+          idealStockAmountProcessor.newUploadProcessor(),
+          idealStockAmountWriter.newUploadWriter());
       profiler.start("UPLOAD_RESULT_DTO");
-      UploadResultDto dto = new UploadResultDto(result);
+      UploadResultDto dto = new UploadResultDto(result, System.currentTimeMillis() - start);
       return dto;
     } catch (IOException ex) {
       throw new ValidationMessageException(ex, MessageKeys.ERROR_IO, ex.getMessage());
     } finally {
-      profiler.stop().log();
+      profiler.stop();
     }
   }
 
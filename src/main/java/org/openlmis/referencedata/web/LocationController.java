@@ -15,25 +15,50 @@
 
 package org.openlmis.referencedata.web;
 
-import static org.openlmis.referencedata.util.Pagination.handlePage;
-
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.common.collect.Iterables;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.domain.GeographicZone;
+import org.openlmis.referencedata.domain.Identifiable;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.service.RecentChangesService;
 import org.openlmis.referencedata.web.fhir.Location;
 import org.openlmis.referencedata.web.fhir.LocationFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.servlet.http.HttpServletResponse;
 
 @RestController
 public class LocationController extends BaseController {
 
   public static final String RESOURCE_PATH = "/Location";
 
+  static final int PAGE_SIZE = 2000;
+
   @Autowired
   private GeographicZoneRepository geographicZoneRepository;
 
@@ -43,24 +68,126 @@ public class LocationController extends BaseController {
   @Autowired
   private LocationFactory locationFactory;
 
+  @Autowired
+  private RecentChangesService recentChangesService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
   /**
-   * Gets FHIR location.
+   * Gets FHIR locations: geographic zones first, then facilities. Both are read page by page and
+   * every location is written to the response as soon as it is created, so only a single page is
+   * held in memory at a time.
+   *
+   * @param count maximum number of returned locations; all of them are returned if not set
+   * @param since if set, only locations created, changed or removed at or after this time are
+   *              returned. Removed locations only have an id, a physical type and the inactive
+   *              status.
    */
   @GetMapping(RESOURCE_PATH)
-  @ResponseStatus(HttpStatus.OK)
-  public List<Location> getLocations() {
-    List<Location> list = new ArrayList<>();
-
-    handlePage(
-        geographicZoneRepository::findAll,
-        zone -> list.add(locationFactory.createFor(zone))
-    );
-    handlePage(
-        facilityRepository::findAll,
-        facility -> list.add(locationFactory.createFor(facility))
-    );
-
-    return list;
+  public void getLocations(
+      @RequestParam(name = "_count", required = false) Integer count,
+      @RequestParam(name = "_since", required = false)
+      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime since,
+      HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+
+    try (JsonGenerator generator = objectMapper.getFactory()
+        .createGenerator(response.getOutputStream())) {
+      LocationWriter writer = new LocationWriter(generator, count);
+
+      generator.writeStartArray();
+      writeLocations(geographicZoneRepository, GeographicZone.class, since,
+          locationFactory::createFor, locationFactory::createForRemovedZone, writer);
+      writeLocations(facilityRepository, Facility.class, since,
+          locationFactory::createFor, locationFactory::createForRemovedFacility, writer);
+      generator.writeEndArray();
+    }
+  }
+
+  private <T extends Identifiable> void writeLocations(
+      PagingAndSortingRepository<T, UUID> repository, Class<T> type, ZonedDateTime since,
+      Function<T, Location> toLocation, Function<UUID, Location> toRemovedLocation,
+      LocationWriter writer) throws IOException {
+    if (null != since) {
+      Set<UUID> changedIds = recentChangesService.findChangedIds(type, since);
+
+      for (List<UUID> ids : Iterables.partition(changedIds, writer.getPageSize())) {
+        if (writer.isFull()) {
+          return;
+        }
+        Iterable<T> found = repository.findAll(ids);
+        // changed ids include the ones of removed locations, which clients have to learn about
+        Set<UUID> removedIds = new LinkedHashSet<>(ids);
+        if (null != found) {
+          found.forEach(item -> removedIds.remove(item.getId()));
+        }
+
+        writer.write(found, toLocation);
+        writer.write(removedIds, toRemovedLocation);
+      }
+      return;
+    }
+
+    Pageable pageable = new PageRequest(0, writer.getPageSize(), Sort.Direction.ASC, "id");
+    while (!writer.isFull()) {
+      Page<T> page = repository.findAll(pageable);
+      if (null == page) {
+        return;
+      }
+
+      writer.write(page, toLocation);
+
+      if (!page.hasNext()) {
+        return;
+      }
+      pageable = pageable.next();
+    }
+  }
+
+  private final class LocationWriter {
+    private final JsonGenerator generator;
+    private final ObjectWriter objectWriter;
+    private final Integer limit;
+    private int written;
+
+    LocationWriter(JsonGenerator generator, Integer limit) {
+      this.generator = generator;
+      this.objectWriter = objectMapper.writer()
+          .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+      this.limit = limit;
+    }
+
+    int getPageSize() {
+      return null == limit ? PAGE_SIZE : Math.max(1, Math.min(PAGE_SIZE, limit));
+    }
+
+    boolean isFull() {
+      return null != limit && written >= limit;
+    }
+
+    <T> void write(Iterable<T> page, Function<T, Location> toLocation) throws IOException {
+      if (null == page) {
+        return;
+      }
+
+      for (T item : page) {
+        if (isFull()) {
+          break;
+        }
+        objectWriter.writeValue(generator, toLocation.apply(item));
+        written++;
+      }
+
+      generator.flush();
+      // entities of written pages are not needed anymore, so they must not pile up in the
+      // persistence context for the rest of the request
+      entityManager.clear();
+    }
   }
 
 }
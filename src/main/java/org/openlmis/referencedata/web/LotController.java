@@ -27,11 +27,11 @@ import org.openlmis.referencedata.service.LotSearchParams;
 import org.openlmis.referencedata.service.LotService;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.LotMessageKeys;
 import org.openlmis.referencedata.validate.LotValidator;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -157,7 +157,6 @@ public class LotController extends BaseController {
   public Page<LotDto> getLots(LotSearchParams requestParams, Pageable pageable) {
     XLOGGER.entry(requestParams, pageable);
     Profiler profiler = new Profiler("LOTS_SEARCH");
-    profiler.setLogger(XLOGGER);
 
     profiler.start("LOT_SERVICE_SEARCH");
     Page<Lot> lotsPage = lotService.search(requestParams, pageable);
@@ -169,7 +168,7 @@ public class LotController extends BaseController {
         pageable,
         lotsPage.getTotalElements());
 
-    profiler.stop().log();
+    profiler.stop();
     XLOGGER.exit(page);
     return page;
   }
@@ -18,20 +18,28 @@ package org.openlmis.referencedata.web;
 import static org.openlmis.referencedata.domain.RightName.ORDERABLES_MANAGE;
 
 import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.dto.MinimalOrderableDto;
 import org.openlmis.referencedata.dto.OrderableDto;
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.OrderableRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
+import org.openlmis.referencedata.service.OrderableFulfillIndex;
 import org.openlmis.referencedata.service.OrderableService;
+import org.openlmis.referencedata.service.TypeAheadService;
+import org.openlmis.referencedata.service.TypeAheadService.Target;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.OrderableBuilder;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.OrderableMessageKeys;
 import org.openlmis.referencedata.validate.OrderableValidator;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
@@ -48,15 +56,19 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import javax.servlet.http.HttpServletResponse;
+
 @RestController
 public class OrderableController extends BaseController {
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(OrderableController.class);
 
+  private static final String PRODUCT_CODE = "productCode";
+  private static final String ID = "id";
+
   @Autowired
   private OrderableRepository repository;
 
@@ -69,6 +81,15 @@ public class OrderableController extends BaseController {
   @Autowired
   private OrderableValidator validator;
 
+  @Autowired
+  private TypeAheadService typeAheadService;
+
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
+  @Autowired
+  private OrderableFulfillIndex orderableFulfillIndex;
+
   /**
    * Create an orderable.
    *
@@ -85,23 +106,53 @@ public class OrderableController extends BaseController {
 
     Orderable orderable = orderableBuilder.newOrderable(orderableDto);
 
-    return OrderableDto.newInstance(repository.save(orderable));
+    Orderable saved = repository.save(orderable);
+    approvedProductCatalog.invalidateAfterCommit();
+    orderableFulfillIndex.invalidateAfterCommit();
+
+    return OrderableDto.newInstance(saved);
   }
 
   /**
-   * Finds all orderables.
+   * Finds all orderables. Only the requested page is loaded from the database. Unless requested
+   * otherwise, orderables are sorted by product code and ID, so pages don't overlap.
    *
-   * @return a list of orderables
+   * @return a page of orderables
    */
   @GetMapping("/orderables")
-  public Page<OrderableDto> findAll(Pageable pageable) {
+  public Page<OrderableDto> findAll(
+      @SortDefault(sort = {PRODUCT_CODE, ID}) Pageable pageable) {
+    Page<Orderable> orderables = repository.findAll(pageable);
 
-    List<Orderable> allOrderables = new ArrayList<>();
-    for (Orderable product : repository.findAll()) {
-      allOrderables.add(product);
-    }
+    return Pagination.getPage(OrderableDto.newInstance(orderables.getContent()), pageable,
+        orderables.getTotalElements());
+  }
+
+  /**
+   * Finds all orderables with minimal representation (id, product code, full product name). The
+   * fields are selected straight from the orderables table, without loading the orderables.
+   * Like for all orderables, they are sorted by product code and ID by default.
+   *
+   * @return a page of minimal orderables
+   */
+  @GetMapping("/orderables/minimal")
+  public Page<MinimalOrderableDto> findAllMinimal(
+      @SortDefault(sort = {PRODUCT_CODE, ID}) Pageable pageable) {
+    return repository.findAllMinimal(pageable);
+  }
 
-    return Pagination.getPage(OrderableDto.newInstance(allOrderables), pageable);
+  /**
+   * Finds orderables whose product code or full product name contains the given term, for
+   * type-ahead fields.
+   *
+   * @param query part of the code or name of wanted orderables
+   * @param limit maximum number of returned orderables
+   * @return best matching orderables with id, code and name
+   */
+  @GetMapping("/orderables/typeAhead")
+  public List<TypeAheadResultDto> typeAhead(@RequestParam String query,
+                                            @RequestParam(required = false) Integer limit) {
+    return typeAheadService.search(Target.ORDERABLES, query, limit);
   }
 
   /**
@@ -161,26 +212,33 @@ public class OrderableController extends BaseController {
    *
    * @param queryParams request parameters (code, name, program, ids).
    * @param pageable object used to encapsulate the pagination related values: page and size.
+   * @param after cursor of the page to get, which switches to keyset pagination. Pages are
+   *              sorted by id, and the cursor of the next one is sent back in the X-Next-Cursor
+   *              header. An empty cursor gets the first page.
    * @return a page of orderables
    */
   @PostMapping("/orderables/search")
   public Page<OrderableDto> search(@RequestBody Map<String, Object> queryParams,
-                                   Pageable pageable) {
-    XLOGGER.entry(queryParams, pageable);
+                                   Pageable pageable,
+                                   @RequestParam(value = KeysetPageRequest.AFTER_PARAM,
+                                       required = false) String after,
+                                   HttpServletResponse response) {
+    XLOGGER.entry(queryParams, pageable, after);
     Profiler profiler = new Profiler("ORDERABLES_SEARCH");
-    profiler.setLogger(XLOGGER);
 
     profiler.start("ORDERABLE_SERVICE_SEARCH");
-    Page<Orderable> orderablesPage = orderableService.searchOrderables(queryParams, pageable);
+    Pageable wantedPage = KeysetPageRequest.of(pageable, after);
+    Page<Orderable> orderablesPage = orderableService.searchOrderables(queryParams, wantedPage);
 
     profiler.start("ORDERABLE_PAGINATION");
     assert orderablesPage != null;
+    addNextCursor(response, wantedPage, orderablesPage);
     Page<OrderableDto> page = Pagination.getPage(OrderableDto.newInstance(
         orderablesPage.getContent()),
-        pageable,
+        wantedPage,
         orderablesPage.getTotalElements());
 
-    profiler.stop().log();
+    profiler.stop();
     XLOGGER.exit(page);
     return page;
   }
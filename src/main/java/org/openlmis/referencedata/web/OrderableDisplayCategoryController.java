@@ -25,6 +25,7 @@ import org.openlmis.referencedata.exception.IntegrityViolationException;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.OrderableDisplayCategoryRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.OrderableDisplayCategoryMessageKeys;
 import org.slf4j.Logger;
@@ -57,6 +58,9 @@ public class OrderableDisplayCategoryController extends BaseController {
   @Autowired
   private OrderableDisplayCategoryRepository orderableDisplayCategoryRepository;
 
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
   /**
    * Get all OrderableDisplayCategories.
    *
@@ -125,6 +129,7 @@ public class OrderableDisplayCategoryController extends BaseController {
         OrderableDisplayCategory.newInstance(orderableDisplayCategoryDto);
     orderableDisplayCategoryToUpdate.updateFrom(orderableDisplayCategory);
     orderableDisplayCategoryRepository.save(orderableDisplayCategoryToUpdate);
+    approvedProductCatalog.invalidateAfterCommit();
 
     LOGGER.debug("Updated orderableDisplayCategory with id: %s", orderableDisplayCategoryId);
     return newInstance(orderableDisplayCategoryToUpdate);
@@ -169,6 +174,7 @@ public class OrderableDisplayCategoryController extends BaseController {
     } else {
       try {
         orderableDisplayCategoryRepository.delete(orderableDisplayCategory);
+        approvedProductCatalog.invalidateAfterCommit();
       } catch (DataIntegrityViolationException ex) {
         throw new IntegrityViolationException(new Message(
             OrderableDisplayCategoryMessageKeys.ERROR_DELETING_WITH_ID,
@@ -16,37 +16,19 @@
 package org.openlmis.referencedata.web;
 
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
-import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
-import static org.openlmis.referencedata.util.Pagination.handlePage;
 
-import com.google.common.collect.Lists;
-
-import org.openlmis.referencedata.domain.BaseEntity;
-import org.openlmis.referencedata.domain.CommodityType;
-import org.openlmis.referencedata.domain.Dispensable;
 import org.openlmis.referencedata.domain.Orderable;
-import org.openlmis.referencedata.domain.TradeItem;
-import org.openlmis.referencedata.repository.CommodityTypeRepository;
-import org.openlmis.referencedata.repository.OrderableRepository;
-import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.OrderableFulfillIndex;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
 import java.util.UUID;
 
 @Component
 public class OrderableFulfillFactory {
 
   @Autowired
-  private TradeItemRepository tradeItemRepository;
-
-  @Autowired
-  private CommodityTypeRepository commodityTypeRepository;
-
-  @Autowired
-  private OrderableRepository orderableRepository;
+  private OrderableFulfillIndex orderableFulfillIndex;
 
   /**
    * Create new instance of {@link OrderableFulfill} for the given orderable.
@@ -68,51 +50,13 @@ public class OrderableFulfillFactory {
   }
 
   private OrderableFulfill createForTradeItem(String id, Orderable tradeItemOrderable) {
-    TradeItem tradeItem = tradeItemRepository.findOne(UUID.fromString(id));
-
-    List<UUID> canBeFulfilledByMe = Lists.newArrayList();
-    handlePage(
-        commodityTypeRepository::findAll,
-        commodityType -> {
-          if (tradeItem.canFulfill(commodityType)) {
-            addToListIfDispensableMatches(canBeFulfilledByMe, COMMODITY_TYPE, commodityType,
-                tradeItemOrderable.getDispensable());
-          }
-        }
-    );
-
-    return OrderableFulfill.ofTradeItem(canBeFulfilledByMe);
+    return OrderableFulfill.ofTradeItem(orderableFulfillIndex
+        .findCommodityTypeOrderables(UUID.fromString(id), tradeItemOrderable.getDispensable()));
   }
 
   private OrderableFulfill createForCommodityType(String id, Orderable commodityTypeOrderable) {
-    CommodityType commodityType = commodityTypeRepository.findOne(UUID.fromString(id));
-
-    List<UUID> canFulfillForMe = Lists.newArrayList();
-    handlePage(
-        tradeItemRepository::findAll,
-        tradeItem -> {
-          if (tradeItem.canFulfill(commodityType)) {
-            addToListIfDispensableMatches(canFulfillForMe, TRADE_ITEM, tradeItem,
-                commodityTypeOrderable.getDispensable());
-          }
-        }
-    );
-
-    return OrderableFulfill.ofCommodityType(canFulfillForMe);
-  }
-
-  private void addToListIfDispensableMatches(List<UUID> list, String key, BaseEntity entity,
-                                             Dispensable dispensableToMatch) {
-    List<Orderable> orderables = orderableRepository
-        .findAllByIdentifier(key, entity.getId().toString());
-
-    orderables.forEach(
-        item -> {
-          if (item.hasDispensable(dispensableToMatch)) {
-            list.add(item.getId());
-          }
-        }
-    );
+    return OrderableFulfill.ofCommodityType(orderableFulfillIndex
+        .findTradeItemOrderables(UUID.fromString(id), commodityTypeOrderable.getDispensable()));
   }
 
 }
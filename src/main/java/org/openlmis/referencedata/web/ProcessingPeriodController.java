@@ -24,14 +24,15 @@ import org.openlmis.referencedata.dto.ResultDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
+import org.openlmis.referencedata.service.ProcessingPeriodIndex;
 import org.openlmis.referencedata.service.ProcessingPeriodSearchParams;
 import org.openlmis.referencedata.service.ProcessingPeriodService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.ProcessingPeriodMessageKeys;
 import org.openlmis.referencedata.validate.ProcessingPeriodValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
@@ -71,6 +72,9 @@ public class ProcessingPeriodController extends BaseController {
   @Autowired
   private ProcessingPeriodService periodService;
 
+  @Autowired
+  private ProcessingPeriodIndex periodIndex;
+
   /**
    * Create a new processing period using the provided processing period DTO.
    *
@@ -89,6 +93,7 @@ public class ProcessingPeriodController extends BaseController {
     validator.validate(newPeriod, bindingResult);
     if (bindingResult.getErrorCount() == 0) {
       periodRepository.save(newPeriod);
+      periodIndex.invalidateAfterCommit();
 
       return exportToDto(newPeriod);
     } else {
@@ -108,7 +113,6 @@ public class ProcessingPeriodController extends BaseController {
   public Page<ProcessingPeriodDto> getAllProcessingPeriods(ProcessingPeriodSearchParams params,
                                              @SortDefault(sort = "startDate") Pageable pageable) {
     Profiler profiler = new Profiler("SEARCH_PROCESSING_PERIODS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("SEARCH_FOR_PERIODS");
     Page<ProcessingPeriod> periods = periodService.searchPeriods(params, pageable);
@@ -116,7 +120,7 @@ public class ProcessingPeriodController extends BaseController {
     profiler.start("EXPORT_PERIODS_TO_DTO");
     Page<ProcessingPeriodDto> dtos = exportToDto(periods, profiler, pageable);
 
-    profiler.stop().log();
+    profiler.stop();
     return dtos;
   }
 
@@ -141,6 +145,7 @@ public class ProcessingPeriodController extends BaseController {
     validator.validate(updatedProcessingPeriod, bindingResult);
     if (bindingResult.getErrorCount() == 0) {
       periodRepository.save(updatedProcessingPeriod);
+      periodIndex.invalidateAfterCommit();
       return exportToDto(updatedProcessingPeriod);
     } else {
       ObjectError error = bindingResult.getAllErrors().get(0);
@@ -181,6 +186,7 @@ public class ProcessingPeriodController extends BaseController {
       throw new NotFoundException(ProcessingPeriodMessageKeys.ERROR_NOT_FOUND);
     } else {
       periodRepository.delete(period);
+      periodIndex.invalidateAfterCommit();
     }
   }
 
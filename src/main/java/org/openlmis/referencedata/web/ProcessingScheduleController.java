@@ -26,14 +26,15 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.service.ProcessingPeriodIndex;
 import org.openlmis.referencedata.service.RequisitionGroupProgramScheduleService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -73,6 +74,9 @@ public class ProcessingScheduleController extends BaseController {
   @Autowired
   private FacilityRepository facilityRepository;
 
+  @Autowired
+  private ProcessingPeriodIndex periodIndex;
+
   /**
    * Allows creating new ProcessingSchedules.
    *
@@ -107,6 +111,7 @@ public class ProcessingScheduleController extends BaseController {
     rightService.checkAdminRight(RightName.PROCESSING_SCHEDULES_MANAGE_RIGHT);
     LOGGER.debug("Updating processingSchedule");
     scheduleRepository.save(schedule);
+    periodIndex.invalidateAfterCommit();
     return schedule;
   }
 
@@ -120,14 +125,13 @@ public class ProcessingScheduleController extends BaseController {
   @ResponseBody
   public Page<ProcessingScheduleDto> getAll(Pageable pageable) {
     Profiler profiler = new Profiler("GET_ALL_PROCESSING_SCHEDULES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("GET_SCHEDULES");
     Page<ProcessingSchedule> processingSchedulePage = scheduleRepository.findAll(pageable);
 
     profiler.start("TO_DTO");
     Page<ProcessingScheduleDto> dtos = exportToDto(processingSchedulePage, pageable, profiler);
-    profiler.stop().log();
+    profiler.stop();
 
     return dtos;
   }
@@ -207,6 +211,7 @@ public class ProcessingScheduleController extends BaseController {
       throw new NotFoundException(ProcessingScheduleMessageKeys.ERROR_NOT_FOUND);
     } else {
       scheduleRepository.delete(schedule);
+      periodIndex.invalidateAfterCommit();
     }
   }
 
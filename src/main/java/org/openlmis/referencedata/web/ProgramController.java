@@ -25,6 +25,7 @@ import org.openlmis.referencedata.dto.ProgramDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.validate.ProgramValidator;
@@ -65,6 +66,9 @@ public class ProgramController extends BaseController {
   @Autowired
   private ProgramValidator validator;
 
+  @Autowired
+  private ApprovedProductCatalog approvedProductCatalog;
+
   /**
    * Allows creating a new programs.
    *
@@ -141,6 +145,7 @@ public class ProgramController extends BaseController {
       throw new NotFoundException(ProgramMessageKeys.ERROR_NOT_FOUND);
     } else {
       programRepository.delete(program);
+      approvedProductCatalog.invalidateAfterCommit();
     }
   }
 
@@ -182,6 +187,7 @@ public class ProgramController extends BaseController {
 
 
     programRepository.save(updatedProgram);
+    approvedProductCatalog.invalidateAfterCommit();
     return updatedProgram;
   }
 
@@ -18,28 +18,37 @@ package org.openlmis.referencedata.web;
 import static org.openlmis.referencedata.domain.RightName.REQUISITION_GROUPS_MANAGE;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import org.openlmis.referencedata.domain.RequisitionGroup;
+import org.openlmis.referencedata.dto.BasicFacilityDto;
 import org.openlmis.referencedata.dto.RequisitionGroupDto;
+import org.openlmis.referencedata.dto.RequisitionGroupSummaryDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.RequisitionGroupRepository;
+import org.openlmis.referencedata.service.IncrementalRightAssignmentService;
+import org.openlmis.referencedata.service.ProcessingPeriodIndex;
 import org.openlmis.referencedata.service.RequisitionGroupService;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.SupervisionGraphService;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.RequisitionGroupMessageKeys;
 import org.openlmis.referencedata.validate.RequisitionGroupValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -69,11 +78,23 @@ public class RequisitionGroupController extends BaseController {
   @Autowired
   private RequisitionGroupService requisitionGroupService;
 
+  @Autowired
+  private FacilityRepository facilityRepository;
+
   @Autowired
   private RightService rightService;
   
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private IncrementalRightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  @Autowired
+  private SupervisionGraphService supervisionGraphService;
+
+  @Autowired
+  private ProcessingPeriodIndex periodIndex;
 
   /**
    * Allows creating new requisition group. If the id is specified, it will be ignored.
@@ -88,7 +109,6 @@ public class RequisitionGroupController extends BaseController {
       @RequestBody RequisitionGroupDto requisitionGroupDto, BindingResult bindingResult) {
 
     Profiler profiler = new Profiler("CREATE_NEW_REQUISITION_GROUP");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(REQUISITION_GROUPS_MANAGE);
@@ -105,16 +125,19 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupRepository.saveAndFlush(requisitionGroup);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentRegenerationScheduler.scheduleRegeneration(
+          rightAssignmentService.getUsersAffectedByRequisitionGroup(requisitionGroup.getId()));
+      supervisionGraphService.invalidateAfterCommit();
+      periodIndex.invalidateAfterCommit();
 
       LOGGER.info("Created new requisitionGroup with id: {}", requisitionGroup.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
       RequisitionGroupDto dto = exportToDto(requisitionGroup);
 
-      profiler.stop().log();
+      profiler.stop();
       return dto;
     } else {
-      profiler.stop().log();
+      profiler.stop();
       throw new ValidationMessageException(bindingResult.getFieldError().getDefaultMessage());
     }
   }
@@ -137,6 +160,22 @@ public class RequisitionGroupController extends BaseController {
     return requisitionGroupDtos;
   }
 
+  /**
+   * Finds all requisition groups with summary representation (id, code, name, description,
+   * supervisory node id and number of member facilities). The fields are selected straight from
+   * the database, without loading the requisition groups and their member facilities.
+   *
+   * @param pageable object used to encapsulate the pagination related values: page, size and sort.
+   * @return a page of requisition group summaries, sorted by name unless requested otherwise
+   */
+  @RequestMapping(value = "/requisitionGroups/summaries", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Page<RequisitionGroupSummaryDto> getRequisitionGroupSummaries(
+      @SortDefault(sort = "name") Pageable pageable) {
+    return requisitionGroupRepository.findAllSummaries(pageable);
+  }
+
   /**
    * Get chosen requisition group.
    *
@@ -157,6 +196,26 @@ public class RequisitionGroupController extends BaseController {
     }
   }
 
+  /**
+   * Get member facilities of chosen requisition group, page by page.
+   *
+   * @param requisitionGroupId the UUID of requisition group whose members we want to get.
+   * @param pageable object used to encapsulate the pagination related values: page, size and sort.
+   * @return a page of member facilities, sorted by name unless requested otherwise
+   */
+  @RequestMapping(value = "/requisitionGroups/{id}/memberFacilities", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public Page<BasicFacilityDto> getMemberFacilities(@PathVariable("id") UUID requisitionGroupId,
+                                                    @SortDefault(sort = "name") Pageable pageable) {
+    if (!requisitionGroupRepository.exists(requisitionGroupId)) {
+      throw new NotFoundException(RequisitionGroupMessageKeys.ERROR_NOT_FOUND);
+    }
+
+    return facilityRepository.findByRequisitionGroupId(requisitionGroupId, pageable)
+        .map(BasicFacilityDto::newInstance);
+  }
+
   /**
    * Allows updating requisition group.
    *
@@ -173,7 +232,6 @@ public class RequisitionGroupController extends BaseController {
       BindingResult bindingResult) {
 
     Profiler profiler = new Profiler("UPDATE_REQUISITION_GROUP");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(REQUISITION_GROUPS_MANAGE);
@@ -193,6 +251,10 @@ public class RequisitionGroupController extends BaseController {
         LOGGER.info("Updating requisitionGroup with id: {}", requisitionGroupId);
       }
 
+      profiler.start("FIND_AFFECTED_USERS");
+      final Set<UUID> affectedUsers = new HashSet<>(
+          rightAssignmentService.getUsersAffectedByRequisitionGroup(requisitionGroupId));
+
       profiler.start("IMPORT_REQUISITION_GROUP_FROM_DTO");
       requisitionGroupToUpdate.updateFrom(
           RequisitionGroup.newRequisitionGroup(requisitionGroupDto));
@@ -201,16 +263,20 @@ public class RequisitionGroupController extends BaseController {
       requisitionGroupToUpdate = requisitionGroupRepository.saveAndFlush(requisitionGroupToUpdate);
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      affectedUsers.addAll(rightAssignmentService
+          .getUsersAffectedByRequisitionGroup(requisitionGroupToUpdate.getId()));
+      rightAssignmentRegenerationScheduler.scheduleRegeneration(affectedUsers);
+      supervisionGraphService.invalidateAfterCommit();
+      periodIndex.invalidateAfterCommit();
 
       LOGGER.info("Saved requisitionGroup with id: {}", requisitionGroupToUpdate.getId());
       profiler.start("EXPORT_REQUISITION_GROUP_TO_DTO");
       RequisitionGroupDto dto = exportToDto(requisitionGroupToUpdate);
 
-      profiler.stop().log();
+      profiler.stop();
       return dto;
     } else {
-      profiler.stop().log();
+      profiler.stop();
       throw new ValidationMessageException(bindingResult.getFieldError().getDefaultMessage());
     }
   }
@@ -225,7 +291,6 @@ public class RequisitionGroupController extends BaseController {
   public void deleteRequisitionGroup(@PathVariable("id") UUID requisitionGroupId) {
 
     Profiler profiler = new Profiler("DELETE_REQUISITION_GROUP");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(REQUISITION_GROUPS_MANAGE);
@@ -233,17 +298,23 @@ public class RequisitionGroupController extends BaseController {
     profiler.start("FIND_REQUISITION_GROUP");
     RequisitionGroup requisitionGroup = requisitionGroupRepository.findOne(requisitionGroupId);
     if (requisitionGroup == null) {
-      profiler.stop().log();
+      profiler.stop();
       throw new NotFoundException(RequisitionGroupMessageKeys.ERROR_NOT_FOUND);
     } else {
+      profiler.start("FIND_AFFECTED_USERS");
+      final Set<UUID> affectedUsers =
+          rightAssignmentService.getUsersAffectedByRequisitionGroup(requisitionGroupId);
+
       profiler.start("DELETE_REQUISITION_GROUP");
       requisitionGroupRepository.delete(requisitionGroup);
       requisitionGroupRepository.flush();
 
       profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-      rightAssignmentService.regenerateRightAssignments();
+      rightAssignmentRegenerationScheduler.scheduleRegeneration(affectedUsers);
+      supervisionGraphService.invalidateAfterCommit();
+      periodIndex.invalidateAfterCommit();
 
-      profiler.stop().log();
+      profiler.stop();
     }
   }
 
@@ -0,0 +1,49 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.web;
+
+import org.openlmis.referencedata.domain.RightName;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatusDto;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class RightAssignmentController extends BaseController {
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  /**
+   * Get the state of right assignment regeneration: whether a regeneration is pending or running
+   * and when the last one completed and how long it took.
+   *
+   * @return regeneration status.
+   */
+  @RequestMapping(value = "/rightAssignments/regenerationStatus", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public RightAssignmentRegenerationStatusDto getRegenerationStatus() {
+    rightService.checkAdminRight(RightName.USER_ROLES_MANAGE_RIGHT);
+
+    return rightAssignmentRegenerationScheduler.getStatus();
+  }
+}
@@ -27,11 +27,12 @@ import org.openlmis.referencedata.dto.RoleDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.IncrementalRightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.RoleMessageKeys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
@@ -66,7 +67,10 @@ public class RoleController extends BaseController {
   private RightRepository rightRepository;
   
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private IncrementalRightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   /**
    * Get all roles in the system.
@@ -177,7 +181,6 @@ public class RoleController extends BaseController {
                             @RequestBody RoleDto roleDto) {
 
     Profiler profiler = new Profiler("UPDATE_ROLE");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USER_ROLES_MANAGE_RIGHT, false);
@@ -195,14 +198,15 @@ public class RoleController extends BaseController {
     roleRepository.saveAndFlush(roleToSave);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    rightAssignmentRegenerationScheduler.scheduleRegeneration(
+        rightAssignmentService.getUsersAffectedByRole(roleToSave.getId()));
     
     LOGGER.info("Saved role with id: {}", roleToSave.getId());
 
     profiler.start("EXPORT_ROLE_TO_DTO");
     RoleDto dto = exportToDto(roleToSave);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
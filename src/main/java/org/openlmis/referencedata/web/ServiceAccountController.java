@@ -27,10 +27,8 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.ServiceAccountRepository;
 import org.openlmis.referencedata.service.AuthenticationHelper;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.ServiceAccountMessageKeys;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
@@ -47,7 +45,6 @@ import java.util.UUID;
 @Controller
 @Transactional
 public class ServiceAccountController extends BaseController {
-  private static final Logger LOGGER = LoggerFactory.getLogger(ServiceAccountController.class);
   private static final String TOKEN = "token";
 
   @Autowired
@@ -66,7 +63,6 @@ public class ServiceAccountController extends BaseController {
   @ResponseBody
   public ServiceAccountDto createServiceAccount(@RequestBody ServiceAccountCreationBody body) {
     Profiler profiler = new Profiler("CREATE_SERVICE_ACCOUNT");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, false, profiler);
 
@@ -80,7 +76,7 @@ public class ServiceAccountController extends BaseController {
 
     ServiceAccountDto dto = toDto(account, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -94,7 +90,6 @@ public class ServiceAccountController extends BaseController {
   @ResponseBody
   public ServiceAccountDto getServiceAccount(@PathVariable(TOKEN) UUID token) {
     Profiler profiler = new Profiler("GET_SERVICE_ACCOUNT");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, profiler);
 
@@ -102,7 +97,7 @@ public class ServiceAccountController extends BaseController {
     ServiceAccount account = findAccount(token, profiler);
     ServiceAccountDto dto = toDto(account, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -117,7 +112,6 @@ public class ServiceAccountController extends BaseController {
   public ServiceAccountDto updateServiceAccount(@PathVariable(TOKEN) UUID token,
                                                 @RequestBody ServiceAccountDto body) {
     Profiler profiler = new Profiler("GET_SERVICE_ACCOUNT");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, profiler);
 
@@ -133,7 +127,7 @@ public class ServiceAccountController extends BaseController {
 
     ServiceAccountDto dto = toDto(account, profiler);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return dto;
   }
@@ -147,7 +141,6 @@ public class ServiceAccountController extends BaseController {
   @ResponseStatus(HttpStatus.NO_CONTENT)
   public void deleteServiceAccount(@PathVariable(TOKEN) UUID token) {
     Profiler profiler = new Profiler("DELETE_SERVICE_ACCOUNT");
-    profiler.setLogger(LOGGER);
 
     checkAdminRight(SERVICE_ACCOUNTS_MANAGE, false, profiler);
 
@@ -156,7 +149,7 @@ public class ServiceAccountController extends BaseController {
     profiler.start("DELETE_SERVICE_ACCOUNT");
     serviceAccountRepository.delete(account);
 
-    profiler.stop().log();
+    profiler.stop();
   }
 
   private ServiceAccount findAccount(UUID token, Profiler profiler) {
@@ -164,7 +157,7 @@ public class ServiceAccountController extends BaseController {
     ServiceAccount account = serviceAccountRepository.findOne(token);
 
     if (null == account) {
-      profiler.stop().log();
+      profiler.stop();
       throw new NotFoundException(ServiceAccountMessageKeys.ERROR_NOT_FOUND);
     }
 
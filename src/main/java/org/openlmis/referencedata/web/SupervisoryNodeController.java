@@ -24,6 +24,7 @@ import org.openlmis.referencedata.domain.RightName;
 import org.openlmis.referencedata.domain.SupervisoryNode;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.dto.SupervisoryNodeDto;
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
 import org.openlmis.referencedata.dto.UserDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
@@ -31,17 +32,21 @@ import org.openlmis.referencedata.repository.ProgramRepository;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.IncrementalRightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.SupervisionGraphService;
 import org.openlmis.referencedata.service.SupervisoryNodeService;
+import org.openlmis.referencedata.service.TypeAheadService;
+import org.openlmis.referencedata.service.TypeAheadService.Target;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.SupervisoryNodeMessageKeys;
 import org.openlmis.referencedata.validate.SupervisoryNodeValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -59,6 +64,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -90,7 +96,16 @@ public class SupervisoryNodeController extends BaseController {
   private SupervisoryNodeService supervisoryNodeService;
   
   @Autowired
-  private RightAssignmentService rightAssignmentService;
+  private IncrementalRightAssignmentService rightAssignmentService;
+
+  @Autowired
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
+
+  @Autowired
+  private SupervisionGraphService supervisionGraphService;
+
+  @Autowired
+  private TypeAheadService typeAheadService;
 
   @Autowired
   private SupervisoryNodeValidator validator;
@@ -116,6 +131,7 @@ public class SupervisoryNodeController extends BaseController {
     supervisoryNodeDto.setId(null);
     SupervisoryNode supervisoryNode = SupervisoryNode.newSupervisoryNode(supervisoryNodeDto);
     supervisoryNodeRepository.save(supervisoryNode);
+    supervisionGraphService.invalidateAfterCommit();
     LOGGER.info("Created new supervisoryNode with id: {}", supervisoryNode.getId());
     return exportToDto(supervisoryNode);
   }
@@ -140,6 +156,22 @@ public class SupervisoryNodeController extends BaseController {
     return supervisoryNodeDtos;
   }
 
+  /**
+   * Finds supervisory nodes whose code or name contains the given term, for type-ahead fields.
+   *
+   * @param query part of the code or name of wanted supervisory nodes.
+   * @param limit maximum number of returned supervisory nodes.
+   * @return best matching supervisory nodes with id, code and name.
+   */
+  @RequestMapping(value = "/supervisoryNodes/typeAhead", method = RequestMethod.GET)
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public List<TypeAheadResultDto> typeAheadSupervisoryNodes(
+      @RequestParam String query,
+      @RequestParam(required = false) Integer limit) {
+    return typeAheadService.search(Target.SUPERVISORY_NODES, query, limit);
+  }
+
   /**
    * Get chosen supervisoryNode.
    *
@@ -176,7 +208,6 @@ public class SupervisoryNodeController extends BaseController {
       BindingResult bindingResult) {
 
     Profiler profiler = new Profiler("UPDATE_SUPERVISORY_NODE");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(SUPERVISORY_NODES_MANAGE);
@@ -195,6 +226,10 @@ public class SupervisoryNodeController extends BaseController {
       supervisoryNodeToUpdate = new SupervisoryNode();
     }
 
+    profiler.start("FIND_AFFECTED_USERS");
+    final Set<UUID> affectedUsers = new HashSet<>(
+        rightAssignmentService.getUsersAffectedBySupervisoryNode(supervisoryNodeId));
+
     profiler.start("IMPORT_SUPERVISORY_NODE_FROM_DTO");
     supervisoryNodeToUpdate.updateFrom(SupervisoryNode.newSupervisoryNode(supervisoryNodeDto));
 
@@ -202,13 +237,16 @@ public class SupervisoryNodeController extends BaseController {
     supervisoryNodeRepository.saveAndFlush(supervisoryNodeToUpdate);
 
     profiler.start("REGENERATE_RIGHT_ASSIGNMENTS");
-    rightAssignmentService.regenerateRightAssignments();
+    affectedUsers.addAll(rightAssignmentService
+        .getUsersAffectedBySupervisoryNode(supervisoryNodeToUpdate.getId()));
+    rightAssignmentRegenerationScheduler.scheduleRegeneration(affectedUsers);
+    supervisionGraphService.invalidateAfterCommit();
 
     LOGGER.info("Updated supervisoryNode with id: {}", supervisoryNodeId);
     profiler.start("EXPORT_SUPERVISORY_NODE_TO_DTO");
     SupervisoryNodeDto dto = exportToDto(supervisoryNodeToUpdate);
 
-    profiler.stop().log();
+    profiler.stop();
     return dto;
   }
 
@@ -226,6 +264,7 @@ public class SupervisoryNodeController extends BaseController {
       throw new NotFoundException(SupervisoryNodeMessageKeys.ERROR_NOT_FOUND);
     } else {
       supervisoryNodeRepository.delete(supervisoryNode);
+      supervisionGraphService.invalidateAfterCommit();
       return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
   }
@@ -22,6 +22,7 @@ import org.openlmis.referencedata.domain.TradeItem;
 import org.openlmis.referencedata.dto.TradeItemDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.OrderableFulfillIndex;
 import org.openlmis.referencedata.util.Pagination;
 import org.openlmis.referencedata.util.messagekeys.TradeItemMessageKeys;
 import org.openlmis.referencedata.validate.TradeItemValidator;
@@ -52,6 +53,9 @@ public class TradeItemController extends BaseController {
   @Autowired
   private TradeItemValidator validator;
 
+  @Autowired
+  private OrderableFulfillIndex orderableFulfillIndex;
+
   /**
    * Create or update a trade item.
    *
@@ -66,8 +70,10 @@ public class TradeItemController extends BaseController {
     throwValidationMessageExceptionIfErrors(bindingResult);
 
     TradeItem tradeItem = TradeItem.newInstance(tradeItemDto);
+    TradeItem saved = repository.save(tradeItem);
+    orderableFulfillIndex.invalidateAfterCommit();
 
-    return TradeItemDto.newInstance(repository.save(tradeItem));
+    return TradeItemDto.newInstance(saved);
   }
 
   /**
@@ -40,16 +40,22 @@ import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.service.PermissionStringCache;
+import org.openlmis.referencedata.service.PermissionStringCache.PermissionStrings;
+import org.openlmis.referencedata.service.SupervisionGraph;
+import org.openlmis.referencedata.service.SupervisionGraphService;
+import org.openlmis.referencedata.service.UserExistenceCache;
 import org.openlmis.referencedata.service.UserSearchParams;
 import org.openlmis.referencedata.service.UserService;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Message;
 import org.openlmis.referencedata.util.Pagination;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.FacilityMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.ProgramMessageKeys;
 import org.openlmis.referencedata.util.messagekeys.RightMessageKeys;
@@ -59,7 +65,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -79,6 +84,7 @@ import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.WebRequest;
 
 import lombok.NoArgsConstructor;
 
@@ -91,6 +97,7 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 @NoArgsConstructor
@@ -131,7 +138,13 @@ public class UserController extends BaseController {
   private UserValidator userValidator;
   
   @Autowired
-  private RightAssignmentRepository rightAssignmentRepository;
+  private PermissionStringCache permissionStringCache;
+
+  @Autowired
+  private SupervisionGraphService supervisionGraphService;
+
+  @Autowired
+  private UserExistenceCache userExistenceCache;
   
   @Autowired
   private RoleAssignmentRepository roleAssignmentRepository;
@@ -169,7 +182,6 @@ public class UserController extends BaseController {
   public UserDto saveUser(@RequestBody @Valid UserDto userDto,
                           BindingResult bindingResult) {
     Profiler profiler = new Profiler("CREATE_USER");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
@@ -198,12 +210,13 @@ public class UserController extends BaseController {
 
     profiler.start("SAVE_USER");
     userRepository.save(userToSave);
+    permissionStringCache.invalidateAfterCommit(userToSave.getId());
 
     profiler.start("TO_DTO");
     UserDto responseDto = exportUserToDto(userToSave);
     addRoleAssignmentIdsToUserDto(responseDto);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return responseDto;
   }
@@ -234,7 +247,6 @@ public class UserController extends BaseController {
   public Page<UserDto> getUsers(UserSearchParams requestParams,
                                 Pageable pageable) {
     Profiler profiler = new Profiler("GET_USERS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
@@ -246,7 +258,7 @@ public class UserController extends BaseController {
     profiler.start("EXPORT_TO_DTOS");
     Page<UserDto> userDtos = exportUsersToDtos(result, pageable);
 
-    profiler.stop().log();
+    profiler.stop();
     return userDtos;
   }
 
@@ -262,7 +274,6 @@ public class UserController extends BaseController {
   public UserDto getUser(@PathVariable("userId") UUID userId) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_SINGLE_USER");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
@@ -280,7 +291,7 @@ public class UserController extends BaseController {
     profiler.start("ADD_ROLE_ASSIGNMENTS_TO_USER_DTO");
     addRoleAssignmentIdsToUserDto(userDto);
 
-    profiler.stop().log();
+    profiler.stop();
     XLOGGER.exit(user);
     return userDto;
   }
@@ -296,7 +307,6 @@ public class UserController extends BaseController {
   @ResponseBody
   public Set<DetailedRoleAssignmentDto> getUserRightsAndRoles(@PathVariable("userId") UUID userId) {
     Profiler profiler = new Profiler("GET_USER_ROLE_ASSIGNMENTS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
@@ -313,7 +323,7 @@ public class UserController extends BaseController {
     profiler.start("EXPORT_TO_DTO");
     Set<DetailedRoleAssignmentDto> result =  exportRoleAssignmentsToDtos(roleAssignments);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return result;
   }
@@ -328,7 +338,6 @@ public class UserController extends BaseController {
   @ResponseBody
   public void deleteUser(@PathVariable("userId") UUID userId) {
     Profiler profiler = new Profiler("DELETE_USER");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
@@ -340,8 +349,10 @@ public class UserController extends BaseController {
     } else {
       profiler.start("DELETE_USER_FROM_DB");
       userRepository.delete(userId);
+      userExistenceCache.evict(userId);
+      permissionStringCache.invalidateAfterCommit(userId);
     }
-    profiler.stop().log();
+    profiler.stop();
   }
 
   /**
@@ -357,27 +368,33 @@ public class UserController extends BaseController {
    *
    * @param pageable Pageable object that allows client to optionally add "page" (page number)
    *                 and "size" (page size) query parameters to the request.
+   * @param after    cursor of the page to get, which switches to keyset pagination. Pages are
+   *                 sorted by id, and the cursor of the next one is sent back in the
+   *                 X-Next-Cursor header. An empty cursor gets the first page.
    * @return a list of all Users matching provided parameters.
    */
   @RequestMapping(value = "/users/search", method = RequestMethod.POST)
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<UserDto> searchUsers(
-      @RequestBody UserSearchParams queryParams, Pageable pageable) {
+      @RequestBody UserSearchParams queryParams, Pageable pageable,
+      @RequestParam(value = KeysetPageRequest.AFTER_PARAM, required = false) String after,
+      HttpServletResponse response) {
 
     Profiler profiler = new Profiler("POST_USER_SEARCH");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN_RIGHT");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
 
     profiler.start("SEARCH_USERS");
-    Page<User> result = userService.searchUsers(queryParams, pageable);
+    Pageable page = KeysetPageRequest.of(pageable, after);
+    Page<User> result = userService.searchUsers(queryParams, page);
+    addNextCursor(response, page, result);
 
     profiler.start("EXPORT_TO_DTOS");
-    Page<UserDto> userDtos = exportUsersToDtos(result, pageable);
+    Page<UserDto> userDtos = exportUsersToDtos(result, page);
 
-    profiler.stop().log();
+    profiler.stop();
     return userDtos;
   }
 
@@ -403,13 +420,12 @@ public class UserController extends BaseController {
                                                @RequestParam(value = "warehouseId",
                                                    required = false) UUID warehouseId) {
     Profiler profiler = new Profiler("GET_USER_HAS_RIGHT");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN_RIGHT");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
 
     profiler.start("CHECK_USER_EXISTS");
-    if (!userRepository.exists(userId)) {
+    if (!userExistenceCache.exists(userId)) {
       throw new NotFoundException(new Message(UserMessageKeys.ERROR_NOT_FOUND_WITH_ID, userId));
     }
 
@@ -433,8 +449,7 @@ public class UserController extends BaseController {
         }
 
         profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT_FACILITY_PROGRAM");
-        hasRight = rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityIdAndProgramId(
-            userId, right.getName(), facilityId, programId);
+        hasRight = permissionStringCache.hasRight(userId, right.getName(), facilityId, programId);
 
       } else {
         throw new ValidationMessageException(UserMessageKeys.ERROR_PROGRAM_WITHOUT_FACILITY);
@@ -449,15 +464,14 @@ public class UserController extends BaseController {
       }
 
       profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT_WAREHOUSE");
-      hasRight = rightAssignmentRepository.existsByUserIdAndAndRightNameAndFacilityId(
-          userId, right.getName(), warehouseId);
+      hasRight = permissionStringCache.hasRight(userId, right.getName(), warehouseId);
 
     } else {
       profiler.start("CHECK_HAS_RIGHT_BY_USER_RIGHT");
-      hasRight = rightAssignmentRepository.existsByUserIdAndRightName(userId, right.getName());
+      hasRight = permissionStringCache.hasRight(userId, right.getName());
     }
 
-    profiler.stop().log();
+    profiler.stop();
     LOGGER.info("hasRight(userId={},rightName={},facilityId={},programId={},warehouseId={}) = {}",
         userId, right.getName(), facilityId, programId, warehouseId, hasRight);
     return new ResultDto<>(hasRight);
@@ -473,13 +487,12 @@ public class UserController extends BaseController {
   public ResponseEntity<Set<ProgramDto>> getUserPrograms(@PathVariable(USER_ID) UUID userId) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_USER_PROGRAMS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
 
     profiler.start("CHECK_USER_EXISTS");
-    if (!userRepository.exists(userId)) {
+    if (!userExistenceCache.exists(userId)) {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     }
 
@@ -489,7 +502,7 @@ public class UserController extends BaseController {
     profiler.start("EXPORT_USER_PROGRAMS");
     Set<ProgramDto> userProgramDtos = programsToDto(userPrograms);
 
-    profiler.stop().log();
+    profiler.stop();
     XLOGGER.exit(userProgramDtos);
     return ResponseEntity
         .ok()
@@ -508,13 +521,12 @@ public class UserController extends BaseController {
   public ResponseEntity<Set<ProgramDto>> getUserSupportedPrograms(
       @PathVariable(USER_ID) UUID userId) {
     Profiler profiler = new Profiler("GET_USER_SUPPORTED_PROGRAMS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
 
     profiler.start("CHECK_USER_EXISTS");
-    if (!userRepository.exists(userId)) {
+    if (!userExistenceCache.exists(userId)) {
       throw new NotFoundException(new Message(UserMessageKeys.ERROR_NOT_FOUND_WITH_ID, userId));
     }
 
@@ -525,7 +537,7 @@ public class UserController extends BaseController {
     profiler.start("EXPORT_USER_PROGRAMS");
     Set<ProgramDto> userHomeFacilityProgramDtos = programsToDto(userHomeFacilityPrograms);
 
-    profiler.stop().log();
+    profiler.stop();
     return ResponseEntity
         .ok()
         .eTag(Integer.toString(userHomeFacilityProgramDtos.hashCode()))
@@ -548,7 +560,6 @@ public class UserController extends BaseController {
       @RequestParam(value = "rightId") UUID rightId,
       @RequestParam(value = "programId") UUID programId) {
     Profiler profiler = new Profiler("GET_USER_SUPERVISED_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
@@ -567,13 +578,18 @@ public class UserController extends BaseController {
         new ValidationMessageException(
             new Message(ProgramMessageKeys.ERROR_NOT_FOUND_WITH_ID, programId)));
 
+    profiler.start("GET_SUPERVISED_FACILITY_IDS");
+    Set<UUID> supervisedFacilityIds = getSupervisedFacilityIds(user, right, program, programId);
+
     profiler.start("GET_SUPERVISED_FACILITIES");
-    Set<Facility> supervisedFacilities = user.getSupervisedFacilities(right, program);
+    List<Facility> supervisedFacilities = supervisedFacilityIds.isEmpty()
+        ? Collections.emptyList()
+        : facilityRepository.findAll(supervisedFacilityIds);
 
     profiler.start("TO_DTO");
     Set<FacilityDto> result = facilitiesToDto(supervisedFacilities);
 
-    profiler.stop().log();
+    profiler.stop();
     return result;
   }
 
@@ -590,7 +606,6 @@ public class UserController extends BaseController {
       @PathVariable(USER_ID) UUID userId,
       @RequestParam(value = "rightId") UUID rightId) {
     Profiler profiler = new Profiler("GET_USER_FULFILLMENT_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
@@ -609,7 +624,7 @@ public class UserController extends BaseController {
     profiler.start("TO_DTO");
     Set<FacilityDto> facilityDtos = facilitiesToDto(facilities);
 
-    profiler.stop().log();
+    profiler.stop();
 
     return facilityDtos;
   }
@@ -632,7 +647,6 @@ public class UserController extends BaseController {
                                    @RequestParam(required = false) UUID supervisoryNodeId,
                                    @RequestParam(required = false) UUID warehouseId) {
     Profiler profiler = new Profiler("GET_USERS_BY_RIGHT");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
@@ -641,7 +655,7 @@ public class UserController extends BaseController {
     Set<User> users = userService.rightSearch(rightId, programId,
         supervisoryNodeId, warehouseId);
 
-    profiler.stop().log();
+    profiler.stop();
     return exportUsersToDtos(users);
   }
 
@@ -671,14 +685,13 @@ public class UserController extends BaseController {
       Pageable page) {
 
     Profiler profiler = new Profiler("GET_USER_AUDIT_LOG");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT);
 
     //Return a 404 if the specified user can't be found
     profiler.start("CHECK_USER_EXISTS");
-    if (false == userRepository.exists(userId)) {
+    if (false == userExistenceCache.exists(userId)) {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     }
 
@@ -690,7 +703,7 @@ public class UserController extends BaseController {
         page,
         returnJson);
 
-    profiler.stop().log();
+    profiler.stop();
     return responseEntity;
   }
   
@@ -701,27 +714,34 @@ public class UserController extends BaseController {
    * @return a set of user permission strings.
    */
   @RequestMapping(value = "/users/{id}/permissionStrings", method = RequestMethod.GET)
-  public ResponseEntity<Set<String>> getUserPermissionStrings(@PathVariable("id") UUID userId) {
+  public ResponseEntity<Set<String>> getUserPermissionStrings(@PathVariable("id") UUID userId,
+                                                              WebRequest request) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_USER_PERM_STRINGS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
 
     profiler.start("CHECK_USER_EXISTS");
-    if (!userRepository.exists(userId)) {
+    if (!userExistenceCache.exists(userId)) {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     } else {
-      profiler.start("GET_PERM_STRINGS_FROM_RIGHT_ASSIGNMENTS");
-      Set<String> permissionStrings = rightAssignmentRepository.findByUser(userId);
-      
-      profiler.stop().log();
-      XLOGGER.exit(permissionStrings);
+      profiler.start("GET_PERM_STRINGS_FROM_CACHE");
+      PermissionStrings permissionStrings = permissionStringCache.get(userId);
+
+      if (request.checkNotModified(permissionStrings.getEtag())) {
+        profiler.stop();
+        XLOGGER.exit("Not modified");
+        return null;
+      }
+
+      Set<String> body = permissionStrings.asSet();
+      profiler.stop();
+      XLOGGER.exit(body);
       return ResponseEntity
           .ok()
-          .eTag(Integer.toString(permissionStrings.hashCode()))
-          .body(permissionStrings);
+          .eTag(permissionStrings.getEtag())
+          .body(body);
     }
   }
 
@@ -737,12 +757,11 @@ public class UserController extends BaseController {
       @PathVariable(USER_ID) UUID userId) {
     XLOGGER.entry(userId);
     Profiler profiler = new Profiler("GET_USER_FACILITIES");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CHECK_ADMIN");
     rightService.checkAdminRight(RightName.USERS_MANAGE_RIGHT, true, userId);
 
-    if (!userRepository.exists(userId)) {
+    if (!userExistenceCache.exists(userId)) {
       throw new NotFoundException(UserMessageKeys.ERROR_NOT_FOUND);
     }
 
@@ -750,7 +769,7 @@ public class UserController extends BaseController {
     Set<NamedResource> userFacilityDtos = facilityRepository
         .findSupervisionFacilitiesByUser(userId);
 
-    profiler.stop().log();
+    profiler.stop();
     XLOGGER.exit(userFacilityDtos);
     return ResponseEntity
         .ok()
@@ -820,7 +839,6 @@ public class UserController extends BaseController {
   private Set<DetailedRoleAssignmentDto> exportRoleAssignmentsToDtos(
       Set<RoleAssignment> roleAssignments) {
     Profiler profiler = new Profiler("EXPORT_USER_ROLE_ASSIGNMENTS_TO_DTO");
-    profiler.setLogger(LOGGER);
 
     Set<DetailedRoleAssignmentDto> assignmentDtos = new HashSet<>();
 
@@ -843,7 +861,7 @@ public class UserController extends BaseController {
       assignmentDtos.add(assignmentDto);
     }
 
-    profiler.stop().log();
+    profiler.stop();
 
     return assignmentDtos;
   }
@@ -874,6 +892,28 @@ public class UserController extends BaseController {
     userDto.setRoleAssignments(roleAssignmentDtos);
   }
 
+  /*
+   the supervised facilities of a node are taken from the supervision graph, so there is no need
+   to check them one by one like User.getSupervisedFacilities does
+   */
+  private Set<UUID> getSupervisedFacilityIds(User user, Right right, Program program,
+                                             UUID programId) {
+    SupervisionGraph supervisionGraph = supervisionGraphService.getGraph();
+    Set<UUID> supervisedFacilityIds = new HashSet<>();
+
+    user.getRoleAssignments()
+        .stream()
+        .filter(roleAssignment -> roleAssignment instanceof SupervisionRoleAssignment)
+        .map(roleAssignment -> (SupervisionRoleAssignment) roleAssignment)
+        .filter(assignment -> null != assignment.getSupervisoryNode()
+            && program.equals(assignment.getProgram())
+            && assignment.getRole().contains(right))
+        .forEach(assignment -> supervisedFacilityIds.addAll(supervisionGraph
+            .getSupervisedFacilityIds(assignment.getSupervisoryNode().getId(), programId)));
+
+    return supervisedFacilityIds;
+  }
+
   private Set<FacilityDto> facilitiesToDto(Collection<Facility> facilities) {
     Set<FacilityDto> dtos = new HashSet<>();
     for (Facility facility : facilities) {
@@ -17,12 +17,10 @@ package org.openlmis.referencedata.web.csv.format;
 
 import lombok.Getter;
 import org.openlmis.referencedata.dto.BaseDto;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.model.ModelField;
 import org.openlmis.referencedata.web.csv.processor.CsvCellProcessors;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 import org.supercsv.io.dozer.CsvDozerBeanWriter;
 import org.supercsv.prefs.CsvPreference;
@@ -40,8 +38,6 @@ import static java.util.Arrays.asList;
  */
 class CsvBeanWriter<T extends BaseDto> {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(CsvBeanWriter.class);
-
   private ModelClass<T> modelClass;
   private CsvDozerBeanWriter csvDozerBeanWriter;
   private CellProcessor[] processors;
@@ -52,7 +48,6 @@ class CsvBeanWriter<T extends BaseDto> {
   CsvBeanWriter(ModelClass<T> modelClass,
                 OutputStream outputStream) throws IOException {
     Profiler profiler = new Profiler("CREATE_CSV_WRITER");
-    profiler.setLogger(LOGGER);
 
     profiler.start("MODEL_CLASS");
     this.modelClass = modelClass;
@@ -63,12 +58,11 @@ class CsvBeanWriter<T extends BaseDto> {
     profiler.start("CONFIGURE_PROCESSORS");
     configureProcessors();
 
-    profiler.stop().log();
+    profiler.stop();
   }
 
   void writeWithCellProcessors(List<? extends BaseDto> dtos) throws IOException {
     Profiler profiler = new Profiler("CSV_WRITE_CELLS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("WRITE_HEADERS");
     csvDozerBeanWriter.writeHeader(headers);
@@ -81,12 +75,11 @@ class CsvBeanWriter<T extends BaseDto> {
     profiler.start("CLOSE_STREAM");
     csvDozerBeanWriter.close();
 
-    profiler.stop().log();
+    profiler.stop();
   }
 
   private void configureDozerBeanWriter(OutputStream outputStream) throws IOException {
     Profiler profiler = new Profiler("CONFIGURE_DOZER_WRITER");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CSV_PREFERENCE");
     CsvPreference csvPreference = new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE)
@@ -109,7 +102,7 @@ class CsvBeanWriter<T extends BaseDto> {
     profiler.start("CONFIGURE_BEAN_MAPPING");
     csvDozerBeanWriter.configureBeanMapping(modelClass.getClazz(), mappings);
 
-    profiler.stop().log();
+    profiler.stop();
   }
 
   private String[] readHeaders() {
@@ -19,10 +19,8 @@ import lombok.NoArgsConstructor;
 import org.openlmis.referencedata.dto.BaseDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.stereotype.Component;
 import org.supercsv.exception.SuperCsvException;
 import org.supercsv.util.CsvContext;
@@ -41,8 +39,6 @@ import static org.openlmis.referencedata.util.messagekeys.CsvExportMessageKeys.E
 @NoArgsConstructor
 public class CsvFormatter {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(CsvFormatter.class);
-
   /**
    * Parses data from input stream into the corresponding model.
    *
@@ -54,7 +50,6 @@ public class CsvFormatter {
                                           List<T> dtos) throws IOException {
 
     Profiler profiler = new Profiler("CSV_PROCESS");
-    profiler.setLogger(LOGGER);
 
     profiler.start("CREATE_CSV_WRITER");
     CsvBeanWriter<T> csvBeanWriter = new CsvBeanWriter<>(modelClass, outputStream);
@@ -66,7 +61,7 @@ public class CsvFormatter {
       Message message = getCsvRowErrorMessage(err);
       throw new ValidationMessageException(err, message);
     } finally {
-      profiler.stop().log();
+      profiler.stop();
     }
   }
 
@@ -23,13 +23,11 @@ import org.openlmis.referencedata.domain.BaseEntity;
 import org.openlmis.referencedata.dto.BaseDto;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.validate.CsvHeaderValidator;
 import org.openlmis.referencedata.web.csv.model.ModelClass;
 import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
 import org.openlmis.referencedata.web.csv.recordhandler.RecordWriter;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.supercsv.exception.SuperCsvException;
@@ -39,23 +37,54 @@ import lombok.NoArgsConstructor;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 /**
  * This class has logic to invoke corresponding respective record handler to parse data from input
- * stream into the corresponding model. To speed up the process for huge files the stream is divided
- * into smaller chunks. The chunk size is set by {@code csvParser.chunkSize} property. Each chunk is
- * executed asynchronously in the thread pool with size set by {@code csvParser.poolSize}.
+ * stream into the corresponding model. To speed up the process for huge files the import is
+ * pipelined: the stream is read in chunks of {@code csvParser.chunkSize} rows, and each chunk is
+ * processed asynchronously in the thread pool with size set by {@code csvParser.poolSize} while
+ * the next ones are read. Processed chunks are written in the order of the file by the calling
+ * thread, so that they are all written in its transaction. At most twice as many chunks as there
+ * are threads are kept in memory at a time.
  */
 @Component
 @NoArgsConstructor
 public class CsvParser {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(CsvParser.class);
-
   @Value("${csvParser.chunkSize}")
   private int chunkSize;
 
+  @Value("${csvParser.poolSize}")
+  private int poolSize;
+
+  private ExecutorService executor;
+
+  @PostConstruct
+  void init() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    executor = Executors.newFixedThreadPool(Math.max(1, poolSize), runnable -> {
+      Thread thread = new Thread(runnable, "csv-parser-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+
   /**
    * Parses data from input stream into the corresponding model.
    *
@@ -68,7 +97,6 @@ public class CsvParser {
                                                              RecordWriter<E> writer)
       throws IOException {
     Profiler profiler = new Profiler("PARSE_CSV_FILE");
-    profiler.setLogger(LOGGER);
 
     profiler.start("NEW_CSV_READER");
     CsvBeanReader<D> csvBeanReader = new CsvBeanReader<>(
@@ -79,21 +107,38 @@ public class CsvParser {
     csvBeanReader.validateHeaders();
 
     profiler.start("PROCESS_CSV");
-    while (true) {
-      List<D> imported = doRead(csvBeanReader);
+    int maxPending = 2 * Math.max(1, poolSize);
+    Deque<Future<List<E>>> pending = new ArrayDeque<>(maxPending);
 
-      if (imported.isEmpty()) {
-        break;
+    try {
+      while (true) {
+        List<D> imported = doRead(csvBeanReader, pending);
+
+        if (imported.isEmpty()) {
+          break;
+        }
+
+        pending.add(executor.submit(() -> doProcess(processor, imported)));
+
+        if (pending.size() >= maxPending) {
+          doWrite(writer, await(pending.poll()));
+        }
       }
 
-      doWrite(processor, writer, imported);
+      while (!pending.isEmpty()) {
+        doWrite(writer, await(pending.poll()));
+      }
+    } finally {
+      pending.forEach(future -> future.cancel(true));
     }
 
-    profiler.stop().log();
+    profiler.stop();
     return csvBeanReader.getRowNumber() - 1;
   }
 
-  private <D extends BaseDto> List<D> doRead(CsvBeanReader<D> csvBeanReader) throws IOException {
+  private <D extends BaseDto, E> List<D> doRead(CsvBeanReader<D> csvBeanReader,
+                                                Deque<Future<List<E>>> pending)
+      throws IOException {
     try {
       List<D> list = Lists.newArrayList();
 
@@ -109,24 +154,48 @@ public class CsvParser {
 
       return list;
     } catch (SuperCsvException err) {
+      // errors of earlier rows are reported first, as if the chunks were handled one by one
+      for (Future<List<E>> future : pending) {
+        await(future);
+      }
+
       Message message = getCsvRowErrorMessage(err);
       throw new ValidationMessageException(err, message);
     }
   }
 
-  private <D extends BaseDto, E extends BaseEntity> void doWrite(RecordProcessor<D, E> processor,
-                                                                 RecordWriter<E> writer,
-                                                                 List<D> imported) {
-    Profiler profiler = new Profiler("WRITE_CSV_CHUNK");
-    profiler.setLogger(LOGGER);
+  private <D extends BaseDto, E extends BaseEntity> List<E> doProcess(
+      RecordProcessor<D, E> processor, List<D> imported) {
+    Profiler profiler = new Profiler("PROCESS_CSV_CHUNK");
 
     profiler.start("PROCESS");
     List<E> entities = processor.process(imported);
 
+    profiler.stop();
+    return entities;
+  }
+
+  private <E extends BaseEntity> void doWrite(RecordWriter<E> writer, List<E> entities) {
+    Profiler profiler = new Profiler("WRITE_CSV_CHUNK");
+
     profiler.start("WRITE_TO_DB");
     writer.write(entities);
 
-    profiler.stop().log();
+    profiler.stop();
+  }
+
+  private <E> List<E> await(Future<List<E>> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while processing CSV file", ex);
+    } catch (ExecutionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw new IllegalStateException("Could not process CSV file", ex);
+    }
   }
 
   private Message getCsvRowErrorMessage(SuperCsvException err) {
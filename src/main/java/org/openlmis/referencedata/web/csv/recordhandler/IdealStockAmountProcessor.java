@@ -33,27 +33,35 @@ import org.openlmis.referencedata.repository.ProcessingPeriodRepository;
 import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.util.Message;
+import org.openlmis.referencedata.util.Profiler;
 import org.openlmis.referencedata.util.messagekeys.ProcessingScheduleMessageKeys;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * IdealStockAmountProcessor is used for uploads of Ideal Stock Amount.
  * It uploads each ideal stock amount by record.
+ *
+ * <p>Facilities, processing schedules, processing periods and commodity types of new ideal stock
+ * amounts are resolved with a single query per type for all distinct codes of a chunk. A processor
+ * created with {@link #newUploadProcessor()} also keeps them for all chunks of the upload, so an
+ * upload only queries for each code once.
  */
 @Component
 public class IdealStockAmountProcessor
     implements RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> {
 
-  private static final Logger LOGGER = LoggerFactory.getLogger(IdealStockAmountProcessor.class);
+  private static final String KEY_SEPARATOR = "|";
 
   @Autowired
   private IdealStockAmountService idealStockAmountService;
@@ -70,10 +78,23 @@ public class IdealStockAmountProcessor
   @Autowired
   private CommodityTypeRepository commodityTypeRepository;
 
+  /**
+   * Creates a processor for a single upload. It can be used concurrently for chunks of the
+   * upload, and it resolves the referenced objects only once for all of them.
+   */
+  public RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> newUploadProcessor() {
+    References references = new References();
+    return records -> process(records, references);
+  }
+
   @Override
   public List<IdealStockAmount> process(List<IdealStockAmountCsvModel> records) {
+    return process(records, new References());
+  }
+
+  private List<IdealStockAmount> process(List<IdealStockAmountCsvModel> records,
+                                         References references) {
     Profiler profiler = new Profiler("PROCESS_DTO_CHUNK");
-    profiler.setLogger(LOGGER);
 
     profiler.start("SEARCH_EXISTING_ISA");
     List<IdealStockAmount> idealStockAmounts = convert(records);
@@ -82,46 +103,105 @@ public class IdealStockAmountProcessor
       isaMap.put(hash(isa), isa);
     }
 
+    List<IdealStockAmount> newIdealStockAmounts = idealStockAmounts
+        .stream()
+        .filter(isa -> !isaMap.containsKey(hash(isa)))
+        .collect(Collectors.toList());
+
+    profiler.start("RESOLVE_REFERENCES");
+    resolve(newIdealStockAmounts, references);
+
     List<IdealStockAmount> resultList = new ArrayList<>();
 
     profiler.start("PROCESS_RECORDS");
     for (IdealStockAmount isa : idealStockAmounts) {
       IdealStockAmount result = isaMap.getOrDefault(hash(isa), null);
       if (null == result) {
-        resultList.add(prepareNewIdealStockAmountObject(isa));
+        resultList.add(prepareNewIdealStockAmountObject(isa, references));
       } else {
         result.setAmount(isa.getAmount());
         resultList.add(result);
       }
     }
 
-    profiler.stop().log();
+    profiler.stop();
 
     return resultList;
   }
 
-  private IdealStockAmount prepareNewIdealStockAmountObject(IdealStockAmount isa) {
-    Facility facility = facilityRepository.findByCode(isa.getFacility().getCode())
+  private void resolve(List<IdealStockAmount> idealStockAmounts, References references) {
+    if (idealStockAmounts.isEmpty()) {
+      return;
+    }
+
+    Set<String> facilityCodes = new HashSet<>();
+    Set<String> scheduleCodes = new HashSet<>();
+    Set<String> classificationIds = new HashSet<>();
+
+    for (IdealStockAmount isa : idealStockAmounts) {
+      addIfMissing(facilityCodes, references.facilities, isa.getFacility().getCode());
+      addIfMissing(scheduleCodes, references.schedules, getScheduleCode(isa));
+      addIfMissing(classificationIds, references.commodityTypes, getCommodityTypeKey(isa),
+          isa.getCommodityType().getClassificationId());
+    }
+
+    if (!facilityCodes.isEmpty()) {
+      facilityRepository.findByCodeIn(facilityCodes)
+          .forEach(facility -> references.facilities.putIfAbsent(facility.getCode(), facility));
+    }
+
+    if (!scheduleCodes.isEmpty()) {
+      processingScheduleRepository.findByCodeIn(scheduleCodes)
+          .forEach(schedule -> references.schedules.putIfAbsent(schedule.getCode().toString(),
+              schedule));
+    }
+
+    if (!classificationIds.isEmpty()) {
+      commodityTypeRepository.findByClassificationIdIn(classificationIds)
+          .forEach(type -> references.commodityTypes.putIfAbsent(getCommodityTypeKey(type), type));
+    }
+
+    // periods are looked up by their schedules, so they can only be resolved after them
+    Set<ProcessingSchedule> schedules = new HashSet<>();
+    Set<String> periodNames = new HashSet<>();
+
+    for (IdealStockAmount isa : idealStockAmounts) {
+      ProcessingSchedule schedule = references.schedules.get(getScheduleCode(isa));
+      if (null != schedule && addIfMissing(periodNames, references.periods, getPeriodKey(isa),
+          isa.getProcessingPeriod().getName())) {
+        schedules.add(schedule);
+      }
+    }
+
+    if (!periodNames.isEmpty()) {
+      processingPeriodRepository.findByProcessingScheduleInAndNameIn(schedules, periodNames)
+          .forEach(period -> references.periods.putIfAbsent(getPeriodKey(period), period));
+    }
+  }
+
+  private IdealStockAmount prepareNewIdealStockAmountObject(IdealStockAmount isa,
+                                                            References references) {
+    Facility facility = Optional
+        .ofNullable(references.facilities.get(isa.getFacility().getCode()))
         .orElseThrow(() -> new ValidationMessageException(new Message(ERROR_FACILITY_NOT_FOUND,
             isa.getFacility().getCode())));
 
-    ProcessingSchedule schedule = processingScheduleRepository
-        .findOneByCode(isa.getProcessingPeriod().getProcessingSchedule().getCode())
-        .orElseThrow(() -> new ValidationMessageException(new Message(
-            ProcessingScheduleMessageKeys.ERROR_NOT_FOUND_WITH_CODE,
-            isa.getProcessingPeriod().getProcessingSchedule().getCode()
-        )));
-    ProcessingPeriod period = processingPeriodRepository.findOneByNameAndProcessingSchedule(
-        isa.getProcessingPeriod().getName(),
-        schedule)
+    if (!references.schedules.containsKey(getScheduleCode(isa))) {
+      throw new ValidationMessageException(new Message(
+          ProcessingScheduleMessageKeys.ERROR_NOT_FOUND_WITH_CODE,
+          isa.getProcessingPeriod().getProcessingSchedule().getCode()
+      ));
+    }
+
+    ProcessingPeriod period = Optional
+        .ofNullable(references.periods.get(getPeriodKey(isa)))
         .orElseThrow(() -> new ValidationMessageException(
             new Message(ERROR_PROCESSING_PERIOD_NOT_FOUND,
             isa.getProcessingPeriod().getName(),
             isa.getProcessingPeriod().getProcessingSchedule().getCode())));
 
-    CommodityType commodityType = commodityTypeRepository
-        .findByClassificationIdAndClassificationSystem(isa.getCommodityType().getClassificationId(),
-            isa.getCommodityType().getClassificationSystem())
+    CommodityType commodityType = Optional
+        .ofNullable(references.commodityTypes.get(getCommodityTypeKey(isa)))
         .orElseThrow(() -> new ValidationMessageException(new Message(
             ERROR_COMMODITY_TYPE_NOT_FOUND,
             isa.getCommodityType().getClassificationId(),
@@ -152,6 +232,41 @@ public class IdealStockAmountProcessor
     return result;
   }
 
+  private static void addIfMissing(Set<String> keys, Map<String, ?> resolved, String key) {
+    addIfMissing(keys, resolved, key, key);
+  }
+
+  private static boolean addIfMissing(Set<String> values, Map<String, ?> resolved, String key,
+                                      String value) {
+    if (resolved.containsKey(key)) {
+      return false;
+    }
+
+    values.add(value);
+    return true;
+  }
+
+  private static String getScheduleCode(IdealStockAmount isa) {
+    return isa.getProcessingPeriod().getProcessingSchedule().getCode().toString();
+  }
+
+  private static String getPeriodKey(IdealStockAmount isa) {
+    return getPeriodKey(isa.getProcessingPeriod());
+  }
+
+  private static String getPeriodKey(ProcessingPeriod period) {
+    return period.getProcessingSchedule().getCode() + KEY_SEPARATOR + period.getName();
+  }
+
+  private static String getCommodityTypeKey(IdealStockAmount isa) {
+    return getCommodityTypeKey(isa.getCommodityType());
+  }
+
+  private static String getCommodityTypeKey(CommodityType commodityType) {
+    return commodityType.getClassificationSystem() + KEY_SEPARATOR
+        + commodityType.getClassificationId();
+  }
+
   private int hash(IdealStockAmount isa) {
     return Objects.hash(isa.getFacility().getCode(),
         isa.getCommodityType().getClassificationId(),
@@ -159,4 +274,15 @@ public class IdealStockAmountProcessor
         isa.getProcessingPeriod().getName(),
         isa.getProcessingPeriod().getProcessingSchedule().getCode());
   }
+
+  /**
+   * Objects referenced by uploaded ideal stock amounts, by their codes. Entries are only ever
+   * added, so chunks processed at the same time can share them.
+   */
+  private static final class References {
+    private final Map<String, Facility> facilities = new ConcurrentHashMap<>();
+    private final Map<String, ProcessingSchedule> schedules = new ConcurrentHashMap<>();
+    private final Map<String, ProcessingPeriod> periods = new ConcurrentHashMap<>();
+    private final Map<String, CommodityType> commodityTypes = new ConcurrentHashMap<>();
+  }
 }
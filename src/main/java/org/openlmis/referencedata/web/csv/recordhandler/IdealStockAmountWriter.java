@@ -19,9 +19,20 @@ import org.openlmis.referencedata.domain.IdealStockAmount;
 import org.openlmis.referencedata.repository.IdealStockAmountRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This class is responsible for saving {@link IdealStockAmount} instances to the database.
+ *
+ * <p>Chunks of an upload are processed independently, so two of them can contain a new ideal
+ * stock amount for the same facility, commodity type and processing period. A writer created with
+ * {@link #newUploadWriter()} keeps the ideal stock amounts written during the upload and merges
+ * such duplicates into the one written first, so they are saved as a single row.
  */
 @Component
 public class IdealStockAmountWriter implements RecordWriter<IdealStockAmount> {
@@ -29,8 +40,42 @@ public class IdealStockAmountWriter implements RecordWriter<IdealStockAmount> {
   @Autowired
   private IdealStockAmountRepository repository;
 
+  /**
+   * Creates a writer for a single upload. It must be used by a single thread, for all chunks of
+   * the upload, in the order of the file.
+   */
+  public RecordWriter<IdealStockAmount> newUploadWriter() {
+    Map<List<Object>, IdealStockAmount> written = new HashMap<>();
+    return records -> write(records, written);
+  }
+
   @Override
   public void write(Iterable<IdealStockAmount> records) {
     repository.save(records);
   }
+
+  private void write(Iterable<IdealStockAmount> records,
+                     Map<List<Object>, IdealStockAmount> written) {
+    Map<List<Object>, IdealStockAmount> chunk = new LinkedHashMap<>();
+
+    for (IdealStockAmount isa : records) {
+      List<Object> key = getKey(isa);
+      IdealStockAmount previous = chunk.getOrDefault(key, written.get(key));
+
+      if (null == previous) {
+        chunk.put(key, isa);
+      } else {
+        previous.setAmount(isa.getAmount());
+        chunk.put(key, previous);
+      }
+    }
+
+    repository.save(new ArrayList<>(chunk.values()));
+    written.putAll(chunk);
+  }
+
+  private static List<Object> getKey(IdealStockAmount isa) {
+    return Arrays.asList(isa.getFacility().getId(), isa.getCommodityType().getId(),
+        isa.getProcessingPeriod().getId());
+  }
 }
@@ -71,6 +71,15 @@ public final class Location extends Resource {
         facility.getDescription(), getStatus(facility));
   }
 
+  /**
+   * Creates new instance of Location that only tells that the location with the given id was
+   * removed.
+   */
+  Location(UUID id, Coding physicalType) {
+    this(id, null, null, null, null, new PhysicalType(physicalType), null, null,
+        Status.INACTIVE.toString());
+  }
+
   private Location(UUID id, List<String> alias, List<Identifier> identifier, String name,
                    Position position, PhysicalType physicalType, Reference partOf,
                    String description, String status) {
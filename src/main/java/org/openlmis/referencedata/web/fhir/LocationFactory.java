@@ -20,6 +20,8 @@ import org.openlmis.referencedata.domain.GeographicZone;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.UUID;
+
 @Component
 public class LocationFactory {
 
@@ -34,4 +36,12 @@ public class LocationFactory {
     return new Location(serviceUrl, facility);
   }
 
+  public Location createForRemovedZone(UUID zoneId) {
+    return new Location(zoneId, Coding.AREA);
+  }
+
+  public Location createForRemovedFacility(UUID facilityId) {
+    return new Location(facilityId, Coding.SITE);
+  }
+
 }
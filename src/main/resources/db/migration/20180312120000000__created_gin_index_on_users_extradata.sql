@@ -0,0 +1 @@
+CREATE INDEX ON users USING gin (extradata jsonb_path_ops);
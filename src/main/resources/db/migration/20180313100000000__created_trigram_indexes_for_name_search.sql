@@ -0,0 +1,15 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX ON facilities USING gin (UPPER(code) gin_trgm_ops);
+CREATE INDEX ON facilities USING gin (UPPER(name) gin_trgm_ops);
+
+CREATE INDEX ON orderables USING gin (UPPER(code) gin_trgm_ops);
+CREATE INDEX ON orderables USING gin (UPPER(fullproductname) gin_trgm_ops);
+
+CREATE INDEX ON supervisory_nodes USING gin (UPPER(code) gin_trgm_ops);
+CREATE INDEX ON supervisory_nodes USING gin (UPPER(name) gin_trgm_ops);
+
+CREATE INDEX ON users USING gin (UPPER(username) gin_trgm_ops);
+CREATE INDEX ON users USING gin (UPPER(firstname) gin_trgm_ops);
+CREATE INDEX ON users USING gin (UPPER(lastname) gin_trgm_ops);
+CREATE INDEX ON users USING gin (UPPER(email) gin_trgm_ops);
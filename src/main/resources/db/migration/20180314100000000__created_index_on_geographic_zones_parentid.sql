@@ -0,0 +1 @@
+CREATE INDEX ON geographic_zones (parentid);
@@ -0,0 +1,8 @@
+CREATE TABLE audit_log_outbox (
+    id bigserial PRIMARY KEY,
+    entitytype text NOT NULL,
+    entityid uuid NOT NULL,
+    author text,
+    deleted boolean NOT NULL DEFAULT FALSE,
+    createddate timestamp with time zone NOT NULL DEFAULT NOW()
+);
@@ -1,24 +1,27 @@
 -- This SQL query is necessary in order to conceptually separate out the recursion involved in 
--- getting all supervised facilities, direct and indirect, under a supervisory node.
+-- getting all supervised facilities, direct and indirect, under supervisory nodes.
 --
--- The recursive CTE supervisory_nodes_recursive returns a list of all supervisory node IDs that 
--- are descendants of the supervisory node ID specified. That list is then fed to the query below
--- to expand each supervisory node ID into a list of facility IDs (based on the specified program
--- ID), then merged into a distinct list.
+-- The recursive CTE supervisory_nodes_recursive returns, for each of the given supervisory node
+-- IDs, a list of all supervisory node IDs that are its descendants (including itself). That list
+-- is then fed to the query below to expand each supervisory node ID into a list of facility IDs
+-- per program, so the whole expansion is done in a single query instead of one query for each
+-- supervisory node and program.
 --
--- Input: supervisory node ID and program ID
--- Output: a list of all supervised facility IDs
+-- Input: array of supervisory node IDs
+-- Output: supervisory node ID, program ID and supervised facility ID
 WITH RECURSIVE supervisory_nodes_recursive AS
 (
-  SELECT sn.id
+  SELECT sn.id AS rootid, sn.id
   FROM referencedata.supervisory_nodes sn
-  WHERE sn.id = ?
-  UNION ALL
-  SELECT sn.id
+  WHERE sn.id = ANY(CAST(? AS uuid[]))
+  UNION
+  SELECT supervisory_nodes_recursive.rootid, sn.id
   FROM supervisory_nodes_recursive
   JOIN referencedata.supervisory_nodes sn ON supervisory_nodes_recursive.id = sn.parentid
 )
-SELECT DISTINCT rgm.facilityid
+SELECT DISTINCT supervisory_nodes_recursive.rootid AS supervisorynodeid
+  , rgps.programid
+  , rgm.facilityid
 FROM supervisory_nodes_recursive
   JOIN referencedata.requisition_groups rg ON rg.supervisorynodeid = supervisory_nodes_recursive.id
   JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id
@@ -26,5 +29,4 @@ FROM supervisory_nodes_recursive
   JOIN referencedata.supported_programs sp ON sp.facilityid = rgm.facilityid
     AND sp.programid = rgps.programid
     AND sp.active = TRUE
-WHERE rgps.programid = ?
-;
\ No newline at end of file
+;
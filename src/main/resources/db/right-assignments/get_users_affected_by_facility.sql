@@ -0,0 +1,35 @@
+-- Returns all users whose right assignments depend on the given facility:
+--  * users with a supervision role assignment at any supervisory node (or its ancestor) whose
+--    requisition group contains the facility,
+--  * users with a fulfillment role assignment at the facility,
+--  * users with a home facility supervision role assignment and the facility as home facility.
+--
+-- Input: facility ID (three times)
+-- Output: a list of user IDs
+WITH RECURSIVE supervisory_node_ancestors AS
+(
+  SELECT sn.id, sn.parentid
+  FROM referencedata.supervisory_nodes sn
+    JOIN referencedata.requisition_groups rg ON rg.supervisorynodeid = sn.id
+    JOIN referencedata.requisition_group_members rgm ON rgm.requisitiongroupid = rg.id
+  WHERE rgm.facilityid = ?
+  UNION
+  SELECT sn.id, sn.parentid
+  FROM supervisory_node_ancestors
+  JOIN referencedata.supervisory_nodes sn ON sn.id = supervisory_node_ancestors.parentid
+)
+SELECT ra.userid
+FROM supervisory_node_ancestors
+  JOIN referencedata.role_assignments ra ON ra.supervisorynodeid = supervisory_node_ancestors.id
+UNION
+SELECT ra.userid
+FROM referencedata.role_assignments ra
+WHERE ra.warehouseid = ?
+UNION
+SELECT ra.userid
+FROM referencedata.role_assignments ra
+  JOIN referencedata.users u ON u.id = ra.userid
+WHERE u.homefacilityid = ?
+  AND ra.programid IS NOT NULL
+  AND ra.supervisorynodeid IS NULL
+;
@@ -0,0 +1,21 @@
+-- Returns all users whose right assignments depend on the given requisition group, that is users
+-- with a supervision role assignment at the supervisory node of the group or at any of its
+-- ancestors.
+--
+-- Input: requisition group ID
+-- Output: a list of user IDs
+WITH RECURSIVE supervisory_node_ancestors AS
+(
+  SELECT sn.id, sn.parentid
+  FROM referencedata.supervisory_nodes sn
+    JOIN referencedata.requisition_groups rg ON rg.supervisorynodeid = sn.id
+  WHERE rg.id = ?
+  UNION
+  SELECT sn.id, sn.parentid
+  FROM supervisory_node_ancestors
+  JOIN referencedata.supervisory_nodes sn ON sn.id = supervisory_node_ancestors.parentid
+)
+SELECT DISTINCT ra.userid
+FROM supervisory_node_ancestors
+  JOIN referencedata.role_assignments ra ON ra.supervisorynodeid = supervisory_node_ancestors.id
+;
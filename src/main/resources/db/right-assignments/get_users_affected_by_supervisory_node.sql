@@ -0,0 +1,20 @@
+-- Returns all users whose right assignments depend on the given supervisory node, that is users
+-- with a supervision role assignment at the node itself or at any of its ancestors (those nodes
+-- supervise the facilities of the given node as well).
+--
+-- Input: supervisory node ID
+-- Output: a list of user IDs
+WITH RECURSIVE supervisory_node_ancestors AS
+(
+  SELECT sn.id, sn.parentid
+  FROM referencedata.supervisory_nodes sn
+  WHERE sn.id = ?
+  UNION
+  SELECT sn.id, sn.parentid
+  FROM supervisory_node_ancestors
+  JOIN referencedata.supervisory_nodes sn ON sn.id = supervisory_node_ancestors.parentid
+)
+SELECT DISTINCT ra.userid
+FROM supervisory_node_ancestors
+  JOIN referencedata.role_assignments ra ON ra.supervisorynodeid = supervisory_node_ancestors.id
+;
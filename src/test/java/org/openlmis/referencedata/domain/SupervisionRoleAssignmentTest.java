@@ -20,6 +20,12 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.openlmis.referencedata.domain.RightType.SUPERVISION;
 
 import com.google.common.collect.Sets;
@@ -29,6 +35,7 @@ import org.openlmis.referencedata.testbuilder.SupervisoryNodeDataBuilder;
 import org.openlmis.referencedata.testbuilder.SupportedProgramDataBuilder;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
@@ -62,22 +69,8 @@ public class SupervisionRoleAssignmentTest {
 
     homeFacilityRoleAssignment = new SupervisionRoleAssignment(role, user, program);
 
-    supervisoryNode = new SupervisoryNodeDataBuilder().build();
-    RequisitionGroup requisitionGroup = new RequisitionGroup("RG1", "RGN1", supervisoryNode);
-    supervisedFacility = new Facility("F2");
-    SupportedProgram supportedProgram = new SupportedProgramDataBuilder()
-        .withFacility(supervisedFacility)
-        .withProgram(program)
-        .build();
-    supervisedFacility.setSupportedPrograms(Sets.newHashSet(supportedProgram));
-    requisitionGroup.setMemberFacilities(Sets.newHashSet(supervisedFacility));
-    ProcessingSchedule processingSchedule = new ProcessingSchedule(Code.code("PS1"), "Schedule1");
-    RequisitionGroupProgramSchedule requisitionGroupProgramSchedule =
-        RequisitionGroupProgramSchedule.newRequisitionGroupProgramSchedule(
-            requisitionGroup, program, processingSchedule, false);
-    requisitionGroup.setRequisitionGroupProgramSchedules(
-        Collections.singletonList(requisitionGroupProgramSchedule));
-    supervisoryNode.setRequisitionGroup(requisitionGroup);
+    supervisedFacility = newSupervisedFacility("F2");
+    supervisoryNode = newSupervisoryNode(Sets.newHashSet(supervisedFacility));
     supervisedRoleAssignment = new SupervisionRoleAssignment(role, user, program, supervisoryNode);
   }
 
@@ -181,4 +174,59 @@ public class SupervisionRoleAssignmentTest {
     //then
     assertThat(supervisedFacilities.size(), is(0));
   }
+
+  @Test
+  public void shouldGetAllFacilitiesSupervisedByNodeWithSingleWalk() {
+    Set<Facility> memberFacilities = new HashSet<>();
+    for (int i = 0; i < 100; ++i) {
+      memberFacilities.add(newSupervisedFacility("F3_" + i));
+    }
+
+    SupervisoryNode node = spy(newSupervisoryNode(memberFacilities));
+    SupervisionRoleAssignment roleAssignment =
+        new SupervisionRoleAssignment(role, user, program, node);
+    reset(node);
+
+    Set<Facility> supervisedFacilities = roleAssignment.getSupervisedFacilities(right, program);
+
+    assertEquals(memberFacilities, supervisedFacilities);
+    verify(node, times(1)).getAllSupervisedFacilities(program);
+  }
+
+  @Test
+  public void shouldNotWalkSupervisedNodesWhenRightOrProgramDoesNotMatch() {
+    SupervisoryNode node = spy(newSupervisoryNode(Sets.newHashSet(newSupervisedFacility("F3"))));
+    SupervisionRoleAssignment roleAssignment =
+        new SupervisionRoleAssignment(role, user, program, node);
+    reset(node);
+
+    roleAssignment.getSupervisedFacilities(Right.newRight("otherRight", SUPERVISION), program);
+    roleAssignment.getSupervisedFacilities(right, new Program("otherProgram"));
+
+    verify(node, never()).getAllSupervisedFacilities(any(Program.class));
+  }
+
+  private Facility newSupervisedFacility(String code) {
+    Facility facility = new Facility(code);
+    SupportedProgram supportedProgram = new SupportedProgramDataBuilder()
+        .withFacility(facility)
+        .withProgram(program)
+        .build();
+    facility.setSupportedPrograms(Sets.newHashSet(supportedProgram));
+    return facility;
+  }
+
+  private SupervisoryNode newSupervisoryNode(Set<Facility> memberFacilities) {
+    SupervisoryNode node = new SupervisoryNodeDataBuilder().build();
+    RequisitionGroup requisitionGroup = new RequisitionGroup("RG1", "RGN1", node);
+    requisitionGroup.setMemberFacilities(memberFacilities);
+    ProcessingSchedule processingSchedule = new ProcessingSchedule(Code.code("PS1"), "Schedule1");
+    RequisitionGroupProgramSchedule requisitionGroupProgramSchedule =
+        RequisitionGroupProgramSchedule.newRequisitionGroupProgramSchedule(
+            requisitionGroup, program, processingSchedule, false);
+    requisitionGroup.setRequisitionGroupProgramSchedules(
+        Collections.singletonList(requisitionGroupProgramSchedule));
+    node.setRequisitionGroup(requisitionGroup);
+    return node;
+  }
 }
@@ -0,0 +1,258 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.security;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.springframework.security.oauth2.common.exceptions.InvalidTokenException;
+import org.springframework.security.oauth2.provider.OAuth2Authentication;
+import org.springframework.security.oauth2.provider.token.DefaultAccessTokenConverter;
+import org.springframework.security.oauth2.provider.token.RemoteTokenServices;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class CachingResourceServerTokenServicesTest {
+
+  private static final String CHECK_TOKEN_URL = "/api/oauth/check_token";
+  private static final String TOKEN = "418c89c5-7f21-4cd1-a63a-38c47892b0fe";
+  private static final String OTHER_TOKEN = "6d6896a5-a94c-4fbb-a2a7-2e9ec4ea1b4f";
+  private static final String TOKEN_PARAM = "token=";
+  private static final long TIME_TO_LIVE = 60000;
+
+  @Rule
+  public WireMockRule authServer = new WireMockRule(wireMockConfig().dynamicPort());
+
+  private MutableClock clock = new MutableClock(Instant.ofEpochSecond(1500000000));
+  private CachingResourceServerTokenServices tokenServices;
+
+  @Before
+  public void setUp() {
+    mockCheckToken(TOKEN, clock.instant().getEpochSecond() + 3600);
+    mockCheckToken(OTHER_TOKEN, clock.instant().getEpochSecond() + 3600);
+    tokenServices = createTokenServices(10);
+  }
+
+  @Test
+  public void shouldCheckTokenOnlyOnceWithinTimeToLive() {
+    tokenServices.loadAuthentication(TOKEN);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verifyTokenChecked(TOKEN, 1);
+    assertEquals(1, tokenServices.getHits());
+    assertEquals(1, tokenServices.getMisses());
+  }
+
+  @Test
+  public void shouldCheckTokenAgainAfterTimeToLive() {
+    tokenServices.loadAuthentication(TOKEN);
+    clock.advance(TIME_TO_LIVE);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verifyTokenChecked(TOKEN, 2);
+  }
+
+  @Test
+  public void shouldNotCacheAuthenticationPastTokenExpiration() {
+    mockCheckToken(TOKEN, clock.instant().getEpochSecond() + 10);
+
+    tokenServices.loadAuthentication(TOKEN);
+    clock.advance(9000);
+    tokenServices.loadAuthentication(TOKEN);
+    clock.advance(1000);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verifyTokenChecked(TOKEN, 2);
+  }
+
+  @Test
+  public void shouldNotCacheInvalidTokens() {
+    authServer.stubFor(post(urlEqualTo(CHECK_TOKEN_URL))
+        .withRequestBody(equalTo(TOKEN_PARAM + TOKEN))
+        .willReturn(aResponse()
+            .withStatus(400)
+            .withHeader("Content-Type", "application/json")
+            .withBody("{\"error\": \"invalid_token\"}")));
+
+    int failures = 0;
+    for (int i = 0; i < 2; ++i) {
+      try {
+        tokenServices.loadAuthentication(TOKEN);
+      } catch (InvalidTokenException ex) {
+        failures++;
+      }
+    }
+
+    assertEquals(2, failures);
+    verifyTokenChecked(TOKEN, 2);
+    assertEquals(0, tokenServices.size());
+  }
+
+  @Test
+  public void shouldReturnSeparateAuthenticationToEachCaller() {
+    OAuth2Authentication first = tokenServices.loadAuthentication(TOKEN);
+    OAuth2Authentication second = tokenServices.loadAuthentication(TOKEN);
+
+    assertNotSame(first, second);
+    assertEquals(first.getPrincipal(), second.getPrincipal());
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedAuthentications() {
+    tokenServices = createTokenServices(1);
+
+    tokenServices.loadAuthentication(TOKEN);
+    tokenServices.loadAuthentication(OTHER_TOKEN);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verifyTokenChecked(TOKEN, 2);
+    verifyTokenChecked(OTHER_TOKEN, 1);
+    assertEquals(1, tokenServices.size());
+  }
+
+  @Test
+  public void shouldCheckTokenOnceForConcurrentRequests() throws Exception {
+    authServer.stubFor(post(urlEqualTo(CHECK_TOKEN_URL))
+        .withRequestBody(equalTo(TOKEN_PARAM + TOKEN))
+        .willReturn(aResponse()
+            .withFixedDelay(500)
+            .withHeader("Content-Type", "application/json")
+            .withBody(checkTokenResult(clock.instant().getEpochSecond() + 3600))));
+
+    int threads = 5;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<OAuth2Authentication>> results = new ArrayList<>();
+    for (int i = 0; i < threads; ++i) {
+      results.add(executor.submit(() -> {
+        start.await();
+        return tokenServices.loadAuthentication(TOKEN);
+      }));
+    }
+
+    start.countDown();
+    for (Future<OAuth2Authentication> result : results) {
+      result.get(10, TimeUnit.SECONDS);
+    }
+    executor.shutdown();
+
+    verifyTokenChecked(TOKEN, 1);
+    assertEquals(1, tokenServices.getMisses());
+    assertEquals(threads - 1, tokenServices.getHits() + tokenServices.getCoalesced());
+  }
+
+  @Test
+  public void shouldNotCacheIfTimeToLiveIsNotPositive() {
+    tokenServices = new CachingResourceServerTokenServices(createRemoteTokenServices(), 0, 10,
+        clock);
+
+    tokenServices.loadAuthentication(TOKEN);
+    tokenServices.loadAuthentication(TOKEN);
+
+    verifyTokenChecked(TOKEN, 2);
+  }
+
+  private CachingResourceServerTokenServices createTokenServices(int maxSize) {
+    return new CachingResourceServerTokenServices(createRemoteTokenServices(), TIME_TO_LIVE,
+        maxSize, clock);
+  }
+
+  private RemoteTokenServices createRemoteTokenServices() {
+    DefaultAccessTokenConverter accessTokenConverter = new ExpiringAccessTokenConverter();
+    accessTokenConverter.setUserTokenConverter(new CustomUserAuthenticationConverter());
+
+    RemoteTokenServices remoteTokenServices = new RemoteTokenServices();
+    remoteTokenServices.setCheckTokenEndpointUrl("http://localhost:" + authServer.port()
+        + CHECK_TOKEN_URL);
+    remoteTokenServices.setClientId("trusted-client");
+    remoteTokenServices.setClientSecret("secret");
+    remoteTokenServices.setAccessTokenConverter(accessTokenConverter);
+    return remoteTokenServices;
+  }
+
+  private void mockCheckToken(String token, long expiration) {
+    authServer.stubFor(post(urlEqualTo(CHECK_TOKEN_URL))
+        .withRequestBody(equalTo(TOKEN_PARAM + token))
+        .willReturn(aResponse()
+            .withHeader("Content-Type", "application/json")
+            .withBody(checkTokenResult(expiration))));
+  }
+
+  private String checkTokenResult(long expiration) {
+    return "{"
+        + "\"aud\": [\"referencedata\"],"
+        + "\"user_name\": \"admin\","
+        + "\"referenceDataUserId\": \"" + UUID.randomUUID() + "\","
+        + "\"scope\": [\"read\", \"write\"],"
+        + "\"exp\": " + expiration + ","
+        + "\"authorities\": [\"USER\"],"
+        + "\"client_id\": \"user-client\""
+        + "}";
+  }
+
+  private void verifyTokenChecked(String token, int times) {
+    authServer.verify(times, postRequestedFor(urlEqualTo(CHECK_TOKEN_URL))
+        .withRequestBody(equalTo(TOKEN_PARAM + token)));
+  }
+
+  private static final class MutableClock extends Clock {
+    private Instant instant;
+
+    MutableClock(Instant instant) {
+      this.instant = instant;
+    }
+
+    void advance(long millis) {
+      instant = instant.plusMillis(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import org.joda.money.CurrencyUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Code;
+import org.openlmis.referencedata.domain.FacilityTypeApprovedProduct;
+import org.openlmis.referencedata.domain.Orderable;
+import org.openlmis.referencedata.domain.OrderableDisplayCategory;
+import org.openlmis.referencedata.domain.OrderedDisplayValue;
+import org.openlmis.referencedata.domain.Program;
+import org.openlmis.referencedata.domain.ProgramOrderable;
+import org.openlmis.referencedata.dto.ApprovedProductDto;
+import org.openlmis.referencedata.repository.FacilityTypeApprovedProductRepository;
+import org.openlmis.referencedata.service.ApprovedProductCatalog.Catalog;
+import org.openlmis.referencedata.testbuilder.FacilityTypeApprovedProductsDataBuilder;
+import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
+import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class ApprovedProductCatalogTest {
+
+  @Mock
+  private FacilityTypeApprovedProductRepository facilityTypeApprovedProductRepository;
+
+  @InjectMocks
+  private ApprovedProductCatalog approvedProductCatalog;
+
+  private UUID facilityTypeId = UUID.randomUUID();
+  private Program program = new ProgramDataBuilder().build();
+  private Program otherProgram = new ProgramDataBuilder().build();
+  private OrderableDisplayCategory category = OrderableDisplayCategory.createNew(
+      Code.code("C1"), new OrderedDisplayValue("Category", 1));
+
+  private FacilityTypeApprovedProduct fullSupply;
+  private FacilityTypeApprovedProduct nonFullSupply;
+  private FacilityTypeApprovedProduct otherProgramProduct;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(approvedProductCatalog, "maxAge", 60000L);
+
+    fullSupply = newApprovedProduct(program, true);
+    nonFullSupply = newApprovedProduct(program, false);
+    otherProgramProduct = newApprovedProduct(otherProgram, true);
+
+    when(facilityTypeApprovedProductRepository.findActiveByFacilityTypeId(facilityTypeId))
+        .thenReturn(Arrays.asList(fullSupply, nonFullSupply, otherProgramProduct));
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldLoadCatalogOnlyOnce() {
+    Catalog first = approvedProductCatalog.get(facilityTypeId);
+    Catalog second = approvedProductCatalog.get(facilityTypeId);
+
+    assertSame(first, second);
+    assertEquals(3, first.size());
+    verify(facilityTypeApprovedProductRepository, times(1))
+        .findActiveByFacilityTypeId(facilityTypeId);
+  }
+
+  @Test
+  public void shouldKeepCatalogOrder() {
+    List<ApprovedProductDto> products = approvedProductCatalog.get(facilityTypeId)
+        .getProducts(null, null, null);
+
+    assertIds(products, fullSupply, nonFullSupply, otherProgramProduct);
+  }
+
+  @Test
+  public void shouldFilterByProgram() {
+    List<ApprovedProductDto> products = approvedProductCatalog.get(facilityTypeId)
+        .getProducts(otherProgram.getId(), null, null);
+
+    assertIds(products, otherProgramProduct);
+  }
+
+  @Test
+  public void shouldFilterByFullSupply() {
+    Catalog catalog = approvedProductCatalog.get(facilityTypeId);
+
+    assertIds(catalog.getProducts(program.getId(), true, null), fullSupply);
+    assertIds(catalog.getProducts(program.getId(), false, null), nonFullSupply);
+  }
+
+  @Test
+  public void shouldFilterByOrderables() {
+    List<ApprovedProductDto> products = approvedProductCatalog.get(facilityTypeId)
+        .getProducts(null, null, Arrays.asList(nonFullSupply.getOrderable().getId(),
+            UUID.randomUUID()));
+
+    assertIds(products, nonFullSupply);
+  }
+
+  @Test
+  public void shouldReloadCatalogAfterInvalidation() {
+    Catalog first = approvedProductCatalog.get(facilityTypeId);
+    when(facilityTypeApprovedProductRepository.findActiveByFacilityTypeId(facilityTypeId))
+        .thenReturn(Collections.singletonList(fullSupply));
+
+    approvedProductCatalog.invalidate();
+    Catalog second = approvedProductCatalog.get(facilityTypeId);
+
+    assertEquals(1, second.size());
+    assertNotEquals(first.getEtag(), second.getEtag());
+    verify(facilityTypeApprovedProductRepository, times(2))
+        .findActiveByFacilityTypeId(facilityTypeId);
+  }
+
+  @Test
+  public void shouldReloadExpiredCatalog() {
+    ReflectionTestUtils.setField(approvedProductCatalog, "maxAge", 0L);
+
+    approvedProductCatalog.get(facilityTypeId);
+    approvedProductCatalog.get(facilityTypeId);
+
+    verify(facilityTypeApprovedProductRepository, times(2))
+        .findActiveByFacilityTypeId(facilityTypeId);
+  }
+
+  @Test
+  public void shouldKeepEtagIfApprovedProductsDidNotChange() {
+    Catalog first = approvedProductCatalog.get(facilityTypeId);
+
+    approvedProductCatalog.invalidate();
+    Catalog second = approvedProductCatalog.get(facilityTypeId);
+
+    assertEquals(first.getEtag(), second.getEtag());
+  }
+
+  @Test
+  public void shouldChangeEtagIfApprovedProductChanged() {
+    Catalog first = approvedProductCatalog.get(facilityTypeId);
+
+    fullSupply.setMaxPeriodsOfStock(5.0);
+    approvedProductCatalog.invalidate();
+    Catalog second = approvedProductCatalog.get(facilityTypeId);
+
+    assertNotEquals(first.getEtag(), second.getEtag());
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+    long generation = approvedProductCatalog.getGeneration();
+
+    approvedProductCatalog.invalidateAfterCommit();
+    assertEquals(generation, approvedProductCatalog.getGeneration());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertEquals(generation + 1, approvedProductCatalog.getGeneration());
+  }
+
+  @Test
+  public void shouldInvalidateRightAwayWithoutTransaction() {
+    long generation = approvedProductCatalog.getGeneration();
+
+    approvedProductCatalog.invalidateAfterCommit();
+
+    assertEquals(generation + 1, approvedProductCatalog.getGeneration());
+  }
+
+  private FacilityTypeApprovedProduct newApprovedProduct(Program program, boolean fullSupply) {
+    Orderable orderable = new OrderableDataBuilder().build();
+    orderable.setProgramOrderables(Sets.newHashSet(ProgramOrderable.createNew(program, category,
+        orderable, null, true, fullSupply, 0, null, CurrencyUnit.USD)));
+
+    return new FacilityTypeApprovedProductsDataBuilder()
+        .withOrderable(orderable)
+        .withProgram(program)
+        .build();
+  }
+
+  private void assertIds(List<ApprovedProductDto> products,
+                         FacilityTypeApprovedProduct... expected) {
+    assertEquals(expected.length, products.size());
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(expected[i].getId(), products.get(i).getId());
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.javers.core.Javers;
+import org.javers.repository.jql.GlobalIdDTO;
+import org.javers.repository.jql.JqlQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openlmis.referencedata.domain.Facility;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import javax.persistence.EntityManager;
+
+public class AuditLogOutboxTest {
+
+  private static final String AUTHOR = "admin";
+
+  private Javers javers = mock(Javers.class);
+  private JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+  private PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+  private EntityManager entityManager = mock(EntityManager.class);
+  private AuditLogOutbox auditLogOutbox = new AuditLogOutbox();
+
+  private Facility facility = new Facility(UUID.randomUUID());
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(auditLogOutbox, "jdbcTemplate", jdbcTemplate);
+    ReflectionTestUtils.setField(auditLogOutbox, "transactionManager", transactionManager);
+    ReflectionTestUtils.setField(auditLogOutbox, "entityManager", entityManager);
+    ReflectionTestUtils.setField(auditLogOutbox, "enabled", true);
+    ReflectionTestUtils.setField(auditLogOutbox, "batchSize", 10);
+
+    when(transactionManager.getTransaction(any(TransactionDefinition.class)))
+        .thenReturn(mock(TransactionStatus.class));
+    when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyVararg()))
+        .thenReturn(true);
+  }
+
+  @Test
+  public void shouldRecordCommitsOfEntitiesInOutbox() {
+    Javers decorated = auditLogOutbox.decorate(javers);
+
+    decorated.commit(AUTHOR, facility);
+    decorated.commitShallowDelete(AUTHOR, facility);
+
+    verify(jdbcTemplate).update(anyString(), eq(Facility.class.getName()), eq(facility.getId()),
+        eq(AUTHOR), eq(false));
+    verify(jdbcTemplate).update(anyString(), eq(Facility.class.getName()), eq(facility.getId()),
+        eq(AUTHOR), eq(true));
+    verify(javers, never()).commit(anyString(), any());
+    verify(javers, never()).commitShallowDelete(anyString(), any());
+  }
+
+  @Test
+  public void shouldPassQueriesToDelegateInTransaction() {
+    JqlQuery query = mock(JqlQuery.class);
+    when(javers.findSnapshots(query)).thenReturn(Collections.emptyList());
+
+    auditLogOutbox.decorate(javers).findSnapshots(query);
+
+    verify(javers).findSnapshots(query);
+    verify(transactionManager).getTransaction(any(TransactionDefinition.class));
+  }
+
+  @Test
+  public void shouldCommitLatestStateOfEntityOnce() throws SQLException {
+    auditLogOutbox.decorate(javers);
+    mockBatch(row(1, false), row(2, false));
+    when(entityManager.find(Facility.class, facility.getId())).thenReturn(facility);
+
+    int processed = auditLogOutbox.processBatch();
+
+    assertEquals(2, processed);
+    verify(javers, times(1)).commit(AUTHOR, facility);
+    verifyRowsDeleted(2);
+  }
+
+  @Test
+  public void shouldLeaveEntriesOfEntityTakenByAnotherWorker() throws SQLException {
+    auditLogOutbox.decorate(javers);
+    mockBatch(row(1, false), row(2, false));
+    when(jdbcTemplate.queryForObject(anyString(), eq(Boolean.class), anyVararg()))
+        .thenReturn(false);
+
+    int processed = auditLogOutbox.processBatch();
+
+    assertEquals(0, processed);
+    verify(javers, never()).commit(anyString(), any());
+    verifyRowsDeleted(0);
+  }
+
+  @Test
+  public void shouldNotDeleteEntityUnknownToJavers() throws SQLException {
+    auditLogOutbox.decorate(javers);
+    mockBatch(row(1, true));
+    when(javers.findSnapshots(any(JqlQuery.class))).thenReturn(Collections.emptyList());
+
+    auditLogOutbox.processBatch();
+
+    verify(javers, never()).commitShallowDeleteById(anyString(), any(GlobalIdDTO.class));
+    verifyRowsDeleted(1);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockBatch(ResultSet... rows) {
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class), anyInt())).then(invocation -> {
+      RowMapper<?> mapper = (RowMapper<?>) invocation.getArguments()[1];
+      List<Object> entries = new ArrayList<>();
+      for (int i = 0; i < rows.length; ++i) {
+        entries.add(mapper.mapRow(rows[i], i));
+      }
+      return entries;
+    });
+  }
+
+  private ResultSet row(long id, boolean deleted) throws SQLException {
+    ResultSet row = mock(ResultSet.class);
+    when(row.getLong("id")).thenReturn(id);
+    when(row.getString("entitytype")).thenReturn(Facility.class.getName());
+    when(row.getObject("entityid")).thenReturn(facility.getId());
+    when(row.getString("author")).thenReturn(AUTHOR);
+    when(row.getBoolean("deleted")).thenReturn(deleted);
+    return row;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void verifyRowsDeleted(int count) {
+    ArgumentCaptor<List> deleted = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(anyString(), (List<Object[]>) deleted.capture());
+    assertEquals(count, deleted.getValue().size());
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.javers.core.Javers;
+import org.javers.core.commit.CommitId;
+import org.javers.core.json.JsonConverter;
+import org.javers.repository.jql.JqlQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.Facility;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+public class AuditLogServiceTest {
+
+  private static final String AUDIT_LOG = "[]";
+
+  private Javers javers = mock(Javers.class);
+  private JsonConverter jsonConverter = mock(JsonConverter.class);
+  private AuditLogService auditLogService;
+
+  private UUID id = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    AuditLogService service = new AuditLogService();
+    ReflectionTestUtils.setField(service, "javers", javers);
+    ReflectionTestUtils.setField(service, "maxSize", 2);
+    service.init();
+
+    auditLogService = spy(service);
+    doReturn(new CommitId(1, 0)).when(auditLogService).getHeadId();
+
+    when(javers.getJsonConverter()).thenReturn(jsonConverter);
+    when(jsonConverter.toJson(any())).thenReturn(AUDIT_LOG);
+  }
+
+  @Test
+  public void shouldReadAuditLogOnlyOnceWhileThereAreNoNewCommits() {
+    String first = getAuditLog(0);
+    String second = getAuditLog(0);
+
+    assertEquals(AUDIT_LOG, first);
+    assertEquals(AUDIT_LOG, second);
+    verify(javers, times(1)).findChanges(any(JqlQuery.class));
+  }
+
+  @Test
+  public void shouldReadAuditLogAgainAfterNewCommit() {
+    getAuditLog(0);
+    doReturn(new CommitId(2, 0)).when(auditLogService).getHeadId();
+    getAuditLog(0);
+
+    verify(javers, times(2)).findChanges(any(JqlQuery.class));
+  }
+
+  @Test
+  public void shouldCacheEachPageSeparately() {
+    getAuditLog(0);
+    getAuditLog(1);
+    getAuditLog(1);
+
+    verify(javers, times(2)).findChanges(any(JqlQuery.class));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedAuditLogs() {
+    getAuditLog(0);
+    getAuditLog(1);
+    getAuditLog(2);
+
+    assertEquals(2, auditLogService.getCacheSize());
+
+    getAuditLog(0);
+    verify(javers, times(4)).findChanges(any(JqlQuery.class));
+  }
+
+  private String getAuditLog(int page) {
+    return auditLogService.getAuditLog(Facility.class, id, null, null,
+        new PageRequest(page, 10), true);
+  }
+}
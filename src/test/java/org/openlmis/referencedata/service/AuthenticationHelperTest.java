@@ -0,0 +1,124 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.User;
+import org.openlmis.referencedata.exception.NotFoundException;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AuthenticationHelperTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private UserExistenceCache userExistenceCache;
+
+  @InjectMocks
+  private AuthenticationHelper authenticationHelper;
+
+  private UUID userId = UUID.randomUUID();
+  private User user;
+
+  @Before
+  public void setUp() {
+    Authentication authentication = mock(Authentication.class);
+    when(authentication.getPrincipal()).thenReturn(userId);
+
+    SecurityContext securityContext = mock(SecurityContext.class);
+    when(securityContext.getAuthentication()).thenReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+
+    user = mock(User.class);
+    when(user.getId()).thenReturn(userId);
+  }
+
+  @After
+  public void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void shouldLoadCurrentUserOncePerRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+    when(userRepository.findOne(userId)).thenReturn(user);
+
+    User first = authenticationHelper.getCurrentUser();
+    User second = authenticationHelper.getCurrentUser();
+
+    assertSame(user, first);
+    assertSame(user, second);
+    verify(userRepository, times(1)).findOne(userId);
+  }
+
+  @Test
+  public void shouldLoadCurrentUserEveryTimeOutsideOfRequest() {
+    when(userRepository.findOne(userId)).thenReturn(user);
+
+    authenticationHelper.getCurrentUser();
+    authenticationHelper.getCurrentUser();
+
+    verify(userRepository, times(2)).findOne(userId);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void shouldThrowExceptionIfCurrentUserDoesNotExist() {
+    when(userRepository.findOne(userId)).thenReturn(null);
+
+    authenticationHelper.getCurrentUser();
+  }
+
+  @Test
+  public void shouldGetCurrentUserIdWithoutLoadingUser() {
+    when(userExistenceCache.exists(userId)).thenReturn(true);
+
+    assertEquals(userId, authenticationHelper.getCurrentUserId());
+    verifyZeroInteractions(userRepository);
+  }
+
+  @Test(expected = NotFoundException.class)
+  public void shouldThrowExceptionIfCurrentUserIdDoesNotExist() {
+    when(userExistenceCache.exists(userId)).thenReturn(false);
+
+    authenticationHelper.getCurrentUserId();
+  }
+}
@@ -38,6 +38,11 @@ import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.FacilityRepository;
 import org.openlmis.referencedata.repository.FacilityTypeRepository;
 import org.openlmis.referencedata.repository.GeographicZoneRepository;
+import org.openlmis.referencedata.util.KeysetPageRequest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 
@@ -278,6 +283,56 @@ public class FacilityServiceTest {
     assertThat(actual, hasItem(facility2));
   }
 
+  @Test
+  public void shouldReturnPageOfAllElementsIfNoSearchCriteriaProvided() {
+    Pageable pageable = new PageRequest(0, 1);
+    Page<Facility> page = new PageImpl<>(Lists.newArrayList(facility), pageable, 2);
+    when(facilityRepository.findAll(pageable)).thenReturn(page);
+
+    Page<Facility> actual = facilityService.searchFacilities(new HashMap<>(), pageable);
+
+    verify(facilityRepository).findAll(pageable);
+    assertEquals(page, actual);
+  }
+
+  @Test
+  public void shouldSearchForPageOfFacilities() {
+    Pageable pageable = new PageRequest(1, 1);
+    Page<Facility> page = new PageImpl<>(Lists.newArrayList(facility2), pageable, 2);
+
+    when(geographicZoneRepository.exists(parentId)).thenReturn(true);
+    when(facilityTypeRepository.existsByCode(FACILITY_TYPE)).thenReturn(true);
+    when(facilityRepository
+        .search(FACILITY_CODE, FACILITY_NAME, of(parentId), FACILITY_TYPE, null, pageable))
+        .thenReturn(page);
+
+    Map<String, Object> params = new HashMap<>();
+    params.put(CODE, FACILITY_CODE);
+    params.put(NAME, FACILITY_NAME);
+    params.put(FACILITY_TYPE_CODE, FACILITY_TYPE);
+    params.put(ZONE_ID, parentId);
+
+    Page<Facility> actual = facilityService.searchFacilities(params, pageable);
+
+    verify(facilityRepository)
+        .search(FACILITY_CODE, FACILITY_NAME, of(parentId), FACILITY_TYPE, null, pageable);
+    verifyNoMoreInteractions(facilityRepository);
+    assertEquals(page, actual);
+  }
+
+  @Test
+  public void shouldSearchForAllFacilitiesWithKeysetPagination() {
+    Pageable pageable = new KeysetPageRequest(1, facility1Id);
+    Page<Facility> page = new PageImpl<>(Lists.newArrayList(facility2), pageable, 1);
+    when(facilityRepository.search(null, null, null, null, null, pageable)).thenReturn(page);
+
+    Page<Facility> actual = facilityService.searchFacilities(new HashMap<>(), pageable);
+
+    verify(facilityRepository).search(null, null, null, null, null, pageable);
+    verifyNoMoreInteractions(facilityRepository);
+    assertEquals(page, actual);
+  }
+
   private void prepareForSearchWithRecurse() {
 
     when(geographicZoneRepository.exists(parentId)).thenReturn(true);
@@ -0,0 +1,97 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GenerationCacheTest {
+
+  private long maxAge = 60000;
+  private GenerationCache generations = new GenerationCache("Test", () -> maxAge);
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldKeepLoadedDataValidUntilInvalidated() {
+    long generation = generations.getGeneration();
+    long loadedAt = System.currentTimeMillis();
+    assertTrue(generations.isValid(generation, loadedAt));
+
+    generations.invalidate();
+
+    assertFalse(generations.isValid(generation, loadedAt));
+    assertTrue(generations.isValid(generation + 1, loadedAt));
+  }
+
+  @Test
+  public void shouldNotKeepLoadedDataValidPastMaxAge() {
+    maxAge = 0;
+
+    assertFalse(generations.isValid(generations.getGeneration(), System.currentTimeMillis()));
+  }
+
+  @Test
+  public void shouldBuildValueOnlyOnceUntilInvalidated() {
+    AtomicInteger builds = new AtomicInteger();
+    GenerationCache.Value<Long> value = generations.newValue(generation -> {
+      builds.incrementAndGet();
+      return generation;
+    });
+
+    assertEquals(Long.valueOf(0), value.get());
+    assertEquals(Long.valueOf(0), value.get());
+    assertEquals(1, builds.get());
+
+    generations.invalidate();
+
+    assertEquals(Long.valueOf(1), value.get());
+    assertEquals(2, builds.get());
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+
+    generations.invalidateAfterCommit();
+    assertEquals(0, generations.getGeneration());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertEquals(1, generations.getGeneration());
+  }
+
+  @Test
+  public void shouldInvalidateRightAwayWithoutTransaction() {
+    generations.invalidateAfterCommit();
+
+    assertEquals(1, generations.getGeneration());
+  }
+}
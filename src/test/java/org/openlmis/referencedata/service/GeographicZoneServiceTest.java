@@ -99,28 +99,16 @@ public class GeographicZoneServiceTest {
   }
 
   @Test
-  public void shouldRetrieveOneDescendantWhenParentHasOneChild() {
-    mockFindIdByParent(parentId, childId);
-    assertGetAllZonesInHierarchy(parentId, childId);
-  }
-
-  @Test
-  public void shouldRetrieveManyDescendantsWhenTheChildHasAChild() {
-    mockFindIdByParent(parentId, childId);
-    mockFindIdByParent(childId, childOfChildId);
+  public void shouldRetrieveAllDescendantsWithSingleQuery() {
+    mockFindIdsInHierarchy(parentId, childId, childOfChildId);
 
     assertGetAllZonesInHierarchy(parentId, childId, childOfChildId);
-  }
-
-  @Test
-  public void shouldRetrieveManyDescendantsWhenParentHasManyChildren() {
-    mockFindIdByParent(parentId, childId, childOfChildId);
-    assertGetAllZonesInHierarchy(parentId, childId, childOfChildId);
+    verify(geographicZoneRepository).findIdsInHierarchy(parentId);
   }
 
   @Test
   public void shouldNotRetrieveAnyDescendantsWhenParentHasNoChildren() {
-    mockFindIdByParent(parentId);
+    mockFindIdsInHierarchy(parentId);
     assertGetAllZonesInHierarchy(parentId);
   }
 
@@ -178,9 +166,9 @@ public class GeographicZoneServiceTest {
     assertEquals(geographicZones, actual.getContent());
   }
 
-  private void mockFindIdByParent(UUID parentId, UUID... children) {
-    when(geographicZoneRepository.findIdsByParent(parentId))
-        .thenReturn(Sets.newHashSet(children));
+  private void mockFindIdsInHierarchy(UUID parentId, UUID... descendants) {
+    when(geographicZoneRepository.findIdsInHierarchy(parentId))
+        .thenReturn(Sets.newHashSet(descendants));
   }
 
   private void assertGetAllZonesInHierarchy(UUID parentId, UUID... expected) {
@@ -0,0 +1,189 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.RightAssignmentDto;
+import org.openlmis.referencedata.util.Resource2Db;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+
+@RunWith(MockitoJUnitRunner.class)
+public class IncrementalRightAssignmentServiceTest {
+
+  private static final String RIGHT_NAME = "rightName";
+
+  @Mock
+  private JdbcTemplate template;
+
+  @Mock
+  private RightAssignmentService rightAssignmentService;
+
+  @Mock
+  private PermissionStringCache permissionStringCache;
+
+  @InjectMocks
+  private IncrementalRightAssignmentService incrementalRightAssignmentService;
+
+  private UUID userId;
+  private Set<UUID> userIds;
+  private RightAssignmentDto unchanged;
+  private RightAssignmentDto removed;
+  private RightAssignmentDto added;
+
+  @Before
+  public void setUp() throws IOException {
+
+    userId = UUID.randomUUID();
+    userIds = Collections.singleton(userId);
+
+    unchanged = new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(), null);
+    unchanged.setId(UUID.randomUUID());
+    removed = new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(), null);
+    removed.setId(UUID.randomUUID());
+    added = new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(), null);
+
+    when(rightAssignmentService.getRightAssignmentsForUsers(anyCollectionOf(UUID.class)))
+        .thenReturn(Collections.emptyList());
+    when(rightAssignmentService.convertForInsert(anyListOf(RightAssignmentDto.class)))
+        .thenReturn(Sets.newHashSet(unchanged, added));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldDeleteAndInsertOnlyChangedRightAssignments() {
+    // given
+    when(template.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(unchanged, removed));
+
+    // when
+    incrementalRightAssignmentService.regenerateRightAssignments(userIds);
+
+    // then
+    verify(template).update(any(PreparedStatementCreator.class));
+
+    ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+    verify(rightAssignmentService).insertRightAssignments(any(Resource2Db.class),
+        captor.capture());
+    assertEquals(Collections.singletonList(added), captor.getValue());
+    verify(permissionStringCache).invalidateAfterCommit();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldNotChangeAnythingIfRightAssignmentsAreUpToDate() {
+    // given
+    added.setId(UUID.randomUUID());
+    when(template.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(unchanged, added));
+
+    // when
+    incrementalRightAssignmentService.regenerateRightAssignments(userIds);
+
+    // then
+    verify(template, never()).update(any(PreparedStatementCreator.class));
+    verify(rightAssignmentService, never()).insertRightAssignments(any(Resource2Db.class),
+        anyCollectionOf(RightAssignmentDto.class));
+    verify(permissionStringCache, never()).invalidateAfterCommit();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void shouldDeleteDuplicatedRightAssignments() {
+    // given
+    RightAssignmentDto duplicate = new RightAssignmentDto(userId, RIGHT_NAME,
+        unchanged.getFacilityId(), null);
+    duplicate.setId(UUID.randomUUID());
+    added.setId(UUID.randomUUID());
+    when(template.query(any(PreparedStatementCreator.class), any(RowMapper.class)))
+        .thenReturn(Arrays.asList(unchanged, duplicate, added));
+
+    // when
+    incrementalRightAssignmentService.regenerateRightAssignments(userIds);
+
+    // then
+    verify(template).update(any(PreparedStatementCreator.class));
+    verify(rightAssignmentService, never()).insertRightAssignments(any(Resource2Db.class),
+        anyCollectionOf(RightAssignmentDto.class));
+  }
+
+  @Test
+  public void shouldDoNothingIfThereAreNoAffectedUsers() {
+    // when
+    incrementalRightAssignmentService.regenerateRightAssignments(Collections.emptySet());
+
+    // then
+    verifyZeroInteractions(template, rightAssignmentService);
+  }
+
+  @Test
+  public void shouldFindUsersAffectedByRole() {
+    // given
+    UUID roleId = UUID.randomUUID();
+    List<UUID> users = Arrays.asList(userId, UUID.randomUUID());
+    when(template.queryForList(IncrementalRightAssignmentService.USERS_BY_ROLE_SQL, UUID.class,
+        roleId)).thenReturn(users);
+
+    // when
+    Set<UUID> actual = incrementalRightAssignmentService.getUsersAffectedByRole(roleId);
+
+    // then
+    assertEquals(Sets.newHashSet(users), actual);
+    verify(template).queryForList(eq(IncrementalRightAssignmentService.USERS_BY_ROLE_SQL),
+        eq(UUID.class), eq(roleId));
+  }
+
+  @Test
+  public void shouldFindUsersAffectedByFacility() throws IOException {
+    // given
+    UUID facilityId = UUID.randomUUID();
+    List<UUID> users = Arrays.asList(userId, UUID.randomUUID());
+    when(rightAssignmentService.getSql(any())).thenReturn(RIGHT_NAME);
+    when(template.queryForList(RIGHT_NAME, UUID.class, facilityId, facilityId, facilityId))
+        .thenReturn(users);
+
+    // when
+    Set<UUID> actual = incrementalRightAssignmentService.getUsersAffectedByFacility(facilityId);
+
+    // then
+    assertEquals(Sets.newHashSet(users), actual);
+  }
+}
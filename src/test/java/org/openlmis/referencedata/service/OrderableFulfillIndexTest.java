@@ -0,0 +1,194 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
+import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.Dispensable;
+import org.openlmis.referencedata.service.OrderableFulfillIndex.Index;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class OrderableFulfillIndexTest {
+
+  private static final String SYSTEM = "cSys";
+  private static final String EACH = "each";
+  private static final String PACK = "pack";
+
+  @Mock
+  private JdbcTemplate template;
+
+  @InjectMocks
+  private OrderableFulfillIndex orderableFulfillIndex;
+
+  private UUID tradeItemId = UUID.randomUUID();
+  private UUID commodityTypeId = UUID.randomUUID();
+  private UUID otherCommodityTypeId = UUID.randomUUID();
+  private UUID tradeItemOrderableId = UUID.randomUUID();
+  private UUID commodityTypeOrderableId = UUID.randomUUID();
+  private UUID packOrderableId = UUID.randomUUID();
+  private UUID otherCommodityTypeOrderableId = UUID.randomUUID();
+
+  @Before
+  public void setUp() throws SQLException {
+    ReflectionTestUtils.setField(orderableFulfillIndex, "maxAge", 60000L);
+
+    mockQuery(OrderableFulfillIndex.COMMODITY_TYPES_SQL,
+        mockClassification(commodityTypeId, "C1"),
+        mockClassification(otherCommodityTypeId, "C2"));
+    mockQuery(OrderableFulfillIndex.TRADE_ITEMS_SQL, mockClassification(tradeItemId, "C1"));
+    mockQuery(OrderableFulfillIndex.ORDERABLES_SQL,
+        mockOrderable(TRADE_ITEM, tradeItemId, tradeItemOrderableId, EACH),
+        mockOrderable(COMMODITY_TYPE, commodityTypeId, commodityTypeOrderableId, EACH),
+        mockOrderable(COMMODITY_TYPE, commodityTypeId, packOrderableId, PACK),
+        mockOrderable(COMMODITY_TYPE, otherCommodityTypeId, otherCommodityTypeOrderableId, EACH));
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldBuildIndexOnlyOnce() {
+    Index first = orderableFulfillIndex.getIndex();
+    Index second = orderableFulfillIndex.getIndex();
+
+    assertSame(first, second);
+    verifyIndexBuilt(1);
+  }
+
+  @Test
+  public void shouldFindOrderablesOfCommodityTypesTradeItemCanFulfill() {
+    assertEquals(Collections.singletonList(commodityTypeOrderableId), orderableFulfillIndex
+        .findCommodityTypeOrderables(tradeItemId, Dispensable.createNew(EACH)));
+    assertEquals(Collections.singletonList(packOrderableId), orderableFulfillIndex
+        .findCommodityTypeOrderables(tradeItemId, Dispensable.createNew(PACK)));
+  }
+
+  @Test
+  public void shouldFindOrderablesOfTradeItemsThatCanFulfillCommodityType() {
+    assertEquals(Collections.singletonList(tradeItemOrderableId), orderableFulfillIndex
+        .findTradeItemOrderables(commodityTypeId, Dispensable.createNew(EACH)));
+    assertTrue(orderableFulfillIndex
+        .findTradeItemOrderables(commodityTypeId, Dispensable.createNew(PACK)).isEmpty());
+    assertTrue(orderableFulfillIndex
+        .findTradeItemOrderables(otherCommodityTypeId, Dispensable.createNew(EACH)).isEmpty());
+  }
+
+  @Test
+  public void shouldNotFindOrderablesForUnknownIdentifiers() {
+    assertTrue(orderableFulfillIndex
+        .findCommodityTypeOrderables(UUID.randomUUID(), Dispensable.createNew(EACH)).isEmpty());
+    assertTrue(orderableFulfillIndex
+        .findTradeItemOrderables(UUID.randomUUID(), Dispensable.createNew(EACH)).isEmpty());
+  }
+
+  @Test
+  public void shouldRebuildIndexAfterInvalidation() {
+    Index first = orderableFulfillIndex.getIndex();
+
+    orderableFulfillIndex.invalidate();
+    Index second = orderableFulfillIndex.getIndex();
+
+    assertNotSame(first, second);
+    assertEquals(first.getVersion() + 1, second.getVersion());
+    verifyIndexBuilt(2);
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+    Index first = orderableFulfillIndex.getIndex();
+
+    orderableFulfillIndex.invalidateAfterCommit();
+    assertSame(first, orderableFulfillIndex.getIndex());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertNotSame(first, orderableFulfillIndex.getIndex());
+  }
+
+  private void verifyIndexBuilt(int times) {
+    verify(template, times(times))
+        .query(eq(OrderableFulfillIndex.COMMODITY_TYPES_SQL), any(RowCallbackHandler.class));
+    verify(template, times(times))
+        .query(eq(OrderableFulfillIndex.TRADE_ITEMS_SQL), any(RowCallbackHandler.class));
+    verify(template, times(times))
+        .query(eq(OrderableFulfillIndex.ORDERABLES_SQL), any(RowCallbackHandler.class));
+  }
+
+  private void mockQuery(String sql, ResultSet... rows) {
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+      for (ResultSet row : rows) {
+        handler.processRow(row);
+      }
+      return null;
+    }).when(template).query(eq(sql), any(RowCallbackHandler.class));
+  }
+
+  private ResultSet mockClassification(UUID id, String classificationId) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString("id")).thenReturn(id.toString());
+    when(resultSet.getString("classificationsystem")).thenReturn(SYSTEM);
+    when(resultSet.getString("classificationid")).thenReturn(classificationId);
+    return resultSet;
+  }
+
+  private ResultSet mockOrderable(String key, UUID value, UUID orderableId,
+                                  String dispensingUnit) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString("key")).thenReturn(key);
+    when(resultSet.getString("value")).thenReturn(value.toString());
+    when(resultSet.getString("orderableid")).thenReturn(orderableId.toString());
+    when(resultSet.getString("attributekey")).thenReturn(Dispensable.KEY_DISPENSING_UNIT);
+    when(resultSet.getString("attributevalue")).thenReturn(dispensingUnit);
+    return resultSet;
+  }
+}
@@ -39,6 +39,7 @@ import org.openlmis.referencedata.domain.Program;
 import org.openlmis.referencedata.exception.ValidationMessageException;
 import org.openlmis.referencedata.repository.OrderableRepository;
 import org.openlmis.referencedata.repository.ProgramRepository;
+import org.openlmis.referencedata.util.KeysetPageRequest;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -171,6 +172,34 @@ public class OrderableServiceTest {
     assertThat(actual, hasItem(orderable2));
   }
 
+  @Test
+  public void shouldSearchForAllOrderablesAfterCursor() {
+    Pageable pageable = new KeysetPageRequest(10, orderableId);
+    Page<Orderable> page = Pagination.getPage(Lists.newArrayList(orderable2), pageable, 1);
+    when(orderableRepository.search(null, null, null, pageable)).thenReturn(page);
+
+    Page<Orderable> actual = orderableService.searchOrderables(new HashMap<>(), pageable);
+
+    verify(orderableRepository).search(null, null, null, pageable);
+    assertEquals(page, actual);
+  }
+
+  @Test
+  public void shouldFindOrderablesByIdsAfterCursor() {
+    Set<String> ids = new HashSet<>();
+    ids.add(UUID.randomUUID().toString());
+    Pageable pageable = new KeysetPageRequest(10, orderableId);
+    Page<Orderable> page = Pagination.getPage(Lists.newArrayList(orderable2), pageable, 1);
+    when(orderableRepository.findAllByIdsAfter(anySetOf(UUID.class), eq(orderableId),
+        eq(pageable))).thenReturn(page);
+
+    Map<String, Object> params = new HashMap<>();
+    params.put(IDS, ids);
+    Page<Orderable> actual = orderableService.searchOrderables(params, pageable);
+
+    assertEquals(page, actual);
+  }
+
   @Test
   public void searchShouldReturnAnEmptyPageWithFindAll() {
     // given
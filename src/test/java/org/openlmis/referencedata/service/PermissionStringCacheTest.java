@@ -0,0 +1,212 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.repository.RightAssignmentRepository;
+import org.openlmis.referencedata.service.PermissionStringCache.PermissionStrings;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+@SuppressWarnings({"PMD.TooManyMethods"})
+@RunWith(MockitoJUnitRunner.class)
+public class PermissionStringCacheTest {
+
+  private static final String ADMIN_RIGHT = "ADMIN";
+  private static final String FULFILLMENT_RIGHT = "FULFILL";
+  private static final String SUPERVISION_RIGHT = "SUPERVISE";
+
+  @Mock
+  private RightAssignmentRepository rightAssignmentRepository;
+
+  @InjectMocks
+  private PermissionStringCache permissionStringCache;
+
+  private UUID userId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(permissionStringCache, "maxAge", 60000L);
+
+    when(rightAssignmentRepository.findByUser(userId)).thenReturn(Sets.newHashSet(
+        ADMIN_RIGHT,
+        FULFILLMENT_RIGHT + "|" + facilityId,
+        SUPERVISION_RIGHT + "|" + facilityId + "|" + programId));
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldLoadPermissionStringsOnlyOnce() {
+    PermissionStrings first = permissionStringCache.get(userId);
+    PermissionStrings second = permissionStringCache.get(userId);
+
+    assertSame(first, second);
+    assertEquals(3, first.size());
+    verify(rightAssignmentRepository, times(1)).findByUser(userId);
+  }
+
+  @Test
+  public void shouldCheckRightsWithoutFacilityAndProgram() {
+    assertTrue(permissionStringCache.hasRight(userId, ADMIN_RIGHT));
+    assertTrue(permissionStringCache.hasRight(userId, FULFILLMENT_RIGHT));
+    assertTrue(permissionStringCache.hasRight(userId, SUPERVISION_RIGHT));
+    assertFalse(permissionStringCache.hasRight(userId, "ADMIN_OTHER"));
+    assertFalse(permissionStringCache.hasRight(userId, "ADMI"));
+  }
+
+  @Test
+  public void shouldCheckRightsForFacility() {
+    assertTrue(permissionStringCache.hasRight(userId, FULFILLMENT_RIGHT, facilityId));
+    assertTrue(permissionStringCache.hasRight(userId, SUPERVISION_RIGHT, facilityId));
+    assertFalse(permissionStringCache.hasRight(userId, FULFILLMENT_RIGHT, UUID.randomUUID()));
+    assertFalse(permissionStringCache.hasRight(userId, ADMIN_RIGHT, facilityId));
+  }
+
+  @Test
+  public void shouldCheckRightsForFacilityAndProgram() {
+    assertTrue(permissionStringCache.hasRight(userId, SUPERVISION_RIGHT, facilityId, programId));
+    assertFalse(permissionStringCache.hasRight(userId, SUPERVISION_RIGHT, facilityId,
+        UUID.randomUUID()));
+    assertFalse(permissionStringCache.hasRight(userId, FULFILLMENT_RIGHT, facilityId, programId));
+  }
+
+  @Test
+  public void shouldReloadPermissionStringsAfterInvalidation() {
+    PermissionStrings first = permissionStringCache.get(userId);
+    when(rightAssignmentRepository.findByUser(userId)).thenReturn(Sets.newHashSet(ADMIN_RIGHT));
+
+    permissionStringCache.invalidate();
+    PermissionStrings second = permissionStringCache.get(userId);
+
+    assertEquals(1, second.size());
+    assertNotEquals(first.getEtag(), second.getEtag());
+    verify(rightAssignmentRepository, times(2)).findByUser(userId);
+  }
+
+  @Test
+  public void shouldReloadExpiredPermissionStrings() {
+    ReflectionTestUtils.setField(permissionStringCache, "maxAge", 0L);
+
+    permissionStringCache.get(userId);
+    permissionStringCache.get(userId);
+
+    verify(rightAssignmentRepository, times(2)).findByUser(userId);
+  }
+
+  @Test
+  public void shouldKeepEtagIfPermissionStringsDidNotChange() {
+    PermissionStrings first = permissionStringCache.get(userId);
+
+    permissionStringCache.invalidate();
+    PermissionStrings second = permissionStringCache.get(userId);
+
+    assertEquals(first.getEtag(), second.getEtag());
+  }
+
+  @Test
+  public void shouldReloadOnlyPermissionStringsOfInvalidatedUser() {
+    UUID otherUserId = UUID.randomUUID();
+    when(rightAssignmentRepository.findByUser(otherUserId))
+        .thenReturn(Sets.newHashSet(ADMIN_RIGHT));
+    permissionStringCache.get(userId);
+    PermissionStrings other = permissionStringCache.get(otherUserId);
+    when(rightAssignmentRepository.findByUser(userId)).thenReturn(Sets.newHashSet());
+
+    permissionStringCache.invalidate(userId);
+
+    assertFalse(permissionStringCache.hasRight(userId, ADMIN_RIGHT));
+    assertSame(other, permissionStringCache.get(otherUserId));
+    verify(rightAssignmentRepository, times(2)).findByUser(userId);
+    verify(rightAssignmentRepository, times(1)).findByUser(otherUserId);
+  }
+
+  @Test
+  public void shouldNotCachePermissionStringsOfUserInvalidatedWhileLoading() {
+    when(rightAssignmentRepository.findByUser(userId)).thenAnswer(invocation -> {
+      permissionStringCache.invalidate(userId);
+      return Sets.newHashSet(ADMIN_RIGHT);
+    });
+
+    permissionStringCache.get(userId);
+    permissionStringCache.get(userId);
+
+    verify(rightAssignmentRepository, times(2)).findByUser(userId);
+  }
+
+  @Test
+  public void shouldInvalidateUserOnlyAfterTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+    permissionStringCache.get(userId);
+
+    permissionStringCache.invalidateAfterCommit(userId);
+    permissionStringCache.get(userId);
+    verify(rightAssignmentRepository, times(1)).findByUser(userId);
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    permissionStringCache.get(userId);
+    verify(rightAssignmentRepository, times(2)).findByUser(userId);
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    TransactionSynchronizationManager.initSynchronization();
+    long generation = permissionStringCache.getGeneration();
+
+    permissionStringCache.invalidateAfterCommit();
+    assertEquals(generation, permissionStringCache.getGeneration());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertEquals(generation + 1, permissionStringCache.getGeneration());
+  }
+
+  @Test
+  public void shouldInvalidateRightAwayWithoutTransaction() {
+    long generation = permissionStringCache.getGeneration();
+
+    permissionStringCache.invalidateAfterCommit();
+
+    assertEquals(generation + 1, permissionStringCache.getGeneration());
+  }
+}
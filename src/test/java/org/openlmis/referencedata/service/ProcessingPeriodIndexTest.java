@@ -0,0 +1,199 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.domain.ProcessingPeriod;
+import org.openlmis.referencedata.service.ProcessingPeriodIndex.Index;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class ProcessingPeriodIndexTest {
+
+  private static final LocalDate JANUARY = LocalDate.of(2018, 1, 1);
+  private static final LocalDate FEBRUARY = LocalDate.of(2018, 2, 1);
+  private static final LocalDate MARCH = LocalDate.of(2018, 3, 1);
+
+  @Mock
+  private JdbcTemplate template;
+
+  @InjectMocks
+  private ProcessingPeriodIndex processingPeriodIndex;
+
+  private UUID programId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID scheduleId = UUID.randomUUID();
+
+  @Before
+  public void setUp() throws SQLException {
+    ReflectionTestUtils.setField(processingPeriodIndex, "maxAge", 60000L);
+
+    mockQuery(ProcessingPeriodIndex.SCHEDULES_SQL, mockSchedule());
+    mockQuery(ProcessingPeriodIndex.PERIODS_SQL, mockPeriod("Jan", JANUARY),
+        mockPeriod("Feb", FEBRUARY), mockPeriod("Feb2", FEBRUARY), mockPeriod("Mar", MARCH));
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldBuildIndexOnlyOnce() {
+    Index first = processingPeriodIndex.getIndex();
+    Index second = processingPeriodIndex.getIndex();
+
+    assertSame(first, second);
+    verifyIndexBuilt(1);
+  }
+
+  @Test
+  public void shouldFindScheduleOfProgramAndFacility() {
+    assertEquals(scheduleId, processingPeriodIndex.findScheduleId(programId, facilityId));
+    assertNull(processingPeriodIndex.findScheduleId(programId, UUID.randomUUID()));
+    assertNull(processingPeriodIndex.findScheduleId(UUID.randomUUID(), facilityId));
+  }
+
+  @Test
+  public void shouldFindAllPeriodsOfScheduleInStartDateOrder() {
+    List<ProcessingPeriod> periods = processingPeriodIndex.findPeriods(scheduleId, null);
+
+    assertEquals(4, periods.size());
+    assertEquals(JANUARY, periods.get(0).getStartDate());
+    assertEquals(MARCH, periods.get(3).getStartDate());
+    assertEquals(scheduleId, periods.get(0).getProcessingSchedule().getId());
+  }
+
+  @Test
+  public void shouldFindPeriodsStartingUpToDate() {
+    assertEquals(0, processingPeriodIndex.findPeriods(scheduleId, JANUARY.minusDays(1)).size());
+    assertEquals(1, processingPeriodIndex.findPeriods(scheduleId, JANUARY).size());
+    assertEquals(1, processingPeriodIndex.findPeriods(scheduleId, FEBRUARY.minusDays(1)).size());
+    assertEquals(3, processingPeriodIndex.findPeriods(scheduleId, FEBRUARY).size());
+    assertEquals(4, processingPeriodIndex.findPeriods(scheduleId, MARCH.plusDays(1)).size());
+  }
+
+  @Test
+  public void shouldNotFindPeriodsOfUnknownSchedule() {
+    assertTrue(processingPeriodIndex.findPeriods(UUID.randomUUID(), null).isEmpty());
+  }
+
+  @Test
+  public void shouldRebuildIndexAfterInvalidation() {
+    Index first = processingPeriodIndex.getIndex();
+
+    processingPeriodIndex.invalidate();
+    Index second = processingPeriodIndex.getIndex();
+
+    assertNotSame(first, second);
+    assertEquals(first.getVersion() + 1, second.getVersion());
+    verifyIndexBuilt(2);
+  }
+
+  @Test
+  public void shouldRebuildExpiredIndex() {
+    ReflectionTestUtils.setField(processingPeriodIndex, "maxAge", 0L);
+
+    processingPeriodIndex.getIndex();
+    processingPeriodIndex.getIndex();
+
+    verifyIndexBuilt(2);
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    Index first = processingPeriodIndex.getIndex();
+    TransactionSynchronizationManager.initSynchronization();
+
+    processingPeriodIndex.invalidateAfterCommit();
+    assertSame(first, processingPeriodIndex.getIndex());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertNotSame(first, processingPeriodIndex.getIndex());
+  }
+
+  private void verifyIndexBuilt(int times) {
+    verify(template, times(times))
+        .query(eq(ProcessingPeriodIndex.SCHEDULES_SQL), any(RowCallbackHandler.class));
+    verify(template, times(times))
+        .query(eq(ProcessingPeriodIndex.PERIODS_SQL), any(RowCallbackHandler.class));
+  }
+
+  private void mockQuery(String sql, ResultSet... rows) {
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+      for (ResultSet row : rows) {
+        handler.processRow(row);
+      }
+      return null;
+    }).when(template).query(eq(sql), any(RowCallbackHandler.class));
+  }
+
+  private ResultSet mockSchedule() throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString("programid")).thenReturn(programId.toString());
+    when(resultSet.getString("facilityid")).thenReturn(facilityId.toString());
+    when(resultSet.getString("processingscheduleid")).thenReturn(scheduleId.toString());
+    return resultSet;
+  }
+
+  private ResultSet mockPeriod(String name, LocalDate startDate) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    when(resultSet.getString("id")).thenReturn(UUID.randomUUID().toString());
+    when(resultSet.getString("name")).thenReturn(name);
+    when(resultSet.getDate("startdate")).thenReturn(Date.valueOf(startDate));
+    when(resultSet.getDate("enddate")).thenReturn(Date.valueOf(startDate.plusDays(27)));
+    when(resultSet.getString("scheduleid")).thenReturn(scheduleId.toString());
+    when(resultSet.getString("schedulecode")).thenReturn("SCH001");
+    when(resultSet.getString("schedulename")).thenReturn("Monthly");
+    return resultSet;
+  }
+}
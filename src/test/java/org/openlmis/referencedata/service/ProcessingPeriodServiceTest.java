@@ -18,6 +18,7 @@ package org.openlmis.referencedata.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -45,6 +46,7 @@ import org.openlmis.referencedata.testbuilder.ProgramDataBuilder;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -54,6 +56,7 @@ import java.util.stream.IntStream;
 
 
 @RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
 public class ProcessingPeriodServiceTest {
 
   @InjectMocks
@@ -74,6 +77,9 @@ public class ProcessingPeriodServiceTest {
   @Mock
   private ProcessingScheduleRepository processingScheduleRepository;
 
+  @Mock
+  private ProcessingPeriodIndex periodIndex;
+
   @Mock
   private RequisitionGroupProgramSchedule requisitionGroupProgramSchedule;
 
@@ -183,6 +189,52 @@ public class ProcessingPeriodServiceTest {
     }
   }
 
+  @Test
+  public void shouldFindPeriodsByProgramAndFacilityInIndex() {
+    when(periodIndex.findScheduleId(program.getId(), facility.getId()))
+        .thenReturn(schedule.getId());
+    when(periodIndex.findPeriods(schedule.getId(), null)).thenReturn(periods);
+
+    ProcessingPeriodSearchParams params = new ProcessingPeriodSearchParams(
+        program.getId(), facility.getId(), null, null);
+
+    Page<ProcessingPeriod> result = periodService.searchPeriods(params, pageable);
+
+    assertEquals(periods, result.getContent());
+    verify(repository, never()).searchRequisitionGroupProgramSchedules(program, facility);
+    verify(periodRepository, never()).findByProcessingSchedule(schedule, pageable);
+  }
+
+  @Test
+  public void shouldFindPeriodsByScheduleAndDateInIndex() {
+    LocalDate startDate = periods.get(0).getStartDate();
+    when(periodIndex.findPeriods(schedule.getId(), startDate)).thenReturn(periods);
+
+    ProcessingPeriodSearchParams params = new ProcessingPeriodSearchParams(
+        null, null, schedule.getId(), startDate);
+
+    Page<ProcessingPeriod> result = periodService.searchPeriods(params, new PageRequest(1, 2));
+
+    assertEquals(periods.subList(2, 4), result.getContent());
+    assertEquals(periods.size(), result.getTotalElements());
+    verify(processingScheduleRepository, never()).findOne(schedule.getId());
+  }
+
+  @Test
+  public void shouldNotUseIndexForOtherSortOrders() {
+    when(periodIndex.findPeriods(schedule.getId(), null)).thenReturn(periods);
+    PageRequest byName = new PageRequest(0, 10, new Sort("name"));
+    doReturn(Pagination.getPage(Collections.singletonList(period), byName, 1))
+        .when(periodRepository).findByProcessingSchedule(schedule, byName);
+
+    ProcessingPeriodSearchParams params = new ProcessingPeriodSearchParams(
+        null, null, schedule.getId(), null);
+
+    periodService.searchPeriods(params, byName);
+
+    verify(periodRepository).findByProcessingSchedule(schedule, byName);
+  }
+
   private List<ProcessingPeriod> generateInstances() {
     return IntStream
         .range(0, 5)
@@ -18,6 +18,7 @@ package org.openlmis.referencedata.service;
 import com.google.common.collect.Lists;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -34,6 +35,7 @@ import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.util.Pagination;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 
 import java.util.Arrays;
 import java.util.HashMap;
@@ -127,12 +129,18 @@ public class RequisitionGroupServiceTest {
   }
 
   @Test
-  public void shouldReturnAllElementsIfNoSearchCriteriaProvided() {
-    when(requisitionGroupRepository.findAll()).thenReturn(requisitionGroups);
+  public void shouldReturnPageOfAllElementsSortedByNameIfNoSearchCriteriaProvided() {
+    Page<RequisitionGroup> page = Pagination.getPage(requisitionGroups, pageable);
+    when(requisitionGroupRepository.findAll(any(Pageable.class))).thenReturn(page);
 
     Page<RequisitionGroup> actual = requisitionGroupService
         .searchRequisitionGroups(new HashMap<>(), pageable);
-    verify(requisitionGroupRepository).findAll();
+
+    ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+    verify(requisitionGroupRepository).findAll(captor.capture());
+    assertEquals(0, captor.getValue().getPageNumber());
+    assertEquals(10, captor.getValue().getPageSize());
+    assertEquals(new Sort(NAME), captor.getValue().getSort());
     assertEquals(requisitionGroups, actual.getContent());
   }
 
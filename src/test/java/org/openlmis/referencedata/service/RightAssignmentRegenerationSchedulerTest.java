@@ -0,0 +1,249 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.Date;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.RightAssignmentRegenerationStatusDto;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings({"PMD.TooManyMethods"})
+@RunWith(MockitoJUnitRunner.class)
+public class RightAssignmentRegenerationSchedulerTest {
+
+  @Mock
+  private TaskScheduler taskScheduler;
+
+  @Mock
+  private RightAssignmentService rightAssignmentService;
+
+  @Mock
+  private IncrementalRightAssignmentService incrementalRightAssignmentService;
+
+  @InjectMocks
+  private RightAssignmentRegenerationScheduler scheduler;
+
+  private UUID user1;
+  private UUID user2;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(scheduler, "delay", 1000L);
+    ReflectionTestUtils.setField(scheduler, "maxRetryDelay", 5000L);
+    ReflectionTestUtils.setField(scheduler, "incrementalEnabled", true);
+    user1 = UUID.randomUUID();
+    user2 = UUID.randomUUID();
+  }
+
+  @Test
+  public void shouldCoalesceRequestsIntoSingleRegeneration() {
+    // when
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+    scheduler.scheduleRegeneration(Collections.singleton(user2));
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+
+    // then
+    verify(taskScheduler).schedule(any(Runnable.class), any(Date.class));
+    RightAssignmentRegenerationStatusDto status = scheduler.getStatus();
+    assertTrue(status.isPending());
+    assertEquals(2, status.getPendingUsers());
+    assertEquals(3, status.getPendingRequests());
+
+    // when
+    captureScheduledTask().run();
+
+    // then
+    verify(incrementalRightAssignmentService)
+        .regenerateRightAssignments(Sets.newHashSet(user1, user2));
+    verify(rightAssignmentService, never()).regenerateRightAssignments();
+
+    status = scheduler.getStatus();
+    assertFalse(status.isPending());
+    assertFalse(status.isRunning());
+    assertEquals(Integer.valueOf(3), status.getLastCoalescedRequests());
+    assertEquals(Boolean.TRUE, status.getLastSucceeded());
+    assertNotNull(status.getLastCompleted());
+    assertNotNull(status.getLastDurationMillis());
+  }
+
+  @Test
+  public void shouldReplaceIncrementalRegenerationWithFullRegeneration() {
+    // when
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+    scheduler.scheduleFullRegeneration();
+    scheduler.scheduleRegeneration(Collections.singleton(user2));
+    captureScheduledTask().run();
+
+    // then
+    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(incrementalRightAssignmentService, never())
+        .regenerateRightAssignments(anyCollectionOf(UUID.class));
+  }
+
+  @Test
+  public void shouldScheduleNextRegenerationForRequestsAfterPreviousOneStarted() {
+    // given
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+    captureScheduledTask().run();
+
+    // when
+    scheduler.scheduleRegeneration(Collections.singleton(user2));
+
+    // then
+    verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Date.class));
+    assertTrue(scheduler.getStatus().isPending());
+  }
+
+  @Test
+  public void shouldRecordFailedRegeneration() {
+    // given
+    doThrow(new IllegalStateException()).when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.scheduleFullRegeneration();
+
+    // when
+    captureScheduledTask().run();
+
+    // then
+    RightAssignmentRegenerationStatusDto status = scheduler.getStatus();
+    assertEquals(Boolean.FALSE, status.getLastSucceeded());
+    assertFalse(status.isRunning());
+  }
+
+  @Test
+  public void shouldRetryUsersOfFailedRegeneration() {
+    // given
+    doThrow(new IllegalStateException()).doNothing().when(incrementalRightAssignmentService)
+        .regenerateRightAssignments(anyCollectionOf(UUID.class));
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+    captureScheduledTask().run();
+    scheduler.scheduleRegeneration(Collections.singleton(user2));
+
+    // when
+    RightAssignmentRegenerationStatusDto status = scheduler.getStatus();
+    captureScheduledTask(2).run();
+
+    // then
+    assertTrue(status.isPending());
+    assertEquals(2, status.getPendingUsers());
+    assertEquals(2, status.getPendingRequests());
+    verify(incrementalRightAssignmentService)
+        .regenerateRightAssignments(Sets.newHashSet(user1, user2));
+    assertEquals(Boolean.TRUE, scheduler.getStatus().getLastSucceeded());
+    assertFalse(scheduler.getStatus().isPending());
+  }
+
+  @Test
+  public void shouldRetryFailedFullRegeneration() {
+    // given
+    doThrow(new IllegalStateException()).when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.scheduleFullRegeneration();
+
+    // when
+    captureScheduledTask().run();
+
+    // then
+    RightAssignmentRegenerationStatusDto status = scheduler.getStatus();
+    assertTrue(status.isPending());
+    assertTrue(status.isFullRegenerationPending());
+    verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Date.class));
+  }
+
+  @Test
+  public void shouldBackOffAfterConsecutiveFailures() {
+    // given
+    doThrow(new IllegalStateException()).when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.scheduleFullRegeneration();
+    assertEquals(1000L, scheduler.getNextDelay());
+
+    // when
+    captureScheduledTask(1).run();
+    long firstRetryDelay = scheduler.getNextDelay();
+    captureScheduledTask(2).run();
+    long secondRetryDelay = scheduler.getNextDelay();
+    captureScheduledTask(3).run();
+    captureScheduledTask(4).run();
+
+    // then
+    assertEquals(2000L, firstRetryDelay);
+    assertEquals(4000L, secondRetryDelay);
+    assertEquals(5000L, scheduler.getNextDelay());
+  }
+
+  @Test
+  public void shouldResetBackOffAfterSuccessfulRegeneration() {
+    // given
+    doThrow(new IllegalStateException()).doNothing().when(rightAssignmentService)
+        .regenerateRightAssignments();
+    scheduler.scheduleFullRegeneration();
+    captureScheduledTask(1).run();
+
+    // when
+    captureScheduledTask(2).run();
+
+    // then
+    assertEquals(1000L, scheduler.getNextDelay());
+    assertFalse(scheduler.getStatus().isPending());
+  }
+
+  @Test
+  public void shouldRegenerateAllRightAssignmentsIfIncrementalModeIsDisabled() {
+    // given
+    ReflectionTestUtils.setField(scheduler, "incrementalEnabled", false);
+
+    // when
+    scheduler.scheduleRegeneration(Collections.singleton(user1));
+    captureScheduledTask().run();
+
+    // then
+    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(incrementalRightAssignmentService, never())
+        .regenerateRightAssignments(anyCollectionOf(UUID.class));
+  }
+
+  private Runnable captureScheduledTask() {
+    return captureScheduledTask(1);
+  }
+
+  private Runnable captureScheduledTask(int scheduledTimes) {
+    ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+    verify(taskScheduler, times(scheduledTimes)).schedule(captor.capture(), any(Date.class));
+    return captor.getValue();
+  }
+}
@@ -18,27 +18,40 @@ package org.openlmis.referencedata.service;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
-import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.dto.RightAssignmentDto;
 import org.springframework.core.io.Resource;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
 
 @RunWith(MockitoJUnitRunner.class)
 public class RightAssignmentServiceTest {
@@ -75,22 +88,17 @@ public class RightAssignmentServiceTest {
 
     // when
     Set<RightAssignmentDto> actual = rightAssignmentService
-        .convertForInsert(Collections.singletonList(expected), null);
+        .convertForInsert(Collections.singletonList(expected));
 
     // then
     assertEquals(1, actual.size());
     assertEquals(expected, actual.iterator().next());
+    verifyZeroInteractions(jdbcTemplate);
   }
 
   @Test
-  public void convertForInsertShouldConvertSupervisoryNodeRightAssignments()
-      throws IOException {
+  public void convertForInsertShouldConvertSupervisoryNodeRightAssignments() {
     // given
-    Resource resource = mock(Resource.class);
-    when(resource.getDescription()).thenReturn("description");
-    InputStream inputStream = spy(IOUtils.toInputStream("some data"));
-    when(resource.getInputStream()).thenReturn(inputStream);
-
     RightAssignmentDto rightAssignmentDto = new RightAssignmentDto(
         userId,
         RIGHT_NAME,
@@ -101,15 +109,14 @@ public class RightAssignmentServiceTest {
     UUID facility1Id = UUID.randomUUID();
     UUID facility2Id = UUID.randomUUID();
     List<UUID> facilityIds = Arrays.asList(facility1Id, facility2Id);
-    when(jdbcTemplate.queryForList(
-        any(String.class),
-        any(Class.class),
-        any(UUID.class),
-        any(UUID.class))).thenReturn(facilityIds);
-    
+    Map<Pair<UUID, UUID>, List<UUID>> supervisedFacilities = new HashMap<>();
+    supervisedFacilities.put(Pair.of(supervisoryNodeId, programId), facilityIds);
+    supervisedFacilities.put(Pair.of(supervisoryNodeId, UUID.randomUUID()),
+        Collections.singletonList(UUID.randomUUID()));
+
     // when
     Set<RightAssignmentDto> actual = rightAssignmentService
-        .convertForInsert(Collections.singletonList(rightAssignmentDto), resource);
+        .convertForInsert(Collections.singletonList(rightAssignmentDto), supervisedFacilities);
 
     // then
     assertEquals(2, actual.size());
@@ -120,4 +127,82 @@ public class RightAssignmentServiceTest {
       assertTrue(facilityIds.contains(current.getFacilityId()));
     }
   }
+
+  @Test
+  public void convertForInsertShouldSkipSupervisoryNodeRightAssignmentsWithoutFacilities() {
+    // given
+    RightAssignmentDto rightAssignmentDto = new RightAssignmentDto(
+        userId,
+        RIGHT_NAME,
+        null,
+        programId,
+        supervisoryNodeId);
+
+    // when
+    Set<RightAssignmentDto> actual = rightAssignmentService
+        .convertForInsert(Collections.singletonList(rightAssignmentDto), new HashMap<>());
+
+    // then
+    assertTrue(actual.isEmpty());
+  }
+
+  @Test
+  public void limitToUsersShouldWrapQueryWithUserFilter() {
+    // when
+    String sql = RightAssignmentService.limitToUsers("SELECT ra.userid FROM ra\n;\n");
+
+    // then
+    assertEquals("SELECT * FROM (\nSELECT ra.userid FROM ra\n)"
+        + RightAssignmentService.USER_FILTER_SQL, sql);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void getRightAssignmentsForUsersShouldQueryBaseResourceForGivenUsers()
+      throws IOException, SQLException {
+    // given
+    Resource resource = mock(Resource.class);
+    when(resource.getDescription()).thenReturn("description");
+    when(resource.getInputStream())
+        .thenAnswer(invocation -> IOUtils.toInputStream("some data;"));
+    ReflectionTestUtils.setField(rightAssignmentService, "rightAssignmentsResource", resource);
+    Connection connection = mock(Connection.class);
+    when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+
+    // when
+    rightAssignmentService.getRightAssignmentsForUsers(Collections.singleton(userId));
+
+    // then
+    ArgumentCaptor<PreparedStatementCreator> captor =
+        ArgumentCaptor.forClass(PreparedStatementCreator.class);
+    verify(jdbcTemplate).query(captor.capture(), any(RowMapper.class));
+    captor.getValue().createPreparedStatement(connection);
+    verify(connection).prepareStatement(RightAssignmentService.limitToUsers("some data"));
+  }
+
+  @Test
+  public void getSupervisedFacilityIdsShouldQueryAllSupervisoryNodesAtOnce()
+      throws IOException {
+    // given
+    Resource resource = mock(Resource.class);
+    when(resource.getDescription()).thenReturn("description");
+    when(resource.getInputStream())
+        .thenAnswer(invocation -> IOUtils.toInputStream("some data"));
+    ReflectionTestUtils.setField(rightAssignmentService, "supervisedFacilitiesResource",
+        resource);
+
+    List<RightAssignmentDto> rightAssignments = Arrays.asList(
+        new RightAssignmentDto(userId, RIGHT_NAME, null, programId, supervisoryNodeId),
+        new RightAssignmentDto(userId, RIGHT_NAME, null, programId, UUID.randomUUID()),
+        new RightAssignmentDto(userId, RIGHT_NAME, UUID.randomUUID(), programId, null));
+
+    // when
+    rightAssignmentService.getSupervisedFacilityIds(rightAssignments);
+    rightAssignmentService.getSupervisedFacilityIds(rightAssignments);
+
+    // then
+    verify(jdbcTemplate, times(2))
+        .query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    verify(resource, times(1)).getInputStream();
+  }
 }
@@ -30,8 +30,6 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.RightQuery;
 import org.openlmis.referencedata.domain.User;
 import org.openlmis.referencedata.exception.UnauthorizedException;
-import org.openlmis.referencedata.repository.RightAssignmentRepository;
-import org.openlmis.referencedata.repository.UserRepository;
 import org.openlmis.referencedata.testbuilder.OAuth2AuthenticationDataBuilder;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -46,10 +44,10 @@ public class RightServiceTest {
   private static final String RIGHT_NAME = "RIGHT_NAME";
 
   @Mock
-  private UserRepository userRepository;
+  private UserExistenceCache userExistenceCache;
 
   @Mock
-  private RightAssignmentRepository rightAssignmentRepository;
+  private PermissionStringCache permissionStringCache;
 
   @Mock
   private AuthenticationHelper authenticationHelper;
@@ -73,7 +71,7 @@ public class RightServiceTest {
     userId = UUID.randomUUID();
     when(user.getId()).thenReturn(userId);
 
-    when(authenticationHelper.getCurrentUser()).thenReturn(user);
+    when(authenticationHelper.getCurrentUserId()).thenReturn(userId);
 
     trustedClient = new OAuth2AuthenticationDataBuilder().buildServiceAuthentication();
     userClient = new OAuth2AuthenticationDataBuilder().withUserId(userId).buildUserAuthentication();
@@ -107,7 +105,7 @@ public class RightServiceTest {
   @Test
   public void checkAdminRightShouldAllowUserWhoHasRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionStringCache.hasRight(user.getId(), RIGHT_NAME))
         .thenReturn(true);
 
     rightService.checkAdminRight(RIGHT_NAME);
@@ -116,8 +114,7 @@ public class RightServiceTest {
   @Test
   public void checkAdminRightShouldAllowRequesterWithSpecifiedUserId() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(userRepository.exists(any(UUID.class))).thenReturn(true);
-    when(userRepository.findOne(any(UUID.class))).thenReturn(user);
+    when(userExistenceCache.exists(any(UUID.class))).thenReturn(true);
     when(user.hasRight(any(RightQuery.class))).thenReturn(false);
 
     rightService.checkAdminRight(RIGHT_NAME, true, user.getId());
@@ -126,7 +123,7 @@ public class RightServiceTest {
   @Test(expected = UnauthorizedException.class)
   public void checkAdminRightShouldThrowUnauthorizedExceptionForUserWhoDoesNotHaveRight() {
     when(securityContext.getAuthentication()).thenReturn(userClient);
-    when(rightAssignmentRepository.existsByUserIdAndRightName(user.getId(), RIGHT_NAME))
+    when(permissionStringCache.hasRight(user.getId(), RIGHT_NAME))
         .thenReturn(false);
 
     rightService.checkAdminRight(RIGHT_NAME);
@@ -0,0 +1,168 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.google.common.collect.Sets;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class SupervisionGraphServiceTest {
+
+  @Mock
+  private JdbcTemplate template;
+
+  @InjectMocks
+  private SupervisionGraphService supervisionGraphService;
+
+  private UUID parentNodeId = UUID.randomUUID();
+  private UUID childNodeId = UUID.randomUUID();
+  private UUID programId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+
+  @Before
+  public void setUp() throws SQLException {
+    ReflectionTestUtils.setField(supervisionGraphService, "maxAge", 60000L);
+
+    ResultSet parentNode = mockResultSet("id", parentNodeId, "parentid", null);
+    ResultSet childNode = mockResultSet("id", childNodeId, "parentid", parentNodeId);
+    ResultSet facility = mockResultSet("supervisorynodeid", childNodeId, "programid", programId,
+        "facilityid", facilityId);
+
+    mockQuery(SupervisionGraphService.NODES_SQL, parentNode, childNode);
+    mockQuery(SupervisionGraphService.FACILITIES_SQL, facility);
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldBuildGraphOnlyOnce() {
+    SupervisionGraph first = supervisionGraphService.getGraph();
+    SupervisionGraph second = supervisionGraphService.getGraph();
+
+    assertSame(first, second);
+    verifyGraphBuilt(1);
+  }
+
+  @Test
+  public void shouldBuildGraphFromQueries() {
+    assertEquals(Sets.newHashSet(facilityId),
+        supervisionGraphService.getSupervisedFacilityIds(parentNodeId, programId));
+    assertTrue(supervisionGraphService.supervises(parentNodeId, facilityId, programId));
+  }
+
+  @Test
+  public void shouldRebuildGraphAfterInvalidation() {
+    SupervisionGraph first = supervisionGraphService.getGraph();
+
+    supervisionGraphService.invalidate();
+    SupervisionGraph second = supervisionGraphService.getGraph();
+
+    assertNotSame(first, second);
+    assertEquals(first.getVersion() + 1, second.getVersion());
+    verifyGraphBuilt(2);
+  }
+
+  @Test
+  public void shouldRebuildExpiredGraph() {
+    ReflectionTestUtils.setField(supervisionGraphService, "maxAge", 0L);
+
+    supervisionGraphService.getGraph();
+    supervisionGraphService.getGraph();
+
+    verifyGraphBuilt(2);
+  }
+
+  @Test
+  public void shouldInvalidateOnlyAfterTransactionCommits() {
+    SupervisionGraph first = supervisionGraphService.getGraph();
+    TransactionSynchronizationManager.initSynchronization();
+
+    supervisionGraphService.invalidateAfterCommit();
+    assertSame(first, supervisionGraphService.getGraph());
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+    assertNotSame(first, supervisionGraphService.getGraph());
+  }
+
+  @Test
+  public void shouldInvalidateRightAwayWithoutTransaction() {
+    SupervisionGraph first = supervisionGraphService.getGraph();
+
+    supervisionGraphService.invalidateAfterCommit();
+
+    assertNotSame(first, supervisionGraphService.getGraph());
+  }
+
+  private void verifyGraphBuilt(int times) {
+    verify(template, times(times))
+        .query(eq(SupervisionGraphService.NODES_SQL), any(RowCallbackHandler.class));
+    verify(template, times(times))
+        .query(eq(SupervisionGraphService.FACILITIES_SQL), any(RowCallbackHandler.class));
+  }
+
+  private void mockQuery(String sql, ResultSet... rows) {
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = (RowCallbackHandler) invocation.getArguments()[1];
+      for (ResultSet row : rows) {
+        handler.processRow(row);
+      }
+      return null;
+    }).when(template).query(eq(sql), any(RowCallbackHandler.class));
+  }
+
+  private ResultSet mockResultSet(Object... columns) throws SQLException {
+    ResultSet resultSet = mock(ResultSet.class);
+    for (int i = 0; i < columns.length; i += 2) {
+      Object value = columns[i + 1];
+      when(resultSet.getString((String) columns[i]))
+          .thenReturn(null == value ? null : value.toString());
+    }
+    return resultSet;
+  }
+}
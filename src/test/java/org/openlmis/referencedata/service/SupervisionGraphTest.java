@@ -0,0 +1,113 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.UUID;
+
+public class SupervisionGraphTest {
+
+  private UUID rootNode = UUID.randomUUID();
+  private UUID childNode = UUID.randomUUID();
+  private UUID grandchildNode = UUID.randomUUID();
+  private UUID otherNode = UUID.randomUUID();
+
+  private UUID program = UUID.randomUUID();
+  private UUID otherProgram = UUID.randomUUID();
+
+  private UUID rootFacility = UUID.randomUUID();
+  private UUID childFacility = UUID.randomUUID();
+  private UUID grandchildFacility = UUID.randomUUID();
+  private UUID otherFacility = UUID.randomUUID();
+
+  private SupervisionGraph graph;
+
+  @Before
+  public void setUp() {
+    graph = SupervisionGraph.builder()
+        .addNode(grandchildNode, childNode)
+        .addNode(rootNode, null)
+        .addNode(childNode, rootNode)
+        .addNode(otherNode, null)
+        .addFacility(rootNode, program, rootFacility)
+        .addFacility(childNode, program, childFacility)
+        .addFacility(childNode, otherProgram, childFacility)
+        .addFacility(grandchildNode, program, grandchildFacility)
+        .addFacility(otherNode, program, otherFacility)
+        .build(5);
+  }
+
+  @Test
+  public void shouldIncludeFacilitiesOfAllDescendants() {
+    assertEquals(Sets.newHashSet(rootFacility, childFacility, grandchildFacility),
+        graph.getSupervisedFacilityIds(rootNode, program));
+    assertEquals(Sets.newHashSet(childFacility, grandchildFacility),
+        graph.getSupervisedFacilityIds(childNode, program));
+    assertEquals(Sets.newHashSet(grandchildFacility),
+        graph.getSupervisedFacilityIds(grandchildNode, program));
+  }
+
+  @Test
+  public void shouldOnlyIncludeFacilitiesOfGivenProgram() {
+    assertEquals(Sets.newHashSet(childFacility),
+        graph.getSupervisedFacilityIds(rootNode, otherProgram));
+    assertEquals(Collections.emptySet(),
+        graph.getSupervisedFacilityIds(rootNode, UUID.randomUUID()));
+  }
+
+  @Test
+  public void shouldReturnNoFacilitiesForUnknownNode() {
+    assertEquals(Collections.emptySet(),
+        graph.getSupervisedFacilityIds(UUID.randomUUID(), program));
+    assertFalse(graph.supervises(UUID.randomUUID(), rootFacility, program));
+  }
+
+  @Test
+  public void shouldCheckIfNodeSupervisesFacility() {
+    assertTrue(graph.supervises(rootNode, grandchildFacility, program));
+    assertTrue(graph.supervises(childNode, childFacility, otherProgram));
+    assertFalse(graph.supervises(childNode, rootFacility, program));
+    assertFalse(graph.supervises(rootNode, otherFacility, program));
+    assertFalse(graph.supervises(rootNode, grandchildFacility, otherProgram));
+    assertFalse(graph.supervises(rootNode, UUID.randomUUID(), program));
+  }
+
+  @Test
+  public void shouldNotLoopForeverOnCycles() {
+    SupervisionGraph cyclic = SupervisionGraph.builder()
+        .addNode(rootNode, childNode)
+        .addNode(childNode, rootNode)
+        .addFacility(rootNode, program, rootFacility)
+        .addFacility(childNode, program, childFacility)
+        .build(0);
+
+    assertTrue(cyclic.supervises(rootNode, rootFacility, program));
+    assertTrue(cyclic.supervises(childNode, childFacility, program));
+  }
+
+  @Test
+  public void shouldKeepVersion() {
+    assertEquals(5, graph.getVersion());
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.anyVararg;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.dto.TypeAheadResultDto;
+import org.openlmis.referencedata.service.TypeAheadService.Target;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TypeAheadServiceTest {
+
+  @Mock
+  private JdbcTemplate template;
+
+  @InjectMocks
+  private TypeAheadService typeAheadService;
+
+  private UUID id = UUID.randomUUID();
+
+  @Before
+  @SuppressWarnings("unchecked")
+  public void setUp() {
+    when(template.query(anyString(), any(RowMapper.class), anyVararg()))
+        .thenAnswer(invocation -> {
+          RowMapper<TypeAheadResultDto> mapper =
+              (RowMapper<TypeAheadResultDto>) invocation.getArguments()[1];
+          ResultSet resultSet = mock(ResultSet.class);
+          when(resultSet.getString("id")).thenReturn(id.toString());
+          when(resultSet.getString("code")).thenReturn("HC01");
+          when(resultSet.getString("name")).thenReturn("Comfort Health Clinic");
+          return Collections.singletonList(mapper.mapRow(resultSet, 0));
+        });
+  }
+
+  @Test
+  public void shouldMatchCodeAndNameIgnoringCase() {
+    List<TypeAheadResultDto> results = typeAheadService.search(Target.FACILITIES, " hc0 ", 5);
+
+    assertEquals(1, results.size());
+    assertEquals(new TypeAheadResultDto(id, "HC01", "Comfort Health Clinic"), results.get(0));
+    verify(template).query(eq(Target.FACILITIES.getSql()), any(RowMapper.class),
+        eq("%HC0%"), eq("%HC0%"), eq("HC0"), eq("HC0%"), eq("HC0%"), eq(5));
+  }
+
+  @Test
+  public void shouldMatchWildcardsLiterally() {
+    typeAheadService.search(Target.ORDERABLES, "10%_", 5);
+
+    verify(template).query(eq(Target.ORDERABLES.getSql()), any(RowMapper.class),
+        eq("%10\\%\\_%"), eq("%10\\%\\_%"), eq("10%_"), eq("10\\%\\_%"), eq("10\\%\\_%"), eq(5));
+  }
+
+  @Test
+  public void shouldUseDefaultLimitIfNoneIsGiven() {
+    typeAheadService.search(Target.SUPERVISORY_NODES, "node", null);
+
+    verify(template).query(anyString(), any(RowMapper.class), anyString(), anyString(),
+        anyString(), anyString(), anyString(), eq(TypeAheadService.DEFAULT_LIMIT));
+  }
+
+  @Test
+  public void shouldNotReturnMoreThanMaxLimit() {
+    typeAheadService.search(Target.SUPERVISORY_NODES, "node", 1000);
+
+    verify(template).query(anyString(), any(RowMapper.class), anyString(), anyString(),
+        anyString(), anyString(), anyString(), eq(TypeAheadService.MAX_LIMIT));
+  }
+
+  @Test
+  public void shouldNotSearchForBlankTerm() {
+    List<TypeAheadResultDto> results = typeAheadService.search(Target.FACILITIES, "  ", 5);
+
+    assertTrue(results.isEmpty());
+    verifyZeroInteractions(template);
+  }
+
+  @Test
+  public void shouldSearchInTableOfTarget() {
+    assertTrue(Target.FACILITIES.getSql().contains("FROM referencedata.facilities t"));
+    assertTrue(Target.ORDERABLES.getSql().contains("UPPER(t.fullproductname) LIKE ?"));
+    assertTrue(Target.SUPERVISORY_NODES.getSql()
+        .contains("FROM referencedata.supervisory_nodes t"));
+  }
+}
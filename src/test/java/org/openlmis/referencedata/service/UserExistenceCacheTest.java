@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.referencedata.repository.UserRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.UUID;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserExistenceCacheTest {
+
+  @Mock
+  private UserRepository userRepository;
+
+  @InjectMocks
+  private UserExistenceCache userExistenceCache;
+
+  private UUID userId = UUID.randomUUID();
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(userExistenceCache, "timeToLive", 60000L);
+  }
+
+  @Test
+  public void shouldCacheExistingUsers() {
+    when(userRepository.exists(userId)).thenReturn(true);
+
+    assertTrue(userExistenceCache.exists(userId));
+    assertTrue(userExistenceCache.exists(userId));
+
+    verify(userRepository, times(1)).exists(userId);
+  }
+
+  @Test
+  public void shouldNotCacheMissingUsers() {
+    when(userRepository.exists(userId)).thenReturn(false);
+
+    assertFalse(userExistenceCache.exists(userId));
+    assertFalse(userExistenceCache.exists(userId));
+
+    verify(userRepository, times(2)).exists(userId);
+  }
+
+  @Test
+  public void shouldCheckUserAgainAfterEviction() {
+    when(userRepository.exists(userId)).thenReturn(true).thenReturn(false);
+
+    assertTrue(userExistenceCache.exists(userId));
+    userExistenceCache.evict(userId);
+
+    assertFalse(userExistenceCache.exists(userId));
+  }
+
+  @Test
+  public void shouldNotCacheIfTimeToLiveIsNotPositive() {
+    ReflectionTestUtils.setField(userExistenceCache, "timeToLive", 0L);
+    when(userRepository.exists(userId)).thenReturn(true);
+
+    userExistenceCache.exists(userId);
+    userExistenceCache.exists(userId);
+
+    verify(userRepository, times(2)).exists(userId);
+  }
+}
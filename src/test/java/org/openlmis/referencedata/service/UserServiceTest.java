@@ -20,7 +20,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -56,7 +55,6 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
@@ -141,17 +139,15 @@ public class UserServiceTest {
             any(Boolean.class),
             any(Boolean.class),
             any(Boolean.class),
-            any(List.class),
+            any(String.class),
             any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), null, 2));
 
     userSearch.extraData = extraData;
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(Arrays.asList(user, user2));
 
     Page<User> receivedUsers = userService.searchUsers(userSearch, pageable);
 
     assertEquals(2, receivedUsers.getContent().size());
-    verify(userRepository).findByExtraData(extraDataString);
     verify(userRepository).searchUsers(
         null,
         FIRST_NAME_SEARCH,
@@ -161,47 +157,10 @@ public class UserServiceTest {
         null,
         null,
         null,
-        Arrays.asList(user, user2),
+        extraDataString,
         pageable);
   }
 
-  @Test
-  public void searchUsersShouldReturnEmptyPageIfExtraDataSearchReturnedNoResults() {
-    when(userRepository
-        .searchUsers(
-            any(String.class),
-        eq(FIRST_NAME_SEARCH),
-            any(String.class),
-            any(String.class),
-            any(UUID.class),
-            any(Boolean.class),
-            any(Boolean.class),
-            any(Boolean.class),
-            any(List.class),
-            any(Pageable.class)))
-        .thenReturn(Pagination.getPage(Arrays.asList(user, user2), null, 2));
-
-    userSearch.extraData = extraData;
-
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(Collections.emptyList());
-
-    Page<User> receivedUsers = userService.searchUsers(userSearch, pageable);
-
-    assertEquals(0, receivedUsers.getContent().size());
-    verify(userRepository).findByExtraData(extraDataString);
-    verify(userRepository, never()).searchUsers(
-        any(String.class),
-        any(String.class),
-        any(String.class),
-        any(String.class),
-        any(UUID.class),
-        any(Boolean.class),
-        any(Boolean.class),
-        any(Boolean.class),
-        any(List.class),
-        any(Pageable.class));
-  }
-
   @Test
   public void searchUsersShouldNotSearchExtraDataIfParameterIsNullOrEmpty() {
     when(userRepository
@@ -214,7 +173,7 @@ public class UserServiceTest {
             any(Boolean.class),
             any(Boolean.class),
             any(Boolean.class),
-            any(List.class),
+            any(String.class),
             any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), null, 2));
 
@@ -223,7 +182,6 @@ public class UserServiceTest {
     assertEquals(2, receivedUsers.getContent().size());
     assertTrue(receivedUsers.getContent().contains(user));
     assertTrue(receivedUsers.getContent().contains(user2));
-    verify(userRepository, never()).findByExtraData(any(String.class));
     verify(userRepository).searchUsers(
         null,
         FIRST_NAME_SEARCH,
@@ -249,7 +207,7 @@ public class UserServiceTest {
             any(Boolean.class),
             any(Boolean.class),
             any(Boolean.class),
-            any(List.class),
+            any(String.class),
             any(Pageable.class)))
         .thenReturn(Pagination.getPage(Arrays.asList(user, user2), null, 2));
 
@@ -262,9 +220,6 @@ public class UserServiceTest {
     when(facilityRepository.findOne(UUID.fromString(searchParams.homeFacilityId)))
         .thenReturn(homeFacility);
 
-    List<User> foundUsers = Arrays.asList(user, user2);
-    when(userRepository.findByExtraData(any(String.class))).thenReturn(foundUsers);
-
     Page<User> receivedUsers = userService.searchUsers(searchParams, pageable);
 
     assertEquals(2, receivedUsers.getContent().size());
@@ -279,7 +234,7 @@ public class UserServiceTest {
         searchParams.active,
         searchParams.verified,
         searchParams.loginRestricted,
-        foundUsers,
+        extraDataString,
         pageable);
   }
 
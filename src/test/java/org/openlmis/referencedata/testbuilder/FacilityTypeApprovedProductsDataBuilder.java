@@ -42,6 +42,16 @@ public class FacilityTypeApprovedProductsDataBuilder {
     maxPeriodsOfStock = 1.0;
   }
 
+  public FacilityTypeApprovedProductsDataBuilder withOrderable(Orderable orderable) {
+    this.orderable = orderable;
+    return this;
+  }
+
+  public FacilityTypeApprovedProductsDataBuilder withProgram(Program program) {
+    this.program = program;
+    return this;
+  }
+
   /**
    * Builds instance of {@link FacilityTypeApprovedProduct}.
    */
@@ -0,0 +1,140 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.Facility;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.UUID;
+
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class KeysetPageRequestTest {
+
+  private Pageable pageable = new PageRequest(3, 10);
+  private UUID id = UUID.fromString("f9c29d4a-9c4b-4b5b-8e0f-2e1b2bd0b5a7");
+
+  @Test
+  public void shouldReturnGivenPageableWithoutCursor() {
+    assertSame(pageable, KeysetPageRequest.of(pageable, null));
+    assertFalse(KeysetPageRequest.isKeyset(pageable));
+    assertNull(KeysetPageRequest.getAfter(pageable));
+  }
+
+  @Test
+  public void shouldCreateFirstPageForEmptyCursor() {
+    Pageable keyset = KeysetPageRequest.of(pageable, "");
+
+    assertTrue(KeysetPageRequest.isKeyset(keyset));
+    assertNull(KeysetPageRequest.getAfter(keyset));
+    assertEquals(0, keyset.getPageNumber());
+    assertEquals(10, keyset.getPageSize());
+    assertEquals(new Sort(KeysetPageRequest.ID), keyset.getSort());
+  }
+
+  @Test
+  public void shouldDecodeEncodedCursor() {
+    Pageable keyset = KeysetPageRequest.of(pageable, KeysetPageRequest.encode(id));
+
+    assertEquals(id, KeysetPageRequest.getAfter(keyset));
+    assertEquals(0, keyset.getPageNumber());
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldRejectMalformedCursor() {
+    KeysetPageRequest.of(pageable, "not a cursor!");
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldRejectCursorOfWrongLength() {
+    KeysetPageRequest.of(pageable, "YWJj");
+  }
+
+  @Test
+  public void shouldReturnCursorOfLastElementIfThereAreMorePages() {
+    Pageable keyset = new KeysetPageRequest(2, null);
+    Page<Facility> page = new PageImpl<>(
+        Lists.newArrayList(new Facility(UUID.randomUUID()), new Facility(id)), keyset, 3);
+
+    String cursor = KeysetPageRequest.getNextCursor(keyset, page);
+
+    assertEquals(id, KeysetPageRequest.getAfter(KeysetPageRequest.of(pageable, cursor)));
+  }
+
+  @Test
+  public void shouldNotReturnCursorOfLastPage() {
+    Pageable keyset = new KeysetPageRequest(2, null);
+    Page<Facility> page = new PageImpl<>(
+        Lists.newArrayList(new Facility(UUID.randomUUID()), new Facility(id)), keyset, 2);
+
+    assertNull(KeysetPageRequest.getNextCursor(keyset, page));
+  }
+
+  @Test
+  public void shouldFetchOneMoreElementThanPageSize() {
+    assertEquals(3, KeysetPageRequest.getFetchSize(new KeysetPageRequest(2, null)));
+    assertEquals(Integer.MAX_VALUE,
+        KeysetPageRequest.getFetchSize(new KeysetPageRequest(Integer.MAX_VALUE, null)));
+  }
+
+  @Test
+  public void shouldCreatePageWithNextOneIfExtraElementWasFetched() {
+    Pageable keyset = new KeysetPageRequest(2, null);
+    List<Facility> fetched = Lists.newArrayList(new Facility(UUID.randomUUID()),
+        new Facility(id), new Facility(UUID.randomUUID()));
+
+    Page<Facility> page = KeysetPageRequest.getPage(fetched, keyset);
+
+    assertEquals(fetched.subList(0, 2), page.getContent());
+    assertTrue(page.hasNext());
+    assertEquals(id, KeysetPageRequest.getAfter(
+        KeysetPageRequest.of(pageable, KeysetPageRequest.getNextCursor(keyset, page))));
+  }
+
+  @Test
+  public void shouldCreateLastPageIfNoExtraElementWasFetched() {
+    Pageable keyset = new KeysetPageRequest(2, null);
+    List<Facility> fetched = Lists.newArrayList(new Facility(UUID.randomUUID()),
+        new Facility(id));
+
+    Page<Facility> page = KeysetPageRequest.getPage(fetched, keyset);
+
+    assertEquals(fetched, page.getContent());
+    assertFalse(page.hasNext());
+    assertNull(KeysetPageRequest.getNextCursor(keyset, page));
+  }
+
+  @Test
+  public void shouldNotReturnCursorForOffsetPagination() {
+    Page<Facility> page = new PageImpl<>(
+        Lists.newArrayList(new Facility(UUID.randomUUID()), new Facility(id)), pageable, 100);
+
+    assertNull(KeysetPageRequest.getNextCursor(pageable, page));
+  }
+}
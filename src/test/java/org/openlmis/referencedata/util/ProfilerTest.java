@@ -0,0 +1,129 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+
+package org.openlmis.referencedata.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.util.ProfilerRegistry.Timer;
+
+import java.util.Map;
+
+public class ProfilerTest {
+
+  private static final String OPERATION = "OPERATION";
+  private static final String FIRST_STAGE = "FIRST";
+  private static final String SECOND_STAGE = "SECOND";
+
+  @Before
+  public void setUp() {
+    ProfilerRegistry.reset();
+    ProfilerRegistry.configure(true, 1);
+  }
+
+  @After
+  public void tearDown() {
+    ProfilerRegistry.reset();
+    ProfilerRegistry.configure(true, 1);
+  }
+
+  @Test
+  public void shouldRecordStagesAndTotalOfOperation() {
+    for (int i = 0; i < 3; ++i) {
+      Profiler profiler = new Profiler(OPERATION);
+      profiler.start(FIRST_STAGE);
+      profiler.start(SECOND_STAGE);
+      profiler.stop();
+    }
+
+    Map<String, Timer> stages = ProfilerRegistry.getTimers().get(OPERATION).getStages();
+    assertEquals(3, stages.size());
+    assertEquals(3, stages.get(FIRST_STAGE).getCount());
+    assertEquals(3, stages.get(SECOND_STAGE).getCount());
+    assertEquals(3, stages.get(Profiler.TOTAL).getCount());
+  }
+
+  @Test
+  public void shouldRecordStagesOnlyOnceIfStoppedTwice() {
+    Profiler profiler = new Profiler(OPERATION);
+    profiler.start(FIRST_STAGE);
+    profiler.stop();
+    profiler.stop();
+    profiler.start(SECOND_STAGE);
+
+    Map<String, Timer> stages = ProfilerRegistry.getTimers().get(OPERATION).getStages();
+    assertEquals(2, stages.size());
+    assertEquals(1, stages.get(FIRST_STAGE).getCount());
+    assertEquals(1, stages.get(Profiler.TOTAL).getCount());
+  }
+
+  @Test
+  public void shouldNotRecordAnythingIfDisabled() {
+    ProfilerRegistry.configure(false, 1);
+
+    Profiler profiler = new Profiler(OPERATION);
+    profiler.start(FIRST_STAGE);
+    profiler.stop();
+
+    assertFalse(profiler.isSampled());
+    assertTrue(ProfilerRegistry.getTimers().isEmpty());
+  }
+
+  @Test
+  public void shouldProfileOnlySampleOfOperations() {
+    ProfilerRegistry.configure(true, 10);
+
+    int sampled = 0;
+    for (int i = 0; i < 10000; ++i) {
+      Profiler profiler = new Profiler(OPERATION);
+      profiler.start(FIRST_STAGE);
+      profiler.stop();
+      if (profiler.isSampled()) {
+        sampled++;
+      }
+    }
+
+    Timer total = ProfilerRegistry.getTimers().get(OPERATION).getStages().get(Profiler.TOTAL);
+    assertEquals(sampled, total.getCount());
+    assertTrue("sampled " + sampled, sampled > 500 && sampled < 1500);
+  }
+
+  @Test
+  public void shouldEstimatePercentilesFromHistogram() {
+    Timer timer = new Timer();
+    for (int i = 0; i < 99; ++i) {
+      timer.record(1_500_000);
+    }
+    timer.record(100_000_000);
+
+    assertEquals(100, timer.getCount());
+    assertEquals(248.5, timer.getTotalMillis(), 0.001);
+    assertEquals(100, timer.getMaxMillis(), 0.001);
+    assertEquals(2.048, timer.getPercentileMillis(0.5), 0.001);
+    assertEquals(2.048, timer.getPercentileMillis(0.99), 0.001);
+    assertEquals(131.072, timer.getPercentileMillis(1), 0.001);
+  }
+
+  @Test
+  public void shouldReturnZeroPercentileIfNothingWasRecorded() {
+    assertEquals(0, new Timer().getPercentileMillis(0.95), 0);
+  }
+}
@@ -15,9 +15,14 @@
 
 package org.openlmis.referencedata.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -29,19 +34,32 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.core.io.Resource;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 
 @RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
 public class Resource2DbTest {
 
   @Mock
   private JdbcTemplate template;
 
+  @Mock
+  private Connection connection;
+
   @InjectMocks
   private Resource2Db resource2Db;
 
@@ -103,4 +121,71 @@ public class Resource2DbTest {
   public void insertToDbFromCsvWithNullResourceShouldThrowException() throws IOException {
     resource2Db.insertToDbFromCsv("test", null);
   }
+
+  @Test
+  public void copyToDbShouldStreamRowsAsCsvWhenConnectionSupportsCopy() throws SQLException {
+    // given
+    mockConnection();
+    when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+    PGConnection pgConnection = mock(PGConnection.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    CopyManager copyManager = mock(CopyManager.class);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    CopyIn copyIn = mock(CopyIn.class);
+    when(copyManager.copyIn(any(String.class))).thenReturn(copyIn);
+    when(copyIn.endCopy()).thenReturn(2L);
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    doAnswer(invocation -> {
+      written.write((byte[]) invocation.getArguments()[0], (int) invocation.getArguments()[1],
+          (int) invocation.getArguments()[2]);
+      return null;
+    }).when(copyIn).writeToCopy(any(byte[].class), anyInt(), anyInt());
+
+    // when
+    long copied = resource2Db.copyToDb("sometable", Arrays.asList("a", "b", "c"),
+        Arrays.asList(new Object[]{"plain", null, "with \"quotes\", comma"},
+            new Object[]{1, "", true}).iterator());
+
+    // then
+    assertEquals(2L, copied);
+    verify(copyManager).copyIn("COPY sometable (a,b,c) FROM STDIN WITH (FORMAT csv)");
+    assertEquals("\"plain\",,\"with \"\"quotes\"\", comma\"\n\"1\",\"\",\"true\"\n",
+        new String(written.toByteArray(), StandardCharsets.UTF_8));
+    verify(template, never()).batchUpdate(any(String.class), any(List.class));
+  }
+
+  @Test
+  public void copyToDbShouldFallBackToBatchedInsertsWhenCopyIsNotSupported()
+      throws SQLException {
+    // given
+    mockConnection();
+    when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+    when(template.batchUpdate(any(String.class), any(List.class))).thenReturn(new int[]{1, 1});
+
+    // when
+    long copied = resource2Db.copyToDb("sometable", Arrays.asList("a", "b"),
+        Arrays.asList(new Object[]{"a1", "b1"}, new Object[]{"a2", "b2"}).iterator());
+
+    // then
+    assertEquals(2L, copied);
+    verify(template).batchUpdate(eq("INSERT INTO sometable (a,b) VALUES (?,?)"),
+        any(List.class));
+    verify(connection, never()).unwrap(PGConnection.class);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void copyToDbWithBlankTableNameShouldThrowException() {
+    resource2Db.copyToDb("", Arrays.asList("a"), Arrays.<Object[]>asList().iterator());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void copyToDbWithoutColumnsShouldThrowException() {
+    resource2Db.copyToDb("test", Arrays.asList(), Arrays.<Object[]>asList().iterator());
+  }
+
+  private void mockConnection() {
+    when(template.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+        ((ConnectionCallback) invocation.getArguments()[0]).doInConnection(connection));
+  }
 }
@@ -23,7 +23,6 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 import static org.openlmis.referencedata.domain.Orderable.COMMODITY_TYPE;
 import static org.openlmis.referencedata.domain.Orderable.TRADE_ITEM;
-import static org.openlmis.referencedata.util.Pagination.DEFAULT_PAGE_NUMBER;
 
 import com.google.common.collect.Lists;
 
@@ -35,28 +34,16 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.referencedata.domain.CommodityType;
 import org.openlmis.referencedata.domain.Orderable;
 import org.openlmis.referencedata.domain.TradeItem;
-import org.openlmis.referencedata.repository.CommodityTypeRepository;
-import org.openlmis.referencedata.repository.OrderableRepository;
-import org.openlmis.referencedata.repository.TradeItemRepository;
+import org.openlmis.referencedata.service.OrderableFulfillIndex;
 import org.openlmis.referencedata.testbuilder.CommodityTypeDataBuilder;
 import org.openlmis.referencedata.testbuilder.OrderableDataBuilder;
 import org.openlmis.referencedata.testbuilder.TradeItemDataBuilder;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 
 @RunWith(MockitoJUnitRunner.class)
 public class OrderableFulfillFactoryTest {
 
   @Mock
-  private OrderableRepository orderableRepository;
-
-  @Mock
-  private TradeItemRepository tradeItemRepository;
-
-  @Mock
-  private CommodityTypeRepository commodityTypeRepository;
+  private OrderableFulfillIndex orderableFulfillIndex;
 
   @InjectMocks
   private OrderableFulfillFactory factory;
@@ -74,14 +61,11 @@ public class OrderableFulfillFactoryTest {
       .withIdentifier(COMMODITY_TYPE, commodityType.getId())
       .build();
 
-  private Pageable pageable = new PageRequest(DEFAULT_PAGE_NUMBER, 2000);
-
   @Test
   public void shouldCreateResourceForTradeItem() {
-    when(tradeItemRepository.findOne(tradeItem.getId())).thenReturn(tradeItem);
-    when(commodityTypeRepository.findAll(pageable)).thenReturn(getPage(commodityType));
-    when(orderableRepository.findAllByIdentifier(COMMODITY_TYPE, commodityType.getId().toString()))
-        .thenReturn(Lists.newArrayList(commodityTypeOrderable));
+    when(orderableFulfillIndex.findCommodityTypeOrderables(tradeItem.getId(),
+        tradeItemOrderable.getDispensable()))
+        .thenReturn(Lists.newArrayList(commodityTypeOrderable.getId()));
 
     OrderableFulfill response = factory.createFor(tradeItemOrderable);
     assertThat(response.getCanFulfillForMe(), hasSize(0));
@@ -91,10 +75,9 @@ public class OrderableFulfillFactoryTest {
 
   @Test
   public void shouldCreateResourceForCommodityType() {
-    when(commodityTypeRepository.findOne(commodityType.getId())).thenReturn(commodityType);
-    when(tradeItemRepository.findAll(pageable)).thenReturn(getPage(tradeItem));
-    when(orderableRepository.findAllByIdentifier(TRADE_ITEM, tradeItem.getId().toString()))
-        .thenReturn(Lists.newArrayList(tradeItemOrderable));
+    when(orderableFulfillIndex.findTradeItemOrderables(commodityType.getId(),
+        commodityTypeOrderable.getDispensable()))
+        .thenReturn(Lists.newArrayList(tradeItemOrderable.getId()));
 
     OrderableFulfill response = factory.createFor(commodityTypeOrderable);
     assertThat(response.getCanFulfillForMe(), hasSize(1));
@@ -107,9 +90,4 @@ public class OrderableFulfillFactoryTest {
     OrderableFulfill response = factory.createFor(new OrderableDataBuilder().build());
     assertThat(response, is(nullValue()));
   }
-
-  @SafeVarargs
-  private final <T> Page<T> getPage(T... instance) {
-    return new PageImpl<>(Lists.newArrayList(instance));
-  }
 }
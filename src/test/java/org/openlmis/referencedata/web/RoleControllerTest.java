@@ -35,7 +35,8 @@ import org.openlmis.referencedata.dto.RoleDto;
 import org.openlmis.referencedata.exception.NotFoundException;
 import org.openlmis.referencedata.repository.RightRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
-import org.openlmis.referencedata.service.RightAssignmentService;
+import org.openlmis.referencedata.service.IncrementalRightAssignmentService;
+import org.openlmis.referencedata.service.RightAssignmentRegenerationScheduler;
 import org.openlmis.referencedata.service.RightService;
 import org.springframework.dao.DataIntegrityViolationException;
 
@@ -52,7 +53,10 @@ public class RoleControllerTest {
   private RightService rightService;
   
   @Mock
-  private RightAssignmentService rightAssignmentService;
+  private IncrementalRightAssignmentService rightAssignmentService;
+
+  @Mock
+  private RightAssignmentRegenerationScheduler rightAssignmentRegenerationScheduler;
 
   @InjectMocks
   private RoleController controller = new RoleController();
@@ -68,6 +72,7 @@ public class RoleControllerTest {
   private List<Role> roles;
   private RoleDto role1Dto;
   private UUID roleId;
+  private Set<UUID> affectedUsers;
 
   /**
    * Constructor for test.
@@ -93,6 +98,9 @@ public class RoleControllerTest {
     when(repository.findFirstByName(role1Name)).thenReturn(role1);
     when(rightRepository.findFirstByName(right1Name)).thenReturn(right1);
     when(rightRepository.findFirstByName(right2Name)).thenReturn(right2);
+
+    affectedUsers = Collections.singleton(UUID.randomUUID());
+    when(rightAssignmentService.getUsersAffectedByRole(roleId)).thenReturn(affectedUsers);
   }
 
   @Test
@@ -165,7 +173,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).scheduleRegeneration(affectedUsers);
   }
 
   @Test
@@ -182,7 +190,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).scheduleRegeneration(affectedUsers);
   }
 
   @Test
@@ -202,7 +210,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).scheduleRegeneration(affectedUsers);
   }
 
   @Test
@@ -222,7 +230,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).scheduleRegeneration(affectedUsers);
   }
 
   @Test
@@ -239,7 +247,7 @@ public class RoleControllerTest {
 
     //then
     verify(repository).saveAndFlush(updatedRole1);
-    verify(rightAssignmentService).regenerateRightAssignments();
+    verify(rightAssignmentRegenerationScheduler).scheduleRegeneration(affectedUsers);
   }
 
   @Test
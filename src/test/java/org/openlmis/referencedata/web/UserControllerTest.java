@@ -17,6 +17,7 @@ package org.openlmis.referencedata.web;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -54,7 +55,10 @@ import org.openlmis.referencedata.repository.RoleAssignmentRepository;
 import org.openlmis.referencedata.repository.RoleRepository;
 import org.openlmis.referencedata.repository.SupervisoryNodeRepository;
 import org.openlmis.referencedata.repository.UserRepository;
+import org.openlmis.referencedata.service.PermissionStringCache;
+import org.openlmis.referencedata.service.PermissionStringCache.PermissionStrings;
 import org.openlmis.referencedata.service.RightService;
+import org.openlmis.referencedata.service.UserExistenceCache;
 import org.openlmis.referencedata.service.UserSearchParams;
 import org.openlmis.referencedata.service.UserService;
 import org.openlmis.referencedata.testbuilder.SupportedProgramDataBuilder;
@@ -63,7 +67,13 @@ import org.openlmis.referencedata.util.UserSearchParamsDataBuilder;
 import org.openlmis.referencedata.validate.UserValidator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.List;
@@ -108,6 +118,12 @@ public class UserControllerTest {
   @Mock
   private UserService userService;
 
+  @Mock
+  private PermissionStringCache permissionStringCache;
+
+  @Mock
+  private UserExistenceCache userExistenceCache;
+
   @InjectMocks
   private UserController controller = new UserController();
 
@@ -271,6 +287,7 @@ public class UserControllerTest {
 
     //then
     verify(repository).save(user1);
+    verify(permissionStringCache).invalidateAfterCommit(user1.getId());
   }
 
   @Test
@@ -445,6 +462,7 @@ public class UserControllerTest {
 
     //then
     verify(repository).delete(userId);
+    verify(permissionStringCache).invalidateAfterCommit(userId);
   }
 
   @Test(expected = NotFoundException.class)
@@ -469,6 +487,39 @@ public class UserControllerTest {
         null);
   }
 
+  @Test
+  public void shouldGetUserPermissionStringsWithEtag() {
+    //given
+    PermissionStrings permissionStrings = mockPermissionStrings();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+
+    //when
+    ResponseEntity<Set<String>> response = controller.getUserPermissionStrings(userId,
+        new ServletWebRequest(request, new MockHttpServletResponse()));
+
+    //then
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(permissionStrings.asSet(), response.getBody());
+    assertEquals("\"" + permissionStrings.getEtag() + "\"", response.getHeaders().getETag());
+  }
+
+  @Test
+  public void shouldNotReturnUserPermissionStringsIfTheyWereNotModified() {
+    //given
+    PermissionStrings permissionStrings = mockPermissionStrings();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+    request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + permissionStrings.getEtag() + "\"");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    //when
+    ResponseEntity<Set<String>> result = controller.getUserPermissionStrings(userId,
+        new ServletWebRequest(request, response));
+
+    //then
+    assertNull(result);
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+  }
+
   @Test(expected = NotFoundException.class)
   public void shouldNotGetUserProgramsForNonExistingUser() {
     //given
@@ -508,4 +559,12 @@ public class UserControllerTest {
     program1.setActive(true);
     homeFacility.setSupportedPrograms(Sets.newHashSet(supportedProgram));
   }
+
+  private PermissionStrings mockPermissionStrings() {
+    PermissionStrings permissionStrings = new PermissionStrings(
+        Collections.singleton(supervisionRight1Name), 0, 0);
+    when(userExistenceCache.exists(userId)).thenReturn(true);
+    when(permissionStringCache.get(userId)).thenReturn(permissionStrings);
+    return permissionStrings;
+  }
 }
@@ -0,0 +1,149 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *  
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. 
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org. 
+ */
+
+package org.openlmis.referencedata.web.csv.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.referencedata.domain.IdealStockAmount;
+import org.openlmis.referencedata.dto.IdealStockAmountCsvModel;
+import org.openlmis.referencedata.exception.ValidationMessageException;
+import org.openlmis.referencedata.validate.CsvHeaderValidator;
+import org.openlmis.referencedata.web.csv.model.ModelClass;
+import org.openlmis.referencedata.web.csv.processor.ParseCommodityType;
+import org.openlmis.referencedata.web.csv.processor.ParseProcessingPeriod;
+import org.openlmis.referencedata.web.csv.recordhandler.RecordProcessor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+public class CsvParserTest {
+
+  private static final String HEADER =
+      "Facility Code, Commodity Type, Period, Ideal Stock Amount\n";
+
+  private CsvParser csvParser = new CsvParser();
+  private ModelClass<IdealStockAmountCsvModel> modelClass =
+      new ModelClass<>(IdealStockAmountCsvModel.class);
+  private CsvHeaderValidator headerValidator = new CsvHeaderValidator();
+  private List<Integer> written = new CopyOnWriteArrayList<>();
+
+  private RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> processor =
+      records -> records
+          .stream()
+          .map(record -> new IdealStockAmount(null, null, null, record.getAmount()))
+          .collect(Collectors.toList());
+
+  @Before
+  public void setUp() {
+    ParseCommodityType.SEPARATOR = "|";
+    ParseProcessingPeriod.SEPARATOR = "|";
+
+    ReflectionTestUtils.setField(csvParser, "chunkSize", 2);
+    ReflectionTestUtils.setField(csvParser, "poolSize", 3);
+    csvParser.init();
+  }
+
+  @After
+  public void tearDown() {
+    csvParser.shutdown();
+  }
+
+  @Test
+  public void shouldWriteAllRecordsInOrderOfFile() throws IOException {
+    int uploaded = csvParser.parse(csv(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11), modelClass,
+        headerValidator, processor, this::write);
+
+    assertEquals(11, uploaded);
+    assertEquals(11, written.size());
+    for (int i = 0; i < written.size(); ++i) {
+      assertEquals(Integer.valueOf(i + 1), written.get(i));
+    }
+  }
+
+  @Test
+  public void shouldReturnZeroForFileWithoutRecords() throws IOException {
+    int uploaded = csvParser.parse(csv(), modelClass, headerValidator, processor, this::write);
+
+    assertEquals(0, uploaded);
+    assertTrue(written.isEmpty());
+  }
+
+  @Test
+  public void shouldNotWriteChunksAfterOneFailedToProcess() throws IOException {
+    RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> failing = records -> {
+      if (records.stream().anyMatch(record -> record.getAmount() == 3)) {
+        throw new IllegalArgumentException("invalid record");
+      }
+      return processor.process(records);
+    };
+
+    try {
+      csvParser.parse(csv(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), modelClass, headerValidator, failing,
+          this::write);
+      fail("Expected processing error");
+    } catch (IllegalArgumentException ex) {
+      assertEquals(Collections.emptyList(), written.stream()
+          .filter(amount -> amount > 2)
+          .collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  public void shouldReportProcessingErrorOfEarlierRowBeforeInvalidRow() throws IOException {
+    RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> failing = records -> {
+      throw new IllegalArgumentException("invalid record");
+    };
+
+    try {
+      csvParser.parse(csv("1", "2", "-3"), modelClass, headerValidator, failing, this::write);
+      fail("Expected processing error");
+    } catch (IllegalArgumentException ex) {
+      assertTrue(written.isEmpty());
+    }
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionForInvalidRow() throws IOException {
+    csvParser.parse(csv("1", "2", "-3"), modelClass, headerValidator, processor, this::write);
+  }
+
+  private void write(Iterable<IdealStockAmount> entities) {
+    entities.forEach(entity -> written.add(entity.getAmount()));
+  }
+
+  private InputStream csv(Object... amounts) {
+    StringBuilder builder = new StringBuilder(HEADER);
+    for (Object amount : amounts) {
+      builder
+          .append("facility-code, system|id, schedule|period, ")
+          .append(amount)
+          .append('\n');
+    }
+    return new ByteArrayInputStream(builder.toString().getBytes(StandardCharsets.UTF_8));
+  }
+}
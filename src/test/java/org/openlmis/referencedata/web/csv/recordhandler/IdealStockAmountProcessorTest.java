@@ -16,7 +16,11 @@
 package org.openlmis.referencedata.web.csv.recordhandler;
 
 import static org.junit.Assert.assertEquals;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.mockito.Matchers.anyCollectionOf;
 import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -44,10 +48,11 @@ import org.openlmis.referencedata.repository.ProcessingScheduleRepository;
 import org.openlmis.referencedata.service.IdealStockAmountService;
 import org.openlmis.referencedata.validate.IdealStockAmountValidator;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
+@SuppressWarnings({"PMD.TooManyMethods"})
 public class IdealStockAmountProcessorTest {
 
   private static final String FACILITY_CODE = "facility-code";
@@ -102,13 +107,14 @@ public class IdealStockAmountProcessorTest {
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
 
-    when(facilityRepository.findByCode(FACILITY_CODE)).thenReturn(Optional.of(facility));
-    when(processingScheduleRepository.findOneByCode(schedule.getCode()))
-        .thenReturn(Optional.of(schedule));
-    when(processingPeriodRepository.findOneByNameAndProcessingSchedule(PERIOD, schedule))
-        .thenReturn(Optional.of(processingPeriod));
-    when(commodityTypeRepository.findByClassificationIdAndClassificationSystem(ID, SYSTEM))
-        .thenReturn(Optional.of(commodityType));
+    when(facilityRepository.findByCodeIn(singleton(FACILITY_CODE)))
+        .thenReturn(singletonList(facility));
+    when(processingScheduleRepository.findByCodeIn(singleton(SCHEDULE)))
+        .thenReturn(singletonList(schedule));
+    when(processingPeriodRepository.findByProcessingScheduleInAndNameIn(singleton(schedule),
+        singleton(PERIOD))).thenReturn(singletonList(processingPeriod));
+    when(commodityTypeRepository.findByClassificationIdIn(singleton(ID)))
+        .thenReturn(singletonList(commodityType));
   }
 
   @Test
@@ -134,7 +140,8 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(facilityRepository.findByCode(FACILITY_CODE)).thenReturn(Optional.empty());
+    when(facilityRepository.findByCodeIn(singleton(FACILITY_CODE)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -146,8 +153,8 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(processingScheduleRepository.findOneByCode(schedule.getCode()))
-        .thenReturn(Optional.empty());
+    when(processingScheduleRepository.findByCodeIn(singleton(SCHEDULE)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -159,8 +166,8 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(processingPeriodRepository.findOneByNameAndProcessingSchedule(PERIOD, schedule))
-        .thenReturn(Optional.empty());
+    when(processingPeriodRepository.findByProcessingScheduleInAndNameIn(singleton(schedule),
+        singleton(PERIOD))).thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
@@ -172,12 +179,71 @@ public class IdealStockAmountProcessorTest {
     idealStockAmountsValidator.validate(isa);
     when(service.search(anyListOf(IdealStockAmount.class)))
         .thenReturn(Collections.emptyList());
-    when(commodityTypeRepository.findByClassificationIdAndClassificationSystem(ID, SYSTEM))
-        .thenReturn(Optional.empty());
+    when(commodityTypeRepository.findByClassificationIdIn(singleton(ID)))
+        .thenReturn(Collections.emptyList());
 
     idealStockAmountProcessor.process(Collections.singletonList(isa));
   }
 
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionIfCommodityTypeFoundInOtherSystem() {
+    CommodityType otherSystemType = new CommodityType();
+    otherSystemType.setClassificationSystem("other-system");
+    otherSystemType.setClassificationId(ID);
+
+    when(commodityTypeRepository.findByClassificationIdIn(singleton(ID)))
+        .thenReturn(singletonList(otherSystemType));
+
+    idealStockAmountProcessor.process(singletonList(createIsaDto()));
+  }
+
+  @Test
+  public void shouldResolveReferencesOnceForChunk() {
+    List<IdealStockAmount> result = idealStockAmountProcessor
+        .process(Arrays.asList(createIsaDto(), createIsaDto(), createIsaDto()));
+
+    assertEquals(3, result.size());
+    verifyReferencesResolved(1);
+  }
+
+  @Test
+  public void shouldResolveReferencesOnceForUpload() {
+    RecordProcessor<IdealStockAmountCsvModel, IdealStockAmount> uploadProcessor =
+        idealStockAmountProcessor.newUploadProcessor();
+
+    uploadProcessor.process(singletonList(createIsaDto()));
+    uploadProcessor.process(singletonList(createIsaDto()));
+
+    verifyReferencesResolved(1);
+  }
+
+  @Test
+  public void shouldResolveReferencesForEachChunkOutsideOfUpload() {
+    idealStockAmountProcessor.process(singletonList(createIsaDto()));
+    idealStockAmountProcessor.process(singletonList(createIsaDto()));
+
+    verifyReferencesResolved(2);
+  }
+
+  @Test
+  public void shouldNotResolveReferencesOfExistingObjects() {
+    when(service.search(anyListOf(IdealStockAmount.class)))
+        .thenReturn(singletonList(idealStockAmount));
+
+    idealStockAmountProcessor.process(singletonList(createIsaDto()));
+
+    verifyReferencesResolved(0);
+  }
+
+  private void verifyReferencesResolved(int times) {
+    verify(facilityRepository, times(times)).findByCodeIn(anyCollectionOf(String.class));
+    verify(processingScheduleRepository, times(times)).findByCodeIn(anyCollectionOf(String.class));
+    verify(processingPeriodRepository, times(times)).findByProcessingScheduleInAndNameIn(
+        anyCollectionOf(ProcessingSchedule.class), anyCollectionOf(String.class));
+    verify(commodityTypeRepository, times(times))
+        .findByClassificationIdIn(anyCollectionOf(String.class));
+  }
+
   private IdealStockAmountCsvModel createIsaDto() {
     BasicFacilityDto facilityDto = new BasicFacilityDto();
     facilityDto.setCode(FACILITY_CODE);
@@ -17,6 +17,7 @@ package org.openlmis.referencedata.web.csv.recordhandler;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -28,8 +29,13 @@ import org.openlmis.referencedata.repository.IdealStockAmountRepository;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 public class IdealStockAmountWriterTest {
@@ -41,14 +47,20 @@ public class IdealStockAmountWriterTest {
   private IdealStockAmountWriter idealStockAmountWriter;
 
   private IdealStockAmount idealStockAmount;
+  private Facility facility;
+  private CommodityType commodityType;
+  private ProcessingPeriod processingPeriod;
 
   @Before
   public void setUp() {
     MockitoAnnotations.initMocks(this);
 
-    Facility facility = new Facility("facility-code");
-    CommodityType commodityType = new CommodityType();
-    ProcessingPeriod processingPeriod = new ProcessingPeriod();
+    facility = new Facility("facility-code");
+    facility.setId(UUID.randomUUID());
+    commodityType = new CommodityType();
+    commodityType.setId(UUID.randomUUID());
+    processingPeriod = new ProcessingPeriod();
+    processingPeriod.setId(UUID.randomUUID());
     processingPeriod.setStartDate(LocalDate.of(2017, 10, 1));
     processingPeriod.setEndDate(LocalDate.of(2017, 10, 30));
 
@@ -64,4 +76,54 @@ public class IdealStockAmountWriterTest {
 
     verify(idealStockAmountRepository).save(Arrays.asList(idealStockAmount));
   }
+
+  @Test
+  public void shouldMergeIdealStockAmountsWithSameKeyInDifferentChunks() {
+    IdealStockAmount duplicate = new IdealStockAmount(facility, commodityType, processingPeriod,
+        456);
+    RecordWriter<IdealStockAmount> uploadWriter = idealStockAmountWriter.newUploadWriter();
+
+    uploadWriter.write(Collections.singletonList(idealStockAmount));
+    uploadWriter.write(Collections.singletonList(duplicate));
+
+    List<List<IdealStockAmount>> saved = captureSaved(2);
+    assertSame(idealStockAmount, saved.get(0).get(0));
+    assertEquals(1, saved.get(1).size());
+    assertSame(idealStockAmount, saved.get(1).get(0));
+    assertEquals(Integer.valueOf(456), idealStockAmount.getAmount());
+  }
+
+  @Test
+  public void shouldMergeIdealStockAmountsWithSameKeyInOneChunk() {
+    IdealStockAmount duplicate = new IdealStockAmount(facility, commodityType, processingPeriod,
+        456);
+
+    idealStockAmountWriter.newUploadWriter().write(Arrays.asList(idealStockAmount, duplicate));
+
+    List<IdealStockAmount> saved = captureSaved(1).get(0);
+    assertEquals(1, saved.size());
+    assertSame(idealStockAmount, saved.get(0));
+    assertEquals(Integer.valueOf(456), idealStockAmount.getAmount());
+  }
+
+  @Test
+  public void shouldNotMergeIdealStockAmountsOfDifferentUploads() {
+    IdealStockAmount duplicate = new IdealStockAmount(facility, commodityType, processingPeriod,
+        456);
+
+    idealStockAmountWriter.newUploadWriter().write(Collections.singletonList(idealStockAmount));
+    idealStockAmountWriter.newUploadWriter().write(Collections.singletonList(duplicate));
+
+    List<List<IdealStockAmount>> saved = captureSaved(2);
+    assertSame(idealStockAmount, saved.get(0).get(0));
+    assertSame(duplicate, saved.get(1).get(0));
+    assertEquals(Integer.valueOf(123), idealStockAmount.getAmount());
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<IdealStockAmount>> captureSaved(int times) {
+    ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+    verify(idealStockAmountRepository, times(times)).save(captor.capture());
+    return (List<List<IdealStockAmount>>) (List<?>) captor.getAllValues();
+  }
 }